@@ -6,7 +6,6 @@ import ca.concordia.pivottable.servicelayer.ConfigurationHolder;
 import ca.concordia.pivottable.servicelayer.CredentialsService;
 import ca.concordia.pivottable.servicelayer.impl.ConfigurationHolderSingleton;
 import ca.concordia.pivottable.utils.*;
-import com.google.gson.Gson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spark.Request;
@@ -31,56 +30,76 @@ public class Application {
        void call(final String path, final Route route);
     }
 
+    /**
+     * Interface representing how a controller is built from the container of a request.
+     * Controllers are registered with their constructor reference, so no reflection happens per request.
+     */
+    @FunctionalInterface
+    interface ControllerConstructor {
+        Controller create(final DependenciesContainer container);
+    }
+
+    /**
+     * Container of the application-scoped dependencies, shared by all the requests.
+     */
+    private static DependenciesContainer applicationContainer;
+
     // define all API endpoints in this map
     // with the associated controller.
-    private static final Map<String, Class> GET;
+    private static final Map<String, ControllerConstructor> GET;
     static
     {
         GET = new HashMap<>();
         // GET endpoints
-        GET.put("/api/checkaccess", DBConnectionCheckController.class);
-        GET.put("/api/tables", TableListController.class);
-        GET.put("/api/rawreport", RawReportController.class);
-        GET.put("/api/login", LoginController.class);
-        GET.put("/api/logout", LogoutController.class);
-        GET.put("/api/register", RegisterController.class);
-        GET.put("/api/userinfo", UserInfoController.class);
-        GET.put("/api/shareableschema/:id", RetrieveSchemaController.class);
-        GET.put("/api/home_schemas", AllUserSchemas.class);
-		GET.put("/api/shared_users/:schemaId", RetrieveSharedSchemaController.class);
-		GET.put("/export_schema/:id", ExportSchemaController.class);
+        GET.put("/api/checkaccess", DBConnectionCheckController::new);
+        GET.put("/api/tables", TableListController::new);
+        GET.put("/api/rawreport", RawReportController::new);
+        GET.put("/api/login", LoginController::new);
+        GET.put("/api/logout", LogoutController::new);
+        GET.put("/api/register", RegisterController::new);
+        GET.put("/api/userinfo", UserInfoController::new);
+        GET.put("/api/shareableschema/:id", RetrieveSchemaController::new);
+        GET.put("/api/home_schemas", AllUserSchemas::new);
+		GET.put("/api/shared_users/:schemaId", RetrieveSharedSchemaController::new);
+		GET.put("/export_schema/:id", ExportSchemaController::new);
+        GET.put("/api/pivottable_jobs/:id", PivotTableJobStatusController::new);
+        GET.put("/api/pivottable_jobs/:id/result", PivotTableJobResultController::new);
+        GET.put("/api/table_statistics/:tableName", TableStatisticsController::new);
     }
 
     // POST routes
-    private static final Map<String, Class> POST;
+    private static final Map<String, ControllerConstructor> POST;
     static
     {
         // "/api" POST endpoints
         POST = new HashMap<>();
         // POST end points. This one is post because there is data in the body provided by the client.
-        POST.put("/api/pivottable", PivotTableController.class);
-        POST.put("/api/shareableschema", SavePivotTableSchemaController.class);
+        POST.put("/api/pivottable", PivotTableController::new);
+        POST.put("/api/shareableschema", SavePivotTableSchemaController::new);
+        POST.put("/api/pivottable_jobs", SubmitPivotTableJobController::new);
     }
 
     // PUT Routes
-    private static final Map<String, Class> PUT;
+    private static final Map<String, ControllerConstructor> PUT;
     static
     {
         PUT = new HashMap<>();
 		// PUT endpoints
-        PUT.put("/api/shared_user", ShareSchemaController.class);
-        PUT.put("/api/import_schema", ImportSchemaController.class);
+        PUT.put("/api/shared_user", ShareSchemaController::new);
+        PUT.put("/api/import_schema", ImportSchemaController::new);
     }
 
     // DELETE routes
-    private static final Map<String, Class> DELETE;
+    private static final Map<String, ControllerConstructor> DELETE;
     static
     {
         DELETE = new HashMap<>();
 		// DELETE endpoints
-        DELETE.put("/api/delete_shared_schema_link/:id", DeleteSharedSchemaLink.class);
-        DELETE.put("/api/delete_schema/:id", DeleteSchemaController.class);
-		DELETE.put("/api/stop_sharing_schema", UnshareSchemaController.class);
+        DELETE.put("/api/delete_shared_schema_link/:id", DeleteSharedSchemaLink::new);
+        DELETE.put("/api/delete_schema/:id", DeleteSchemaController::new);
+		DELETE.put("/api/stop_sharing_schema", UnshareSchemaController::new);
+        DELETE.put("/api/pivottable_cache/:tableName", InvalidatePivotTableCacheController::new);
+        DELETE.put("/api/pivottable_jobs/:id", CancelPivotTableJobController::new);
     }
 
     // UI routes -> will simply render index.html and browserHistory will take care of rendering the right view
@@ -107,16 +126,9 @@ public class Application {
         System.out.println("Application running at http://localhost:" + String.valueOf(port) + ".");
 
 
-        // Dependency injection container is request scoped
-        before((request, response) -> {
-            DependenciesContainer container = new DependenciesContainer();
-            request.attribute("container", container);
-            CredentialsService credentials = container.get("CredentialsService");
-            String userName = request.headers("username");
-            String password = request.headers("password");
-            String dataSource = request.headers("jdbcUrl");
-            credentials.setInformation(dataSource, userName, password);
-        });
+        // Stateless services and data access objects are application scoped,
+        // each API request only gets an overlay holding its credentials
+        applicationContainer = new DependenciesContainer();
 
         defineRoutes();
 
@@ -151,18 +163,33 @@ public class Application {
      * @param map the map
      * @param method the method
      */
-    @SuppressWarnings("unchecked")
-    private static void addMapHandler(final Map<String, Class> map, final RouteFunction method) {
-        for (Map.Entry<String, Class> entry : map.entrySet()) {
+    private static void addMapHandler(final Map<String, ControllerConstructor> map, final RouteFunction method) {
+        for (Map.Entry<String, ControllerConstructor> entry : map.entrySet()) {
+            final ControllerConstructor constructor = entry.getValue();
             method.call(entry.getKey(), ((Request request, Response response) -> {
-                DependenciesContainer container = request.attribute("container");
-                ControllerFactory factory = container.get("ControllerFactory");
-                Controller ctrl = factory.getController(entry.getValue());
+                Controller ctrl = constructor.create(createRequestContainer(request));
                 return ctrl.handle(request, response);
             }));
         }
     }
 
+    /**
+     * Creates the request-scoped overlay of the application container,
+     * holding the data source credentials sent in the request headers.
+     * @param request the request
+     * @return the container of the request
+     */
+    private static DependenciesContainer createRequestContainer(Request request) {
+        DependenciesContainer container = applicationContainer.newRequestScope();
+        request.attribute("container", container);
+        CredentialsService credentials = container.get("CredentialsService");
+        String userName = request.headers("username");
+        String password = request.headers("password");
+        String dataSource = request.headers("jdbcUrl");
+        credentials.setInformation(dataSource, userName, password);
+        return container;
+    }
+
     /**
      * In order to handle browserHistory HTML5 API,
      * the server needs to render the same view for different kinds of routes.
@@ -184,8 +211,7 @@ public class Application {
             ErrorResponse errorResponse = new ErrorResponse(e.getMessage(), 500);
             res.header("Content-Type", "application/json");
             res.status(500);
-            Gson gson = new Gson();
-            res.body(gson.toJson(errorResponse));
+            res.body(GsonRegistry.getGson().toJson(errorResponse));
         });
 
         exception(PivotTableException.class, (e, req, res) -> {
@@ -195,8 +221,7 @@ public class Application {
             ErrorResponse errorResponse = new ErrorResponse(ex.getMessage(),ex.getStatusCode());
             res.header("Content-Type", "application/json");
             res.status(ex.getStatusCode());
-            Gson gson = new Gson();
-            res.body(gson.toJson(errorResponse));
+            res.body(GsonRegistry.getGson().toJson(errorResponse));
         });
     }
 
@@ -0,0 +1,30 @@
+package ca.concordia.pivottable.controller;
+
+import ca.concordia.pivottable.servicelayer.PivotTableJobService;
+import ca.concordia.pivottable.utils.DependenciesContainer;
+import spark.Request;
+import spark.Response;
+
+/**
+ * Cancels a pivot table job, along with the query it is running.
+ */
+public class CancelPivotTableJobController extends Controller {
+
+    private PivotTableJobService jobService;
+
+    /**
+     * All controllers need a constructor that needs the container as argument.
+     *
+     * @param container The DI container
+     */
+    public CancelPivotTableJobController(DependenciesContainer container) {
+        super(container);
+        jobService = container.get("pivotTableJobService");
+    }
+
+    @Override
+    protected Object handleAction(Request request, Response response) throws Exception {
+        String currentUser = request.session().attribute("username");
+        return successObjectResponse(jobService.cancelJob(request.params("id"), currentUser), response);
+    }
+}
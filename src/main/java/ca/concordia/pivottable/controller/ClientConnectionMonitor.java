@@ -0,0 +1,147 @@
+package ca.concordia.pivottable.controller;
+
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.server.HttpChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spark.Request;
+import spark.Response;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletRequestWrapper;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the connection of a request while it is being handled, and runs an action if the client goes away.
+ * Jetty does not read from a connection while a request is handled, so it only notices a closed connection
+ * when the response is written. The monitor reads the socket itself, without blocking: end of stream or a
+ * reset means the client has gone. A client sending data ahead of the response is not a disconnection;
+ * the byte read is lost to Jetty, so the connection is closed once the response is sent and the monitor stops.
+ * Only plain HTTP/1.x connections are watched, as TLS and HTTP/2 frames cannot be read from under Jetty.
+ */
+public class ClientConnectionMonitor implements AutoCloseable {
+
+    private static final long CHECK_INTERVAL_MILLIS = 1000;
+
+    private static final ScheduledExecutorService CHECK_EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "client-connection-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Logger log = LoggerFactory.getLogger(ClientConnectionMonitor.class);
+
+    private final SocketChannel channel;
+    private final Response response;
+    private final Runnable onDisconnect;
+    private ScheduledFuture<?> checkTask;
+    private boolean closed = false;
+    private boolean dataConsumed = false;
+
+    private ClientConnectionMonitor(SocketChannel channel, Response response, Runnable onDisconnect) {
+        this.channel = channel;
+        this.response = response;
+        this.onDisconnect = onDisconnect;
+    }
+
+    /**
+     * Starts watching the connection of a request. The monitor must be closed before the response is written.
+     * @param request The Spark request.
+     * @param response The response object.
+     * @param onDisconnect Action run once, from another thread, if the client goes away
+     * @return The monitor, which does nothing if the connection cannot be watched
+     */
+    public static ClientConnectionMonitor watch(Request request, Response response, Runnable onDisconnect) {
+        ClientConnectionMonitor monitor = new ClientConnectionMonitor(getChannel(request), response, onDisconnect);
+        if (monitor.channel != null) {
+            synchronized (monitor) {
+                monitor.checkTask = CHECK_EXECUTOR.scheduleWithFixedDelay(monitor::check, CHECK_INTERVAL_MILLIS,
+                        CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+        return monitor;
+    }
+
+    /**
+     * Finds the socket of a plain HTTP/1.x request served by Jetty.
+     * @param request The Spark request.
+     * @return The socket, or null if the connection cannot be watched
+     */
+    private static SocketChannel getChannel(Request request) {
+        ServletRequest raw = request.raw();
+        //Spark wraps the Jetty request to cache its body
+        while (raw instanceof ServletRequestWrapper) {
+            raw = ((ServletRequestWrapper) raw).getRequest();
+        }
+        if (!(raw instanceof org.eclipse.jetty.server.Request) || raw.isSecure()
+                || raw.getProtocol() == null || !raw.getProtocol().startsWith("HTTP/1.")) {
+            return null;
+        }
+
+        HttpChannel httpChannel = ((org.eclipse.jetty.server.Request) raw).getHttpChannel();
+        EndPoint endPoint = httpChannel == null ? null : httpChannel.getEndPoint();
+        Object transport = endPoint == null ? null : endPoint.getTransport();
+        //Jetty sockets are non-blocking, reading a blocking one would hang the monitor
+        if (!(transport instanceof SocketChannel) || ((SocketChannel) transport).isBlocking()) {
+            return null;
+        }
+        return (SocketChannel) transport;
+    }
+
+    /**
+     * Reads the socket without blocking to find out whether the client is still connected.
+     */
+    private void check() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+
+            int read;
+            try {
+                read = channel.isOpen() ? channel.read(ByteBuffer.allocate(1)) : -1;
+            } catch (IOException ioe) {
+                read = -1;
+            }
+
+            if (read == 0) {
+                return;
+            }
+            closed = true;
+            checkTask.cancel(false);
+            if (read > 0) {
+                dataConsumed = true;
+                return;
+            }
+        }
+
+        log.info("Client disconnected while its request was being handled.");
+        try {
+            onDisconnect.run();
+        } catch (RuntimeException excp) {
+            log.error("Unexpected exception occurred while handling a client disconnection... " + excp.getMessage());
+        }
+    }
+
+    /**
+     * Stops watching the connection. Waits for a check in progress, so that the socket is no longer read once it returns.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            if (checkTask != null) {
+                checkTask.cancel(false);
+            }
+            if (dataConsumed) {
+                response.header("Connection", "close");
+            }
+        }
+    }
+}
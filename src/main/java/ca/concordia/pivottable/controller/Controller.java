@@ -1,15 +1,19 @@
 package ca.concordia.pivottable.controller;
 
 import ca.concordia.pivottable.utils.DependenciesContainer;
+import ca.concordia.pivottable.utils.GsonRegistry;
 import ca.concordia.pivottable.utils.PivotTableException;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -79,15 +83,30 @@ public abstract class Controller implements Route {
     }
 
     protected String toJson(Object obj, boolean pretty) {
-        Gson gson;
-        if (pretty) {
-            gson = new GsonBuilder().setPrettyPrinting().create();
-        } else {
-            gson = new Gson();
-        }
+        Gson gson = pretty ? GsonRegistry.getPrettyGson() : GsonRegistry.getGson();
         return gson.toJson(obj);
     }
 
+    /**
+     * Writes an object as JSON straight to the response output stream,
+     * so that the JSON string of a large object never has to be held in memory alongside it.
+     * The status and headers must be set before calling this method.
+     * @param obj The object to write
+     * @param response The response object.
+     * @param pretty true to indent the JSON
+     * @return An empty body, the response has already been written
+     */
+    protected String streamJson(Object obj, Response response, boolean pretty) {
+        try {
+            BufferedWriter writer = new BufferedWriter(
+                    new OutputStreamWriter(response.raw().getOutputStream(), StandardCharsets.UTF_8));
+            GsonRegistry.writeJson(obj, obj.getClass(), writer, pretty);
+        } catch (IOException ioe) {
+            log.warn("Response could not be sent to the client... " + ioe.getMessage());
+        }
+        return "";
+    }
+
 
 
 }
@@ -32,6 +32,6 @@ public class ExportSchemaController extends Controller {
         ShareableSchema schema = service.getSchemaById(id, currentUser);
         response.header("Content-Type", "text/json");
         response.header("Content-Disposition", "attachment; filename=\"" + schema.getSchemaName().replace("\"", "") + ".json\"");
-        return toJson(schema, true);
+        return streamJson(schema, response, true);
     }
 }
@@ -0,0 +1,40 @@
+package ca.concordia.pivottable.controller;
+
+import ca.concordia.pivottable.servicelayer.impl.CachingDataRetrievalService;
+import ca.concordia.pivottable.utils.DependenciesContainer;
+import ca.concordia.pivottable.utils.PivotTableException;
+import spark.Request;
+import spark.Response;
+
+/**
+ * Removes the cached pivot tables of a raw report table, once its data has changed.
+ */
+public class InvalidatePivotTableCacheController extends Controller {
+
+    private CachingDataRetrievalService dataRetrievalService;
+
+    /**
+     * All controllers need a constructor that needs the container as argument.
+     *
+     * @param container The DI container
+     */
+    public InvalidatePivotTableCacheController(DependenciesContainer container) {
+        super(container);
+        dataRetrievalService = container.get("cachingDataRetrievalService");
+    }
+
+    @Override
+    protected Object handleAction(Request request, Response response) throws Exception {
+        String tableName = request.params("tableName");
+        if (tableName == null) {
+            throw new PivotTableException("Table name is missing.", 400);
+        }
+        // only callers able to read the data source may invalidate its pivot tables
+        if (!dataRetrievalService.checkDataSourceConnection()) {
+            throw new PivotTableException("Could not connect to the data source.", 403);
+        }
+        int removedCount = dataRetrievalService.invalidateTable(tableName);
+
+        return successResponse("Removed " + removedCount + " cached pivot tables", response);
+    }
+}
@@ -3,6 +3,7 @@ package ca.concordia.pivottable.controller;
 import ca.concordia.pivottable.entities.ApplicationUser;
 import ca.concordia.pivottable.servicelayer.UserManagementService;
 import ca.concordia.pivottable.utils.DependenciesContainer;
+import ca.concordia.pivottable.utils.GsonRegistry;
 import ca.concordia.pivottable.utils.ErrorResponse;
 import com.google.gson.Gson;
 import spark.Request;
@@ -29,7 +30,7 @@ public class LoginController extends Controller {
         final ApplicationUser possibleUser = new ApplicationUser(username, pwd);
         userService.validateLogin(possibleUser);
         response.header("Content-Type", "application/json");
-        Gson gson = new Gson();
+        Gson gson = GsonRegistry.getGson();
         // success logging in
         Session sess = request.session(true);
         log.info("User " + username + " logged in. Creating session");
@@ -1,16 +1,16 @@
 package ca.concordia.pivottable.controller;
 
+import ca.concordia.pivottable.datalayer.DataSourceAccess;
 import ca.concordia.pivottable.entities.PivotTable;
 import ca.concordia.pivottable.entities.PivotTableSchema;
 import ca.concordia.pivottable.servicelayer.DataRetrievalService;
 import ca.concordia.pivottable.utils.DependenciesContainer;
-import ca.concordia.pivottable.entities.DataSet;
-import ca.concordia.pivottable.entities.PivotTableSchema;
 import spark.Request;
 import spark.Response;
 
 public class PivotTableController extends Controller {
     private DataRetrievalService dataRetrievalService;
+    private DataSourceAccess dataSourceAccess;
 
     /**
      * All controllers need a constructor that needs the container as argument.
@@ -21,6 +21,8 @@ public class PivotTableController extends Controller {
 
         super(container);
         dataRetrievalService = container.get("dataRetrievalService");
+        // the data source access of this request, whose statements are cancelled if the client goes away
+        dataSourceAccess = container.get("dataSourceAccess");
     }
 
     @Override
@@ -33,10 +35,16 @@ public class PivotTableController extends Controller {
             response.status(400);
             return null;
         }
-        PivotTable pivotTable = dataRetrievalService.getPivotTable(schema);
+        PivotTable pivotTable;
+        ClientConnectionMonitor monitor = ClientConnectionMonitor.watch(request, response, dataSourceAccess.getQueryLog()::cancel);
+        try {
+            pivotTable = dataRetrievalService.getPivotTable(schema);
+        } finally {
+            monitor.close();
+        }
         response.status(200);
         response.header("Content-Type", "application/json");
-        return pivotTable.toJSON();
+        return streamJson(pivotTable, response, false);
     }
 }
 
@@ -0,0 +1,34 @@
+package ca.concordia.pivottable.controller;
+
+import ca.concordia.pivottable.entities.PivotTable;
+import ca.concordia.pivottable.servicelayer.PivotTableJobService;
+import ca.concordia.pivottable.utils.DependenciesContainer;
+import spark.Request;
+import spark.Response;
+
+/**
+ * Sends the pivot table computed by a completed pivot table job.
+ */
+public class PivotTableJobResultController extends Controller {
+
+    private PivotTableJobService jobService;
+
+    /**
+     * All controllers need a constructor that needs the container as argument.
+     *
+     * @param container The DI container
+     */
+    public PivotTableJobResultController(DependenciesContainer container) {
+        super(container);
+        jobService = container.get("pivotTableJobService");
+    }
+
+    @Override
+    protected Object handleAction(Request request, Response response) throws Exception {
+        String currentUser = request.session().attribute("username");
+        PivotTable pivotTable = jobService.getJobResult(request.params("id"), currentUser);
+        response.status(200);
+        response.header("Content-Type", "application/json");
+        return streamJson(pivotTable, response, false);
+    }
+}
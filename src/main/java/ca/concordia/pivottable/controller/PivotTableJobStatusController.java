@@ -0,0 +1,30 @@
+package ca.concordia.pivottable.controller;
+
+import ca.concordia.pivottable.servicelayer.PivotTableJobService;
+import ca.concordia.pivottable.utils.DependenciesContainer;
+import spark.Request;
+import spark.Response;
+
+/**
+ * Reports the state and progress of a pivot table job.
+ */
+public class PivotTableJobStatusController extends Controller {
+
+    private PivotTableJobService jobService;
+
+    /**
+     * All controllers need a constructor that needs the container as argument.
+     *
+     * @param container The DI container
+     */
+    public PivotTableJobStatusController(DependenciesContainer container) {
+        super(container);
+        jobService = container.get("pivotTableJobService");
+    }
+
+    @Override
+    protected Object handleAction(Request request, Response response) throws Exception {
+        String currentUser = request.session().attribute("username");
+        return successObjectResponse(jobService.getJobStatus(request.params("id"), currentUser), response);
+    }
+}
@@ -2,10 +2,19 @@ package ca.concordia.pivottable.controller;
 
 import ca.concordia.pivottable.servicelayer.DataRetrievalService;
 import ca.concordia.pivottable.utils.DependenciesContainer;
-import ca.concordia.pivottable.entities.DataSet;
+import ca.concordia.pivottable.utils.GsonRegistry;
+import ca.concordia.pivottable.utils.JsonRawReportWriter;
+import ca.concordia.pivottable.utils.PivotTableException;
+import com.google.gson.stream.JsonWriter;
 import spark.Request;
 import spark.Response;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
 
 public class RawReportController extends Controller{
 
@@ -37,10 +46,28 @@ public class RawReportController extends Controller{
         }
         boolean rawreportexists = dataRetrievalService.rawReportExists(name);
         if (rawreportexists) {
-            DataSet rawReport = dataRetrievalService.getRawReport(name);
             response.status(200);
             response.header("Content-Type", "application/json");
-            return rawReport.toJSON();
+
+            // The report is written row by row straight to the response; no content length is set,
+            // so the container sends it with chunked transfer encoding
+            HttpServletResponse rawResponse = response.raw();
+            JsonWriter jsonWriter = new JsonWriter(new BufferedWriter(
+                    new OutputStreamWriter(rawResponse.getOutputStream(), StandardCharsets.UTF_8)));
+            try {
+                boolean reportComplete = dataRetrievalService.streamRawReport(name, new JsonRawReportWriter(GsonRegistry.getGson(), jsonWriter));
+                if (!reportComplete) {
+                    if (!rawResponse.isCommitted()) {
+                        rawResponse.resetBuffer();
+                        throw new PivotTableException("Unable to fetch raw report " + name + ".");
+                    }
+                    // The status is already sent: the unterminated JSON tells the client the report is incomplete
+                    log.error("Raw report " + name + " was interrupted after part of it was sent.");
+                }
+            } catch (IOException ioe) {
+                log.warn("Raw report " + name + " could not be sent to the client... " + ioe.getMessage());
+            }
+            return "";
         }else{
             log.info("Raw report does not exist.");
             response.status(404);
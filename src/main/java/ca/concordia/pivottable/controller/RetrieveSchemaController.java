@@ -31,6 +31,6 @@ public class RetrieveSchemaController extends Controller {
         Long id = Long.parseLong(idStr, 10);
         ShareableSchema schema = service.getSchemaById(id, currentUser);
         response.header("Content-Type", "application/json");
-        return schema.toJSON();
+        return streamJson(schema, response, false);
     }
 }
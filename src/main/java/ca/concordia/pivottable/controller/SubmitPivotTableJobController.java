@@ -0,0 +1,49 @@
+package ca.concordia.pivottable.controller;
+
+import ca.concordia.pivottable.datalayer.DataSourceAccess;
+import ca.concordia.pivottable.entities.PivotTableJobStatus;
+import ca.concordia.pivottable.entities.PivotTableSchema;
+import ca.concordia.pivottable.servicelayer.DataRetrievalService;
+import ca.concordia.pivottable.servicelayer.PivotTableJobService;
+import ca.concordia.pivottable.utils.DependenciesContainer;
+import ca.concordia.pivottable.utils.PivotTableException;
+import spark.Request;
+import spark.Response;
+
+/**
+ * Submits a pivot table to be computed in the background, answering right away with the job status.
+ */
+public class SubmitPivotTableJobController extends Controller {
+
+    private PivotTableJobService jobService;
+    private DataRetrievalService dataRetrievalService;
+    private DataSourceAccess dataSourceAccess;
+
+    /**
+     * All controllers need a constructor that needs the container as argument.
+     *
+     * @param container The DI container
+     */
+    public SubmitPivotTableJobController(DependenciesContainer container) {
+        super(container);
+        jobService = container.get("pivotTableJobService");
+        dataRetrievalService = container.get("dataRetrievalService");
+        // the data source access of this request, which the data retrieval service runs its statements through
+        dataSourceAccess = container.get("dataSourceAccess");
+    }
+
+    @Override
+    protected Object handleAction(Request request, Response response) throws Exception {
+        PivotTableSchema schema = PivotTableSchema.fromJSON(request.body());
+        if (schema == null) {
+            throw new PivotTableException("Pivot table schema is missing.", 400);
+        }
+        String currentUser = request.session().attribute("username");
+        PivotTableJobStatus status = jobService.submitJob(currentUser, schema, dataRetrievalService, dataSourceAccess.getQueryLog());
+
+        response.header("Content-Type", "application/json");
+        response.header("Location", "/api/pivottable_jobs/" + status.getJobId());
+        response.status(202);
+        return toJson(status);
+    }
+}
@@ -2,6 +2,7 @@ package ca.concordia.pivottable.controller;
 
 import ca.concordia.pivottable.servicelayer.DataRetrievalService;
 import ca.concordia.pivottable.utils.DependenciesContainer;
+import ca.concordia.pivottable.utils.GsonRegistry;
 import com.google.gson.Gson;
 import spark.Request;
 import spark.Response;
@@ -36,7 +37,7 @@ public class TableListController extends Controller {
     }
 
     private String toJson(List<String> tableList) {
-        Gson gson = new Gson();
+        Gson gson = GsonRegistry.getGson();
         return gson.toJson(tableList);
     }
 }
@@ -0,0 +1,41 @@
+package ca.concordia.pivottable.controller;
+
+import ca.concordia.pivottable.entities.TableStatistics;
+import ca.concordia.pivottable.servicelayer.DataRetrievalService;
+import ca.concordia.pivottable.utils.DependenciesContainer;
+import ca.concordia.pivottable.utils.PivotTableException;
+import spark.Request;
+import spark.Response;
+
+/**
+ * Reports the column statistics of a raw report table, so that label combinations producing huge pivot tables
+ * can be spotted before they are computed.
+ */
+public class TableStatisticsController extends Controller {
+
+    private DataRetrievalService dataRetrievalService;
+
+    /**
+     * All controllers need a constructor that needs the container as argument.
+     *
+     * @param container The DI container
+     */
+    public TableStatisticsController(DependenciesContainer container) {
+        super(container);
+        dataRetrievalService = container.get("dataRetrievalService");
+    }
+
+    @Override
+    protected Object handleAction(Request request, Response response) throws Exception {
+        String tableName = request.params("tableName");
+        if (tableName == null || !dataRetrievalService.rawReportExists(tableName)) {
+            throw new PivotTableException("Table " + tableName + " not found.", 404);
+        }
+        TableStatistics statistics = dataRetrievalService.getTableStatistics(tableName);
+        if (statistics == null) {
+            // computed in the background, the client polls again
+            return jsonResponse("The statistics of table " + tableName + " are being computed.", response, 202);
+        }
+        return successObjectResponse(statistics, response);
+    }
+}
@@ -0,0 +1,44 @@
+package ca.concordia.pivottable.datalayer;
+
+import java.util.Arrays;
+import java.util.List;
+import ca.concordia.pivottable.datalayer.aggregation.Accumulators;
+
+/**
+ * Ways the cells of a pivot table can be aggregated from the raw rows of a table.
+ */
+public enum AggregationMethod
+{
+	/**
+	 * The database groups the raw rows itself, and only the cells are read.
+	 */
+	PUSHDOWN,
+
+	/**
+	 * The raw rows are read by a single query and aggregated by the application while they are read.
+	 */
+	LOCAL_STREAMING,
+
+	/**
+	 * The raw rows are read in key ranges on several connections at the same time, and their groups merged by the application.
+	 */
+	PARTITIONED_SCAN;
+
+	/**
+	 * Summary functions that the database can compute natively in a GROUP BY query.
+	 */
+	private static final List<String> PUSHDOWN_FUNCTIONS = Arrays.asList("sum", "count", "min", "max", "avg");
+
+	/**
+	 * Checks if a summary function can be calculated this way.
+	 * @param	functionName	Name of the function selected as part of pivot table schema
+	 * @return	true, if the cells can be aggregated this way
+	 */
+	public boolean supports(String functionName)
+	{
+		if (this == PUSHDOWN)
+			return functionName != null && PUSHDOWN_FUNCTIONS.contains(functionName.toLowerCase());
+
+		return Accumulators.isSupported(functionName);
+	}
+}
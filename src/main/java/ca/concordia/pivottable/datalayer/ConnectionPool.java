@@ -0,0 +1,35 @@
+package ca.concordia.pivottable.datalayer;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Defines the interface of a pool of reusable database connections for one set of credentials.
+ */
+public interface ConnectionPool
+{
+	/**
+	 * Borrows a connection from the pool, opening a new one if none is idle and the pool is not full.
+	 * Closing the returned connection gives it back to the pool.
+	 * @return	A validated database connection
+	 * @throws	SQLException	if no connection could be opened or none became available in time
+	 */
+	Connection getConnection() throws SQLException;
+	
+	/**
+	 * Closes the idle connections that have been unused or open for too long,
+	 * and opens connections until the minimum pool size is reached.
+	 */
+	void maintain();
+	
+	/**
+	 * Closes all the idle connections. Borrowed connections are closed when they are given back.
+	 */
+	void shutdown();
+	
+	/**
+	 * Fetches the usage statistics of the pool.
+	 * @return	Snapshot of the pool metrics
+	 */
+	ConnectionPoolMetrics getMetrics();
+}
@@ -0,0 +1,97 @@
+package ca.concordia.pivottable.datalayer;
+
+/**
+ * Snapshot of the usage statistics of a connection pool.
+ */
+public class ConnectionPoolMetrics
+{
+	private final String poolName;
+	private final int activeConnections;
+	private final int idleConnections;
+	private final long borrowCount;
+	private final long createdCount;
+	private final long destroyedCount;
+	private final long validationFailureCount;
+	private final long timeoutCount;
+	private final long totalWaitMillis;
+	
+	/**
+	 * Constructor with all the parameters provided.
+	 * @param	poolName				Name identifying the pool (database URL and username)
+	 * @param	activeConnections		Number of connections currently borrowed
+	 * @param	idleConnections			Number of connections currently waiting in the pool
+	 * @param	borrowCount				Number of connections borrowed since the pool was created
+	 * @param	createdCount			Number of connections opened since the pool was created
+	 * @param	destroyedCount			Number of connections closed since the pool was created
+	 * @param	validationFailureCount	Number of idle connections found broken when borrowed
+	 * @param	timeoutCount			Number of borrow attempts that timed out because the pool was full
+	 * @param	totalWaitMillis			Total time spent waiting to borrow connections
+	 */
+	public ConnectionPoolMetrics(String poolName, int activeConnections, int idleConnections, long borrowCount,
+									long createdCount, long destroyedCount, long validationFailureCount,
+									long timeoutCount, long totalWaitMillis)
+	{
+		this.poolName = poolName;
+		this.activeConnections = activeConnections;
+		this.idleConnections = idleConnections;
+		this.borrowCount = borrowCount;
+		this.createdCount = createdCount;
+		this.destroyedCount = destroyedCount;
+		this.validationFailureCount = validationFailureCount;
+		this.timeoutCount = timeoutCount;
+		this.totalWaitMillis = totalWaitMillis;
+	}
+	
+	public String getPoolName()
+	{
+		return poolName;
+	}
+	
+	public int getActiveConnections()
+	{
+		return activeConnections;
+	}
+	
+	public int getIdleConnections()
+	{
+		return idleConnections;
+	}
+	
+	public long getBorrowCount()
+	{
+		return borrowCount;
+	}
+	
+	public long getCreatedCount()
+	{
+		return createdCount;
+	}
+	
+	public long getDestroyedCount()
+	{
+		return destroyedCount;
+	}
+	
+	public long getValidationFailureCount()
+	{
+		return validationFailureCount;
+	}
+	
+	public long getTimeoutCount()
+	{
+		return timeoutCount;
+	}
+	
+	public long getTotalWaitMillis()
+	{
+		return totalWaitMillis;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return poolName + " [active=" + activeConnections + ", idle=" + idleConnections + ", borrowed=" + borrowCount
+				+ ", created=" + createdCount + ", destroyed=" + destroyedCount + ", validationFailures=" + validationFailureCount
+				+ ", timeouts=" + timeoutCount + ", waitMillis=" + totalWaitMillis + "]";
+	}
+}
@@ -0,0 +1,95 @@
+package ca.concordia.pivottable.datalayer;
+
+/**
+ * Sizing and timeout settings of a connection pool.
+ */
+public class ConnectionPoolSettings
+{
+	private int minSize = 0;
+	private int maxSize = 10;
+	private long borrowTimeoutMillis = 30000;
+	private long idleTimeoutMillis = 600000;
+	private long maxLifetimeMillis = 1800000;
+	private int validationTimeoutSeconds = 5;
+	private long connectTimeoutMillis = 0;
+	
+	/**
+	 * Default constructor, using the default settings.
+	 */
+	public ConnectionPoolSettings()
+	{
+		//default settings
+	}
+	
+	/**
+	 * Constructor with all the parameters provided.
+	 * @param	minSize						Number of connections kept open even when unused
+	 * @param	maxSize						Maximum number of connections open at the same time
+	 * @param	borrowTimeoutMillis			Maximum time to wait for a connection when the pool is full
+	 * @param	idleTimeoutMillis			Time after which an unused connection is closed
+	 * @param	maxLifetimeMillis			Time after which a connection is closed, used or not
+	 * @param	validationTimeoutSeconds	Maximum time to wait for a connection to be validated before it is borrowed
+	 */
+	public ConnectionPoolSettings(int minSize, int maxSize, long borrowTimeoutMillis, long idleTimeoutMillis,
+									long maxLifetimeMillis, int validationTimeoutSeconds)
+	{
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.borrowTimeoutMillis = borrowTimeoutMillis;
+		this.idleTimeoutMillis = idleTimeoutMillis;
+		this.maxLifetimeMillis = maxLifetimeMillis;
+		this.validationTimeoutSeconds = validationTimeoutSeconds;
+	}
+	
+	/**
+	 * Constructor with all the parameters provided, including the time allowed to open a connection.
+	 * @param	minSize						Number of connections kept open even when unused
+	 * @param	maxSize						Maximum number of connections open at the same time
+	 * @param	borrowTimeoutMillis			Maximum time to wait for a connection when the pool is full
+	 * @param	idleTimeoutMillis			Time after which an unused connection is closed
+	 * @param	maxLifetimeMillis			Time after which a connection is closed, used or not
+	 * @param	validationTimeoutSeconds	Maximum time to wait for a connection to be validated before it is borrowed
+	 * @param	connectTimeoutMillis		Maximum time to open a connection, 0 to leave it to the driver
+	 */
+	public ConnectionPoolSettings(int minSize, int maxSize, long borrowTimeoutMillis, long idleTimeoutMillis,
+									long maxLifetimeMillis, int validationTimeoutSeconds, long connectTimeoutMillis)
+	{
+		this(minSize, maxSize, borrowTimeoutMillis, idleTimeoutMillis, maxLifetimeMillis, validationTimeoutSeconds);
+		this.connectTimeoutMillis = connectTimeoutMillis;
+	}
+	
+	public int getMinSize()
+	{
+		return minSize;
+	}
+	
+	public int getMaxSize()
+	{
+		return maxSize;
+	}
+	
+	public long getBorrowTimeoutMillis()
+	{
+		return borrowTimeoutMillis;
+	}
+	
+	public long getIdleTimeoutMillis()
+	{
+		return idleTimeoutMillis;
+	}
+	
+	public long getMaxLifetimeMillis()
+	{
+		return maxLifetimeMillis;
+	}
+	
+	public int getValidationTimeoutSeconds()
+	{
+		return validationTimeoutSeconds;
+	}
+	
+	public long getConnectTimeoutMillis()
+	{
+		return connectTimeoutMillis;
+	}
+}
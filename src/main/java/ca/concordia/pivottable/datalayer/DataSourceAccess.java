@@ -1,6 +1,8 @@
 package ca.concordia.pivottable.datalayer;
 
+import java.io.IOException;
 import java.util.List;
+import ca.concordia.pivottable.entities.TableStatistics;
 
 /**
  * Defines the interface for data source access operations.
@@ -44,41 +46,77 @@ public interface DataSourceAccess
 	
 	/**
      * Fetches the names of all available raw report tables from the database. 
+     * They may be served from a cached catalog, without connecting.
      * @return	List of all available raw report table names
-     * 			null, if database connection fails
+     * 			null, if the table names could not be read
      */
 	List<String> getAllRawTableNames();
 	
 	/**
-  	 * Fetches all the data stored in a table in the database.
+	 * Checks if a raw report table exists in the database.
+	 * @param	tableName	Name of the table
+	 * @return	true, if the table exists
+	 * 			false, if it does not exist or the table names could not be read
+	 */
+	boolean tableExists(String tableName);
+	
+	/**
+  	 * Reads all the data stored in a table in the database, handing each record over as soon as it is read.
+  	 * Records are not kept in memory, so the size of the table does not matter.
   	 * @param	tableName	Name of the table whose data needs to be fetched
-  	 * @return	All the data stored in the table.
-  	 * 			null, if database connection fails
+  	 * @param	rowLimit	Maximum number of records to be read
+  	 * @param	rowHandler	Receiver of the records
+  	 * @return	true, if all the records were read
+  	 * 			false, if database connection fails or the read is interrupted by a database error
+  	 * @throws	IOException	if the row handler fails, in which case the read is abandoned
   	 */
-	List<List<Object>> getTableData(String tableName);
+	boolean streamTableData(String tableName, int rowLimit, TableRowHandler rowHandler) throws IOException;
 	
 	/**
   	 * Fetches names and data types of data fields belonging to a table from the database.
+  	 * They may be served from a cached catalog, without connecting.
   	 * @param	tableName	Name of the table whose field details need to be fetched
   	 * @return	List of all data field names and types belonging to the table.
   	 * 			Each element of the list is a String array with index 0 holding the field name 
   	 * 			and index 1 holding the corresponding type
-  	 * 			null, if database connection fails
+  	 * 			null, if the table does not exist or the field details could not be read
   	 */
 	List<String[]> getTableFields(String tableName);
 	
 	/**
-  	 * Executes SQL query on the database and fetches all the values of the selected page label column 
-  	 * @param	pageLabel		Page label column selected as part of pivot table schema
-  	 * @param	tableName		Raw report table name
-  	 * @return	List of page label column values
-  	 */
-	List<String> getPageLabelValues(String pageLabel, String tableName, String filterField, String filterValue,
-									String sortField, String sortOrder);
+	 * Reads the estimates the database keeps of the size of a table, without scanning it.
+	 * @param	tableName	Name of the table
+	 * @return	Estimates of the table, whose values are unknown if the database keeps none
+	 * 			null, if database connection fails or the estimates could not be read
+	 */
+	TableEstimates estimateTable(String tableName);
+	
+	/**
+	 * Fetches the column statistics of a table, computed in the background on first use and cached.
+	 * No connection is needed.
+	 * @param	tableName	Name of the table
+	 * @return	Statistics of the table, possibly out of date
+	 * 			null, if they have not been computed yet
+	 */
+	TableStatistics getTableStatistics(String tableName);
+	
+	/**
+	 * Fetches the number of key ranges a scan of the raw rows of the data source may be split into.
+	 * @return	Number of key ranges, 1 if the rows are scanned by a single query
+	 */
+	int getScanPartitions();
 	
 	/**
 	 * Retrieves pivot table data based on the strategy assigned.
-	 * @return	Pivot table data
+	 * @param	rowLimit	Maximum number of rows to be aggregated into the pivot table
+	 * @return	Pivot table data, along with the page label values it was split by
+	 * 			null, if the data could not be fetched
+	 */
+	PivotTableData executePvtTblStrategy(int rowLimit);
+	
+	/**
+	 * Fetches the log of the statements executed against the data source by this object.
+	 * @return	Query log
 	 */
-	List<List<List<Object>>> executePvtTblStrategy();
+	QueryLog getQueryLog();
 }
@@ -0,0 +1,70 @@
+package ca.concordia.pivottable.datalayer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of the metadata of a data source: its raw report tables and the fields of each of them.
+ * It is read from the database metadata at once and is never modified afterwards, so it can be shared between requests.
+ */
+public class DataSourceCatalog
+{
+	/**
+	 * Fields of every table, keyed by table name in table order.
+	 * Each field is a String array with index 0 holding the field name and index 1 holding the corresponding type.
+	 */
+	private final Map<String, List<String[]>> tableFields;
+	
+	/**
+	 * Time the snapshot was read, in milliseconds since the epoch.
+	 */
+	private final long loadedAt;
+	
+	/**
+	 * Class constructor.
+	 * @param	tableFields	Fields of every table, keyed by table name in table order
+	 * @param	loadedAt	Time the snapshot was read, in milliseconds since the epoch
+	 */
+	public DataSourceCatalog(Map<String, List<String[]>> tableFields, long loadedAt)
+	{
+		this.tableFields = tableFields;
+		this.loadedAt = loadedAt;
+	}
+	
+	/**
+	 * @return	Names of all the tables, in table order
+	 */
+	public List<String> getTableNames()
+	{
+		return new ArrayList<String>(tableFields.keySet());
+	}
+	
+	/**
+	 * Checks if a table exists, with a single lookup.
+	 * @param	tableName	Name of the table
+	 * @return	true, if the table exists
+	 */
+	public boolean hasTable(String tableName)
+	{
+		return tableFields.containsKey(tableName);
+	}
+	
+	/**
+	 * Fetches names and data types of data fields belonging to a table.
+	 * @param	tableName	Name of the table
+	 * @return	List of all data field names and types belonging to the table, in field order
+	 * 			null, if the table does not exist
+	 */
+	public List<String[]> getTableFields(String tableName)
+	{
+		List<String[]> fields = tableFields.get(tableName);
+		return fields == null ? null : Collections.unmodifiableList(fields);
+	}
+	
+	public long getLoadedAt()
+	{
+		return loadedAt;
+	}
+}
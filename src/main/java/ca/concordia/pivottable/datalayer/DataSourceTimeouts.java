@@ -0,0 +1,47 @@
+package ca.concordia.pivottable.datalayer;
+
+/**
+ * Timeouts applied to the connections and statements of one data source. A timeout of 0 means no limit.
+ */
+public class DataSourceTimeouts
+{
+	private final long connectTimeoutMillis;
+	private final long queryTimeoutMillis;
+	private final long fetchTimeoutMillis;
+	
+	/**
+	 * Constructor with all the parameters provided.
+	 * @param	connectTimeoutMillis	Maximum time to open a connection
+	 * @param	queryTimeoutMillis		Maximum time the data source may take to execute a query, enforced by the driver
+	 * @param	fetchTimeoutMillis		Maximum time to execute a query and read all its results, after which the statement is cancelled
+	 */
+	public DataSourceTimeouts(long connectTimeoutMillis, long queryTimeoutMillis, long fetchTimeoutMillis)
+	{
+		this.connectTimeoutMillis = connectTimeoutMillis;
+		this.queryTimeoutMillis = queryTimeoutMillis;
+		this.fetchTimeoutMillis = fetchTimeoutMillis;
+	}
+	
+	public long getConnectTimeoutMillis()
+	{
+		return connectTimeoutMillis;
+	}
+	
+	public long getQueryTimeoutMillis()
+	{
+		return queryTimeoutMillis;
+	}
+	
+	/**
+	 * @return	Query timeout rounded up to whole seconds, as expected by Statement.setQueryTimeout
+	 */
+	public int getQueryTimeoutSeconds()
+	{
+		return (int)Math.min(Integer.MAX_VALUE, (queryTimeoutMillis + 999) / 1000);
+	}
+	
+	public long getFetchTimeoutMillis()
+	{
+		return fetchTimeoutMillis;
+	}
+}
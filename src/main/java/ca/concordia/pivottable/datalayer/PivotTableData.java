@@ -0,0 +1,111 @@
+package ca.concordia.pivottable.datalayer;
+
+import java.util.List;
+import ca.concordia.pivottable.entities.PivotTableCells;
+
+/**
+ * Result of a pivot table strategy: the pivot table cells of every page, along with the page label values.
+ */
+public class PivotTableData
+{
+	/**
+	 * Page label values in page order. Empty if the pivot table has a single page.
+	 */
+	private final List<String> pageLabelValues;
+	
+	/**
+	 * Pivot table cells of every page, in page order.
+	 * Each cell holds the row label values followed by the column label values, and the function value.
+	 */
+	private final PivotTableCells cells;
+	
+	/**
+	 * Summaries calculated by the data source along with the cells, or null if they are left to the application.
+	 */
+	private final PivotTableSummaries summaries;
+	
+	/**
+	 * Number of pages of the whole pivot table, when only a window of its pages was fetched, or null if all of them were.
+	 */
+	private final Integer totalPageCount;
+	
+	/**
+	 * Table-level summary of all the pages, when only a window of the pages was fetched, or null if all of them were.
+	 */
+	private final Double tableSummary;
+	
+	/**
+	 * Class constructor with all the parameters provided.
+	 * @param	pageLabelValues	Page label values in page order
+	 * @param	cells			Pivot table cells of every page
+	 */
+	public PivotTableData(List<String> pageLabelValues, PivotTableCells cells)
+	{
+		this(pageLabelValues, cells, null);
+	}
+	
+	/**
+	 * Class constructor with all the parameters provided, including the summaries calculated by the data source.
+	 * @param	pageLabelValues	Page label values in page order
+	 * @param	cells			Pivot table cells of every page
+	 * @param	summaries		Row, column, page and table level summaries
+	 */
+	public PivotTableData(List<String> pageLabelValues, PivotTableCells cells, PivotTableSummaries summaries)
+	{
+		this.pageLabelValues = pageLabelValues;
+		this.cells = cells;
+		this.summaries = summaries;
+		this.totalPageCount = null;
+		this.tableSummary = null;
+	}
+	
+	/**
+	 * Class constructor for a window of the pages of a pivot table.
+	 * @param	pageLabelValues	Page label values of the window, in page order
+	 * @param	cells			Pivot table cells of every page of the window
+	 * @param	totalPageCount	Number of pages of the whole pivot table
+	 * @param	tableSummary	Table-level summary of all the pages of the pivot table
+	 */
+	public PivotTableData(List<String> pageLabelValues, PivotTableCells cells, int totalPageCount, double tableSummary)
+	{
+		this.pageLabelValues = pageLabelValues;
+		this.cells = cells;
+		this.summaries = null;
+		this.totalPageCount = totalPageCount;
+		this.tableSummary = tableSummary;
+	}
+	
+	public List<String> getPageLabelValues()
+	{
+		return pageLabelValues;
+	}
+	
+	public PivotTableCells getCells()
+	{
+		return cells;
+	}
+	
+	/**
+	 * @return	Summaries calculated by the data source, or null if they still need to be calculated
+	 */
+	public PivotTableSummaries getSummaries()
+	{
+		return summaries;
+	}
+	
+	/**
+	 * @return	Number of pages of the whole pivot table, or null if all of them were fetched
+	 */
+	public Integer getTotalPageCount()
+	{
+		return totalPageCount;
+	}
+	
+	/**
+	 * @return	Table-level summary of all the pages, or null if all of them were fetched and the summary is left to the application
+	 */
+	public Double getTableSummary()
+	{
+		return tableSummary;
+	}
+}
@@ -1,7 +1,6 @@
 package ca.concordia.pivottable.datalayer;
 
 import java.sql.Connection;
-import java.util.List;
 
 /**
  * Interface to be implemented by different strategies used for retrieving pivot table data from the database.
@@ -14,7 +13,9 @@ public interface PivotTableStrategy
 	 * Executes a specific strategy for retrieving pivot table data.
 	 * @param	dbConnection	Database connection object
 	 * @param	rowLimit		Maximum number of rows to be fetched by any SQL query
-	 * @return	Pivot table data
+	 * @param	queryLog		Log of the statements executed for the current request
+	 * @return	Pivot table data, along with the page label values it was split by
+	 * 			null, if the data could not be fetched
 	 */
-	List<List<List<Object>>> getPvtTblData(Connection dbConnection, int rowLimit);
+	PivotTableData getPvtTblData(Connection dbConnection, int rowLimit, QueryLog queryLog);
 }
@@ -0,0 +1,66 @@
+package ca.concordia.pivottable.datalayer;
+
+import java.util.List;
+
+/**
+ * Row, column, page and table level summaries of a pivot table, when they are calculated by the data source
+ * along with the pivot table cells. They are laid out as in the pivot table entity.
+ */
+public class PivotTableSummaries
+{
+	/**
+	 * For every page, the row label prefixes from the deepest level up to the first label, each followed by its summary.
+	 */
+	private final List<List<List<Object>>> rowSummDetails;
+	
+	/**
+	 * For every page, the column label prefixes from the deepest level up to the first label, each followed by its summary.
+	 */
+	private final List<List<List<Object>>> colSummDetails;
+	
+	/**
+	 * Summary of every page, in page order.
+	 */
+	private final List<Double> pageSummDetails;
+	
+	/**
+	 * Summary of the whole pivot table.
+	 */
+	private final double tableSummDetails;
+	
+	/**
+	 * Class constructor with all the parameters provided.
+	 * @param	rowSummDetails		Row level summaries
+	 * @param	colSummDetails		Column level summaries
+	 * @param	pageSummDetails		Page level summaries
+	 * @param	tableSummDetails	Table level summary
+	 */
+	public PivotTableSummaries(List<List<List<Object>>> rowSummDetails, List<List<List<Object>>> colSummDetails,
+								List<Double> pageSummDetails, double tableSummDetails)
+	{
+		this.rowSummDetails = rowSummDetails;
+		this.colSummDetails = colSummDetails;
+		this.pageSummDetails = pageSummDetails;
+		this.tableSummDetails = tableSummDetails;
+	}
+	
+	public List<List<List<Object>>> getRowSummDetails()
+	{
+		return rowSummDetails;
+	}
+	
+	public List<List<List<Object>>> getColSummDetails()
+	{
+		return colSummDetails;
+	}
+	
+	public List<Double> getPageSummDetails()
+	{
+		return pageSummDetails;
+	}
+	
+	public double getTableSummDetails()
+	{
+		return tableSummDetails;
+	}
+}
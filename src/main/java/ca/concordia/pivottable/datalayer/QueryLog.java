@@ -0,0 +1,324 @@
+package ca.concordia.pivottable.datalayer;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Log of every SQL statement executed against a data source while serving one request.
+ * It makes repeated statements visible: a statement executed more than once in the same request is reported.
+ * It also keeps track of the statements running at the moment, so that another thread can cancel the request,
+ * and of the number of pivot table pages completed so far.
+ * Statements are subject to the timeouts of the data source: the driver stops a query that runs for longer than
+ * the query timeout, and a statement still executing or being read at the end of the fetch timeout is cancelled.
+ * A child log records its statements in its parent log, but can be cancelled on its own, so that a group of statements
+ * run in parallel for one request can be stopped without cancelling the request.
+ */
+public class QueryLog
+{
+	/**
+	 * Cancels the statements that exceed their fetch timeout, for all the requests.
+	 */
+	private static final ScheduledExecutorService TIMEOUT_EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "query-timeout");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	/**
+	 * Log the statements are recorded in, null if this log is not a child log.
+	 */
+	private final QueryLog parent;
+	
+	/**
+	 * Statements executed so far, in execution order.
+	 */
+	private final List<String> queries = new ArrayList<String>();
+	
+	/**
+	 * Distinct statements executed so far.
+	 */
+	private final Set<String> distinctQueries = new HashSet<String>();
+	
+	/**
+	 * Number of statements that had already been executed in this request.
+	 */
+	private int duplicateCount = 0;
+	
+	/**
+	 * Statements being executed at the moment, along with the task cancelling them at the end of their fetch timeout.
+	 */
+	private final Map<Statement, ScheduledFuture<?>> runningStatements = new HashMap<Statement, ScheduledFuture<?>>();
+	
+	/**
+	 * Timeouts of the data source the statements are executed against, none until they are set.
+	 */
+	private DataSourceTimeouts timeouts = null;
+	
+	/**
+	 * Whether a statement was cancelled because it exceeded its fetch timeout.
+	 */
+	private boolean timedOut = false;
+	
+	/**
+	 * Whether the request was cancelled. No statement can be executed once it is.
+	 */
+	private boolean cancelled = false;
+	
+	/**
+	 * Number of pages of the pivot table being computed, 0 until it is known.
+	 */
+	private int pageCount = 0;
+	
+	/**
+	 * Number of pages of the pivot table computed so far.
+	 */
+	private int completedPageCount = 0;
+	
+	/**
+	 * Used for logging information, warning and error messages during application run.
+	 */
+	private Logger log = LoggerFactory.getLogger(QueryLog.class);
+	
+	/**
+	 * Default constructor, creating the log of a request.
+	 */
+	public QueryLog()
+	{
+		this(null);
+	}
+	
+	/**
+	 * Constructor creating a child log.
+	 * @param	parent	Log the statements are recorded in, which cancels them as well when it is cancelled
+	 */
+	public QueryLog(QueryLog parent)
+	{
+		this.parent = parent;
+	}
+	
+	/**
+	 * Records a statement about to be executed.
+	 * @param	query	SQL statement
+	 */
+	public synchronized void record(String query)
+	{
+		if (parent != null)
+		{
+			parent.record(query);
+			return;
+		}
+		
+		log.info("Running query " + query);
+		queries.add(query);
+		
+		if (!distinctQueries.add(query))
+		{
+			duplicateCount++;
+			log.warn("Query executed more than once in the same request: " + query);
+		}
+	}
+	
+	/**
+	 * Sets the timeouts of the data source, applied to the statements recorded from then on.
+	 * @param	timeouts	Timeouts of the data source
+	 */
+	public synchronized void setTimeouts(DataSourceTimeouts timeouts)
+	{
+		this.timeouts = timeouts;
+	}
+	
+	/**
+	 * Records a statement about to be executed, which can be cancelled from then on until it is released.
+	 * The timeouts of the data source are applied to the statement.
+	 * @param	query		SQL statement
+	 * @param	statement	Statement the query is executed with
+	 * @throws	SQLException	if the request has already been cancelled
+	 */
+	public synchronized void record(String query, Statement statement) throws SQLException
+	{
+		if (cancelled)
+			throw new SQLException("Request cancelled before running query " + query, "57014");
+		
+		//The parent log applies the timeouts
+		if (parent != null)
+		{
+			parent.record(query, statement);
+			runningStatements.put(statement, null);
+			return;
+		}
+		
+		ScheduledFuture<?> fetchTimeoutTask = null;
+		if (timeouts != null)
+		{
+			if (timeouts.getQueryTimeoutMillis() > 0)
+				statement.setQueryTimeout(timeouts.getQueryTimeoutSeconds());
+			if (timeouts.getFetchTimeoutMillis() > 0)
+				fetchTimeoutTask = TIMEOUT_EXECUTOR.schedule(() -> cancelTimedOut(statement, query),
+																timeouts.getFetchTimeoutMillis(), TimeUnit.MILLISECONDS);
+		}
+		
+		record(query);
+		runningStatements.put(statement, fetchTimeoutTask);
+	}
+	
+	/**
+	 * Releases a statement once it is executed and its results are read, so that it is no longer cancelled.
+	 * @param	statement	Statement recorded along with its query
+	 */
+	public synchronized void release(Statement statement)
+	{
+		ScheduledFuture<?> fetchTimeoutTask = runningStatements.remove(statement);
+		if (fetchTimeoutTask != null)
+			fetchTimeoutTask.cancel(false);
+		if (parent != null)
+			parent.release(statement);
+	}
+	
+	/**
+	 * Cancels a statement that is still running at the end of its fetch timeout.
+	 * @param	statement	Statement recorded along with its query
+	 * @param	query		SQL statement
+	 */
+	private void cancelTimedOut(Statement statement, String query)
+	{
+		synchronized (this)
+		{
+			if (!runningStatements.containsKey(statement))
+				return;
+			timedOut = true;
+		}
+		
+		log.warn("Cancelling query that exceeded the fetch timeout of the data source: " + query);
+		try
+		{
+			statement.cancel();
+		}
+		catch (SQLException cancelSQLExcpn)
+		{
+			log.warn("SQLException occurred while cancelling a query... " + cancelSQLExcpn.getMessage());
+		}
+	}
+	
+	/**
+	 * Cancels the request: the statements running at the moment are cancelled and no other one can be executed.
+	 * It may be called from any thread.
+	 */
+	public void cancel()
+	{
+		List<Statement> statements;
+		synchronized (this)
+		{
+			cancelled = true;
+			statements = new ArrayList<Statement>(runningStatements.keySet());
+		}
+		
+		for (Statement statement : statements)
+		{
+			try
+			{
+				statement.cancel();
+			}
+			catch (SQLException cancelSQLExcpn)
+			{
+				log.warn("SQLException occurred while cancelling a query... " + cancelSQLExcpn.getMessage());
+			}
+		}
+	}
+	
+	/**
+	 * @return	true, if the request was cancelled, or this child log or its parent
+	 */
+	public synchronized boolean isCancelled()
+	{
+		return cancelled || (parent != null && parent.isCancelled());
+	}
+	
+	/**
+	 * @return	true, if a statement was cancelled because it exceeded its fetch timeout
+	 */
+	public synchronized boolean isTimedOut()
+	{
+		return timedOut;
+	}
+	
+	/**
+	 * Sets the number of pages of the pivot table being computed, once it is known.
+	 * @param	pageCount	Number of pages
+	 */
+	public synchronized void setPageCount(int pageCount)
+	{
+		this.pageCount = pageCount;
+	}
+	
+	/**
+	 * Records pages of the pivot table as computed.
+	 * @param	pageCount	Number of pages just computed
+	 */
+	public synchronized void addCompletedPages(int pageCount)
+	{
+		completedPageCount += pageCount;
+	}
+	
+	/**
+	 * Records all the pages of the pivot table as computed, when they are fetched together by a single query.
+	 * @param	pageCount	Number of pages of the pivot table
+	 */
+	public synchronized void completeAllPages(int pageCount)
+	{
+		this.pageCount = pageCount;
+		completedPageCount = pageCount;
+	}
+	
+	/**
+	 * @return	Number of pages of the pivot table being computed, 0 until it is known
+	 */
+	public synchronized int getPageCount()
+	{
+		return pageCount;
+	}
+	
+	/**
+	 * @return	Number of pages of the pivot table computed so far
+	 */
+	public synchronized int getCompletedPageCount()
+	{
+		return completedPageCount;
+	}
+	
+	/**
+	 * @return	Statements executed so far, in execution order
+	 */
+	public synchronized List<String> getQueries()
+	{
+		return Collections.unmodifiableList(new ArrayList<String>(queries));
+	}
+	
+	/**
+	 * @return	Number of statements executed so far
+	 */
+	public synchronized int getQueryCount()
+	{
+		return queries.size();
+	}
+	
+	/**
+	 * @return	Number of statements that had already been executed in this request
+	 */
+	public synchronized int getDuplicateCount()
+	{
+		return duplicateCount;
+	}
+}
@@ -11,18 +11,6 @@ import java.util.List;
  */
 public interface SchemaDataAccess 
 {
-	/**
-	 * Initiates a connection with the user schema database.
-	 */
-	void connect();
-	
-	/**
-	 * Closes the connection with the user schema database.
-	 * @return	true, if connection is closed successfully, or if the connection was already closed
-	 * <br>		false, if the attempt to disconnect fails
-	 */
-    boolean disconnect();
-    
     /**
 	 * Adds a record for a new shareable schema into the shareable schemas table in the user schema database.
 	 * @param 	schemaName		Name of the shareable schema
@@ -0,0 +1,57 @@
+package ca.concordia.pivottable.datalayer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Estimates of the size of a table, as kept by the database for its own query planner.
+ * They are read from the database catalog without scanning the table, so they may be stale or missing.
+ */
+public class TableEstimates
+{
+	/**
+	 * Estimated number of rows, null if unknown.
+	 */
+	private final Long rowCount;
+
+	/**
+	 * Estimated number of distinct values of some columns, keyed by lower case column name.
+	 */
+	private final Map<String, Long> distinctCounts = new HashMap<String, Long>();
+
+	/**
+	 * Class constructor.
+	 * @param	rowCount	Estimated number of rows, null if unknown
+	 */
+	public TableEstimates(Long rowCount)
+	{
+		this.rowCount = rowCount;
+	}
+
+	/**
+	 * @return	Estimated number of rows, null if unknown
+	 */
+	public Long getRowCount()
+	{
+		return rowCount;
+	}
+
+	/**
+	 * Records the estimated number of distinct values of a column.
+	 * @param	column			Column name
+	 * @param	distinctCount	Estimated number of distinct values
+	 */
+	public void setDistinctCount(String column, long distinctCount)
+	{
+		distinctCounts.put(column.toLowerCase(), distinctCount);
+	}
+
+	/**
+	 * @param	column	Column name, in any case
+	 * @return	Estimated number of distinct values of the column, null if unknown
+	 */
+	public Long getDistinctCount(String column)
+	{
+		return column == null ? null : distinctCounts.get(column.toLowerCase());
+	}
+}
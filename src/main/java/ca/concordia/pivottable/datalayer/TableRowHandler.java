@@ -0,0 +1,18 @@
+package ca.concordia.pivottable.datalayer;
+
+import java.io.IOException;
+
+/**
+ * Receives the records of a table one at a time while they are read from the data source.
+ */
+@FunctionalInterface
+public interface TableRowHandler
+{
+	/**
+	 * Handles one record of the table.
+	 * The array is reused for the next record, so its values must be consumed before returning.
+	 * @param	row	Field values of the record, in column order
+	 * @throws	IOException	if the record could not be handed over, which stops the read
+	 */
+	void handleRow(Object[] row) throws IOException;
+}
@@ -7,18 +7,6 @@ package ca.concordia.pivottable.datalayer;
  */
 public interface UserDataAccess 
 {
-	/**
-	 * Initiates a connection with the user database.
-	 */
-	void connect();
-	
-	/**
-	 * Closes the connection with the user database.
-	 * @return	true, if connection is closed successfully, or if the connection was already closed
-	 * <br>		false, if the attempt to disconnect fails
-	 */
-    boolean disconnect();
-	
     /**
      * Checks if a username already exists in the user database.
      * @param	username	Username to be verified
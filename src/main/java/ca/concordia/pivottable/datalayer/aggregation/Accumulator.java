@@ -0,0 +1,33 @@
+package ca.concordia.pivottable.datalayer.aggregation;
+
+/**
+ * Running state of a summary function over a group of values.
+ * An accumulator keeps a constant amount of state no matter how many values it has seen,
+ * and two accumulators of the same function can be merged to summarize the union of their values.
+ */
+public interface Accumulator
+{
+	/**
+	 * Folds a value into the accumulator.
+	 * @param	value	Value to be summarized
+	 */
+	void add(double value);
+	
+	/**
+	 * Folds the state of another accumulator of the same function into this one.
+	 * @param	other	Accumulator holding the state of another group of values
+	 * @throws	IllegalArgumentException	if the other accumulator calculates a different function
+	 */
+	void merge(Accumulator other);
+	
+	/**
+	 * @return	Number of values folded into the accumulator
+	 */
+	long getCount();
+	
+	/**
+	 * Calculates the summary function value.
+	 * @return	The result calculated, or 0 if no value was folded into the accumulator
+	 */
+	double getResult();
+}
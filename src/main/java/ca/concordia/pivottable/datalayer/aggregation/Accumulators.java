@@ -0,0 +1,84 @@
+package ca.concordia.pivottable.datalayer.aggregation;
+
+/**
+ * Creates the accumulator matching a summary function name.
+ */
+public final class Accumulators
+{
+	private Accumulators()
+	{
+		//not to be instantiated
+	}
+	
+	/**
+	 * Checks if a summary function name is supported.
+	 * @param	functionName	Name of the summary function
+	 * @return	true, if an accumulator exists for the function
+	 * 			false, otherwise
+	 */
+	public static boolean isSupported(String functionName)
+	{
+		if (functionName == null)
+			return false;
+		
+		switch (functionName.toLowerCase())
+		{
+			case "sum":
+			case "count":
+			case "min":
+			case "max":
+			case "avg":
+			case "product":
+			case "variance":
+			case "standard deviation":
+				return true;
+			default:
+				return false;
+		}
+	}
+	
+	/**
+	 * Creates a new, empty accumulator for a summary function.
+	 * @param	functionName	Name of the summary function (case insensitive)
+	 * @return	Accumulator calculating the function
+	 * @throws	IllegalArgumentException	if the function is not supported
+	 */
+	public static Accumulator forFunction(String functionName)
+	{
+		if (!isSupported(functionName))
+			throw new IllegalArgumentException("Unsupported summary function " + functionName);
+		
+		switch (functionName.toLowerCase())
+		{
+			case "sum":
+				return new SumAccumulator();
+			case "count":
+				return new CountAccumulator();
+			case "min":
+				return new MinAccumulator();
+			case "max":
+				return new MaxAccumulator();
+			case "avg":
+				return new AvgAccumulator();
+			case "product":
+				return new ProductAccumulator();
+			case "variance":
+				return new VarianceAccumulator();
+			default:
+				return new StdDevAccumulator();
+		}
+	}
+	
+	/**
+	 * Checks that an accumulator can be merged into another one.
+	 * @param	target	Accumulator being merged into
+	 * @param	other	Accumulator being merged
+	 * @throws	IllegalArgumentException	if the accumulators calculate different functions
+	 */
+	static void checkMergeable(Accumulator target, Accumulator other)
+	{
+		if (other.getClass() != target.getClass())
+			throw new IllegalArgumentException("Cannot merge " + other.getClass().getSimpleName()
+												+ " into " + target.getClass().getSimpleName());
+	}
+}
@@ -0,0 +1,34 @@
+package ca.concordia.pivottable.datalayer.aggregation;
+
+/**
+ * Accumulator for the Avg function.
+ */
+public class AvgAccumulator implements Accumulator
+{
+	private long count = 0;
+	private double sum = 0;
+	
+	public void add(double value)
+	{
+		count++;
+		sum += value;
+	}
+	
+	public void merge(Accumulator other)
+	{
+		Accumulators.checkMergeable(this, other);
+		AvgAccumulator o = (AvgAccumulator)other;
+		count += o.count;
+		sum += o.sum;
+	}
+	
+	public long getCount()
+	{
+		return count;
+	}
+	
+	public double getResult()
+	{
+		return count == 0 ? 0 : sum / count;
+	}
+}
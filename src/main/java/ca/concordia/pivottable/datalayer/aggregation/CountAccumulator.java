@@ -0,0 +1,30 @@
+package ca.concordia.pivottable.datalayer.aggregation;
+
+/**
+ * Accumulator for the Count function. The values themselves are ignored.
+ */
+public class CountAccumulator implements Accumulator
+{
+	private long count = 0;
+	
+	public void add(double value)
+	{
+		count++;
+	}
+	
+	public void merge(Accumulator other)
+	{
+		Accumulators.checkMergeable(this, other);
+		count += ((CountAccumulator)other).count;
+	}
+	
+	public long getCount()
+	{
+		return count;
+	}
+	
+	public double getResult()
+	{
+		return count;
+	}
+}
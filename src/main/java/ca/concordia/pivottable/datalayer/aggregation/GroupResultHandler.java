@@ -0,0 +1,18 @@
+package ca.concordia.pivottable.datalayer.aggregation;
+
+import java.util.List;
+
+/**
+ * Receives the aggregated function value of every group of pivot table data.
+ */
+@FunctionalInterface
+public interface GroupResultHandler
+{
+	/**
+	 * Handles the result of one group.
+	 * The list of labels may be reused for the next group, so its values must be consumed before returning.
+	 * @param	labels	Label values of the group
+	 * @param	result	Function value of the group
+	 */
+	void handleGroup(List<Object> labels, double result);
+}
@@ -0,0 +1,187 @@
+package ca.concordia.pivottable.datalayer.aggregation;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import ca.concordia.pivottable.entities.DataType;
+
+/**
+ * Aggregates pivot table data in a single forward pass over the rows.
+ * Every row is folded into the running state of the group identified by its label values,
+ * so the rows never need to be scanned more than once or kept in memory.
+ * Groups are returned in the order in which they were first encountered.
+ */
+public class HashAggregator
+{
+	/**
+	 * Number of label columns preceding the value column.
+	 */
+	private final int labelCount;
+	
+	/**
+	 * Name of the summary function to be calculated for each group.
+	 */
+	private final String functionName;
+	
+	/**
+	 * true if the values are only counted and do not need to be numeric.
+	 */
+	private final boolean countOnly;
+	
+	/**
+	 * Running state of every group, keyed by the label values of the group.
+	 */
+	private final Map<List<Object>, Accumulator> groups = new LinkedHashMap<List<Object>, Accumulator>();
+	
+	/**
+	 * Canonical instance of every label value seen, so that groups sharing a value share the object.
+	 */
+	private final Map<Object, Object> internedLabels = new HashMap<Object, Object>();
+	
+	/**
+	 * Reusable key used to look up the group of a row without allocating a new list for every row.
+	 */
+	private final List<Object> probeKey;
+	
+	/**
+	 * Class constructor.
+	 * @param	labelCount		Number of label columns preceding the value column
+	 * @param	functionName	Name of the summary function to be calculated for each group
+	 * @throws	IllegalArgumentException	if the function is not supported
+	 */
+	public HashAggregator(int labelCount, String functionName)
+	{
+		if (!Accumulators.isSupported(functionName))
+			throw new IllegalArgumentException("Unsupported summary function " + functionName);
+		
+		this.labelCount = labelCount;
+		this.functionName = functionName;
+		this.countOnly = functionName.equalsIgnoreCase("Count");
+		this.probeKey = new ArrayList<Object>(labelCount);
+	}
+	
+	/**
+	 * Folds all the remaining rows of a result set into their groups.
+	 * The first labelCount columns are the label values and the next column is the value field.
+	 * Only a forward-only cursor is required.
+	 * @param	resultSet	Result set positioned before the first row to be aggregated
+	 * @throws	SQLException	if reading the result set fails
+	 */
+	public void aggregate(ResultSet resultSet) throws SQLException
+	{
+		int valueIndex = labelCount + 1;
+		
+		//Choosing the getter of the value field once, a count of a non-numeric field only checks for nulls
+		DataType valueType = DataType.fromSqlType(resultSet.getMetaData().getColumnType(valueIndex));
+		NumericColumnReader valueReader = NumericColumnReader.forType(valueType);
+		boolean countNonNumeric = countOnly && !valueType.isNumeric();
+		
+		while (resultSet.next())
+		{
+			probeKey.clear();
+			for (int i=1; i<=labelCount; i++)
+			{
+				probeKey.add(resultSet.getObject(i));
+			}
+			
+			Accumulator group = getGroup(probeKey);
+			
+			if (countNonNumeric)
+			{
+				if (resultSet.getObject(valueIndex) != null)
+					group.add(1);
+			}
+			else
+			{
+				double value = valueReader.read(resultSet, valueIndex);
+				if (!resultSet.wasNull())
+					group.add(countOnly ? 1 : value);
+			}
+		}
+	}
+	
+	/**
+	 * Fetches the state of a group, creating it if this is the first row of the group.
+	 * @param	labels	Label values of the group
+	 * @return	State of the group
+	 */
+	private Accumulator getGroup(List<Object> labels)
+	{
+		Accumulator group = groups.get(labels);
+		
+		if (group == null)
+		{
+			List<Object> key = new ArrayList<Object>(labels.size());
+			for (Object label : labels)
+			{
+				key.add(intern(label));
+			}
+			
+			group = Accumulators.forFunction(functionName);
+			groups.put(key, group);
+		}
+		
+		return group;
+	}
+	
+	/**
+	 * Returns the canonical instance of a label value.
+	 * @param	label	Label value read from a row
+	 * @return	Equal label value shared by all the groups
+	 */
+	private Object intern(Object label)
+	{
+		if (label == null)
+			return null;
+		
+		Object interned = internedLabels.get(label);
+		if (interned == null)
+		{
+			internedLabels.put(label, label);
+			interned = label;
+		}
+		
+		return interned;
+	}
+	
+	/**
+	 * Folds the groups of another aggregator into this one, e.g. the partial groups of another range of rows.
+	 * Groups already known keep their place, the others follow in the order the other aggregator encountered them.
+	 * @param	other	Aggregator of the same labels and summary function
+	 * @throws	IllegalArgumentException	if the other aggregator calculates a different function
+	 */
+	public void merge(HashAggregator other)
+	{
+		if (other.labelCount != labelCount || !other.functionName.equalsIgnoreCase(functionName))
+			throw new IllegalArgumentException("Cannot merge the groups of " + other.functionName + " into " + functionName);
+		
+		for (Map.Entry<List<Object>, Accumulator> otherGroup : other.groups.entrySet())
+		{
+			getGroup(otherGroup.getKey()).merge(otherGroup.getValue());
+		}
+	}
+	
+	/**
+	 * @return	Number of distinct groups aggregated so far
+	 */
+	public int getGroupCount()
+	{
+		return groups.size();
+	}
+	
+	/**
+	 * Hands the function value of every group over, in the order the groups were first encountered.
+	 * @param	resultHandler	Receiver of the group results
+	 */
+	public void forEachResult(GroupResultHandler resultHandler)
+	{
+		for (Map.Entry<List<Object>, Accumulator> group : groups.entrySet())
+		{
+			resultHandler.handleGroup(group.getKey(), group.getValue().getResult());
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package ca.concordia.pivottable.datalayer.aggregation;
+
+/**
+ * Accumulator for the Max function.
+ */
+public class MaxAccumulator implements Accumulator
+{
+	private long count = 0;
+	private double max = Double.NEGATIVE_INFINITY;
+	
+	public void add(double value)
+	{
+		count++;
+		if (value > max)
+			max = value;
+	}
+	
+	public void merge(Accumulator other)
+	{
+		Accumulators.checkMergeable(this, other);
+		MaxAccumulator o = (MaxAccumulator)other;
+		count += o.count;
+		if (o.max > max)
+			max = o.max;
+	}
+	
+	public long getCount()
+	{
+		return count;
+	}
+	
+	public double getResult()
+	{
+		return count == 0 ? 0 : max;
+	}
+}
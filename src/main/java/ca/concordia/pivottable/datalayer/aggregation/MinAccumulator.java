@@ -0,0 +1,36 @@
+package ca.concordia.pivottable.datalayer.aggregation;
+
+/**
+ * Accumulator for the Min function.
+ */
+public class MinAccumulator implements Accumulator
+{
+	private long count = 0;
+	private double min = Double.POSITIVE_INFINITY;
+	
+	public void add(double value)
+	{
+		count++;
+		if (value < min)
+			min = value;
+	}
+	
+	public void merge(Accumulator other)
+	{
+		Accumulators.checkMergeable(this, other);
+		MinAccumulator o = (MinAccumulator)other;
+		count += o.count;
+		if (o.min < min)
+			min = o.min;
+	}
+	
+	public long getCount()
+	{
+		return count;
+	}
+	
+	public double getResult()
+	{
+		return count == 0 ? 0 : min;
+	}
+}
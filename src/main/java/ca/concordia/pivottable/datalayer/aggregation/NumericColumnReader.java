@@ -0,0 +1,91 @@
+package ca.concordia.pivottable.datalayer.aggregation;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import ca.concordia.pivottable.entities.DataType;
+
+/**
+ * Reads the values of a numeric column as primitive doubles, through the getter matching the column type.
+ * The reader is chosen once per query from the result set metadata, so no value is boxed or cast while reading rows.
+ * As with the ResultSet getters, a SQL NULL is read as 0 and is told apart by ResultSet.wasNull().
+ */
+public enum NumericColumnReader
+{
+	/**
+	 * Integer columns, read with getLong.
+	 */
+	INTEGRAL
+	{
+		@Override
+		public double read(ResultSet resultSet, int columnIndex) throws SQLException
+		{
+			return resultSet.getLong(columnIndex);
+		}
+	},
+
+	/**
+	 * Fixed-point columns, read with getBigDecimal so the driver does not go through a string conversion.
+	 */
+	DECIMAL
+	{
+		@Override
+		public double read(ResultSet resultSet, int columnIndex) throws SQLException
+		{
+			BigDecimal value = resultSet.getBigDecimal(columnIndex);
+			return value == null ? 0 : value.doubleValue();
+		}
+	},
+
+	/**
+	 * Floating-point columns and any other column, read with getDouble.
+	 */
+	FLOATING
+	{
+		@Override
+		public double read(ResultSet resultSet, int columnIndex) throws SQLException
+		{
+			return resultSet.getDouble(columnIndex);
+		}
+	};
+
+	/**
+	 * Reads the value of the column in the current row.
+	 * @param	resultSet	Result set positioned on a row
+	 * @param	columnIndex	Index of the column, starting at 1
+	 * @return	Value of the column, 0 if it is SQL NULL
+	 * @throws	SQLException	if reading the result set fails
+	 */
+	public abstract double read(ResultSet resultSet, int columnIndex) throws SQLException;
+
+	/**
+	 * Chooses the reader of a data type.
+	 * @param	dataType	Data type of the column
+	 * @return	Reader of the column values
+	 */
+	public static NumericColumnReader forType(DataType dataType)
+	{
+		switch (dataType)
+		{
+			case TYPE_INTEGRAL:
+				return INTEGRAL;
+			case TYPE_DECIMAL:
+				return DECIMAL;
+			default:
+				return FLOATING;
+		}
+	}
+
+	/**
+	 * Chooses the reader of a result set column from its JDBC type.
+	 * @param	metaData	Metadata of the result set
+	 * @param	columnIndex	Index of the column, starting at 1
+	 * @return	Reader of the column values
+	 * @throws	SQLException	if the metadata cannot be read
+	 */
+	public static NumericColumnReader forColumn(ResultSetMetaData metaData, int columnIndex) throws SQLException
+	{
+		return forType(DataType.fromSqlType(metaData.getColumnType(columnIndex)));
+	}
+}
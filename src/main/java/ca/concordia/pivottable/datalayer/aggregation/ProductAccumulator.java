@@ -0,0 +1,34 @@
+package ca.concordia.pivottable.datalayer.aggregation;
+
+/**
+ * Accumulator for the Product function.
+ */
+public class ProductAccumulator implements Accumulator
+{
+	private long count = 0;
+	private double product = 1;
+	
+	public void add(double value)
+	{
+		count++;
+		product *= value;
+	}
+	
+	public void merge(Accumulator other)
+	{
+		Accumulators.checkMergeable(this, other);
+		ProductAccumulator o = (ProductAccumulator)other;
+		count += o.count;
+		product *= o.product;
+	}
+	
+	public long getCount()
+	{
+		return count;
+	}
+	
+	public double getResult()
+	{
+		return count == 0 ? 0 : product;
+	}
+}
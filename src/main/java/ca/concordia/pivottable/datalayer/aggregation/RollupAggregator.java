@@ -0,0 +1,158 @@
+package ca.concordia.pivottable.datalayer.aggregation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates values for every prefix of a hierarchy of labels in a single pass.
+ * Each value is folded into the group of every level at once: the group of its first label,
+ * the group of its first two labels, and so on down to the group of all its labels.
+ * Labels are given as integer codes, so looking up the group of a level costs one hash probe.
+ * Groups of a level are returned in the order in which they were first encountered.
+ */
+public class RollupAggregator
+{
+	/**
+	 * Number of label levels of the hierarchy.
+	 */
+	private final int levelCount;
+
+	/**
+	 * Name of the summary function to be calculated for each group.
+	 */
+	private final String functionName;
+
+	/**
+	 * Groups of every level, in the order they were first encountered.
+	 */
+	private final List<List<Group>> groupsByLevel;
+
+	/**
+	 * Index of every group within its level, keyed by the index of its parent group and its own label code.
+	 */
+	private final List<Map<Long, Integer>> groupIndexesByLevel;
+
+	/**
+	 * Class constructor.
+	 * @param	levelCount		Number of label levels of the hierarchy
+	 * @param	functionName	Name of the summary function to be calculated for each group
+	 * @throws	IllegalArgumentException	if the function is not supported
+	 */
+	public RollupAggregator(int levelCount, String functionName)
+	{
+		if (!Accumulators.isSupported(functionName))
+			throw new IllegalArgumentException("Unsupported summary function " + functionName);
+
+		this.levelCount = levelCount;
+		this.functionName = functionName;
+		this.groupsByLevel = new ArrayList<List<Group>>(levelCount);
+		this.groupIndexesByLevel = new ArrayList<Map<Long, Integer>>(levelCount);
+		for (int i=0; i<levelCount; i++)
+		{
+			groupsByLevel.add(new ArrayList<Group>());
+			groupIndexesByLevel.add(new HashMap<Long, Integer>());
+		}
+	}
+
+	/**
+	 * Folds a value into the group of every level of its labels.
+	 * @param	labelCodes	Label codes of the value, at least one per level
+	 * @param	value		Value to be aggregated
+	 */
+	public void add(int[] labelCodes, double value)
+	{
+		int parentIndex = -1;
+
+		for (int level=0; level<levelCount; level++)
+		{
+			Group group = getGroup(level, parentIndex, labelCodes[level]);
+			group.accumulator.add(value);
+			parentIndex = group.index;
+		}
+	}
+
+	/**
+	 * Fetches a group, creating it if this is its first value.
+	 * @param	level		Level of the group
+	 * @param	parentIndex	Index of the parent group in the previous level, -1 for the first level
+	 * @param	labelCode	Label code of the group at its own level
+	 * @return	The group
+	 */
+	private Group getGroup(int level, int parentIndex, int labelCode)
+	{
+		Map<Long, Integer> groupIndexes = groupIndexesByLevel.get(level);
+		List<Group> groups = groupsByLevel.get(level);
+
+		Long key = ((long)parentIndex << 32) | (labelCode & 0xffffffffL);
+		Integer index = groupIndexes.get(key);
+		if (index == null)
+		{
+			Group group = new Group(groups.size(), parentIndex, labelCode, Accumulators.forFunction(functionName));
+			groups.add(group);
+			groupIndexes.put(key, group.index);
+			return group;
+		}
+
+		return groups.get(index);
+	}
+
+	/**
+	 * @param	level	Level of the hierarchy, starting at 0 for the first label
+	 * @return	Number of distinct groups of the level
+	 */
+	public int getGroupCount(int level)
+	{
+		return groupsByLevel.get(level).size();
+	}
+
+	/**
+	 * Fetches the label codes of a group, from the first level down to its own level.
+	 * @param	level		Level of the group
+	 * @param	groupIndex	Index of the group within its level
+	 * @return	Label codes of the group, one per level up to its own
+	 */
+	public int[] getLabelCodes(int level, int groupIndex)
+	{
+		int[] labelCodes = new int[level + 1];
+
+		for (int i=level; i>=0; i--)
+		{
+			Group group = groupsByLevel.get(i).get(groupIndex);
+			labelCodes[i] = group.labelCode;
+			groupIndex = group.parentIndex;
+		}
+
+		return labelCodes;
+	}
+
+	/**
+	 * @param	level		Level of the group
+	 * @param	groupIndex	Index of the group within its level
+	 * @return	Function value of the group
+	 */
+	public double getResult(int level, int groupIndex)
+	{
+		return groupsByLevel.get(level).get(groupIndex).accumulator.getResult();
+	}
+
+	/**
+	 * Running state of the values sharing the same labels down to a level.
+	 */
+	private static class Group
+	{
+		private final int index;
+		private final int parentIndex;
+		private final int labelCode;
+		private final Accumulator accumulator;
+
+		private Group(int index, int parentIndex, int labelCode, Accumulator accumulator)
+		{
+			this.index = index;
+			this.parentIndex = parentIndex;
+			this.labelCode = labelCode;
+			this.accumulator = accumulator;
+		}
+	}
+}
@@ -0,0 +1,13 @@
+package ca.concordia.pivottable.datalayer.aggregation;
+
+/**
+ * Accumulator for the (population) Standard Deviation function.
+ */
+public class StdDevAccumulator extends VarianceAccumulator
+{
+	@Override
+	public double getResult()
+	{
+		return Math.sqrt(getVariance());
+	}
+}
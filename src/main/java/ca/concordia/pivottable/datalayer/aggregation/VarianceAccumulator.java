@@ -0,0 +1,57 @@
+package ca.concordia.pivottable.datalayer.aggregation;
+
+/**
+ * Accumulator for the (population) Variance function.
+ * Uses Welford's online algorithm to add values and Chan's parallel algorithm to merge accumulators,
+ * which avoids the cancellation errors of summing squares.
+ */
+public class VarianceAccumulator implements Accumulator
+{
+	private long count = 0;
+	private double mean = 0;
+	
+	/**
+	 * Sum of squared differences from the current mean.
+	 */
+	private double m2 = 0;
+	
+	public void add(double value)
+	{
+		count++;
+		double delta = value - mean;
+		mean += delta / count;
+		m2 += delta * (value - mean);
+	}
+	
+	public void merge(Accumulator other)
+	{
+		Accumulators.checkMergeable(this, other);
+		VarianceAccumulator o = (VarianceAccumulator)other;
+		if (o.count == 0)
+			return;
+		
+		long total = count + o.count;
+		double delta = o.mean - mean;
+		mean += delta * o.count / total;
+		m2 += o.m2 + delta * delta * ((double)count * o.count / total);
+		count = total;
+	}
+	
+	public long getCount()
+	{
+		return count;
+	}
+	
+	/**
+	 * @return	Population variance of the values, or 0 if no value was folded into the accumulator
+	 */
+	protected double getVariance()
+	{
+		return count == 0 ? 0 : m2 / count;
+	}
+	
+	public double getResult()
+	{
+		return getVariance();
+	}
+}
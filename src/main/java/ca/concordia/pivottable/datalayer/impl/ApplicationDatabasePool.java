@@ -0,0 +1,106 @@
+package ca.concordia.pivottable.datalayer.impl;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import ca.concordia.pivottable.datalayer.ConnectionPool;
+import ca.concordia.pivottable.datalayer.ConnectionPoolSettings;
+import ca.concordia.pivottable.entities.ApplicationConfiguration;
+import ca.concordia.pivottable.servicelayer.ConfigurationHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the pool of connections to the application user and schema database, shared by all the requests.
+ * The pool is sized from the application configuration and maintained by a background task.
+ * It implements the Singleton design pattern.
+ */
+public class ApplicationDatabasePool
+{
+	/**
+	 * Interval between two runs of the pool maintenance task.
+	 */
+	private static final long MAINTENANCE_INTERVAL_SECONDS = 30;
+
+	/**
+	 * Maximum time to wait for a connection to be validated before it is borrowed.
+	 */
+	private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+	/**
+	 * Single instance of the application database pool.
+	 */
+	private static ConnectionPool singlePool;
+
+	/**
+	 * Used for logging information, warning and error messages during application run.
+	 */
+	private static Logger log = LoggerFactory.getLogger(ApplicationDatabasePool.class);
+
+	/**
+	 * Class constructor, not used since the class only holds the pool.
+	 */
+	private ApplicationDatabasePool()
+	{
+		//no instances
+	}
+
+	/**
+	 * Ensures that only one pool to the application database exists at all times.
+	 * The pool is created on first use from the application configuration.
+	 * @param	appConfigHolder	Application configuration holder
+	 * @return	The application database pool
+	 */
+	public static synchronized ConnectionPool getPool(ConfigurationHolder appConfigHolder)
+	{
+		if (singlePool == null)
+			singlePool = createPool(appConfigHolder.getConfiguration());
+		return singlePool;
+	}
+
+	/**
+	 * Creates the application database pool and schedules its maintenance.
+	 * @param	appConfig	Application configuration
+	 * @return	The new pool
+	 */
+	private static ConnectionPool createPool(ApplicationConfiguration appConfig)
+	{
+		ConnectionPoolSettings settings = new ConnectionPoolSettings(appConfig.getAppDatabasePoolMinSize(),
+																	appConfig.getAppDatabasePoolMaxSize(),
+																	appConfig.getAppDatabasePoolBorrowTimeout(),
+																	appConfig.getAppDatabasePoolIdleTimeout(),
+																	appConfig.getAppDatabasePoolMaxLifetime(),
+																	VALIDATION_TIMEOUT_SECONDS);
+		ConnectionPool pool = new BoundedConnectionPool(appConfig.getAppDatabaseUrl(), appConfig.getAppDatabaseUser(),
+														appConfig.getAppDatabasePassword(), settings);
+		log.info("Created pool of " + settings.getMinSize() + " to " + settings.getMaxSize()
+					+ " connections to application database " + appConfig.getAppDatabaseUrl());
+
+		//Opening the minimum number of connections right away, then closing the expired ones periodically
+		ScheduledExecutorService maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "application-database-pool-maintenance");
+			thread.setDaemon(true);
+			return thread;
+		});
+		maintenanceExecutor.scheduleWithFixedDelay(() -> maintain(pool), 0, MAINTENANCE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+		return pool;
+	}
+
+	/**
+	 * Runs the maintenance of the pool, logging its usage statistics.
+	 * @param	pool	Pool to be maintained
+	 */
+	private static void maintain(ConnectionPool pool)
+	{
+		try
+		{
+			pool.maintain();
+			log.debug("Application database pool " + pool.getMetrics());
+		}
+		catch (RuntimeException excp)
+		{
+			log.error("Unexpected exception occurred while maintaining application database pool... " + excp.getMessage());
+		}
+	}
+}
@@ -0,0 +1,507 @@
+package ca.concordia.pivottable.datalayer.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Properties;
+import ca.concordia.pivottable.datalayer.ConnectionPool;
+import ca.concordia.pivottable.datalayer.ConnectionPoolMetrics;
+import ca.concordia.pivottable.datalayer.ConnectionPoolSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Connection pool holding at most a fixed number of connections to one database, for one set of credentials.
+ * Idle connections are validated before being borrowed, and closed once unused or open for too long.
+ * Borrowed connections are handed out behind a proxy whose close() method gives the connection back to the pool.
+ */
+public class BoundedConnectionPool implements ConnectionPool
+{
+	/**
+	 * JDBC drivers supported by the application, loaded once for all the pools.
+	 */
+	private static final String[] JDBC_DRIVERS = {"com.mysql.jdbc.Driver", "org.postgresql.Driver"};
+	
+	static
+	{
+		for (String jdbcDriver : JDBC_DRIVERS)
+		{
+			try
+			{
+				//Loading JDBC Driver class at run-time
+				Class.forName(jdbcDriver);
+			}
+			catch (Exception excp)
+			{
+				LoggerFactory.getLogger(BoundedConnectionPool.class).error("Could not load JDBC driver " + jdbcDriver + "... " + excp.getMessage());
+			}
+		}
+	}
+	
+	private final String dbUrl;
+	private final String dbUsername;
+	private final String dbPassword;
+	private final ConnectionPoolSettings settings;
+	
+	/**
+	 * Idle connections, the most recently used first.
+	 */
+	private final Deque<PooledConnection> idleConnections = new ArrayDeque<PooledConnection>();
+	
+	/**
+	 * Number of connections open, idle or borrowed, including the ones being opened.
+	 */
+	private int openCount = 0;
+	
+	private boolean shutdown = false;
+	
+	/**
+	 * Time of the last borrow attempt, in milliseconds.
+	 */
+	private long lastBorrowAt = System.currentTimeMillis();
+	
+	//Metrics
+	private long borrowCount = 0;
+	private long createdCount = 0;
+	private long destroyedCount = 0;
+	private long validationFailureCount = 0;
+	private long timeoutCount = 0;
+	private long totalWaitMillis = 0;
+	
+	/**
+	 * Used for logging information, warning and error messages during application run.
+	 */
+	private Logger log = LoggerFactory.getLogger(BoundedConnectionPool.class);
+	
+	/**
+	 * Class constructor with all the parameters provided.
+	 * @param	dbUrl		URL of the database
+	 * @param	dbUsername	Username for login
+	 * @param	dbPassword	Password for login
+	 * @param	settings	Sizing and timeout settings of the pool
+	 */
+	public BoundedConnectionPool(String dbUrl, String dbUsername, String dbPassword, ConnectionPoolSettings settings)
+	{
+		this.dbUrl = dbUrl;
+		this.dbUsername = dbUsername;
+		this.dbPassword = dbPassword;
+		this.settings = settings;
+	}
+	
+	/**
+	 * Borrows a connection from the pool, opening a new one if none is idle and the pool is not full.
+	 * Closing the returned connection gives it back to the pool.
+	 * @return	A validated database connection
+	 * @throws	SQLException	if no connection could be opened or none became available in time
+	 */
+	public Connection getConnection() throws SQLException
+	{
+		long start = System.currentTimeMillis();
+		long deadline = start + settings.getBorrowTimeoutMillis();
+		
+		while (true)
+		{
+			PooledConnection candidate = null;
+			boolean mustOpen = false;
+			
+			synchronized (this)
+			{
+				if (shutdown)
+					throw new SQLException("Connection pool " + getName() + " has been shut down.");
+				lastBorrowAt = System.currentTimeMillis();
+				
+				while (candidate == null && !idleConnections.isEmpty())
+				{
+					candidate = idleConnections.pollFirst();
+					if (isExpired(candidate, System.currentTimeMillis()))
+					{
+						destroy(candidate);
+						candidate = null;
+					}
+				}
+				
+				if (candidate == null)
+				{
+					if (openCount < settings.getMaxSize())
+					{
+						openCount++;
+						mustOpen = true;
+					}
+					else
+					{
+						long remaining = deadline - System.currentTimeMillis();
+						if (remaining <= 0)
+						{
+							timeoutCount++;
+							throw new SQLException("Timed out waiting for a connection from pool " + getName() + ".");
+						}
+						
+						try
+						{
+							wait(remaining);
+						}
+						catch (InterruptedException ie)
+						{
+							Thread.currentThread().interrupt();
+							throw new SQLException("Interrupted while waiting for a connection from pool " + getName() + ".");
+						}
+						continue;
+					}
+				}
+			}
+			
+			//Opening or validating the connection outside of the lock, since both involve the network
+			if (mustOpen)
+				candidate = open();
+			else if (!isValid(candidate))
+			{
+				synchronized (this)
+				{
+					validationFailureCount++;
+					destroy(candidate);
+				}
+				continue;
+			}
+			
+			synchronized (this)
+			{
+				borrowCount++;
+				totalWaitMillis += System.currentTimeMillis() - start;
+			}
+			
+			return candidate.borrow();
+		}
+	}
+	
+	/**
+	 * Opens a new physical connection. The caller must already have counted it in openCount.
+	 * @return	The new pooled connection
+	 * @throws	SQLException	if the connection could not be opened
+	 */
+	private PooledConnection open() throws SQLException
+	{
+		log.info("Opening connection to database " + dbUrl + "...");
+		
+		try
+		{
+			Connection physical = DriverManager.getConnection(dbUrl, getConnectionProperties());
+			synchronized (this)
+			{
+				createdCount++;
+			}
+			return new PooledConnection(physical);
+		}
+		catch (SQLException | RuntimeException excp)
+		{
+			synchronized (this)
+			{
+				openCount--;
+				notifyAll();
+			}
+			throw excp;
+		}
+	}
+	
+	/**
+	 * Builds the properties a connection is opened with: the credentials, and the connect timeout in the unit of the driver.
+	 * DriverManager.setLoginTimeout is not used, as it would apply to every database at once.
+	 * @return	Connection properties
+	 */
+	private Properties getConnectionProperties()
+	{
+		Properties connProps = new Properties();
+		if (dbUsername != null)
+			connProps.setProperty("user", dbUsername);
+		if (dbPassword != null)
+			connProps.setProperty("password", dbPassword);
+		
+		long connectTimeoutMillis = settings.getConnectTimeoutMillis();
+		if (connectTimeoutMillis > 0 && dbUrl != null)
+		{
+			//MySQL Connector/J expects milliseconds, the PostgreSQL driver seconds
+			if (dbUrl.indexOf("mysql") >= 0)
+				connProps.setProperty("connectTimeout", String.valueOf(connectTimeoutMillis));
+			else if (dbUrl.indexOf("postgresql") >= 0)
+			{
+				String connectTimeoutSeconds = String.valueOf((connectTimeoutMillis + 999) / 1000);
+				connProps.setProperty("loginTimeout", connectTimeoutSeconds);
+				connProps.setProperty("connectTimeout", connectTimeoutSeconds);
+			}
+		}
+		
+		return connProps;
+	}
+	
+	/**
+	 * Checks that an idle connection still works before it is borrowed.
+	 * @param	pooled	Idle connection
+	 * @return	true, if the connection can be used
+	 */
+	private boolean isValid(PooledConnection pooled)
+	{
+		try
+		{
+			return pooled.physical.isValid(settings.getValidationTimeoutSeconds());
+		}
+		catch (SQLException | AbstractMethodError excp)
+		{
+			log.warn("Could not validate a connection of pool " + getName() + "... " + excp.getMessage());
+			return false;
+		}
+	}
+	
+	/**
+	 * Checks if a connection has been idle or open for too long.
+	 * @param	pooled	Idle connection
+	 * @param	now		Current time in milliseconds
+	 * @return	true, if the connection must be closed instead of being reused
+	 */
+	private boolean isExpired(PooledConnection pooled, long now)
+	{
+		return (now - pooled.createdAt >= settings.getMaxLifetimeMillis())
+				|| (now - pooled.lastUsedAt >= settings.getIdleTimeoutMillis());
+	}
+	
+	/**
+	 * Gives a borrowed connection back to the pool, or closes it if it cannot be reused.
+	 * @param	pooled	Connection being given back
+	 */
+	private void release(PooledConnection pooled)
+	{
+		boolean reusable;
+		try
+		{
+			reusable = !pooled.physical.isClosed();
+			if (reusable && !pooled.physical.getAutoCommit())
+			{
+				pooled.physical.rollback();
+				pooled.physical.setAutoCommit(true);
+			}
+		}
+		catch (SQLException sqle)
+		{
+			log.warn("Could not reset a connection of pool " + getName() + "... " + sqle.getMessage());
+			reusable = false;
+		}
+		
+		synchronized (this)
+		{
+			pooled.lastUsedAt = System.currentTimeMillis();
+			if (!reusable || shutdown || System.currentTimeMillis() - pooled.createdAt >= settings.getMaxLifetimeMillis())
+				destroy(pooled);
+			else
+				idleConnections.addFirst(pooled);
+			notifyAll();
+		}
+	}
+	
+	/**
+	 * Closes a physical connection that is no longer part of the pool. Must be called while holding the lock.
+	 * @param	pooled	Connection to be closed
+	 */
+	private void destroy(PooledConnection pooled)
+	{
+		openCount--;
+		destroyedCount++;
+		notifyAll();
+		
+		try
+		{
+			pooled.physical.close();
+		}
+		catch (SQLException sqle)
+		{
+			log.warn("SQLException occurred while closing a connection of pool " + getName() + "... " + sqle.getMessage());
+		}
+	}
+	
+	/**
+	 * Closes the idle connections that have been unused or open for too long,
+	 * and opens connections until the minimum pool size is reached.
+	 */
+	public void maintain()
+	{
+		int missing;
+		
+		synchronized (this)
+		{
+			if (shutdown)
+				return;
+			
+			long now = System.currentTimeMillis();
+			Iterator<PooledConnection> idleIter = idleConnections.iterator();
+			while (idleIter.hasNext())
+			{
+				PooledConnection pooled = idleIter.next();
+				if (isExpired(pooled, now))
+				{
+					idleIter.remove();
+					destroy(pooled);
+				}
+			}
+			
+			missing = settings.getMinSize() - openCount;
+			if (missing > 0)
+				openCount += missing;
+		}
+		
+		for (int i=0; i<missing; i++)
+		{
+			try
+			{
+				release(open());
+			}
+			catch (SQLException sqle)
+			{
+				//open() already gave back the slot of the connection that failed
+				log.error("SQLException occurred while filling pool " + getName() + "... " + sqle.getMessage());
+			}
+		}
+	}
+	
+	/**
+	 * Closes all the idle connections. Borrowed connections are closed when they are given back.
+	 */
+	public synchronized void shutdown()
+	{
+		shutdown = true;
+		while (!idleConnections.isEmpty())
+		{
+			destroy(idleConnections.pollFirst());
+		}
+	}
+	
+	/**
+	 * Shuts the pool down if it holds no connection and has not been used for longer than the idle timeout.
+	 * @return	true, if the pool has been shut down
+	 */
+	synchronized boolean shutdownIfUnused()
+	{
+		if (openCount == 0 && System.currentTimeMillis() - lastBorrowAt >= settings.getIdleTimeoutMillis())
+			shutdown = true;
+		return shutdown;
+	}
+	
+	/**
+	 * @return	true, if the pool has been shut down and no longer hands out connections
+	 */
+	synchronized boolean isShutdown()
+	{
+		return shutdown;
+	}
+	
+	/**
+	 * Fetches the usage statistics of the pool.
+	 * @return	Snapshot of the pool metrics
+	 */
+	public synchronized ConnectionPoolMetrics getMetrics()
+	{
+		return new ConnectionPoolMetrics(getName(), openCount - idleConnections.size(), idleConnections.size(), borrowCount,
+											createdCount, destroyedCount, validationFailureCount, timeoutCount, totalWaitMillis);
+	}
+	
+	/**
+	 * @return	Name identifying the pool, without the password
+	 */
+	private String getName()
+	{
+		return dbUsername + "@" + dbUrl;
+	}
+	
+	/**
+	 * Physical connection managed by the pool.
+	 */
+	private class PooledConnection
+	{
+		private final Connection physical;
+		private final long createdAt;
+		private long lastUsedAt;
+		
+		private PooledConnection(Connection physical)
+		{
+			this.physical = physical;
+			this.createdAt = System.currentTimeMillis();
+			this.lastUsedAt = createdAt;
+		}
+		
+		/**
+		 * Wraps the physical connection for one borrower.
+		 * @return	Connection proxy giving the connection back to the pool when closed
+		 */
+		private Connection borrow()
+		{
+			return (Connection)Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+														new BorrowedConnectionHandler(this));
+		}
+	}
+	
+	/**
+	 * Forwards the calls made on a borrowed connection to the physical connection until it is closed.
+	 */
+	private class BorrowedConnectionHandler implements InvocationHandler
+	{
+		private final PooledConnection pooled;
+		private boolean closed = false;
+		
+		private BorrowedConnectionHandler(PooledConnection pooled)
+		{
+			this.pooled = pooled;
+		}
+		
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+		{
+			String methodName = method.getName();
+			
+			if (methodName.equals("close") && method.getParameterCount() == 0)
+			{
+				synchronized (this)
+				{
+					if (closed)
+						return null;
+					closed = true;
+				}
+				release(pooled);
+				return null;
+			}
+			else if (methodName.equals("isClosed") && method.getParameterCount() == 0)
+			{
+				synchronized (this)
+				{
+					if (closed)
+						return true;
+				}
+			}
+			else if (methodName.equals("equals") && method.getParameterCount() == 1)
+				return proxy == args[0];
+			else if (methodName.equals("hashCode") && method.getParameterCount() == 0)
+				return System.identityHashCode(proxy);
+			else if (methodName.equals("toString") && method.getParameterCount() == 0)
+				return "Pooled connection to " + getName();
+			else
+			{
+				synchronized (this)
+				{
+					if (closed)
+						throw new SQLException("Connection has already been given back to pool " + getName() + ".");
+				}
+			}
+			
+			try
+			{
+				return method.invoke(pooled.physical, args);
+			}
+			catch (InvocationTargetException ite)
+			{
+				throw ite.getCause();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,344 @@
+package ca.concordia.pivottable.datalayer.impl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import ca.concordia.pivottable.datalayer.ConnectionPool;
+import ca.concordia.pivottable.datalayer.ConnectionPoolMetrics;
+import ca.concordia.pivottable.datalayer.ConnectionPoolSettings;
+import ca.concordia.pivottable.datalayer.DataSourceTimeouts;
+import ca.concordia.pivottable.entities.ApplicationConfiguration;
+import ca.concordia.pivottable.entities.DataSourceTimeoutSettings;
+import ca.concordia.pivottable.servicelayer.ConfigurationHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Application-wide registry of the connection pools to the external data sources.
+ * There is one pool per database URL and username. The password is part of the pool key as well,
+ * so that a pooled session is only ever handed to a caller presenting the credentials it was opened with.
+ * A background task closes the idle connections and discards the pools left empty.
+ * The registry also holds the timeouts and the number of page queries of each data source, configured by the start of its URL.
+ * It implements the Singleton design pattern.
+ */
+public class ConnectionPoolRegistry
+{
+	/**
+	 * Interval between two runs of the pool maintenance task.
+	 */
+	private static final long MAINTENANCE_INTERVAL_SECONDS = 30;
+	
+	/**
+	 * Single instance of the registry.
+	 */
+	private static ConnectionPoolRegistry singleRegistry;
+	
+	/**
+	 * Pools keyed by database URL, username and password.
+	 */
+	private final Map<PoolKey, BoundedConnectionPool> pools = new ConcurrentHashMap<PoolKey, BoundedConnectionPool>();
+	
+	/**
+	 * Settings used by every pool of the registry, but for the connect timeout of the data source.
+	 */
+	private final ConnectionPoolSettings settings;
+	
+	/**
+	 * Timeouts of the data sources no specific timeouts are configured for.
+	 */
+	private final DataSourceTimeouts defaultTimeouts;
+	
+	/**
+	 * Timeouts of specific data sources, keyed by the start of their URL.
+	 */
+	private final Map<String, DataSourceTimeouts> urlTimeouts;
+	
+	/**
+	 * Number of page queries run at the same time for a multiple-page pivot table, by default.
+	 */
+	private final int defaultPageQueryParallelism;
+	
+	/**
+	 * Number of page queries of specific data sources, keyed by the start of their URL.
+	 */
+	private final Map<String, Integer> urlPageQueryParallelism;
+	
+	/**
+	 * Number of key ranges a scan of raw rows is split into, by default.
+	 */
+	private final int defaultScanPartitions;
+	
+	/**
+	 * Number of key ranges of specific data sources, keyed by the start of their URL.
+	 */
+	private final Map<String, Integer> urlScanPartitions;
+	
+	/**
+	 * Number of rows under which a scan is not split.
+	 */
+	private final long scanPartitionMinRows;
+	
+	/**
+	 * Used for logging information, warning and error messages during application run.
+	 */
+	private Logger log = LoggerFactory.getLogger(ConnectionPoolRegistry.class);
+	
+	/**
+	 * Class constructor.
+	 * @param	settings		Settings used by every pool of the registry
+	 * @param	defaultTimeouts	Timeouts of the data sources no specific timeouts are configured for
+	 * @param	urlTimeouts		Timeouts of specific data sources, keyed by the start of their URL
+	 * @param	defaultPageQueryParallelism	Number of page queries run at the same time, by default
+	 * @param	urlPageQueryParallelism		Number of page queries of specific data sources, keyed by the start of their URL
+	 * @param	defaultScanPartitions	Number of key ranges a scan is split into, by default
+	 * @param	urlScanPartitions		Number of key ranges of specific data sources, keyed by the start of their URL
+	 * @param	scanPartitionMinRows	Number of rows under which a scan is not split
+	 */
+	private ConnectionPoolRegistry(ConnectionPoolSettings settings, DataSourceTimeouts defaultTimeouts,
+									Map<String, DataSourceTimeouts> urlTimeouts, int defaultPageQueryParallelism,
+									Map<String, Integer> urlPageQueryParallelism, int defaultScanPartitions,
+									Map<String, Integer> urlScanPartitions, long scanPartitionMinRows)
+	{
+		this.settings = settings;
+		this.defaultTimeouts = defaultTimeouts;
+		this.urlTimeouts = urlTimeouts;
+		this.defaultPageQueryParallelism = defaultPageQueryParallelism;
+		this.urlPageQueryParallelism = urlPageQueryParallelism;
+		this.defaultScanPartitions = defaultScanPartitions;
+		this.urlScanPartitions = urlScanPartitions;
+		this.scanPartitionMinRows = scanPartitionMinRows;
+		
+		ScheduledExecutorService maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "connection-pool-maintenance");
+			thread.setDaemon(true);
+			return thread;
+		});
+		maintenanceExecutor.scheduleWithFixedDelay(this::maintainPools, MAINTENANCE_INTERVAL_SECONDS,
+													MAINTENANCE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+	}
+	
+	/**
+	 * Ensures that only one instance of this class exists at all times.
+	 * @param	appConfigHolder	Holder of the application configuration, holding the data source timeouts and parallel query settings
+	 * @return	The class instance
+	 */
+	public static synchronized ConnectionPoolRegistry getRegistry(ConfigurationHolder appConfigHolder)
+	{
+		if (singleRegistry == null)
+		{
+			ApplicationConfiguration appConfig = appConfigHolder.getConfiguration();
+			DataSourceTimeouts defaultTimeouts = new DataSourceTimeouts(appConfig.getDataSourceConnectTimeout(),
+																		appConfig.getDataSourceQueryTimeout(),
+																		appConfig.getDataSourceFetchTimeout());
+			
+			//Timeouts left out of a data source entry fall back to the default ones
+			Map<String, DataSourceTimeouts> urlTimeouts = new HashMap<String, DataSourceTimeouts>();
+			for (Map.Entry<String, DataSourceTimeoutSettings> urlEntry : appConfig.getDataSourceTimeouts().entrySet())
+			{
+				DataSourceTimeoutSettings urlSettings = urlEntry.getValue();
+				urlTimeouts.put(urlEntry.getKey(), new DataSourceTimeouts(
+						urlSettings.getConnectTimeout() != null ? urlSettings.getConnectTimeout() : defaultTimeouts.getConnectTimeoutMillis(),
+						urlSettings.getQueryTimeout() != null ? urlSettings.getQueryTimeout() : defaultTimeouts.getQueryTimeoutMillis(),
+						urlSettings.getFetchTimeout() != null ? urlSettings.getFetchTimeout() : defaultTimeouts.getFetchTimeoutMillis()));
+			}
+			
+			singleRegistry = new ConnectionPoolRegistry(new ConnectionPoolSettings(), defaultTimeouts, urlTimeouts,
+														appConfig.getPageQueryParallelism(),
+														new HashMap<String, Integer>(appConfig.getDataSourcePageQueryParallelism()),
+														appConfig.getScanPartitions(),
+														new HashMap<String, Integer>(appConfig.getDataSourceScanPartitions()),
+														appConfig.getScanPartitionMinRows());
+		}
+		return singleRegistry;
+	}
+	
+	/**
+	 * Fetches the timeouts of a data source: those configured for the longest start of its URL, or the default ones.
+	 * @param	dbUrl	URL of the database
+	 * @return	Timeouts of the data source
+	 */
+	public DataSourceTimeouts getTimeouts(String dbUrl)
+	{
+		return findByUrl(urlTimeouts, dbUrl, defaultTimeouts);
+	}
+	
+	/**
+	 * Fetches the number of page queries run at the same time for a multiple-page pivot table of a data source.
+	 * @param	dbUrl	URL of the database
+	 * @return	Number of page queries, 1 if the pages are fetched by a single query
+	 */
+	public int getPageQueryParallelism(String dbUrl)
+	{
+		return Math.max(findByUrl(urlPageQueryParallelism, dbUrl, defaultPageQueryParallelism), 1);
+	}
+	
+	/**
+	 * Fetches the number of key ranges a scan of the raw rows of a data source is split into.
+	 * @param	dbUrl	URL of the database
+	 * @return	Number of key ranges, 1 if the rows are scanned by a single query
+	 */
+	public int getScanPartitions(String dbUrl)
+	{
+		return Math.max(findByUrl(urlScanPartitions, dbUrl, defaultScanPartitions), 1);
+	}
+	
+	/**
+	 * @return	Number of rows under which a scan is not split
+	 */
+	public long getScanPartitionMinRows()
+	{
+		return scanPartitionMinRows;
+	}
+	
+	/**
+	 * Finds the setting configured for the longest start of a database URL.
+	 * @param	urlSettings		Settings keyed by the start of the URL of the data sources they apply to
+	 * @param	dbUrl			URL of the database
+	 * @param	defaultSetting	Setting of the data sources no specific setting is configured for
+	 * @return	The setting of the database
+	 */
+	private static <T> T findByUrl(Map<String, T> urlSettings, String dbUrl, T defaultSetting)
+	{
+		T setting = defaultSetting;
+		int matchLength = -1;
+		
+		if (dbUrl != null)
+		{
+			for (Map.Entry<String, T> urlEntry : urlSettings.entrySet())
+			{
+				String urlPrefix = urlEntry.getKey();
+				if (dbUrl.startsWith(urlPrefix) && urlPrefix.length() > matchLength)
+				{
+					setting = urlEntry.getValue();
+					matchLength = urlPrefix.length();
+				}
+			}
+		}
+		
+		return setting;
+	}
+	
+	/**
+	 * Borrows a connection from the pool of a set of credentials, creating the pool on first use.
+	 * Closing the returned connection gives it back to the pool.
+	 * @param	dbUrl		URL of the database
+	 * @param	dbUsername	Username for login
+	 * @param	dbPassword	Password for login
+	 * @return	A validated database connection
+	 * @throws	SQLException	if no connection could be opened or none became available in time
+	 */
+	public Connection getConnection(String dbUrl, String dbUsername, String dbPassword) throws SQLException
+	{
+		PoolKey poolKey = new PoolKey(dbUrl, dbUsername, dbPassword);
+		
+		while (true)
+		{
+			BoundedConnectionPool pool = pools.computeIfAbsent(poolKey,
+										key -> new BoundedConnectionPool(dbUrl, dbUsername, dbPassword, getPoolSettings(dbUrl)));
+			try
+			{
+				return pool.getConnection();
+			}
+			catch (SQLException sqle)
+			{
+				//The pool was discarded by the maintenance task in the meantime, a new one is created
+				if (!pool.isShutdown())
+					throw sqle;
+				pools.remove(poolKey, pool);
+			}
+		}
+	}
+	
+	/**
+	 * Builds the settings of the pool of a data source, which carry the connect timeout of the data source.
+	 * @param	dbUrl	URL of the database
+	 * @return	Settings of the pool
+	 */
+	private ConnectionPoolSettings getPoolSettings(String dbUrl)
+	{
+		return new ConnectionPoolSettings(settings.getMinSize(), settings.getMaxSize(), settings.getBorrowTimeoutMillis(),
+											settings.getIdleTimeoutMillis(), settings.getMaxLifetimeMillis(),
+											settings.getValidationTimeoutSeconds(), getTimeouts(dbUrl).getConnectTimeoutMillis());
+	}
+	
+	/**
+	 * Fetches the usage statistics of every pool.
+	 * @return	One metrics snapshot per pool
+	 */
+	public List<ConnectionPoolMetrics> getMetrics()
+	{
+		List<ConnectionPoolMetrics> metrics = new ArrayList<ConnectionPoolMetrics>();
+		for (ConnectionPool pool : pools.values())
+		{
+			metrics.add(pool.getMetrics());
+		}
+		return metrics;
+	}
+	
+	/**
+	 * Closes the expired idle connections of every pool and discards the pools that hold no connection.
+	 */
+	private void maintainPools()
+	{
+		try
+		{
+			Iterator<Map.Entry<PoolKey, BoundedConnectionPool>> poolIter = pools.entrySet().iterator();
+			while (poolIter.hasNext())
+			{
+				BoundedConnectionPool pool = poolIter.next().getValue();
+				pool.maintain();
+				if (pool.shutdownIfUnused())
+					poolIter.remove();
+				else
+					log.debug("Connection pool " + pool.getMetrics());
+			}
+		}
+		catch (RuntimeException excp)
+		{
+			log.error("Unexpected exception occurred while maintaining connection pools... " + excp.getMessage());
+		}
+	}
+	
+	/**
+	 * Key identifying the pool of a set of credentials.
+	 */
+	private static class PoolKey
+	{
+		private final String dbUrl;
+		private final String dbUsername;
+		private final String dbPassword;
+		
+		private PoolKey(String dbUrl, String dbUsername, String dbPassword)
+		{
+			this.dbUrl = dbUrl;
+			this.dbUsername = dbUsername;
+			this.dbPassword = dbPassword;
+		}
+		
+		@Override
+		public boolean equals(Object other)
+		{
+			if (other == null || other.getClass() != this.getClass())
+				return false;
+			
+			PoolKey o = (PoolKey)other;
+			return Objects.equals(dbUrl, o.dbUrl) && Objects.equals(dbUsername, o.dbUsername)
+					&& Objects.equals(dbPassword, o.dbPassword);
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(dbUrl, dbUsername, dbPassword);
+		}
+	}
+}
@@ -1,10 +1,16 @@
 package ca.concordia.pivottable.datalayer.impl;
 
 import ca.concordia.pivottable.datalayer.DataSourceAccess;
+import ca.concordia.pivottable.datalayer.DataSourceCatalog;
+import ca.concordia.pivottable.datalayer.PivotTableData;
 import ca.concordia.pivottable.datalayer.PivotTableStrategy;
+import ca.concordia.pivottable.datalayer.QueryLog;
+import ca.concordia.pivottable.datalayer.TableEstimates;
+import ca.concordia.pivottable.datalayer.TableRowHandler;
+import ca.concordia.pivottable.entities.TableStatistics;
 
+import java.io.IOException;
 import java.sql.*;
-import java.util.ArrayList;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,11 +23,6 @@ import org.slf4j.LoggerFactory;
 public class DataSourceAccessImpl implements DataSourceAccess
 {
 
-	/**
-	 * This implementation limits the number of results to a 1000
-	 */
-	private static final int ROW_LIMIT = 1000;
-
 	/**
 	 * URL of the database to be connected to.
 	 */
@@ -47,22 +48,75 @@ public class DataSourceAccessImpl implements DataSourceAccess
 	 */
 	private PivotTableStrategy pvtTblStrategy = null;
 	
+	/**
+	 * Log of the statements executed against the data source.
+	 */
+	private QueryLog queryLog = new QueryLog();
+	
+	/**
+	 * Pools the connections to the data sources are borrowed from.
+	 */
+	private ConnectionPoolRegistry connectionPools;
+	
+	/**
+	 * Catalogs the table names and field types of the data sources are read from.
+	 */
+	private DataSourceCatalogRegistry catalogs;
+	
+	/**
+	 * Registry of the column statistics of the tables of the data sources.
+	 */
+	private TableStatisticsRegistry statistics;
+	
+	/**
+	 * Executor running the page queries of multiple-page pivot tables and the key range scans at the same time.
+	 */
+	private ParallelQueryExecutor parallelQueryExecutor;
+	
 	/**
 	 * Used for logging information, warning and error messages during application run.
 	 */
 	private Logger log = LoggerFactory.getLogger(DataSourceAccessImpl.class);
 	
+	/**
+	 * Class constructor.
+	 * @param	connectionPools	Pools the connections to the data sources are borrowed from
+	 * @param	catalogs		Catalogs the table names and field types of the data sources are read from
+	 * @param	statistics		Registry of the column statistics of the tables of the data sources
+	 * @param	parallelQueryExecutor	Executor running the page queries of multiple-page pivot tables and the key range scans at the same time
+	 */
+	public DataSourceAccessImpl(ConnectionPoolRegistry connectionPools, DataSourceCatalogRegistry catalogs,
+								TableStatisticsRegistry statistics, ParallelQueryExecutor parallelQueryExecutor)
+	{
+		this.connectionPools = connectionPools;
+		this.catalogs = catalogs;
+		this.statistics = statistics;
+		this.parallelQueryExecutor = parallelQueryExecutor;
+	}
+	
 	/**
 	 * Assigns the specific strategy to be used for pivot table data retrieval.
+	 * A strategy may scan the raw rows by key ranges, and a multiple-page strategy may fetch its pages,
+	 * over several pooled connections, as configured for the data source.
 	 * @param	pvtTblStrategy	Specific strategy object
 	 */
 	public void setPvtTblStrategy(PivotTableStrategy pvtTblStrategy)
 	{
 		this.pvtTblStrategy = pvtTblStrategy;
+		
+		ParallelExecution parallelExecution = new ParallelExecution(parallelQueryExecutor,
+														() -> connectionPools.getConnection(dbUrl, dbUsername, dbPassword),
+														connectionPools.getPageQueryParallelism(dbUrl),
+														connectionPools.getScanPartitions(dbUrl),
+														connectionPools.getScanPartitionMinRows());
+		if (pvtTblStrategy instanceof MultiplePageStrategy)
+			((MultiplePageStrategy)pvtTblStrategy).setParallelExecution(parallelExecution);
+		else if (pvtTblStrategy instanceof SinglePageStrategy)
+			((SinglePageStrategy)pvtTblStrategy).setParallelExecution(parallelExecution);
 	}
 	
 	/**
-	 * Sets the credentials required for connecting to a database.
+	 * Sets the credentials required for connecting to a database, along with the timeouts of the database.
 	 * @param	dbUrl		URL of the database
 	 * @param	dbUsername	Username for login
 	 * @param	dbPassword	Password for login
@@ -72,41 +126,27 @@ public class DataSourceAccessImpl implements DataSourceAccess
         this.dbUrl = dbUrl;
         this.dbUsername = dbUsername;
         this.dbPassword = dbPassword;
+        queryLog.setTimeouts(connectionPools.getTimeouts(dbUrl));
     }
 	
 	/**
-	 * Initiates a connection with the data source.
+	 * Initiates a connection with the data source, borrowing it from the pool of the credentials set.
 	 */
 	public void connect()
 	{
-		//Database driver required for connection
-		String jdbcDriver = "com.mysql.jdbc.Driver";
-		
-		try
-		{
-			//Loading JDBC Driver class at run-time
-			Class.forName(jdbcDriver);
-		}
-		catch (Exception dbConnGenExcpn)
-		{
-			log.error("Unexpected exception occurred while attempting DB connection... " + dbConnGenExcpn.getMessage());
-		}		
-		
-		log.info("Initiating connection to database " + dbUrl + "...");
-		
 		try
 		{
-			dbConnection = DriverManager.getConnection(dbUrl, dbUsername, dbPassword);
+			dbConnection = connectionPools.getConnection(dbUrl, dbUsername, dbPassword);
 		}
 		catch (SQLException dbConnSQLExcpn)
 		{
 			dbConnection = null;
-			log.error("SQLException occurred while connecting to database... " + dbConnSQLExcpn.getMessage());
+			log.error("SQLException occurred while connecting to database " + dbUrl + "... " + dbConnSQLExcpn.getMessage());
 		}
 	}
 	
 	/**
-	 * Closes the connection with the data source.
+	 * Closes the connection with the data source, giving it back to its pool.
 	 * @return	true, if connection is closed successfully, or if the connection was already closed
 	 * <br>		false, if the attempt to disconnect fails
 	 */
@@ -123,6 +163,10 @@ public class DataSourceAccessImpl implements DataSourceAccess
     			log.error("SQLException occurred while disconnecting from database... " + dbDisconnSQLExcpn.getMessage());
     			return false;
     		}
+    		finally
+    		{
+    			dbConnection = null;
+    		}
     	}
     	
     	return true;
@@ -146,253 +190,222 @@ public class DataSourceAccessImpl implements DataSourceAccess
     }
     
     /**
-     * Fetches the names of all available raw report tables from the database. 
+     * Fetches the names of all available raw report tables from the catalog of the database.
+     * No connection is needed while the catalog is cached.
      * @return	List of all available raw report table names
-     * 			null, if database connection fails
+     * 			null, if the catalog could not be read
      */
   	public List<String> getAllRawTableNames()
   	{
+  		DataSourceCatalog catalog = catalogs.getCatalog(dbUrl, dbUsername, dbPassword);
+  		return catalog == null ? null : catalog.getTableNames();
+  	}
+  	
+  	/**
+  	 * Checks if a raw report table exists, using the catalog of the database.
+  	 * A table missing from the catalog is looked up again in case it was created since the catalog was read.
+  	 * @param	tableName	Name of the table
+  	 * @return	true, if the table exists
+  	 * 			false, if it does not exist or the catalog could not be read
+  	 */
+  	public boolean tableExists(String tableName)
+  	{
+  		DataSourceCatalog catalog = catalogs.getCatalog(dbUrl, dbUsername, dbPassword);
+  		if (catalog == null)
+  			return false;
+  		if (catalog.hasTable(tableName))
+  			return true;
   		
-  		if (dbConnection == null)							//failed connection
-  		{
-  			return null;
-  		}
-  		
-  		//Proceeding, if database connection is successful
-  		ResultSet rsAllRawTblNames = null;
-  		Statement stmt = null;
-  		List<String> allRawTblList = new ArrayList<String>();
-  		
-  		try
-  		{
-  			//Fetching all table names from database
-  			//For MySQL database
-  			if (dbUrl.indexOf("mysql") >= 0)
-  			{
-  				DatabaseMetaData dbmd = dbConnection.getMetaData();
-  	  			rsAllRawTblNames = dbmd.getTables(null, null, "%", null);
-  			}
-  			//For PostgreSQL database
-  			else if (dbUrl.indexOf("postgresql") >= 0)
-  			{
-  				String allRawTblNamesQuery = "SELECT * FROM information_schema.tables WHERE table_schema = \'public\';";
-  				stmt = dbConnection.createStatement();
-  				rsAllRawTblNames = stmt.executeQuery(allRawTblNamesQuery);
-  			}
-  			  			
-  			//Creating a list of table names
-  			while (rsAllRawTblNames.next())
-  			{
-  				allRawTblList.add(rsAllRawTblNames.getString("TABLE_NAME"));
-  			}
-  			
-  			rsAllRawTblNames.close();
-  			if (stmt != null)
-  				stmt.close();
-  		}
-  		catch (SQLException allRawTblSQLExcpn)
-  		{
-  			rsAllRawTblNames = null;
-  			stmt = null;
-  			log.error("SQLException occurred while fetching all raw table names from database... " + allRawTblSQLExcpn.getMessage());
-  		}
-  		  		
-  		return allRawTblList;
+  		catalog = catalogs.reloadCatalog(dbUrl, dbUsername, dbPassword);
+  		return catalog != null && catalog.hasTable(tableName);
   	}
   	
   	/**
-  	 * Fetches all the data stored in a table in the database.
+  	 * Reads all the data stored in a table in the database, handing each record over as soon as it is read.
+  	 * The rows are read through a forward-only cursor that fetches them from the database in batches,
+  	 * so the memory used does not depend on the number of rows.
   	 * @param	tableName	Name of the table whose data needs to be fetched
-  	 * @return	All the data stored in the table.
-  	 * 			null, if database connection fails
+  	 * @param	rowLimit	Maximum number of records to be read
+  	 * @param	rowHandler	Receiver of the records
+  	 * @return	true, if all the records were read
+  	 * 			false, if database connection fails or the read is interrupted by a database error
+  	 * @throws	IOException	if the row handler fails, in which case the read is abandoned
   	 */
-  	public List<List<Object>> getTableData(String tableName)
+  	public boolean streamTableData(String tableName, int rowLimit, TableRowHandler rowHandler) throws IOException
   	{
   		
   		if (dbConnection == null)							//failed connection
   		{
-  			return null;
+  			return false;
   		}
   		
   		//Proceeding, if database connection is successful
-  		Statement stmtTblData = null;
-  		ResultSet rsTblData = null;
-  		ResultSetMetaData rsmdTblData = null;
-  		int fieldCount = 0;
-  		List<List<Object>> tblData = new ArrayList<List<Object>>();
+  		boolean autoCommit = true;
+  		boolean tblDataRead = true;
   		
   		//Executing SQL query to get all the data of the table
-  		String tblDataQuery = "SELECT * FROM " + tableName + " LIMIT " + String.valueOf(ROW_LIMIT) + ";";
+  		String tblDataQuery = "SELECT * FROM " + tableName + " LIMIT " + String.valueOf(rowLimit) + ";";
   		try
   		{
-  			stmtTblData = dbConnection.createStatement();
-  			log.info("Running query " + tblDataQuery);
-  			rsTblData = stmtTblData.executeQuery(tblDataQuery);
-  			
-  			//Fetching field count for the results returned by the SQL query executed
-  			rsmdTblData = rsTblData.getMetaData();
-  			fieldCount = rsmdTblData.getColumnCount();
-  			
-  			while (rsTblData.next())
+  			autoCommit = dbConnection.getAutoCommit();
+  			try (Statement stmtTblData = StreamingStatements.create(dbConnection))
   			{
-  				List<Object> tblRecord = new ArrayList<Object>();
-  				
-  				for (int i=1; i<=fieldCount; i++)
+  				queryLog.record(tblDataQuery, stmtTblData);
+  				try (ResultSet rsTblData = stmtTblData.executeQuery(tblDataQuery))
+  				{
+  					//Fetching field count for the results returned by the SQL query executed
+  					int fieldCount = rsTblData.getMetaData().getColumnCount();
+  					Object[] tblRecord = new Object[fieldCount];
+  					
+  					while (rsTblData.next())
+  					{
+  						for (int i=1; i<=fieldCount; i++)
+  						{
+  							tblRecord[i-1] = rsTblData.getObject(i);
+  						}
+  						
+  						rowHandler.handleRow(tblRecord);
+  					}
+  				}
+  				finally
   				{
-  					tblRecord.add(rsTblData.getObject(i));
+  					queryLog.release(stmtTblData);
   				}
-  				
-  				tblData.add(tblRecord);
   			}
-
-  			rsTblData.close();
-  			stmtTblData.close();
   		}
   		catch (SQLException allTblDataSQLExcpn)
   		{
-  			stmtTblData = null;
-  			rsTblData = null;
-  			rsmdTblData = null;
-  			tblData = null;
+  			tblDataRead = false;
   			log.error("SQLException occurred while fetching all the data of table " + tableName + "... " + allTblDataSQLExcpn.getMessage());
   		}
+  		finally
+  		{
+  			restoreAutoCommit(autoCommit);
+  		}
   		
-  		return tblData;
+  		return tblDataRead;
   	}
   	
   	/**
-  	 * Fetches names and data types of data fields belonging to a table from the database.
-  	 * @param	tableName	Name of the table whose field details need to be fetched
-  	 * @return	List of all data field names and types belonging to the table.
-  	 * 			Each element of the list is a String array with index 0 holding the field name 
-  	 * 			and index 1 holding the corresponding type
-  	 * 			null, if database connection fails
+  	 * Puts the connection back in the auto-commit mode it had before a batched read.
+  	 * @param	autoCommit	Auto-commit mode to be restored
   	 */
-  	public List<String[]> getTableFields(String tableName)
+  	private void restoreAutoCommit(boolean autoCommit)
   	{
-  		
-  		if (dbConnection == null)							//failed connection
-  		{
-  			return null;
-  		}
-  		
-  		//Proceeding, if database connection is successful
-  		Statement stmtTblFields = null;
-  		ResultSet rsTblFields = null;
-  		ResultSetMetaData rsmdTblFields = null;
-  		int fieldCount = 0;
-  		List<String[]> tblFields = new ArrayList<String[]>();
-  		
-  		//Executing SQL query to get 1 row of the table
-  		String tblDataQuery = "SELECT * FROM " + tableName + " LIMIT 1;";
   		try
   		{
-  			stmtTblFields = dbConnection.createStatement();
-  			log.info("Running query " + tblDataQuery);
-  			rsTblFields = stmtTblFields.executeQuery(tblDataQuery);
-  			
-  			//Fetching field count for the results returned by the SQL query executed
-  			rsmdTblFields = rsTblFields.getMetaData();
-  			fieldCount = rsmdTblFields.getColumnCount();
-  			
-  			//Fetching field names and adding them to the list
-  			for (int i=1; i<=fieldCount; i++)
+  			if (dbConnection.getAutoCommit() != autoCommit)
   			{
-  				String[] dataField = new String[2];
-  				
-  				dataField[0] = rsmdTblFields.getColumnName(i);				//field name
-  				dataField[1] = rsmdTblFields.getColumnTypeName(i);			//field data type
-  				
-  				//Categorizing field type into "string" and "numeric" types  
-  				if (dataField[1].toUpperCase().indexOf("CHAR") >= 0)
-  				{
-  					dataField[1] = "string";
-  				}
-  				else
-  				{
-  					dataField[1] = "numeric";
-  				}
-  				
-  				tblFields.add(dataField);
+  				dbConnection.rollback();
+  				dbConnection.setAutoCommit(autoCommit);
   			}
-  			
-  			rsTblFields.close();
-  			stmtTblFields.close();
   		}
-  		catch (SQLException tblFieldsSQLExcpn)
+  		catch (SQLException sqle)
   		{
-  			stmtTblFields = null;
-  			rsTblFields = null;
-  			rsmdTblFields = null;
-  			tblFields = null;
-  			log.error("SQLException occurred while fetching field details of table " + tableName + "... " + tblFieldsSQLExcpn.getMessage());
+  			log.warn("SQLException occurred while restoring auto-commit mode... " + sqle.getMessage());
   		}
-  		
-  		return tblFields;
   	}
   	
   	/**
-  	 * Executes SQL query on the database and fetches all the values of the selected page label column 
-  	 * @param	pageLabel		Page label column selected as part of pivot table schema
-  	 * @param	tableName		Raw report table name
-  	 * @return	List of page label column values
+  	 * Fetches names and data types of data fields belonging to a table from the catalog of the database.
+  	 * No connection is needed while the catalog is cached.
+  	 * @param	tableName	Name of the table whose field details need to be fetched
+  	 * @return	List of all data field names and types belonging to the table.
+  	 * 			Each element of the list is a String array with index 0 holding the field name 
+  	 * 			and index 1 holding the corresponding type
+  	 * 			null, if the table does not exist or the catalog could not be read
   	 */
-  	public List<String> getPageLabelValues(String pageLabel, String tableName,
-										   String filterField, String filterValue,
-										   String sortField, String sortOrder)
+  	public List<String[]> getTableFields(String tableName)
   	{
-  		
-  		if (dbConnection == null)							//failed connection
-  		{
-  			return null;
-  		}
-  		
-  		//Proceeding, if database connection is successful
-  		String pageLabelQuery = null;
-  		Statement stmtPageLabels = null;
-  		ResultSet rsPageLabels = null;
-  		List<String> pageLabelValues = new ArrayList<String>();
-
-  		String orderByClause = pageLabel.equals(sortField) ? " ORDER BY " + sortField + " " + sortOrder : "";
-  		String whereClause = "";
-  		if (filterField != null && !filterField.trim().isEmpty() && filterValue != null && !filterField.trim().isEmpty()) {
-  			whereClause = " WHERE " + filterField + " = \'" + filterValue + "\';";
-		}
-  		//Generating the SQL query to get all the values of the selected page label column
-		pageLabelQuery = "SELECT DISTINCT " + pageLabel
-							+ " FROM (SELECT * FROM " + tableName + " LIMIT " + String.valueOf(ROW_LIMIT) + ") as sublist "
-							+ whereClause + orderByClause;
-		
-		//Executing the page label SQL query
-  		try
-  		{
-  			stmtPageLabels = dbConnection.createStatement();
-  			log.info("Running query " + pageLabelQuery);
-  			rsPageLabels = stmtPageLabels.executeQuery(pageLabelQuery);
-  			
-  			while (rsPageLabels.next())
-  				pageLabelValues.add(rsPageLabels.getString(pageLabel));
-  			
-  			rsPageLabels.close();
-  			stmtPageLabels.close();
-  		}
-  		catch (SQLException pageLabelsSQLExcpn)
-  		{
-  			stmtPageLabels = null;
-  			rsPageLabels = null;
-  			pageLabelValues = null;
-  			log.error("SQLException occurred while fetching page label values... " + pageLabelsSQLExcpn.getMessage());
-  		}
-  		
-  		return pageLabelValues;
+  		DataSourceCatalog catalog = catalogs.getCatalog(dbUrl, dbUsername, dbPassword);
+  		return catalog == null ? null : catalog.getTableFields(tableName);
   	}
   	
-  	/**
+	/**
+	 * Reads the estimates the database keeps of the size of a table from its catalog, without scanning it.
+	 * @param	tableName	Name of the table
+	 * @return	Estimates of the table, whose values are unknown if the database keeps none
+	 * 			null, if database connection fails or the estimates could not be read
+	 */
+	public TableEstimates estimateTable(String tableName)
+	{
+		if (dbConnection == null)							//failed connection
+		{
+			return null;
+		}
+		
+		try
+		{
+			return TableEstimator.estimate(dbConnection, queryLog, tableName);
+		}
+		catch (SQLException estimateSQLExcpn)
+		{
+			log.warn("SQLException occurred while reading the estimates of table " + tableName + "... " + estimateSQLExcpn.getMessage());
+			return null;
+		}
+	}
+	
+	/**
+	 * Fetches the column statistics of a table from the statistics registry, computed in the background on first use.
+	 * @param	tableName	Name of the table
+	 * @return	Statistics of the table, possibly out of date
+	 * 			null, if they have not been computed yet
+	 */
+	public TableStatistics getTableStatistics(String tableName)
+	{
+		return statistics.getStatistics(dbUrl, dbUsername, dbPassword, tableName);
+	}
+	
+	/**
+	 * Fetches the number of key ranges a scan of the raw rows of the data source may be split into, as configured for it.
+	 * @return	Number of key ranges, 1 if the rows are scanned by a single query
+	 */
+	public int getScanPartitions()
+	{
+		return connectionPools.getScanPartitions(dbUrl);
+	}
+	
+	/**
 	 * Retrieves pivot table data based on the strategy assigned.
-	 * @return	Pivot table data
+	 * @param	rowLimit	Maximum number of rows to be aggregated into the pivot table
+	 * @return	Pivot table data, along with the page label values it was split by
+	 * 			null, if the data could not be fetched
+	 */
+	public PivotTableData executePvtTblStrategy(int rowLimit)
+	{
+		if (dbConnection == null)							//failed connection
+		{
+			return null;
+		}
+		
+		//The strategy reads its rows in batches, which may need auto-commit to be turned off
+		boolean autoCommit = true;
+		try
+		{
+			autoCommit = dbConnection.getAutoCommit();
+		}
+		catch (SQLException sqle)
+		{
+			log.error("SQLException occurred while reading auto-commit mode... " + sqle.getMessage());
+			return null;
+		}
+		
+		try
+		{
+			return pvtTblStrategy.getPvtTblData(dbConnection, rowLimit, queryLog);
+		}
+		finally
+		{
+			restoreAutoCommit(autoCommit);
+		}
+	}
+	
+	/**
+	 * Fetches the log of the statements executed against the data source by this object.
+	 * @return	Query log
 	 */
-	public List<List<List<Object>>> executePvtTblStrategy()
+	public QueryLog getQueryLog()
 	{
-		return pvtTblStrategy.getPvtTblData(dbConnection, ROW_LIMIT);
+		return queryLog;
 	}
 }
@@ -0,0 +1,307 @@
+package ca.concordia.pivottable.datalayer.impl;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import ca.concordia.pivottable.datalayer.DataSourceCatalog;
+import ca.concordia.pivottable.entities.DataType;
+import ca.concordia.pivottable.servicelayer.ConfigurationHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Application-wide registry of the metadata catalogs of the external data sources.
+ * A catalog is read through DatabaseMetaData the first time a data source is used, then served from memory.
+ * Once older than its time to live, it is still served while a fresh one is read in the background.
+ * As with the connection pools, there is one catalog per database URL, username and password,
+ * so the metadata is only ever handed to a caller presenting the credentials it was read with.
+ * It implements the Singleton design pattern.
+ */
+public class DataSourceCatalogRegistry
+{
+	/**
+	 * Interval between two runs of the catalog maintenance task.
+	 */
+	private static final long MAINTENANCE_INTERVAL_SECONDS = 30;
+
+	/**
+	 * Minimum age of a catalog before a lookup of an unknown table reads it again.
+	 */
+	private static final long MIN_RELOAD_INTERVAL_MILLIS = 5000;
+
+	/**
+	 * Single instance of the registry.
+	 */
+	private static DataSourceCatalogRegistry singleRegistry;
+
+	/**
+	 * Catalogs keyed by database URL, username and password.
+	 */
+	private final Map<CatalogKey, CatalogHolder> catalogs = new ConcurrentHashMap<CatalogKey, CatalogHolder>();
+
+	/**
+	 * Pools the connections used to read the catalogs are borrowed from.
+	 */
+	private final ConnectionPoolRegistry connectionPools;
+
+	/**
+	 * Time to live of a catalog, in milliseconds.
+	 */
+	private final long catalogTtl;
+
+	/**
+	 * Reads the expired catalogs in the background.
+	 */
+	private final ExecutorService refreshExecutor;
+
+	/**
+	 * Used for logging information, warning and error messages during application run.
+	 */
+	private Logger log = LoggerFactory.getLogger(DataSourceCatalogRegistry.class);
+
+	/**
+	 * Class constructor.
+	 * @param	connectionPools	Pools the connections used to read the catalogs are borrowed from
+	 * @param	catalogTtl		Time to live of a catalog, in milliseconds
+	 */
+	private DataSourceCatalogRegistry(ConnectionPoolRegistry connectionPools, long catalogTtl)
+	{
+		this.connectionPools = connectionPools;
+		this.catalogTtl = catalogTtl;
+
+		refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "data-source-catalog-refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+		ScheduledExecutorService maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "data-source-catalog-maintenance");
+			thread.setDaemon(true);
+			return thread;
+		});
+		maintenanceExecutor.scheduleWithFixedDelay(this::discardUnusedCatalogs, MAINTENANCE_INTERVAL_SECONDS,
+													MAINTENANCE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Ensures that only one instance of this class exists at all times.
+	 * @param	connectionPools	Pools the connections used to read the catalogs are borrowed from
+	 * @param	appConfigHolder	Holder of the application configuration, holding the catalog time to live
+	 * @return	The class instance
+	 */
+	public static synchronized DataSourceCatalogRegistry getRegistry(ConnectionPoolRegistry connectionPools,
+																	ConfigurationHolder appConfigHolder)
+	{
+		if (singleRegistry == null)
+			singleRegistry = new DataSourceCatalogRegistry(connectionPools, appConfigHolder.getConfiguration().getDataSourceCatalogTtl());
+		return singleRegistry;
+	}
+
+	/**
+	 * Fetches the catalog of a data source, reading it on first use.
+	 * An expired catalog is returned as is, while a fresh one is read in the background.
+	 * @param	dbUrl		URL of the database
+	 * @param	dbUsername	Username for login
+	 * @param	dbPassword	Password for login
+	 * @return	The catalog
+	 * 			null, if it could not be read
+	 */
+	public DataSourceCatalog getCatalog(String dbUrl, String dbUsername, String dbPassword)
+	{
+		CatalogHolder holder = catalogs.computeIfAbsent(new CatalogKey(dbUrl, dbUsername, dbPassword), CatalogHolder::new);
+		holder.lastUsedAt = System.currentTimeMillis();
+
+		DataSourceCatalog catalog = holder.catalog;
+		if (catalog == null)
+			return loadCatalog(holder, 0);
+
+		if (holder.lastUsedAt - catalog.getLoadedAt() >= catalogTtl && holder.refreshing.compareAndSet(false, true))
+		{
+			refreshExecutor.execute(() -> {
+				try
+				{
+					loadCatalog(holder, catalogTtl);
+				}
+				finally
+				{
+					holder.refreshing.set(false);
+				}
+			});
+		}
+
+		return catalog;
+	}
+
+	/**
+	 * Reads the catalog of a data source again, for instance because a table it does not list was asked for.
+	 * The catalog is not read again if it is very recent, so that repeated lookups of a missing table stay cheap.
+	 * @param	dbUrl		URL of the database
+	 * @param	dbUsername	Username for login
+	 * @param	dbPassword	Password for login
+	 * @return	The current catalog
+	 * 			null, if it could not be read
+	 */
+	public DataSourceCatalog reloadCatalog(String dbUrl, String dbUsername, String dbPassword)
+	{
+		CatalogHolder holder = catalogs.computeIfAbsent(new CatalogKey(dbUrl, dbUsername, dbPassword), CatalogHolder::new);
+		holder.lastUsedAt = System.currentTimeMillis();
+		return loadCatalog(holder, MIN_RELOAD_INTERVAL_MILLIS);
+	}
+
+	/**
+	 * Reads the catalog of a data source, unless another thread has read it recently in the meantime.
+	 * @param	holder	Holder of the catalog
+	 * @param	minAge	Age the current catalog must have reached to be read again, in milliseconds
+	 * @return	The current catalog
+	 * 			null, if it could not be read
+	 */
+	private DataSourceCatalog loadCatalog(CatalogHolder holder, long minAge)
+	{
+		synchronized (holder)
+		{
+			DataSourceCatalog catalog = holder.catalog;
+			if (catalog != null && System.currentTimeMillis() - catalog.getLoadedAt() < minAge)
+				return catalog;
+
+			try (Connection dbConnection = connectionPools.getConnection(holder.key.dbUrl, holder.key.dbUsername, holder.key.dbPassword))
+			{
+				holder.catalog = readCatalog(dbConnection, holder.key.dbUrl);
+			}
+			catch (SQLException catalogSQLExcpn)
+			{
+				log.error("SQLException occurred while reading the catalog of database " + holder.key.dbUrl + "... " + catalogSQLExcpn.getMessage());
+			}
+
+			return holder.catalog;
+		}
+	}
+
+	/**
+	 * Reads the tables of a database and their fields, with one metadata call for the tables and one for all the fields.
+	 * @param	dbConnection	Connection to the database
+	 * @param	dbUrl			URL of the database
+	 * @return	The catalog
+	 * @throws	SQLException	if the metadata cannot be read
+	 */
+	private DataSourceCatalog readCatalog(Connection dbConnection, String dbUrl) throws SQLException
+	{
+		long loadedAt = System.currentTimeMillis();
+		DatabaseMetaData dbmd = dbConnection.getMetaData();
+		Map<String, List<String[]>> tableFields = new LinkedHashMap<String, List<String[]>>();
+
+		//For PostgreSQL database, only the tables of the public schema are raw reports
+		String schemaPattern = dbUrl != null && dbUrl.indexOf("postgresql") >= 0 ? "public" : null;
+
+		//Fetching all table names from database
+		try (ResultSet rsTables = dbmd.getTables(null, schemaPattern, "%", new String[] {"TABLE", "VIEW"}))
+		{
+			while (rsTables.next())
+			{
+				tableFields.put(rsTables.getString("TABLE_NAME"), new ArrayList<String[]>());
+			}
+		}
+
+		//Fetching the fields of all the tables, in field order
+		try (ResultSet rsColumns = dbmd.getColumns(null, schemaPattern, "%", "%"))
+		{
+			while (rsColumns.next())
+			{
+				List<String[]> fields = tableFields.get(rsColumns.getString("TABLE_NAME"));
+				if (fields == null)
+					continue;
+
+				String[] dataField = new String[2];
+				dataField[0] = rsColumns.getString("COLUMN_NAME");										//field name
+				dataField[1] = DataType.fromSqlType(rsColumns.getInt("DATA_TYPE")).toString();			//field data type
+				fields.add(dataField);
+			}
+		}
+
+		log.info("Catalog of database " + dbUrl + " read with " + tableFields.size() + " tables.");
+		return new DataSourceCatalog(tableFields, loadedAt);
+	}
+
+	/**
+	 * Discards the catalogs that have not been used for longer than their time to live.
+	 */
+	private void discardUnusedCatalogs()
+	{
+		try
+		{
+			long now = System.currentTimeMillis();
+			Iterator<CatalogHolder> holderIter = catalogs.values().iterator();
+			while (holderIter.hasNext())
+			{
+				if (now - holderIter.next().lastUsedAt >= catalogTtl)
+					holderIter.remove();
+			}
+		}
+		catch (RuntimeException excp)
+		{
+			log.error("Unexpected exception occurred while maintaining data source catalogs... " + excp.getMessage());
+		}
+	}
+
+	/**
+	 * Catalog of a data source, along with its state.
+	 */
+	private static class CatalogHolder
+	{
+		private final CatalogKey key;
+		private volatile DataSourceCatalog catalog;
+		private volatile long lastUsedAt;
+		private final AtomicBoolean refreshing = new AtomicBoolean();
+
+		private CatalogHolder(CatalogKey key)
+		{
+			this.key = key;
+		}
+	}
+
+	/**
+	 * Key identifying the catalog of a set of credentials.
+	 */
+	private static class CatalogKey
+	{
+		private final String dbUrl;
+		private final String dbUsername;
+		private final String dbPassword;
+
+		private CatalogKey(String dbUrl, String dbUsername, String dbPassword)
+		{
+			this.dbUrl = dbUrl;
+			this.dbUsername = dbUsername;
+			this.dbPassword = dbPassword;
+		}
+
+		@Override
+		public boolean equals(Object other)
+		{
+			if (other == null || other.getClass() != this.getClass())
+				return false;
+
+			CatalogKey o = (CatalogKey)other;
+			return Objects.equals(dbUrl, o.dbUrl) && Objects.equals(dbUsername, o.dbUsername)
+					&& Objects.equals(dbPassword, o.dbPassword);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(dbUrl, dbUsername, dbPassword);
+		}
+	}
+}
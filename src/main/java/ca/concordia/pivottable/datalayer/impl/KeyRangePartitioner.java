@@ -0,0 +1,193 @@
+package ca.concordia.pivottable.datalayer.impl;
+
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import ca.concordia.pivottable.datalayer.QueryLog;
+
+/**
+ * Splits the scan of a raw report table into ranges of an indexed integer column, so that the ranges can be read
+ * on several connections at the same time. The range key is the primary key of the table, if it is a single
+ * integer column, or else the first column of another index of the table, if it is an integer column.
+ * The bounds of the ranges are spread evenly between the lowest and highest key values of the rows to be scanned.
+ */
+final class KeyRangePartitioner
+{
+	private KeyRangePartitioner()
+	{
+		//no instances
+	}
+
+	/**
+	 * Splits the rows of a table selected by a filter into key ranges.
+	 * The first range also holds the rows without a key, and the first and last ranges are left open,
+	 * so that every row is in exactly one range even if the table changes after the key values are probed.
+	 * @param	dbConnection	Connection to the data source
+	 * @param	queryLog		Log of the statements executed for the current request
+	 * @param	tableName		Raw report table name
+	 * @param	filterClause	WHERE clause selecting the rows to be scanned, or a blank string to scan them all
+	 * @param	partitions		Number of ranges wanted
+	 * @param	minRows			Number of rows under which the rows are not split
+	 * @param	maxRows			Number of rows above which the rows are not split, the scan being limited to as many rows
+	 * @return	SQL conditions selecting every range, or an empty list if the rows are to be scanned at once
+	 * @throws	SQLException	if the table metadata or the key values cannot be read
+	 */
+	static List<String> partition(Connection dbConnection, QueryLog queryLog, String tableName, String filterClause,
+									int partitions, long minRows, long maxRows) throws SQLException
+	{
+		if (partitions < 2)
+			return Collections.emptyList();
+
+		String keyColumn = findKeyColumn(dbConnection, tableName);
+		if (keyColumn == null)
+			return Collections.emptyList();
+
+		String probeQuery = "SELECT MIN(" + keyColumn + "), MAX(" + keyColumn + "), COUNT(*) FROM " + tableName + filterClause + ";";
+		BigInteger minKey;
+		BigInteger maxKey;
+		long rowCount;
+
+		try (Statement stmtProbe = dbConnection.createStatement())
+		{
+			queryLog.record(probeQuery, stmtProbe);
+			try (ResultSet rsProbe = stmtProbe.executeQuery(probeQuery))
+			{
+				if (!rsProbe.next() || rsProbe.getObject(1) == null)
+					return Collections.emptyList();
+
+				minKey = new BigInteger(rsProbe.getObject(1).toString());
+				maxKey = new BigInteger(rsProbe.getObject(2).toString());
+				rowCount = rsProbe.getLong(3);
+			}
+			finally
+			{
+				queryLog.release(stmtProbe);
+			}
+		}
+
+		//Ranges would each be limited on their own, so a scan cut short by the row limit is not split
+		if (rowCount < minRows || rowCount > maxRows)
+			return Collections.emptyList();
+
+		BigInteger keySpan = maxKey.subtract(minKey).add(BigInteger.ONE);
+		int rangeCount = (int)Math.min(partitions, keySpan.min(BigInteger.valueOf(rowCount)).longValue());
+		if (rangeCount < 2)
+			return Collections.emptyList();
+
+		List<String> conditions = new ArrayList<String>(rangeCount);
+		BigInteger lowerBound = null;
+		for (int i=1; i<=rangeCount; i++)
+		{
+			BigInteger upperBound = i == rangeCount ? null
+									: minKey.add(keySpan.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(rangeCount)));
+
+			if (lowerBound == null)
+				conditions.add("(" + keyColumn + " < " + upperBound + " OR " + keyColumn + " IS NULL)");
+			else if (upperBound == null)
+				conditions.add("(" + keyColumn + " >= " + lowerBound + ")");
+			else
+				conditions.add("(" + keyColumn + " >= " + lowerBound + " AND " + keyColumn + " < " + upperBound + ")");
+
+			lowerBound = upperBound;
+		}
+
+		return conditions;
+	}
+
+	/**
+	 * Finds the column the scan of a table can be split on.
+	 * @param	dbConnection	Connection to the data source
+	 * @param	tableName		Raw report table name, optionally preceded by its schema
+	 * @return	Name of the range key column, or null if the table has no indexed integer column
+	 * @throws	SQLException	if the table metadata cannot be read
+	 */
+	private static String findKeyColumn(Connection dbConnection, String tableName) throws SQLException
+	{
+		DatabaseMetaData dbMetaData = dbConnection.getMetaData();
+		String catalog = dbConnection.getCatalog();
+		String schema = null;
+		String table = tableName.replace("\"", "").replace("`", "");
+		if (table.indexOf('.') >= 0)
+		{
+			schema = table.substring(0, table.lastIndexOf('.'));
+			table = table.substring(table.lastIndexOf('.') + 1);
+
+			//MySQL qualifies tables by database, which it reports as the catalog
+			if (!dbMetaData.supportsSchemasInDataManipulation())
+			{
+				catalog = schema;
+				schema = null;
+			}
+		}
+
+		//Unquoted names are stored in the case the database folds identifiers to
+		if (dbMetaData.storesLowerCaseIdentifiers())
+			table = table.toLowerCase();
+		else if (dbMetaData.storesUpperCaseIdentifiers())
+			table = table.toUpperCase();
+
+		List<String> primaryKey = new ArrayList<String>();
+		try (ResultSet rsKeys = dbMetaData.getPrimaryKeys(catalog, schema, table))
+		{
+			while (rsKeys.next())
+			{
+				primaryKey.add(rsKeys.getString("COLUMN_NAME"));
+			}
+		}
+		if (primaryKey.size() == 1 && isIntegerColumn(dbMetaData, catalog, schema, table, primaryKey.get(0)))
+			return primaryKey.get(0);
+
+		List<String> indexedColumns = new ArrayList<String>();
+		try (ResultSet rsIndexes = dbMetaData.getIndexInfo(catalog, schema, table, false, true))
+		{
+			while (rsIndexes.next())
+			{
+				if (rsIndexes.getShort("TYPE") != DatabaseMetaData.tableIndexStatistic && rsIndexes.getShort("ORDINAL_POSITION") == 1)
+					indexedColumns.add(rsIndexes.getString("COLUMN_NAME"));
+			}
+		}
+		for (String indexedColumn : indexedColumns)
+		{
+			if (indexedColumn != null && isIntegerColumn(dbMetaData, catalog, schema, table, indexedColumn))
+				return indexedColumn;
+		}
+
+		return null;
+	}
+
+	/**
+	 * @param	dbMetaData	Metadata of the data source
+	 * @param	catalog		Catalog of the table
+	 * @param	schema		Schema of the table, null if not specified
+	 * @param	table		Table name
+	 * @param	column		Column name
+	 * @return	true, if the column holds integers
+	 * @throws	SQLException	if the column metadata cannot be read
+	 */
+	private static boolean isIntegerColumn(DatabaseMetaData dbMetaData, String catalog, String schema, String table, String column) throws SQLException
+	{
+		try (ResultSet rsColumns = dbMetaData.getColumns(catalog, schema, table, column))
+		{
+			if (!rsColumns.next())
+				return false;
+
+			switch (rsColumns.getInt("DATA_TYPE"))
+			{
+				case Types.TINYINT:
+				case Types.SMALLINT:
+				case Types.INTEGER:
+				case Types.BIGINT:
+					return true;
+				default:
+					return false;
+			}
+		}
+	}
+}
@@ -1,15 +1,17 @@
 package ca.concordia.pivottable.datalayer.impl;
 
 import java.sql.Connection;
-import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
+import ca.concordia.pivottable.datalayer.AggregationMethod;
+import ca.concordia.pivottable.datalayer.PivotTableData;
 import ca.concordia.pivottable.datalayer.PivotTableStrategy;
+import ca.concordia.pivottable.datalayer.QueryLog;
+import ca.concordia.pivottable.datalayer.aggregation.Accumulator;
+import ca.concordia.pivottable.datalayer.aggregation.Accumulators;
+import ca.concordia.pivottable.entities.PivotTableCells;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,6 +32,27 @@ public class MultiplePageStrategy implements PivotTableStrategy
 	private String sortField;
 	private String sortOrder;
 	private String tableName;
+	private String tableSummFuncName;
+	
+	/**
+	 * How the queries may be spread over several connections, null to run them all on the connection of the request.
+	 */
+	private ParallelExecution parallelExecution = null;
+	
+	/**
+	 * How the cells are to be aggregated, null to let the summary function and the parallel execution decide.
+	 */
+	private AggregationMethod aggregationMethod = null;
+	
+	/**
+	 * Index of the first page of the window of pages fetched.
+	 */
+	private int pageWindowOffset = 0;
+	
+	/**
+	 * Number of pages of the window of pages fetched, 0 to fetch all the pages.
+	 */
+	private int pageWindowSize = 0;
 	
 	/**
 	 * Used for logging information, warning and error messages during application run.
@@ -48,9 +71,11 @@ public class MultiplePageStrategy implements PivotTableStrategy
   	 * @param	sortField	Field name by which pivot table data needs to be sorted
   	 * @param	sortOrder	Order (ascending/descending) in which pivot table data needs to be sorted
   	 * @param	tableName	Raw report table name
+  	 * @param	tableSummFuncName	Summary function selected as part of pivot table schema
 	 */
 	public MultiplePageStrategy(List<String> rowLabels, List<String> colLabels, String pageLabel, String function, String valField, 
-  								String filterField, String filterValue, String sortField, String sortOrder, String tableName)
+  								String filterField, String filterValue, String sortField, String sortOrder, String tableName,
+								String tableSummFuncName)
 	{
 		this.rowLabels = rowLabels;
 		this.colLabels = colLabels;
@@ -62,15 +87,56 @@ public class MultiplePageStrategy implements PivotTableStrategy
 		this.sortField = sortField;
 		this.sortOrder = sortOrder;
 		this.tableName = tableName;
+		this.tableSummFuncName = tableSummFuncName;
+	}
+	
+	/**
+	 * Lets the pages be fetched by several queries at the same time, and the raw rows be scanned by key ranges.
+	 * @param	parallelExecution	How the queries may be spread over several connections
+	 */
+	void setParallelExecution(ParallelExecution parallelExecution)
+	{
+		this.parallelExecution = parallelExecution;
+	}
+	
+	/**
+	 * Sets how the cells are to be aggregated, as chosen by the pivot table planner.
+	 * @param	aggregationMethod	How the cells are to be aggregated
+	 */
+	public void setAggregationMethod(AggregationMethod aggregationMethod)
+	{
+		this.aggregationMethod = aggregationMethod;
+	}
+	
+	/**
+	 * Restricts the pages fetched to a window of consecutive pages,
+	 * so that a pivot table exceeding the cell budget can be fetched a few pages at a time.
+	 * The pages are in ascending order of their page label value, as for the whole pivot table,
+	 * and its table summary still covers all the pages.
+	 * @param	pageWindowOffset	Index of the first page of the window
+	 * @param	pageWindowSize		Number of pages of the window
+	 */
+	public void setPageWindow(int pageWindowOffset, int pageWindowSize)
+	{
+		this.pageWindowOffset = pageWindowOffset;
+		this.pageWindowSize = pageWindowSize;
 	}
 	
 	/**
 	 * Executes a specific strategy for retrieving pivot table data.
+	 * All the pages are fetched by a single query grouping by the page label first,
+	 * and every cell of the result is then assigned to its page in memory.
+	 * The page label values are taken from the same result, so no separate query is needed to fetch them.
+	 * Whichever way they are fetched, the pages are in ascending order of their page label value.
+	 * If parallel execution is set, the summaries are left to the application and the filtered table fits in the row limit,
+	 * the pages are fetched by several queries at the same time instead.
+	 * If a page window is set, only the pages of the window are fetched, along with the total number of pages.
 	 * @param	dbConnection	Database connection object
 	 * @param	rowLimit		Maximum number of rows to be fetched by any SQL query
-	 * @return	Pivot table data
+	 * @param	queryLog		Log of the statements executed for the current request
+	 * @return	Pivot table data, along with the page label values in page order and its summaries if the database calculated them
 	 */
-	public List<List<List<Object>>> getPvtTblData(Connection dbConnection, int rowLimit)
+	public PivotTableData getPvtTblData(Connection dbConnection, int rowLimit, QueryLog queryLog)
 	{
 		if (dbConnection == null)							//failed connection
   		{
@@ -78,318 +144,250 @@ public class MultiplePageStrategy implements PivotTableStrategy
   		}
   		
   		//Proceeding, if database connection is successful
-  		String sortClause = " ";
-  		String filterClause = " ";
-  		String selectClause = " SELECT ";
-  		String grpClause = " GROUP BY ";
-  		List<List<List<Object>>> pvtTblData = new ArrayList<List<List<Object>>>();
+		//Grouping by page label followed by row labels and column labels
+  		List<String> labels = new ArrayList<String>();
+  		labels.add(pageLabel);
+  		labels.addAll(rowLabels);
+  		labels.addAll(colLabels);
   		
-  		//Generating the SQL query select clause for selecting row labels
-  		for (String rowLabel : rowLabels)
-  		{
-  			selectClause = selectClause + rowLabel + ", ";
-  		}
-  		
-  		//Generating the SQL query select clause for selecting column labels
-  		for (String colLabel : colLabels)
-  		{
-  			selectClause = selectClause + colLabel + ", ";
-  		}
+  		if (pageWindowSize > 0)
+  			return getPageWindowPvtTblData(dbConnection, rowLimit, queryLog, labels);
   		
-  		//Generating the SQL query group by clause for grouping by row labels
-  		for (String rowLabel : rowLabels)
+  		//Letting the database calculate the summaries along with the cells, when it can
+  		if ((aggregationMethod == null || aggregationMethod == AggregationMethod.PUSHDOWN)
+  				&& RollupPivotQuery.isSupported(dbConnection, function, tableSummFuncName, labels.size()))
   		{
-  			grpClause = grpClause + rowLabel + ", ";
+  			try
+  			{
+  				PivotTableData pvtTblData = new RollupPivotQuery(pageLabel, rowLabels, colLabels, function, valField, filterField, filterValue,
+  											sortField, sortOrder, tableName).execute(dbConnection, rowLimit, queryLog);
+  				queryLog.completeAllPages(pvtTblData.getCells().getPageCount());
+  				return pvtTblData;
+  			}
+  			catch (SQLException pvtTblDataSQLExcpn)
+  			{
+  				log.error("SQLException occurred while fetching pivot table data with summaries... " + pvtTblDataSQLExcpn.getMessage());
+  				if (queryLog.isCancelled() || queryLog.isTimedOut())
+  					return null;
+  				
+  				//Leaving the summaries to the application, as if the database could not calculate them
+  				log.info("Fetching pivot table data without summaries.");
+  			}
   		}
   		
-  		//Generating the SQL query group by clause for grouping by column labels
-  		for (String colLabel : colLabels)
+  		//A partitioned scan reads all the pages at once, its ranges being spread over the connections instead
+  		if (parallelExecution != null && parallelExecution.getPageQueryParallelism() > 1 && aggregationMethod != AggregationMethod.PARTITIONED_SCAN)
   		{
-  			grpClause = grpClause + colLabel + ", ";
+  			try
+  			{
+  				//Page groups would each be limited on their own, so a table cut short by the row limit is read by a single query
+  				if (!new PivotQuery(labels, function, valField, filterField, filterValue, sortField, sortOrder, tableName)
+  						.exceedsRowLimit(dbConnection, rowLimit, queryLog))
+  					return getParallelPvtTblData(dbConnection, rowLimit, queryLog, labels);
+  			}
+  			catch (SQLException pvtTblDataSQLExcpn)
+  			{
+  				log.error("SQLException occurred while probing the pivot table rows... " + pvtTblDataSQLExcpn.getMessage());
+  				return null;
+  			}
   		}
   		
-  		//Generating the SQL query clause for filtering resulting data
-  		if ((filterField != null && !filterField.trim().isEmpty()) && (filterValue != null))
-  			filterClause = " WHERE " + filterField + " = \'" + filterValue + "\'";
-  		
-  		//Generating the SQL query clause for sorting resulting data
-  		if ((sortField != null && !sortField.trim().isEmpty()) && (sortOrder != null))
-  			sortClause = " ORDER BY " + sortField + " " + sortOrder;
-  		
-  		//Fetching all the values of the selected page label column
-		List<String> pageLabelValues = getPageLabelValues(dbConnection, rowLimit);
+  		PivotQuery pvtTblQuery = new PivotQuery(labels, function, valField, filterField, filterValue, sortField, sortOrder, tableName);
+  		pvtTblQuery.setParallelExecution(parallelExecution);
+  		pvtTblQuery.setAggregationMethod(aggregationMethod);
 		
-		//Generating and executing the SQL query
-		pvtTblData = executeQuery(dbConnection, rowLimit, selectClause, filterClause, sortClause, pageLabelValues);
-
-  		return pvtTblData;
+		//Generating and executing the SQL query, assigning every cell to the page of its page label value
+		PageIndex pageIndex = new PageIndex();
+		PivotTableCells.Builder pvtTblCells = new PivotTableCells.Builder(labels.size() - 1);
+		try
+		{
+			pvtTblQuery.execute(dbConnection, rowLimit, queryLog,
+								(cellLabels, value) -> pvtTblCells.addCell(pageIndex.getPage(cellLabels.get(0)),
+																			cellLabels.subList(1, cellLabels.size()), value));
+		}
+		catch (SQLException pvtTblDataSQLExcpn)
+		{
+			log.error("SQLException occurred while fetching pivot table data... " + pvtTblDataSQLExcpn.getMessage());
+			return null;
+		}
+		
+		//Putting the pages in ascending order of their page label value, as on every other path
+		pvtTblCells.renumberPages(pageIndex.sort());
+		queryLog.completeAllPages(pageIndex.size());
+		return new PivotTableData(pageIndex.getLabels(), pvtTblCells.build(pageIndex.size()));
 	}
 	
-	/**
-  	 * Executes SQL query on the database and fetches all the values of the selected page label column. 
-  	 * @param	dbConnection	Database connection object
-	 * @param	rowLimit		Maximum number of rows to be fetched by any SQL query
-  	 * @return	List of page label column values
+  	/**
+  	 * Fetches the pages with several queries at the same time, each restricted to a group of page label values.
+  	 * The page label values are fetched first and put in ascending order, which is the order of the pages.
+  	 * @param	dbConnection	Database connection object, used by the first group
+  	 * @param	rowLimit		Maximum number of rows to be fetched by any SQL query
+  	 * @param	queryLog		Log of the statements executed for the current request
+  	 * @param	labels			Page label followed by row labels and column labels
+  	 * @return	Pivot table data, along with the page label values in page order
+  	 * 			null, if any of the queries fails
   	 */
-  	public List<String> getPageLabelValues(Connection dbConnection, int rowLimit)
+  	private PivotTableData getParallelPvtTblData(Connection dbConnection, int rowLimit, QueryLog queryLog, List<String> labels)
   	{
-  		
-  		if (dbConnection == null)							//failed connection
-  		{
-  			return null;
-  		}
-  		
-  		//Proceeding, if database connection is successful
-  		String pageLabelQuery = null;
-  		Statement stmtPageLabels = null;
-  		ResultSet rsPageLabels = null;
-  		List<String> pageLabelValues = new ArrayList<String>();
-
-  		String orderByClause = pageLabel.equals(sortField) ? " ORDER BY " + sortField + " " + sortOrder : "";
-  		String whereClause = "";
-  		if (filterField != null && !filterField.trim().isEmpty() && filterValue != null && !filterField.trim().isEmpty()) {
-  			whereClause = " WHERE " + filterField + " = \'" + filterValue + "\';";
-		}
-  		//Generating the SQL query to get all the values of the selected page label column
-		pageLabelQuery = "SELECT DISTINCT " + pageLabel
-							+ " FROM (SELECT * FROM " + tableName + " LIMIT " + String.valueOf(rowLimit) + ") as sublist "
-							+ whereClause + orderByClause;
-		
-		//Executing the page label SQL query
   		try
   		{
-  			stmtPageLabels = dbConnection.createStatement();
-  			log.info("Running query " + pageLabelQuery);
-  			rsPageLabels = stmtPageLabels.executeQuery(pageLabelQuery);
+  			PageIndex pageIndex = new PageIndex(new PivotQuery(labels, function, valField, filterField, filterValue, sortField, sortOrder, tableName)
+  													.fetchDistinctValues(dbConnection, rowLimit, queryLog, pageLabel));
+  			pageIndex.sort();
+  			queryLog.setPageCount(pageIndex.size());
   			
-  			while (rsPageLabels.next())
-  				pageLabelValues.add(rsPageLabels.getString(pageLabel));
-  			
-  			rsPageLabels.close();
-  			stmtPageLabels.close();
+  			return new PivotTableData(pageIndex.getLabels(), fetchPageGroups(dbConnection, rowLimit, queryLog, labels, pageIndex));
   		}
-  		catch (SQLException pageLabelsSQLExcpn)
+  		catch (SQLException pvtTblDataSQLExcpn)
   		{
-  			stmtPageLabels = null;
-  			rsPageLabels = null;
-  			pageLabelValues = null;
-  			log.error("SQLException occurred while fetching page label values... " + pageLabelsSQLExcpn.getMessage());
+  			log.error("SQLException occurred while fetching pivot table pages in parallel... " + pvtTblDataSQLExcpn.getMessage());
+  			return null;
   		}
-  		
-  		return pageLabelValues;
   	}
   	
   	/**
-	 * Generates and executes an SQL query on database and fetches pivot table data.
-	 * @param 	dbConnection	An object of type Connection referring to the data source connection used for executing the query
-	 * @param 	rowLimit		Maximum number of rows to be fetched by any SQL query
-	 * @param 	selectClause	SQL query clause used for selecting row and column labels values as per the schema
-	 * @param 	filterClause	SQL query clause used for filtering pivot table data as per the schema
-  	 * @param 	sortClause		SQL query clause used for sorting pivot table data as per the schema
-  	 * @param	pageLabelValues	List of values of the page label column
-	 * @return	Pivot table data fetched from the database
-	 */
-  	private List<List<List<Object>>> executeQuery(Connection dbConnection, int rowLimit, String selectClause, String filterClause, String sortClause, List<String> pageLabelValues)
+  	 * Fetches the pages of the page window only.
+  	 * The page label values are fetched first and put in ascending order, as for the whole pivot table,
+  	 * so that the window is numbered the same way from one request to the next.
+  	 * The cells are then read by the same single query as the whole pivot table: those of the pages outside the window
+  	 * are only counted into the table summary, which covers all the pages.
+  	 * @param	dbConnection	Database connection object
+  	 * @param	rowLimit		Maximum number of rows to be fetched by any SQL query
+  	 * @param	queryLog		Log of the statements executed for the current request
+  	 * @param	labels			Page label followed by row labels and column labels
+  	 * @return	Pivot table data of the window, along with its page label values in page order, the total number of pages
+  	 * 			and the table summary of all the pages
+  	 * 			null, if any of the queries fails
+  	 */
+  	private PivotTableData getPageWindowPvtTblData(Connection dbConnection, int rowLimit, QueryLog queryLog, List<String> labels)
   	{
-  		String pvtTblDataQuery = null;  		
-  		Statement stmtPvtTblData = null;
-  		ResultSet rsPvtTblData = null;
-  		ResultSetMetaData rsmdPvtTblData = null;
-  		int fieldCount = 0;
-  		List<List<List<Object>>> pvtTblData = new ArrayList<List<List<Object>>>();
+  		PivotQuery pvtTblQuery = new PivotQuery(labels, function, valField, filterField, filterValue, sortField, sortOrder, tableName);
+  		pvtTblQuery.setParallelExecution(parallelExecution);
+  		pvtTblQuery.setAggregationMethod(aggregationMethod);
   		
-  		if (pageLabelValues != null) 
+  		PivotTableCells.Builder pvtTblCells = new PivotTableCells.Builder(labels.size() - 1);
+  		Accumulator tableAccumulator = Accumulators.forFunction(tableSummFuncName);
+  		try
   		{
-			//Fetching pivot table data per page
-	  		for (String pageValue : pageLabelValues) 
-	  		{
-	  			//Generating the page label selection clause
-	  	  		String pageLabelClause;
-	  	  		if (filterClause.trim().isEmpty())
-	  	  			pageLabelClause = " WHERE " + pageLabel + " = \'" + pageValue + "\' ";
-	  	  		else
-	  	  			pageLabelClause = " AND " + pageLabel + " = \'" + pageValue + "\' ";
-	  			
-	  			//Generating the SQL query to get pivot table data for one page label value
-	  	  		pvtTblDataQuery = selectClause
-	  	  							+ valField + " "
-	  	  							+ " FROM ( SELECT * FROM " + tableName
-	  	  										+ filterClause
-	  	  										+ pageLabelClause
-	  											+ " LIMIT " + String.valueOf(rowLimit) + " ) as sublist"
-	  								+ sortClause + ";";
-	  	  		
-	  	  		//Executing the SQL query
-	  	  		try
-	  	  		{
-	  	  			stmtPvtTblData = dbConnection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
-	  	  			log.info("Running query " + pvtTblDataQuery);
-	  	  			rsPvtTblData = stmtPvtTblData.executeQuery(pvtTblDataQuery);
-	  	  			
-	  	  			//Fetching field count for the results returned by the SQL query executed
-	  	  			rsmdPvtTblData = rsPvtTblData.getMetaData();
-	  	  			fieldCount = rsmdPvtTblData.getColumnCount();
-	  	  			
-	  	  			//Fetching pivot table row and column label values for one page
-	  	  			List<List<Object>> pageData = new ArrayList<List<Object>>();
-	  	  			Set<List<Object>> rowColList = new HashSet<List<Object>>();
-	  	  		
-	  	  			while (rsPvtTblData.next())
-	  	  			{
-	  	  				List<Object> recordRowCol = new ArrayList<Object>();
-	  	  				
-	  	  				for (int i=1; i<fieldCount; i++)
-	  	  				{
-	  	  					recordRowCol.add(rsPvtTblData.getObject(i));
-	  	  				}
-	  	  				
-	  	  				rowColList.add(recordRowCol);
-	  	  			}
-	  	  			
-	  	  			//Calculating function field values
-	  	  			int i = 0;
-	  	  			for (List<Object> recordRowCol : rowColList)
-	  	  			{
-	  	  				double result = 0;
-	  	  				List<Integer> valueList = new ArrayList<Integer>();
-	  	  				List<String> countValueList = new ArrayList<String>();
-	  	  			
-	  	  				rsPvtTblData.beforeFirst();
-	  	  				while (rsPvtTblData.next())
-	  	  				{
-	  	  					boolean getValue = true;
-	  	  					for (i=1; i<fieldCount; i++)
-	  	  	  				{
-	  	  	  					if (!rsPvtTblData.getObject(i).equals(recordRowCol.get(i-1)))
-	  	  	  					{
-	  	  	  						getValue = false;
-	  	  	  						break;
-	  	  	  					}
-	  	  	  				}
-	  	  					
-	  	  					if (getValue)
-	  	  					{
-	  	  						if (function.equalsIgnoreCase("count"))
-	  	  							countValueList.add(rsPvtTblData.getObject(i).toString());
-	  	  						else
-	  	  						{
-		  	  						int currValue = (Integer)rsPvtTblData.getObject(i);
-		  	  						valueList.add(currValue);
-	  	  						}
-	  	  					}
-	  	  				}
-	  	  				
-	  	  				if (function.equalsIgnoreCase("count"))
-							result = countValueList.size();
-						else
-							result = calcFunctionValue(function, valueList);
-	  	  				
-	  	  				recordRowCol.add(fieldCount-1, result);
-	  	  				pageData.add(recordRowCol);
-	  	  			}
-	  	  			
-	  	  			//Adding data for this particular page to the complete pivot table data set
-	  	  			pvtTblData.add(pageData);
-	  	  			
-	  	  			rsPvtTblData.close();
-	  	  			stmtPvtTblData.close();
-	  	  		}
-	  	  		catch (SQLException pvtTblDataSQLExcpn)
-	  	  		{
-	  	  			stmtPvtTblData = null;
-	  	  			rsPvtTblData = null;
-	  	  			rsmdPvtTblData = null;
-	  	  			pvtTblData = null;
-	  	  			log.error("SQLException occurred while fetching pivot table data... " + pvtTblDataSQLExcpn.getMessage());
-	  	  		}
-	  		}
+  			PageIndex pageIndex = new PageIndex(pvtTblQuery.fetchDistinctValues(dbConnection, rowLimit, queryLog, pageLabel));
+  			pageIndex.sort();
+  			int windowStart = Math.min(pageWindowOffset, pageIndex.size());
+  			int windowEnd = (int) Math.min((long) windowStart + pageWindowSize, pageIndex.size());
+  			PageIndex windowIndex = new PageIndex(pageIndex.getValues().subList(windowStart, windowEnd));
+  			queryLog.setPageCount(windowIndex.size());
+  			
+  			pvtTblQuery.execute(dbConnection, rowLimit, queryLog, (cellLabels, value) -> {
+  				tableAccumulator.add(value);
+  				Integer page = windowIndex.findPage(cellLabels.get(0));
+  				if (page != null)
+  					pvtTblCells.addCell(page, cellLabels.subList(1, cellLabels.size()), value);
+  			});
+  			
+  			queryLog.completeAllPages(windowIndex.size());
+  			return new PivotTableData(windowIndex.getLabels(), pvtTblCells.build(windowIndex.size()), pageIndex.size(),
+  										tableAccumulator.getResult());
+  		}
+  		catch (SQLException pvtTblDataSQLExcpn)
+  		{
+  			log.error("SQLException occurred while fetching a window of pivot table pages... " + pvtTblDataSQLExcpn.getMessage());
+  			return null;
   		}
-	  
-  		return pvtTblData;
   	}
   	
   	/**
-  	 * Calculates different summary function values.
-  	 * @param 	functionName		Name of the function to be calculated
-  	 * @param 	valueList			List of values to be used in calculation
-  	 * @return	The result calculated
-  	 */  	  	
-  	private double calcFunctionValue(String functionName, List<Integer> valueList)
+  	 * Fetches the cells of some pages, split into groups of consecutive pages fetched by one query each,
+  	 * at the same time if parallel execution is set.
+  	 * @param	dbConnection	Database connection object, used by the first group
+  	 * @param	rowLimit		Maximum number of rows to be fetched by any SQL query
+  	 * @param	queryLog		Log of the statements executed for the current request
+  	 * @param	labels			Page label followed by row labels and column labels
+  	 * @param	pageIndex		Index of the pages, in page order
+  	 * @return	Pivot table cells of the pages, in page order
+  	 * @throws	SQLException	if any of the queries fails
+  	 */
+  	private PivotTableCells fetchPageGroups(Connection dbConnection, int rowLimit, QueryLog queryLog, List<String> labels,
+  											PageIndex pageIndex) throws SQLException
   	{
-  		double result = 0;
+  		PivotTableCells.Builder pvtTblCells = new PivotTableCells.Builder(labels.size() - 1);
+  		List<Object> pageValues = pageIndex.getValues();
+  		if (pageValues.isEmpty())
+  			return pvtTblCells.build(0);
   		
-  		if (functionName.equalsIgnoreCase("Sum"))
-  		{
-  			result = 0;
-  			for (double value : valueList)
-  				result += value;
-  		}
-  		else if (functionName.equalsIgnoreCase("Min"))
-  		{
-  			result = valueList.get(0);
-  			for (double value : valueList)
-  			{
-  				if (value < result)
-  					result = value;
-  			}
-  		}
-  		else if (functionName.equalsIgnoreCase("Max"))
-  		{
-  			result = valueList.get(0);
-  			for (double value : valueList)
-  			{
-  				if (value > result)
-  					result = value;
-  			}
-  		}
-  		else if (functionName.equalsIgnoreCase("Avg"))
+  		//Splitting the pages into groups of consecutive pages, one query per group
+  		int parallelism = parallelExecution == null ? 1 : parallelExecution.getPageQueryParallelism();
+  		int groupCount = Math.max(Math.min(parallelism, pageValues.size()), 1);
+  		List<ParallelQueryExecutor.QueryGroup<List<PageCell>>> groups = new ArrayList<ParallelQueryExecutor.QueryGroup<List<PageCell>>>();
+  		for (int i=0; i<groupCount; i++)
   		{
-  			result = 0;
-  			for (double value : valueList)
-  				result += value;
-  			result = (result / (valueList.size()));
+  			List<Object> groupValues = pageValues.subList(i * pageValues.size() / groupCount, (i + 1) * pageValues.size() / groupCount);
+  			groups.add((groupConnection, groupLog) -> fetchPages(groupConnection, rowLimit, groupLog, labels, groupValues, pageIndex, queryLog));
   		}
-  		else if (functionName.equalsIgnoreCase("Product"))
-  		{
-  			result = 1;
-  			for (double value : valueList)
-  				result *= value;
-  		}
-  		else if (functionName.equalsIgnoreCase("Variance"))
+  		
+  		//Reassembling the cells in page order
+  		List<List<PageCell>> groupsCells = groupCount > 1 ? parallelExecution.runAll(groups, dbConnection, queryLog)
+  															: Collections.singletonList(groups.get(0).run(dbConnection, queryLog));
+  		for (List<PageCell> groupCells : groupsCells)
   		{
-  			double sum = 0;
-  			for (double value : valueList)
-  				sum += value; 
-  			
-  			double avg = (sum/valueList.size());
-  			
-  			double sumSqrDiff = 0;  			
-  			for (double value : valueList)
+  			for (PageCell cell : groupCells)
   			{
-  				double sqrDiff = (Math.pow((value - avg), 2));
-  				sumSqrDiff += sqrDiff; 
+  				pvtTblCells.addCell(cell.page, cell.labels, cell.value);
   			}
-  			
-  			result = (sumSqrDiff/valueList.size());
   		}
-  		else if (functionName.equalsIgnoreCase("Standard Deviation"))
+  		
+  		return pvtTblCells.build(pageValues.size());
+  	}
+  	
+  	/**
+  	 * Fetches the cells of a group of pages with a single query.
+  	 * @param	dbConnection	Connection of the group
+  	 * @param	rowLimit		Maximum number of rows to be fetched by any SQL query
+  	 * @param	groupLog		Log the statements of the group are recorded in
+  	 * @param	labels			Page label followed by row labels and column labels
+  	 * @param	groupValues		Page label values of the group, as read from the database
+  	 * @param	pageIndex		Index of the pages
+  	 * @param	queryLog		Log of the statements executed for the current request, where the progress is recorded
+  	 * @return	Cells of the group, in query order
+  	 * @throws	SQLException	if the query fails or returns a page label value that was not fetched
+  	 */
+  	private List<PageCell> fetchPages(Connection dbConnection, int rowLimit, QueryLog groupLog, List<String> labels, List<Object> groupValues,
+  										PageIndex pageIndex, QueryLog queryLog) throws SQLException
+  	{
+  		PivotQuery groupQuery = new PivotQuery(labels, function, valField, filterField, filterValue, sortField, sortOrder, tableName);
+  		groupQuery.restrictTo(pageLabel, groupValues);
+  		groupQuery.setAggregationMethod(aggregationMethod);
+  		
+  		List<PageCell> groupCells = new ArrayList<PageCell>();
+  		List<Object> unknownPageValues = new ArrayList<Object>();
+  		groupQuery.execute(dbConnection, rowLimit, groupLog, (cellLabels, value) -> {
+  			Integer page = pageIndex.findPage(cellLabels.get(0));
+  			if (page == null)
+  				unknownPageValues.add(cellLabels.get(0));
+  			else
+  				groupCells.add(new PageCell(page, new ArrayList<Object>(cellLabels.subList(1, cellLabels.size())), value));
+  		});
+  		
+  		//A cell left out of every page would silently go missing
+  		if (!unknownPageValues.isEmpty())
+  			throw new SQLException("Page label value " + unknownPageValues.get(0) + " is not among the page label values fetched.");
+  		
+  		queryLog.addCompletedPages(groupValues.size());
+  		return groupCells;
+  	}
+  	
+  	/**
+  	 * Pivot table cell fetched by a group of pages, held until the groups are reassembled in page order.
+  	 */
+  	private static class PageCell
+  	{
+  		private final int page;
+  		private final List<Object> labels;
+  		private final double value;
+  		
+  		private PageCell(int page, List<Object> labels, double value)
   		{
-  			double sum = 0;
-  			for (double value : valueList)
-  				sum += value; 
-  			
-  			double avg = (sum/valueList.size());
-  			
-  			double sumSqrDiff = 0;  			
-  			for (double value : valueList)
-  			{
-  				double sqrDiff = (Math.pow((value - avg), 2));
-  				sumSqrDiff += sqrDiff; 
-  			}
-  			
-  			result = (Math.sqrt((sumSqrDiff/valueList.size())));
+  			this.page = page;
+  			this.labels = labels;
+  			this.value = value;
   		}
-  		
-  		return result;
   	}
 }
@@ -0,0 +1,205 @@
+package ca.concordia.pivottable.datalayer.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Numbers the pages of a multiple-page pivot table by their page label values, as read from the database,
+ * and puts them in ascending order of their page label value, whichever way the cells were fetched.
+ * Binary values are compared by their content and labelled with their decoded text.
+ */
+final class PageIndex
+{
+	/**
+	 * Index of every page, keyed by the page key of its page label value.
+	 */
+	private final Map<Object, Integer> indexes = new HashMap<Object, Integer>();
+
+	/**
+	 * Page label values, in page order.
+	 */
+	private final List<Object> values = new ArrayList<Object>();
+
+	/**
+	 * Creates an empty page index, to be filled as the page label values are read.
+	 */
+	PageIndex()
+	{
+		//pages added on first appearance
+	}
+
+	/**
+	 * Creates a page index of page label values fetched beforehand.
+	 * @param	pageValues	Distinct page label values, as read from the database
+	 */
+	PageIndex(List<Object> pageValues)
+	{
+		for (Object pageValue : pageValues)
+		{
+			getPage(pageValue);
+		}
+	}
+
+	/**
+	 * Finds the page of a page label value, adding a page after the others for a value read for the first time.
+	 * @param	pageValue	Page label value, as read from the database
+	 * @return	Index of the page
+	 */
+	int getPage(Object pageValue)
+	{
+		Object pageKey = getKey(pageValue);
+		Integer page = indexes.get(pageKey);
+		if (page == null)
+		{
+			page = values.size();
+			indexes.put(pageKey, page);
+			values.add(pageValue);
+		}
+		return page;
+	}
+
+	/**
+	 * Finds the page of a page label value without adding any page.
+	 * @param	pageValue	Page label value, as read from the database
+	 * @return	Index of the page, null if the value has no page
+	 */
+	Integer findPage(Object pageValue)
+	{
+		return indexes.get(getKey(pageValue));
+	}
+
+	/**
+	 * @return	Number of pages
+	 */
+	int size()
+	{
+		return values.size();
+	}
+
+	/**
+	 * @return	Page label values as read from the database, in page order
+	 */
+	List<Object> getValues()
+	{
+		return values;
+	}
+
+	/**
+	 * @return	Page label values as strings, in page order, null standing for the NULL value
+	 */
+	List<String> getLabels()
+	{
+		List<String> labels = new ArrayList<String>(values.size());
+		for (Object pageValue : values)
+		{
+			labels.add(toLabel(pageValue));
+		}
+		return labels;
+	}
+
+	/**
+	 * Puts the pages in ascending order of their page label value, the NULL value first, and numbers them again.
+	 * @return	New index of every page, by its former index
+	 */
+	int[] sort()
+	{
+		Integer[] formerIndexes = new Integer[values.size()];
+		for (int i=0; i<formerIndexes.length; i++)
+		{
+			formerIndexes[i] = i;
+		}
+		List<Object> formerValues = new ArrayList<Object>(values);
+		Arrays.sort(formerIndexes, (first, second) -> compare(formerValues.get(first), formerValues.get(second)));
+
+		int[] newIndexes = new int[formerIndexes.length];
+		values.clear();
+		indexes.clear();
+		for (int newIndex=0; newIndex<formerIndexes.length; newIndex++)
+		{
+			Object pageValue = formerValues.get(formerIndexes[newIndex]);
+			newIndexes[formerIndexes[newIndex]] = newIndex;
+			values.add(pageValue);
+			indexes.put(getKey(pageValue), newIndex);
+		}
+		return newIndexes;
+	}
+
+	/**
+	 * Puts per-page items in the order of the pages once they are sorted.
+	 * @param	items		One item per page, by former page index
+	 * @param	newIndexes	New index of every page, by its former index
+	 * @return	Items by new page index
+	 */
+	static <T> List<T> reorder(List<T> items, int[] newIndexes)
+	{
+		List<T> reordered = new ArrayList<T>(items);
+		for (int i=0; i<newIndexes.length; i++)
+		{
+			reordered.set(newIndexes[i], items.get(i));
+		}
+		return reordered;
+	}
+
+	/**
+	 * Gives the key a page label value is looked up by, comparing binary values by their content.
+	 * @param	pageValue	Page label value, as read from the database
+	 * @return	Key equal to the key of any equal page label value of the same type
+	 */
+	static Object getKey(Object pageValue)
+	{
+		return pageValue instanceof byte[] ? ByteBuffer.wrap((byte[]) pageValue) : pageValue;
+	}
+
+	/**
+	 * Converts a page label value into the string the page is labelled with, decoding binary values as text.
+	 * @param	pageValue	Page label value, as read from the database
+	 * @return	Page label, null for the NULL value
+	 */
+	static String toLabel(Object pageValue)
+	{
+		if (pageValue == null)
+			return null;
+
+		if (pageValue instanceof byte[])
+			return new String((byte[]) pageValue, StandardCharsets.UTF_8);
+
+		return pageValue.toString();
+	}
+
+	/**
+	 * Compares two page label values of the same label, the NULL value first.
+	 * Values that cannot be compared with each other are compared by their labels.
+	 * @param	first	Page label value, as read from the database
+	 * @param	second	Page label value, as read from the database
+	 * @return	Negative, zero or positive, as the first value sorts before, along with or after the second one
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static int compare(Object first, Object second)
+	{
+		if (first == null || second == null)
+			return first == null ? (second == null ? 0 : -1) : 1;
+
+		//Bytes compared as unsigned, as the database compares binary values
+		if (first instanceof byte[] && second instanceof byte[])
+		{
+			byte[] firstBytes = (byte[]) first;
+			byte[] secondBytes = (byte[]) second;
+			for (int i=0; i<Math.min(firstBytes.length, secondBytes.length); i++)
+			{
+				if (firstBytes[i] != secondBytes[i])
+					return (firstBytes[i] & 0xff) - (secondBytes[i] & 0xff);
+			}
+			return firstBytes.length - secondBytes.length;
+		}
+
+		if (first instanceof Comparable && first.getClass() == second.getClass())
+			return ((Comparable) first).compareTo(second);
+
+		return toLabel(first).compareTo(toLabel(second));
+	}
+}
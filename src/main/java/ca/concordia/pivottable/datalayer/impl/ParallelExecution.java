@@ -0,0 +1,65 @@
+package ca.concordia.pivottable.datalayer.impl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import ca.concordia.pivottable.datalayer.QueryLog;
+
+/**
+ * How the queries of one pivot table may be spread over several pooled connections of its data source:
+ * the number of queries its pages are fetched with, and the number of key ranges a scan of its raw rows is split into.
+ */
+class ParallelExecution
+{
+	private final ParallelQueryExecutor executor;
+	private final ParallelQueryExecutor.ConnectionSource connections;
+	private final int pageQueryParallelism;
+	private final int scanPartitions;
+	private final long scanPartitionMinRows;
+
+	/**
+	 * Class constructor with all the parameters provided.
+	 * @param	executor				Executor running the queries at the same time
+	 * @param	connections				Source of the connections of the queries, but the first one
+	 * @param	pageQueryParallelism	Number of queries the pages are fetched with, 1 to fetch them with a single query
+	 * @param	scanPartitions			Number of key ranges a scan is split into, 1 to scan with a single query
+	 * @param	scanPartitionMinRows	Number of rows under which a scan is not split
+	 */
+	ParallelExecution(ParallelQueryExecutor executor, ParallelQueryExecutor.ConnectionSource connections,
+						int pageQueryParallelism, int scanPartitions, long scanPartitionMinRows)
+	{
+		this.executor = executor;
+		this.connections = connections;
+		this.pageQueryParallelism = pageQueryParallelism;
+		this.scanPartitions = scanPartitions;
+		this.scanPartitionMinRows = scanPartitionMinRows;
+	}
+
+	int getPageQueryParallelism()
+	{
+		return pageQueryParallelism;
+	}
+
+	int getScanPartitions()
+	{
+		return scanPartitions;
+	}
+
+	long getScanPartitionMinRows()
+	{
+		return scanPartitionMinRows;
+	}
+
+	/**
+	 * Runs groups of queries at the same time and returns their results in group order.
+	 * @param	groups			Groups of queries
+	 * @param	dbConnection	Connection of the request, used by the first group
+	 * @param	queryLog		Log of the statements executed for the current request
+	 * @return	Result of every group, in group order
+	 * @throws	SQLException	if a group fails, once the other groups are cancelled
+	 */
+	<T> List<T> runAll(List<ParallelQueryExecutor.QueryGroup<T>> groups, Connection dbConnection, QueryLog queryLog) throws SQLException
+	{
+		return executor.runAll(groups, dbConnection, connections, queryLog);
+	}
+}
@@ -0,0 +1,193 @@
+package ca.concordia.pivottable.datalayer.impl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import ca.concordia.pivottable.datalayer.QueryLog;
+import ca.concordia.pivottable.servicelayer.ConfigurationHolder;
+
+/**
+ * Runs groups of pivot table queries at the same time, such as the page queries of a multiple-page pivot table
+ * or the key ranges of a partitioned scan, each on its own pooled connection, on a bounded number of threads
+ * shared by all the requests. A group must not submit groups of its own, as it could wait for threads held by its siblings.
+ * The first group is run by the calling thread on the connection of the request, and so is any group
+ * the threads have no room for, so a request never waits for the executor to make progress.
+ * If one group fails, the statements of the others are cancelled.
+ * It implements the Singleton design pattern.
+ */
+public class ParallelQueryExecutor
+{
+	/**
+	 * Number of groups that may wait for a thread before the calling thread runs them itself.
+	 */
+	private static final int QUEUE_SIZE = 64;
+
+	/**
+	 * Single instance of the executor.
+	 */
+	private static ParallelQueryExecutor singleExecutor;
+
+	/**
+	 * Runs the groups submitted by the requests.
+	 */
+	private final ThreadPoolExecutor groupExecutor;
+
+	/**
+	 * Class constructor.
+	 * @param	threadCount	Number of groups run at the same time, for all the requests
+	 */
+	private ParallelQueryExecutor(int threadCount)
+	{
+		AtomicInteger threadNumber = new AtomicInteger();
+		groupExecutor = new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS,
+												new ArrayBlockingQueue<Runnable>(QUEUE_SIZE), runnable -> {
+			Thread thread = new Thread(runnable, "parallel-query-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}, new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	/**
+	 * Ensures that only one instance of this class exists at all times.
+	 * @param	appConfigHolder	Holder of the application configuration, holding the parallel query settings
+	 * @return	The class instance
+	 */
+	public static synchronized ParallelQueryExecutor getExecutor(ConfigurationHolder appConfigHolder)
+	{
+		if (singleExecutor == null)
+			singleExecutor = new ParallelQueryExecutor(Math.max(appConfigHolder.getConfiguration().getParallelQueryThreads(), 1));
+		return singleExecutor;
+	}
+
+	/**
+	 * Runs groups of queries at the same time and returns their results in group order.
+	 * @param	groups			Groups of queries
+	 * @param	dbConnection	Connection of the request, used by the first group
+	 * @param	connections		Source of the connections of the other groups, which are closed once their group is run
+	 * @param	queryLog		Log of the statements executed for the current request
+	 * @return	Result of every group, in group order
+	 * @throws	SQLException	if a group fails, the first failure being thrown once the other groups are cancelled
+	 */
+	public <T> List<T> runAll(List<QueryGroup<T>> groups, Connection dbConnection, ConnectionSource connections,
+								QueryLog queryLog) throws SQLException
+	{
+		//The statements of the groups are cancelled together, without cancelling the request
+		QueryLog groupLog = new QueryLog(queryLog);
+		AtomicReference<Exception> firstFailure = new AtomicReference<Exception>();
+
+		List<Future<T>> futures = new ArrayList<Future<T>>();
+		for (QueryGroup<T> group : groups.subList(1, groups.size()))
+		{
+			futures.add(groupExecutor.submit(() -> {
+				try (Connection groupConnection = connections.getConnection())
+				{
+					return group.run(groupConnection, groupLog);
+				}
+				catch (SQLException | RuntimeException groupExcpn)
+				{
+					//Stopping the other groups right away rather than once the calling thread gets to this one
+					firstFailure.compareAndSet(null, groupExcpn);
+					groupLog.cancel();
+					throw groupExcpn;
+				}
+			}));
+		}
+
+		List<T> results = new ArrayList<T>();
+		try
+		{
+			results.add(groups.get(0).run(dbConnection, groupLog));
+			for (Future<T> future : futures)
+			{
+				results.add(getResult(future));
+			}
+			return results;
+		}
+		catch (SQLException | RuntimeException groupExcpn)
+		{
+			firstFailure.compareAndSet(null, groupExcpn);
+			groupLog.cancel();
+			for (Future<T> future : futures)
+			{
+				future.cancel(false);
+			}
+			
+			//Throwing the failure that cancelled the other groups, rather than one of the cancellations
+			Exception failure = firstFailure.get();
+			if (failure instanceof SQLException)
+				throw (SQLException)failure;
+			throw (RuntimeException)failure;
+		}
+	}
+
+	/**
+	 * Waits for the result of a group run by another thread.
+	 * @param	future	Group being run
+	 * @return	Result of the group
+	 * @throws	SQLException	the exception thrown by the group, or if the wait is interrupted
+	 */
+	private <T> T getResult(Future<T> future) throws SQLException
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a parallel query.");
+		}
+		catch (CancellationException ce)
+		{
+			throw new SQLException("Parallel query cancelled.", "57014");
+		}
+		catch (ExecutionException ee)
+		{
+			Throwable cause = ee.getCause();
+			if (cause instanceof SQLException)
+				throw (SQLException)cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException)cause;
+			throw new SQLException("Parallel query failed... " + cause, cause);
+		}
+	}
+
+	/**
+	 * Group of queries run on one connection.
+	 * @param	<T>	Type of the result of the group
+	 */
+	@FunctionalInterface
+	public interface QueryGroup<T>
+	{
+		/**
+		 * Runs the queries of the group.
+		 * @param	dbConnection	Connection of the group
+		 * @param	queryLog		Log the statements of the group must be recorded in
+		 * @return	Result of the group
+		 * @throws	SQLException	if a query fails
+		 */
+		T run(Connection dbConnection, QueryLog queryLog) throws SQLException;
+	}
+
+	/**
+	 * Source of the connections the groups are run on.
+	 */
+	@FunctionalInterface
+	public interface ConnectionSource
+	{
+		/**
+		 * @return	A connection to the data source of the request
+		 * @throws	SQLException	if no connection could be obtained
+		 */
+		Connection getConnection() throws SQLException;
+	}
+}
@@ -0,0 +1,480 @@
+package ca.concordia.pivottable.datalayer.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import ca.concordia.pivottable.datalayer.AggregationMethod;
+import ca.concordia.pivottable.datalayer.QueryLog;
+import ca.concordia.pivottable.datalayer.aggregation.GroupResultHandler;
+import ca.concordia.pivottable.datalayer.aggregation.HashAggregator;
+import ca.concordia.pivottable.datalayer.aggregation.NumericColumnReader;
+
+/**
+ * SQL query fetching pivot table records grouped by a list of labels, shared by the pivot table strategies.
+ * Summary functions that the database supports natively are calculated by a GROUP BY query,
+ * the others are calculated by the application in a single pass over the raw rows.
+ */
+class PivotQuery
+{
+	/**
+	 * Alias given to the aggregated value field column of a GROUP BY query.
+	 */
+	static final String AGGREGATE_ALIAS = "pvt_value";
+	
+	private List<String> labels;
+	private String function;
+	private String valField;
+	private String filterField;
+	private String filterValue;
+	private String sortField;
+	private String sortOrder;
+	private String tableName;
+	
+	/**
+	 * Label whose values the grouped records are restricted to, null if they are not restricted.
+	 */
+	private String restrictedLabel = null;
+	
+	/**
+	 * Values the grouped records are restricted to, as read from the database, a null value standing for the NULL label value.
+	 * They are bound as parameters, so that they are compared with the label in its own type.
+	 */
+	private List<Object> restrictedValues = null;
+	
+	/**
+	 * How the scan of the raw rows may be split into key ranges read at the same time, null to read them with a single query.
+	 */
+	private ParallelExecution parallelExecution = null;
+	
+	/**
+	 * How the records are to be aggregated, null to let the summary function and the parallel execution decide.
+	 */
+	private AggregationMethod aggregationMethod = null;
+	
+	/**
+	 * Class constructor with all the parameters provided.
+	 * @param	labels		Labels the records are grouped by, in the order they appear in a record
+  	 * @param	function	Mathematical function selected as part of pivot table schema
+  	 * @param	valField	Value field selected as part of pivot table schema
+  	 * @param	filterField	Field name by which pivot table data needs to be filtered
+  	 * @param	filterValue	Value of the filter field for which pivot table data needs to be displayed
+  	 * @param	sortField	Field name by which pivot table data needs to be sorted
+  	 * @param	sortOrder	Order (ascending/descending) in which pivot table data needs to be sorted
+  	 * @param	tableName	Raw report table name
+	 */
+	PivotQuery(List<String> labels, String function, String valField, String filterField, String filterValue,
+				String sortField, String sortOrder, String tableName)
+	{
+		this.labels = labels;
+		this.function = function;
+		this.valField = valField;
+		this.filterField = filterField;
+		this.filterValue = filterValue;
+		this.sortField = sortField;
+		this.sortOrder = sortOrder;
+		this.tableName = tableName;
+	}
+	
+	/**
+	 * Restricts the grouped records to some values of a label, e.g. to fetch a subset of the pages of a pivot table.
+	 * The raw rows are still selected and limited as per the schema before being restricted.
+	 * @param	label	Label to restrict
+	 * @param	values	Values of the label the records are restricted to, as read from the database
+	 */
+	void restrictTo(String label, List<Object> values)
+	{
+		this.restrictedLabel = label;
+		this.restrictedValues = values;
+	}
+	
+	/**
+	 * Allows the raw rows aggregated by the application to be read in key ranges at the same time.
+	 * @param	parallelExecution	Number of key ranges and the connections they are read on
+	 */
+	void setParallelExecution(ParallelExecution parallelExecution)
+	{
+		this.parallelExecution = parallelExecution;
+	}
+	
+	/**
+	 * Sets how the records are to be aggregated, as chosen by the pivot table planner.
+	 * A method that does not apply, e.g. a partitioned scan of a table without a range key, falls back to a single query.
+	 * @param	aggregationMethod	How the records are to be aggregated
+	 */
+	void setAggregationMethod(AggregationMethod aggregationMethod)
+	{
+		this.aggregationMethod = aggregationMethod;
+	}
+	
+	/**
+	 * Checks if a summary function can be calculated by the database as part of a GROUP BY query.
+	 * @param	functionName	Name of the function selected as part of pivot table schema
+	 * @return	true, if the database can aggregate the values itself
+	 * 			false, if the values need to be aggregated by the application
+	 */
+	static boolean isPushdownSupported(String functionName)
+	{
+		return AggregationMethod.PUSHDOWN.supports(functionName);
+	}
+	
+	/**
+	 * @return	true, if the summary function is calculated by the database
+	 */
+	boolean isPushdown()
+	{
+		return isPushdownSupported(function) && (aggregationMethod == null || aggregationMethod == AggregationMethod.PUSHDOWN);
+	}
+	
+	/**
+	 * Generates the SQL query for this pivot table.
+	 * @param	rowLimit	Maximum number of raw rows to be aggregated
+	 * @return	The SQL query
+	 */
+	String toSQL(int rowLimit)
+	{
+		String selectClause = " SELECT ";
+		String grpClause = " ";
+		
+		//Generating the SQL query select clause for selecting the labels
+		for (String label : labels)
+		{
+			selectClause = selectClause + label + ", ";
+		}
+		
+		String fromClause = " FROM ( " + getSublistQuery(rowLimit) + " ) as sublist" + getRestrictionClause();
+		
+		//Raw rows are fetched and aggregated by the application
+		if (!isPushdown())
+			return selectClause + valField + " " + fromClause + getSortClause() + ";";
+		
+		//Generating the SQL query group by clause for grouping by the labels
+		if (!labels.isEmpty())
+		{
+			grpClause = " GROUP BY ";
+			for (String label : labels)
+			{
+				grpClause = grpClause + label + ", ";
+			}
+			grpClause = grpClause.substring(0, grpClause.lastIndexOf(","));
+		}
+		
+		return selectClause
+				+ function.toUpperCase() + "(" + valField + ") AS " + AGGREGATE_ALIAS
+				+ fromClause
+				+ grpClause
+				+ getSortClause() + ";";
+	}
+	
+	/**
+	 * Generates the query selecting the raw rows to be aggregated, filtered and limited as per the schema.
+	 * @param	rowLimit	Maximum number of raw rows to be aggregated
+	 * @return	The SQL query, to be used as a subquery named sublist
+	 */
+	String getSublistQuery(int rowLimit)
+	{
+		return getSublistQuery(rowLimit, null);
+	}
+	
+	/**
+	 * Generates the query selecting the raw rows of a key range, filtered and limited as per the schema.
+	 * @param	rowLimit		Maximum number of raw rows to be aggregated
+	 * @param	rangeCondition	SQL condition selecting the key range, null to select the rows of every range
+	 * @return	The SQL query, to be used as a subquery named sublist
+	 */
+	private String getSublistQuery(int rowLimit, String rangeCondition)
+	{
+		String filterClause = getFilterClause();
+		
+		if (rangeCondition != null)
+			filterClause = (filterClause.trim().isEmpty() ? " WHERE " : filterClause + " AND ") + rangeCondition;
+		
+		return "SELECT * FROM " + tableName
+				+ filterClause
+				+ " LIMIT " + String.valueOf(rowLimit);
+	}
+	
+	/**
+	 * Generates the clause filtering the raw rows as per the schema.
+	 * @return	SQL query clause, blank if the rows are not filtered
+	 */
+	private String getFilterClause()
+	{
+		//Generating the SQL query clause for filtering resulting data
+		if ((filterField != null && !filterField.trim().isEmpty()) && (filterValue != null))
+			return " WHERE " + filterField + " = \'" + filterValue + "\'";
+		
+		return " ";
+	}
+	
+	/**
+	 * Generates the clause restricting the records to some values of a label, with a placeholder for every value but NULL.
+	 * @return	SQL query clause, applied to the sublist of raw rows
+	 */
+	private String getRestrictionClause()
+	{
+		if (restrictedLabel == null)
+			return " ";
+		
+		List<String> conditions = new ArrayList<String>();
+		List<String> placeholders = new ArrayList<String>();
+		for (Object value : restrictedValues)
+		{
+			if (value == null)
+				conditions.add(restrictedLabel + " IS NULL");
+			else
+				placeholders.add("?");
+		}
+		if (!placeholders.isEmpty())
+			conditions.add(restrictedLabel + " IN (" + String.join(", ", placeholders) + ")");
+		
+		return " WHERE " + (conditions.isEmpty() ? "1 = 0" : String.join(" OR ", conditions));
+	}
+	
+	/**
+	 * Binds the values the records are restricted to, in the order of their placeholders.
+	 * @param	stmtRestricted	Statement of the restricted query
+	 * @throws	SQLException	if a value cannot be bound
+	 */
+	private void bindRestrictedValues(PreparedStatement stmtRestricted) throws SQLException
+	{
+		int parameterIndex = 1;
+		for (Object value : restrictedValues)
+		{
+			if (value != null)
+				stmtRestricted.setObject(parameterIndex++, value);
+		}
+	}
+	
+	/**
+	 * Checks if more raw rows of the table pass the filter of the schema than the row limit lets through.
+	 * At most one row more than the limit is read, so that a large table is not counted in full.
+	 * @param	dbConnection	Connection to the data source
+	 * @param	rowLimit		Maximum number of raw rows to be aggregated
+	 * @param	queryLog		Log of the statements executed for the current request
+	 * @return	true, if the row limit cuts the filtered rows short
+	 * @throws	SQLException	if the query fails
+	 */
+	boolean exceedsRowLimit(Connection dbConnection, int rowLimit, QueryLog queryLog) throws SQLException
+	{
+		String probeQuery = "SELECT COUNT(*) FROM ( SELECT 1 FROM " + tableName + getFilterClause()
+							+ " LIMIT " + String.valueOf((long) rowLimit + 1) + " ) as probe;";
+		
+		try (Statement stmtProbe = dbConnection.createStatement())
+		{
+			queryLog.record(probeQuery, stmtProbe);
+			try (ResultSet rsProbe = stmtProbe.executeQuery(probeQuery))
+			{
+				return rsProbe.next() && rsProbe.getLong(1) > rowLimit;
+			}
+			finally
+			{
+				queryLog.release(stmtProbe);
+			}
+		}
+	}
+	
+	/**
+	 * Fetches the distinct values of a label among the raw rows selected as per the schema, in ascending order.
+	 * @param	dbConnection	Connection to the data source
+	 * @param	rowLimit		Maximum number of raw rows to be read
+	 * @param	queryLog		Log of the statements executed for the current request
+	 * @param	label			Label whose values are fetched
+	 * @return	Values of the label as read from the database, null standing for the NULL value
+	 * @throws	SQLException	if the query fails
+	 */
+	List<Object> fetchDistinctValues(Connection dbConnection, int rowLimit, QueryLog queryLog, String label) throws SQLException
+	{
+		String distinctQuery = "SELECT DISTINCT " + label + " FROM ( " + getSublistQuery(rowLimit) + " ) as sublist ORDER BY " + label + ";";
+		List<Object> values = new ArrayList<Object>();
+		
+		try (Statement stmtDistinct = StreamingStatements.create(dbConnection))
+		{
+			queryLog.record(distinctQuery, stmtDistinct);
+			try (ResultSet rsDistinct = stmtDistinct.executeQuery(distinctQuery))
+			{
+				while (rsDistinct.next())
+				{
+					values.add(rsDistinct.getObject(1));
+				}
+			}
+			finally
+			{
+				queryLog.release(stmtDistinct);
+			}
+		}
+		
+		return values;
+	}
+	
+	/**
+	 * Generates the sorting clause of the query.
+	 * Only grouped columns and the aggregated value can be sorted on once the rows are grouped.
+	 * @return	SQL query clause used for sorting pivot table data as per the schema
+	 */
+	String getSortClause()
+	{
+		if ((sortField == null || sortField.trim().isEmpty()) || (sortOrder == null))
+			return " ";
+		
+		if (!isPushdown() || labels.contains(sortField))
+			return " ORDER BY " + sortField + " " + sortOrder;
+		
+		if (sortField.equals(valField))
+			return " ORDER BY " + AGGREGATE_ALIAS + " " + sortOrder;
+		
+		return " ";
+	}
+	
+	/**
+	 * Executes the query and hands one result over per distinct combination of label values.
+	 * @param	dbConnection	An object of type Connection referring to the data source connection used for executing the query
+	 * @param	rowLimit		Maximum number of raw rows to be aggregated
+	 * @param	queryLog		Log of the statements executed for the current request
+	 * @param	resultHandler	Receiver of the label values and function value of every combination
+	 * @throws	SQLException	if the query fails
+	 */
+	void execute(Connection dbConnection, int rowLimit, QueryLog queryLog, GroupResultHandler resultHandler) throws SQLException
+	{
+		if (isPartitionable())
+		{
+			List<String> rangeConditions = KeyRangePartitioner.partition(dbConnection, queryLog, tableName, getFilterClause(),
+																		parallelExecution.getScanPartitions(),
+																		parallelExecution.getScanPartitionMinRows(), rowLimit);
+			if (!rangeConditions.isEmpty())
+			{
+				executePartitioned(dbConnection, rowLimit, queryLog, rangeConditions).forEachResult(resultHandler);
+				return;
+			}
+		}
+		
+		String pvtTblDataQuery = toSQL(rowLimit);
+		Statement stmtPvtTblData = null;
+		ResultSet rsPvtTblData = null;
+		
+		try
+		{
+			if (restrictedLabel == null)
+			{
+				stmtPvtTblData = StreamingStatements.create(dbConnection);
+				queryLog.record(pvtTblDataQuery, stmtPvtTblData);
+				rsPvtTblData = stmtPvtTblData.executeQuery(pvtTblDataQuery);
+			}
+			else
+			{
+				PreparedStatement stmtRestricted = StreamingStatements.prepare(dbConnection, pvtTblDataQuery);
+				stmtPvtTblData = stmtRestricted;
+				queryLog.record(pvtTblDataQuery, stmtPvtTblData);
+				bindRestrictedValues(stmtRestricted);
+				rsPvtTblData = stmtRestricted.executeQuery();
+			}
+			
+			if (isPushdown())
+				readGroupedRecords(rsPvtTblData, resultHandler);
+			else
+			{
+				//Calculating function field values for every label combination in a single pass
+				HashAggregator aggregator = new HashAggregator(labels.size(), function);
+				aggregator.aggregate(rsPvtTblData);
+				aggregator.forEachResult(resultHandler);
+			}
+		}
+		finally
+		{
+			if (rsPvtTblData != null)
+				rsPvtTblData.close();
+			if (stmtPvtTblData != null)
+			{
+				queryLog.release(stmtPvtTblData);
+				stmtPvtTblData.close();
+			}
+		}
+	}
+	
+	/**
+	 * Checks if the raw rows may be read in key ranges at the same time.
+	 * Sorted rows are read at once, as are rows restricted to some label values, whose queries may already be run
+	 * at the same time as others and must not wait for further queries of their own.
+	 * @return	true, if the raw rows are aggregated by the application and may be split, unless the planner chose otherwise
+	 */
+	private boolean isPartitionable()
+	{
+		return parallelExecution != null && parallelExecution.getScanPartitions() > 1 && !isPushdown()
+				&& (aggregationMethod == null || aggregationMethod == AggregationMethod.PARTITIONED_SCAN)
+				&& restrictedLabel == null && getSortClause().trim().isEmpty();
+	}
+	
+	/**
+	 * Aggregates every key range of the raw rows on its own connection, then merges the groups of the ranges.
+	 * @param	dbConnection	Connection to the data source, used for the first range
+	 * @param	rowLimit		Maximum number of raw rows to be aggregated
+	 * @param	queryLog		Log of the statements executed for the current request
+	 * @param	rangeConditions	SQL conditions selecting every key range
+	 * @return	Aggregator holding the groups of all the ranges
+	 * @throws	SQLException	if the query of a range fails
+	 */
+	private HashAggregator executePartitioned(Connection dbConnection, int rowLimit, QueryLog queryLog,
+												List<String> rangeConditions) throws SQLException
+	{
+		String selectClause = "SELECT " + (labels.isEmpty() ? "" : String.join(", ", labels) + ", ") + valField;
+		
+		List<ParallelQueryExecutor.QueryGroup<HashAggregator>> ranges = new ArrayList<ParallelQueryExecutor.QueryGroup<HashAggregator>>();
+		for (String rangeCondition : rangeConditions)
+		{
+			String rangeQuery = selectClause + " FROM ( " + getSublistQuery(rowLimit, rangeCondition) + " ) as sublist;";
+			ranges.add((rangeConnection, rangeLog) -> {
+				HashAggregator rangeAggregator = new HashAggregator(labels.size(), function);
+				try (Statement stmtRange = StreamingStatements.create(rangeConnection))
+				{
+					rangeLog.record(rangeQuery, stmtRange);
+					try (ResultSet rsRange = stmtRange.executeQuery(rangeQuery))
+					{
+						rangeAggregator.aggregate(rsRange);
+					}
+					finally
+					{
+						rangeLog.release(stmtRange);
+					}
+				}
+				return rangeAggregator;
+			});
+		}
+		
+		//Merging the partial groups of the ranges in key order
+		List<HashAggregator> rangeAggregators = parallelExecution.runAll(ranges, dbConnection, queryLog);
+		HashAggregator aggregator = rangeAggregators.get(0);
+		for (HashAggregator rangeAggregator : rangeAggregators.subList(1, rangeAggregators.size()))
+		{
+			aggregator.merge(rangeAggregator);
+		}
+		return aggregator;
+	}
+	
+	/**
+	 * Reads the records of a GROUP BY query.
+	 * Each result row already holds one distinct label combination and its function value.
+	 * @param	rsPvtTblData	Result set of the query
+	 * @param	resultHandler	Receiver of the label values and function value of every row
+	 * @throws	SQLException	if reading the result set fails
+	 */
+	private void readGroupedRecords(ResultSet rsPvtTblData, GroupResultHandler resultHandler) throws SQLException
+	{
+		int valueIndex = labels.size() + 1;
+		NumericColumnReader valueReader = NumericColumnReader.forColumn(rsPvtTblData.getMetaData(), valueIndex);
+		List<Object> record = new ArrayList<Object>(labels.size());
+		
+		while (rsPvtTblData.next())
+		{
+			record.clear();
+			for (int i=1; i<valueIndex; i++)
+			{
+				record.add(rsPvtTblData.getObject(i));
+			}
+			
+			resultHandler.handleGroup(record, valueReader.read(rsPvtTblData, valueIndex));
+		}
+	}
+}
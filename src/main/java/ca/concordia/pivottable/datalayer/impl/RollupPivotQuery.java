@@ -0,0 +1,492 @@
+package ca.concordia.pivottable.datalayer.impl;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import ca.concordia.pivottable.datalayer.PivotTableData;
+import ca.concordia.pivottable.datalayer.PivotTableSummaries;
+import ca.concordia.pivottable.datalayer.QueryLog;
+import ca.concordia.pivottable.datalayer.aggregation.NumericColumnReader;
+import ca.concordia.pivottable.entities.PivotTableCells;
+
+/**
+ * SQL query fetching the pivot table cells along with their row, column, page and table level summaries.
+ * The database calculates the summaries in the same statement as the cells,
+ * using GROUPING SETS on PostgreSQL and WITH ROLLUP on MySQL,
+ * so only the final aggregates are transferred to the application.
+ * Every result row is told apart by the GROUPING() flags of its labels.
+ */
+class RollupPivotQuery
+{
+	/**
+	 * Prefix of the aliases given to the GROUPING() flag of every label.
+	 */
+	private static final String GROUPING_ALIAS = "pvt_grouping_";
+
+	/**
+	 * Major, minor and patch numbers at the start of a server version.
+	 */
+	private static final Pattern VERSION_PATTERN = Pattern.compile("^(\\d+)\\.(\\d+)\\.(\\d+)");
+
+	private String pageLabel;
+	private List<String> rowLabels;
+	private List<String> colLabels;
+	private String function;
+	private String valField;
+
+	/**
+	 * Query grouping the records by all the labels, providing the raw rows and the sort order.
+	 */
+	private PivotQuery cellQuery;
+
+	/**
+	 * Class constructor with all the parameters provided.
+	 * @param	pageLabel	Page label selected as part of pivot table schema, or null for a single-page pivot table
+	 * @param	rowLabels	List of row labels selected as part of pivot table schema
+  	 * @param	colLabels	List of column labels selected as part of pivot table schema
+  	 * @param	function	Mathematical function selected as part of pivot table schema
+  	 * @param	valField	Value field selected as part of pivot table schema
+  	 * @param	filterField	Field name by which pivot table data needs to be filtered
+  	 * @param	filterValue	Value of the filter field for which pivot table data needs to be displayed
+  	 * @param	sortField	Field name by which pivot table data needs to be sorted
+  	 * @param	sortOrder	Order (ascending/descending) in which pivot table data needs to be sorted
+  	 * @param	tableName	Raw report table name
+	 */
+	RollupPivotQuery(String pageLabel, List<String> rowLabels, List<String> colLabels, String function, String valField,
+						String filterField, String filterValue, String sortField, String sortOrder, String tableName)
+	{
+		this.pageLabel = pageLabel;
+		this.rowLabels = rowLabels;
+		this.colLabels = colLabels;
+		this.function = function;
+		this.valField = valField;
+		this.cellQuery = new PivotQuery(getLabels(), function, valField, filterField, filterValue, sortField, sortOrder, tableName);
+	}
+
+	/**
+	 * Checks if the summaries of a pivot table can be calculated by the database along with its cells.
+	 * The summary of a group of cells must be the same function applied to the raw rows of the group,
+	 * which holds for a sum of sums, a sum of counts, a minimum of minimums and a maximum of maximums.
+	 * The database must support GROUPING(): PostgreSQL 9.5 or MySQL 8.0.12 onwards,
+	 * the first MySQL release also allowing ORDER BY along with WITH ROLLUP.
+	 * @param	dbConnection		Data source connection
+	 * @param	function			Mathematical function selected as part of pivot table schema
+	 * @param	tableSummFuncName	Summary function selected as part of pivot table schema
+	 * @param	labelCount			Total number of page, row and column labels
+	 * @return	true, if the database can calculate the summaries
+	 */
+	static boolean isSupported(Connection dbConnection, String function, String tableSummFuncName, int labelCount)
+	{
+		if (function == null || tableSummFuncName == null || labelCount == 0)
+			return false;
+
+		String cellFunction = function.toLowerCase();
+		String summFunction = tableSummFuncName.toLowerCase();
+		boolean decomposable = (cellFunction.equals(summFunction) && (cellFunction.equals("sum") || cellFunction.equals("min") || cellFunction.equals("max")))
+								|| (cellFunction.equals("count") && summFunction.equals("sum"));
+		if (!decomposable)
+			return false;
+
+		try
+		{
+			DatabaseMetaData dbMetaData = dbConnection.getMetaData();
+			String productName = dbMetaData.getDatabaseProductName();
+			String productVersion = dbMetaData.getDatabaseProductVersion();
+			int majorVersion = dbMetaData.getDatabaseMajorVersion();
+			int minorVersion = dbMetaData.getDatabaseMinorVersion();
+
+			if ("PostgreSQL".equalsIgnoreCase(productName))
+				return majorVersion > 9 || (majorVersion == 9 && minorVersion >= 5);
+
+			//MariaDB reports itself as MySQL but has no GROUPING() function
+			if ("MySQL".equalsIgnoreCase(productName))
+				return productVersion != null && productVersion.indexOf("MariaDB") < 0 && isAtLeast(productVersion, 8, 0, 12);
+		}
+		catch (SQLException sqle)
+		{
+			return false;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Checks if a server version, such as 8.0.33-0ubuntu0.22.04.2, is a given release or a later one.
+	 * @param	productVersion	Version reported by the server
+	 * @param	major			Major version of the release
+	 * @param	minor			Minor version of the release
+	 * @param	patch			Patch version of the release
+	 * @return	true, if the server version is the release or a later one
+	 * 			false, if it is an earlier one or cannot be read
+	 */
+	private static boolean isAtLeast(String productVersion, int major, int minor, int patch)
+	{
+		Matcher versionMatcher = VERSION_PATTERN.matcher(productVersion);
+		if (!versionMatcher.find())
+			return false;
+
+		int[] required = {major, minor, patch};
+		for (int i=0; i<required.length; i++)
+		{
+			int part = Integer.parseInt(versionMatcher.group(i + 1));
+			if (part != required[i])
+				return part > required[i];
+		}
+		return true;
+	}
+
+	/**
+	 * @return	true, if the records are split into pages by a page label
+	 */
+	private boolean isPaged()
+	{
+		return pageLabel != null;
+	}
+
+	/**
+	 * @return	Page label, if any, followed by the row labels and the column labels
+	 */
+	private List<String> getLabels()
+	{
+		List<String> labels = new ArrayList<String>();
+		if (isPaged())
+			labels.add(pageLabel);
+		labels.addAll(rowLabels);
+		labels.addAll(colLabels);
+		return labels;
+	}
+
+	/**
+	 * Generates the SQL query for this pivot table.
+	 * @param	dbConnection	Data source connection, whose database decides the syntax
+	 * @param	rowLimit		Maximum number of raw rows to be aggregated
+	 * @return	The SQL query
+	 * @throws	SQLException	if the database cannot be identified
+	 */
+	String toSQL(Connection dbConnection, int rowLimit) throws SQLException
+	{
+		if ("MySQL".equalsIgnoreCase(dbConnection.getMetaData().getDatabaseProductName()))
+			return toMySQL(rowLimit);
+
+		return toPostgreSQL(rowLimit);
+	}
+
+	/**
+	 * Generates the query for PostgreSQL, listing every grouping set needed:
+	 * the cells, every row label prefix, every column label prefix, every page and the whole table.
+	 * @param	rowLimit	Maximum number of raw rows to be aggregated
+	 * @return	The SQL query
+	 */
+	private String toPostgreSQL(int rowLimit)
+	{
+		List<String> pagePrefix = new ArrayList<String>();
+		if (isPaged())
+			pagePrefix.add(pageLabel);
+
+		//Duplicate grouping sets would return duplicate rows, they occur when there are no row or no column labels
+		Set<String> groupingSets = new LinkedHashSet<String>();
+		groupingSets.add(getColumnList(getLabels()));
+		for (int depth=1; depth<=rowLabels.size(); depth++)
+		{
+			List<String> groupingSet = new ArrayList<String>(pagePrefix);
+			groupingSet.addAll(rowLabels.subList(0, depth));
+			groupingSets.add(getColumnList(groupingSet));
+		}
+		for (int depth=1; depth<=colLabels.size(); depth++)
+		{
+			List<String> groupingSet = new ArrayList<String>(pagePrefix);
+			groupingSet.addAll(colLabels.subList(0, depth));
+			groupingSets.add(getColumnList(groupingSet));
+		}
+		groupingSets.add(getColumnList(pagePrefix));
+		groupingSets.add("()");
+
+		String grpClause = " GROUP BY GROUPING SETS (";
+		for (String groupingSet : groupingSets)
+		{
+			grpClause = grpClause + groupingSet + ", ";
+		}
+		grpClause = grpClause.substring(0, grpClause.lastIndexOf(",")) + ")";
+
+		return getSelectClause(false)
+				+ " FROM ( " + cellQuery.getSublistQuery(rowLimit) + " ) as sublist"
+				+ grpClause
+				+ cellQuery.getSortClause() + ";";
+	}
+
+	/**
+	 * Generates the query for MySQL, which only rolls up the labels from the last one to the first.
+	 * A first rollup by page, row and column labels gives the cells, the row label prefixes, the pages and the table.
+	 * A second rollup by page and column labels gives the column label prefixes.
+	 * The raw rows are read once into a common table expression, so that both rollups aggregate the same rows.
+	 * @param	rowLimit	Maximum number of raw rows to be aggregated
+	 * @return	The SQL query
+	 */
+	private String toMySQL(int rowLimit)
+	{
+		List<String> labels = getLabels();
+		String query = "WITH sublist AS ( " + cellQuery.getSublistQuery(rowLimit) + " )"
+						+ getSelectClause(false)
+						+ " FROM sublist GROUP BY " + String.join(", ", labels) + " WITH ROLLUP";
+
+		if (!rowLabels.isEmpty() && !colLabels.isEmpty())
+		{
+			//Keeping the cells and the rows without any column label, the column label prefixes come from the second rollup
+			if (colLabels.size() > 1)
+				query = query + " HAVING GROUPING(" + colLabels.get(colLabels.size() - 1) + ") = 0 OR GROUPING(" + colLabels.get(0) + ") = 1";
+
+			List<String> colGroupLabels = new ArrayList<String>();
+			if (isPaged())
+				colGroupLabels.add(pageLabel);
+			colGroupLabels.addAll(colLabels);
+			query = query + " UNION ALL"
+						+ getSelectClause(true)
+						+ " FROM sublist GROUP BY " + String.join(", ", colGroupLabels) + " WITH ROLLUP"
+						+ " HAVING GROUPING(" + colLabels.get(0) + ") = 0";
+		}
+
+		return query + cellQuery.getSortClause() + ";";
+	}
+
+	/**
+	 * Generates the select clause: the labels, the aggregated value and the GROUPING() flag of every label.
+	 * @param	withoutRowLabels	true, if the rows are not grouped by the row labels, which are then selected as NULL
+	 * @return	SQL query select clause
+	 */
+	private String getSelectClause(boolean withoutRowLabels)
+	{
+		List<String> labels = getLabels();
+		int firstRowLabel = isPaged() ? 1 : 0;
+		String selectClause = " SELECT ";
+		String groupingClause = "";
+
+		for (int i=0; i<labels.size(); i++)
+		{
+			String label = labels.get(i);
+			if (withoutRowLabels && i >= firstRowLabel && i < firstRowLabel + rowLabels.size())
+			{
+				selectClause = selectClause + "NULL AS " + label + ", ";
+				groupingClause = groupingClause + ", 1 AS " + GROUPING_ALIAS + i;
+			}
+			else
+			{
+				selectClause = selectClause + label + ", ";
+				groupingClause = groupingClause + ", GROUPING(" + label + ") AS " + GROUPING_ALIAS + i;
+			}
+		}
+
+		return selectClause
+				+ function.toUpperCase() + "(" + valField + ") AS " + PivotQuery.AGGREGATE_ALIAS
+				+ groupingClause;
+	}
+
+	/**
+	 * @param	columns	Column names
+	 * @return	Parenthesized, comma-separated list of the column names
+	 */
+	private String getColumnList(List<String> columns)
+	{
+		return "(" + String.join(", ", columns) + ")";
+	}
+
+	/**
+	 * Executes the query and sorts its rows into cells and summaries.
+	 * Pages are put in ascending order of their page label value.
+	 * @param	dbConnection	An object of type Connection referring to the data source connection used for executing the query
+	 * @param	rowLimit		Maximum number of raw rows to be aggregated
+	 * @param	queryLog		Log of the statements executed for the current request
+	 * @return	Pivot table data, along with its summaries
+	 * @throws	SQLException	if the query fails
+	 */
+	PivotTableData execute(Connection dbConnection, int rowLimit, QueryLog queryLog) throws SQLException
+	{
+		String pvtTblDataQuery = toSQL(dbConnection, rowLimit);
+		Statement stmtPvtTblData = null;
+		ResultSet rsPvtTblData = null;
+
+		try
+		{
+			stmtPvtTblData = StreamingStatements.create(dbConnection);
+			queryLog.record(pvtTblDataQuery, stmtPvtTblData);
+			rsPvtTblData = stmtPvtTblData.executeQuery(pvtTblDataQuery);
+
+			return readRecords(rsPvtTblData);
+		}
+		finally
+		{
+			if (rsPvtTblData != null)
+				rsPvtTblData.close();
+			if (stmtPvtTblData != null)
+			{
+				queryLog.release(stmtPvtTblData);
+				stmtPvtTblData.close();
+			}
+		}
+	}
+
+	/**
+	 * Reads the rows of the query, telling the cells and the summaries apart by the labels they are grouped by.
+	 * A row can be several things at once, for instance a cell is also a row summary when there are no column labels.
+	 * @param	rsPvtTblData	Result set of the query
+	 * @return	Pivot table data, along with its summaries
+	 * @throws	SQLException	if reading the result set fails
+	 */
+	private PivotTableData readRecords(ResultSet rsPvtTblData) throws SQLException
+	{
+		int firstRowLabel = isPaged() ? 1 : 0;
+		int firstColLabel = firstRowLabel + rowLabels.size();
+		int labelCount = firstColLabel + colLabels.size();
+		int valueIndex = labelCount + 1;
+		NumericColumnReader valueReader = NumericColumnReader.forColumn(rsPvtTblData.getMetaData(), valueIndex);
+
+		PageIndex pageIndex = new PageIndex();
+		PivotTableCells.Builder pvtTblCells = new PivotTableCells.Builder(rowLabels.size() + colLabels.size());
+		List<Object> cellLabels = new ArrayList<Object>(rowLabels.size() + colLabels.size());
+		List<List<List<List<Object>>>> rowSummByPage = new ArrayList<List<List<List<Object>>>>();
+		List<List<List<List<Object>>>> colSummByPage = new ArrayList<List<List<List<Object>>>>();
+		List<Double> pageSummDetails = new ArrayList<Double>();
+		double tableSummDetails = 0;
+
+		if (!isPaged())
+			addPage(rowSummByPage, colSummByPage, pageSummDetails);
+
+		while (rsPvtTblData.next())
+		{
+			//Counting the labels the row is grouped by, which always form a prefix of the page, row and column labels
+			boolean pageGrouped = isPaged() && rsPvtTblData.getInt(valueIndex + 1) == 0;
+			int rowDepth = getGroupingDepth(rsPvtTblData, valueIndex + firstRowLabel, rowLabels.size());
+			int colDepth = getGroupingDepth(rsPvtTblData, valueIndex + firstColLabel, colLabels.size());
+			double value = valueReader.read(rsPvtTblData, valueIndex);
+
+			if (isPaged() && !pageGrouped)
+			{
+				tableSummDetails = value;
+				continue;
+			}
+
+			int page = 0;
+			if (isPaged())
+			{
+				page = pageIndex.getPage(rsPvtTblData.getObject(1));
+				if (page == pageSummDetails.size())
+					addPage(rowSummByPage, colSummByPage, pageSummDetails);
+			}
+
+			if (rowDepth == rowLabels.size() && colDepth == colLabels.size())
+			{
+				cellLabels.clear();
+				for (int i=firstRowLabel+1; i<valueIndex; i++)
+				{
+					cellLabels.add(rsPvtTblData.getObject(i));
+				}
+				pvtTblCells.addCell(page, cellLabels, value);
+			}
+			if (colDepth == 0 && rowDepth > 0)
+				rowSummByPage.get(page).get(rowLabels.size() - rowDepth).add(getSummary(rsPvtTblData, firstRowLabel, rowDepth, value));
+			if (rowDepth == 0 && colDepth > 0)
+				colSummByPage.get(page).get(colLabels.size() - colDepth).add(getSummary(rsPvtTblData, firstColLabel, colDepth, value));
+			if (rowDepth == 0 && colDepth == 0)
+			{
+				pageSummDetails.set(page, value);
+				if (!isPaged())
+					tableSummDetails = value;
+			}
+		}
+
+		//Putting the pages in ascending order of their page label value, as on every other path
+		if (isPaged())
+		{
+			int[] newPages = pageIndex.sort();
+			pvtTblCells.renumberPages(newPages);
+			rowSummByPage = PageIndex.reorder(rowSummByPage, newPages);
+			colSummByPage = PageIndex.reorder(colSummByPage, newPages);
+			pageSummDetails = PageIndex.reorder(pageSummDetails, newPages);
+		}
+
+		List<List<List<Object>>> rowSummDetails = new ArrayList<List<List<Object>>>();
+		for (List<List<List<Object>>> pageRowSumm : rowSummByPage)
+		{
+			rowSummDetails.addAll(pageRowSumm);
+		}
+		List<List<List<Object>>> colSummDetails = new ArrayList<List<List<Object>>>();
+		for (List<List<List<Object>>> pageColSumm : colSummByPage)
+		{
+			colSummDetails.addAll(pageColSumm);
+		}
+
+		PivotTableSummaries summaries = new PivotTableSummaries(rowSummDetails, colSummDetails, pageSummDetails, tableSummDetails);
+		return new PivotTableData(pageIndex.getLabels(), pvtTblCells.build(pageSummDetails.size()), summaries);
+	}
+
+	/**
+	 * Adds an empty page to the summaries, with one list per row label level and per column label level.
+	 * @param	rowSummByPage	Row level summaries of every page
+	 * @param	colSummByPage	Column level summaries of every page
+	 * @param	pageSummDetails	Summary of every page
+	 */
+	private void addPage(List<List<List<List<Object>>>> rowSummByPage, List<List<List<List<Object>>>> colSummByPage,
+							List<Double> pageSummDetails)
+	{
+		List<List<List<Object>>> pageRowSumm = new ArrayList<List<List<Object>>>();
+		for (int i=0; i<rowLabels.size(); i++)
+		{
+			pageRowSumm.add(new ArrayList<List<Object>>());
+		}
+		rowSummByPage.add(pageRowSumm);
+
+		List<List<List<Object>>> pageColSumm = new ArrayList<List<List<Object>>>();
+		for (int i=0; i<colLabels.size(); i++)
+		{
+			pageColSumm.add(new ArrayList<List<Object>>());
+		}
+		colSummByPage.add(pageColSumm);
+
+		pageSummDetails.add(0.0);
+	}
+
+	/**
+	 * Counts the labels of a dimension (row or column) that a result row is grouped by.
+	 * @param	rsPvtTblData	Result set, positioned on the row
+	 * @param	firstFlag		Column index preceding the GROUPING() flag of the first label of the dimension
+	 * @param	labelCount		Number of labels of the dimension
+	 * @return	Number of leading labels of the dimension the row is grouped by
+	 * @throws	SQLException	if reading the result set fails
+	 */
+	private int getGroupingDepth(ResultSet rsPvtTblData, int firstFlag, int labelCount) throws SQLException
+	{
+		int depth = 0;
+		while (depth < labelCount && rsPvtTblData.getInt(firstFlag + depth + 1) == 0)
+		{
+			depth++;
+		}
+		return depth;
+	}
+
+	/**
+	 * Reads a row or column level summary: the label values it is grouped by followed by its value.
+	 * @param	rsPvtTblData	Result set, positioned on the row
+	 * @param	firstLabel		Index of the first label of the dimension among the selected labels, starting at 0
+	 * @param	depth			Number of labels of the dimension the row is grouped by
+	 * @param	value			Summary value
+	 * @return	Label values followed by the summary value
+	 * @throws	SQLException	if reading the result set fails
+	 */
+	private List<Object> getSummary(ResultSet rsPvtTblData, int firstLabel, int depth, double value) throws SQLException
+	{
+		List<Object> summary = new ArrayList<Object>(depth + 1);
+		for (int i=0; i<depth; i++)
+		{
+			summary.add(rsPvtTblData.getObject(firstLabel + i + 1));
+		}
+		summary.add(value);
+		return summary;
+	}
+}
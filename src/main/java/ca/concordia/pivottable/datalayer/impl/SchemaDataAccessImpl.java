@@ -4,11 +4,10 @@ import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 
+import ca.concordia.pivottable.datalayer.ConnectionPool;
 import ca.concordia.pivottable.datalayer.SchemaDataAccess;
-import ca.concordia.pivottable.entities.ApplicationConfiguration;
 import ca.concordia.pivottable.entities.PivotTableSchema;
 import ca.concordia.pivottable.entities.ShareableSchema;
-import ca.concordia.pivottable.servicelayer.ConfigurationHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,24 +19,9 @@ import org.slf4j.LoggerFactory;
 public class SchemaDataAccessImpl implements SchemaDataAccess 
 {
 	/**
-	 * URL of the database to be connected to.
+	 * Pool of connections to the user schema database, shared by the whole application.
 	 */
-	private String dbUrl;
-	
-	/**
-	 * Username to login to the database.
-	 */
-	private String dbUsername;
-	
-	/**
-	 * Password to login to the database.
-	 */
-	private String dbPassword;
-	
-	/**
-	 * Database connection object
-	 */
-	Connection dbConnection = null;
+	private final ConnectionPool appDbPool;
 	
 	/**
 	 * Used for logging information, warning and error messages during application run.
@@ -46,68 +30,46 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
 	
 	/**
 	 * Class constructor.
+	 * @param	appDbPool	Pool of connections to the application database
 	 */
-	public SchemaDataAccessImpl(ConfigurationHolder appConfigHolder)
+	public SchemaDataAccessImpl(ConnectionPool appDbPool)
 	{
-		ApplicationConfiguration conf = appConfigHolder.getConfiguration();
-		dbUrl = conf.getAppDatabaseUrl();
-		dbUsername = conf.getAppDatabaseUser();
-		dbPassword = conf.getAppDatabasePassword();
+		this.appDbPool = appDbPool;
 	}
 	
 	/**
-	 * Initiates a connection with the user schema database.
+	 * Borrows a connection to the user schema database from the application database pool.
+	 * @return	A database connection
+	 * 			null, if no connection could be obtained
 	 */
-	public void connect()
+	private Connection getConnection()
 	{
-		//Database driver required for connection
-		String jdbcDriver = "com.mysql.jdbc.Driver";
-		
-		try
-		{
-			//Loading JDBC Driver class at run-time
-			Class.forName(jdbcDriver);
-		}
-		catch (Exception excp)
-		{
-			log.error("Unexpected exception occurred while attempting user schema DB connection... " + excp.getMessage());
-		}		
-		
-		log.info("Initiating connection to user schema database " + dbUrl + "...");
-		
 		try
 		{
-			dbConnection = DriverManager.getConnection(dbUrl, dbUsername, dbPassword);
+			return appDbPool.getConnection();
 		}
 		catch (SQLException sqle)
 		{
-			dbConnection = null;
 			log.error("SQLException occurred while connecting to user schema database... " + sqle.getMessage());
+			return null;
 		}
 	}
 	
 	/**
-	 * Closes the connection with the user schema database.
-	 * @return	true, if connection is closed successfully, or if the connection was already closed
-	 * <br>		false, if the attempt to disconnect fails
+	 * Gives a borrowed connection back to the application database pool.
+	 * @param	dbConnection	Connection to be given back
 	 */
-    public boolean disconnect()
-    {
-    	if (dbConnection != null)
-    	{
-    		try
-    		{
-    			dbConnection.close();
-    		}
-    		catch (SQLException sqle)
-    		{
-    			log.error("SQLException occurred while disconnecting from user schema database... " + sqle.getMessage());
-    			return false;
-    		}
-    	}
-    	
-    	return true;
-    }
+	private void release(Connection dbConnection)
+	{
+		try
+		{
+			dbConnection.close();
+		}
+		catch (SQLException sqle)
+		{
+			log.error("SQLException occurred while disconnecting from user schema database... " + sqle.getMessage());
+		}
+	}
     
     /**
 	 * Adds a record for a new shareable schema into the shareable schemas table in the user schema database.
@@ -124,8 +86,8 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
 	{
 		Long schemaAdded = null;
 		
-		//Connecting to data base
-  		connect();
+		//Borrowing a connection from the application database pool
+  		Connection dbConnection = getConnection();
 		
 		if (dbConnection == null)							//failed connection
   		{
@@ -170,7 +132,7 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
   		}
 		finally
 		{
-			disconnect();
+			release(dbConnection);
 		}
   		
 		return schemaAdded;
@@ -192,8 +154,8 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
 	{
 		boolean schemaUpdated = true;
 		
-		//Connecting to data base
-  		connect();
+		//Borrowing a connection from the application database pool
+  		Connection dbConnection = getConnection();
   		
 		if (dbConnection == null)							//failed connection
   		{
@@ -242,7 +204,7 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
   		}
 		finally
 		{
-			disconnect();
+			release(dbConnection);
 		}
   		
 		return schemaUpdated;
@@ -258,8 +220,8 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
 	{
 		boolean schemaDeleted = true;
 		
-		//Connecting to data base
-  		connect();
+		//Borrowing a connection from the application database pool
+  		Connection dbConnection = getConnection();
   		
 		if (dbConnection == null)							//failed connection
   		{
@@ -297,7 +259,7 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
   		}
 		finally
 		{
-			disconnect();
+			release(dbConnection);
 		}
   		
 		return schemaDeleted;
@@ -313,8 +275,8 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
 	{
 		String ownerUsername = null;
 		
-		//Connecting to data base
-  		connect();
+		//Borrowing a connection from the application database pool
+  		Connection dbConnection = getConnection();
   		
 		if (dbConnection == null)							//failed connection
   		{
@@ -344,7 +306,7 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
   		}
   		finally
   		{
-  			disconnect();
+  			release(dbConnection);
   		}
   		  		
   		return ownerUsername;
@@ -361,8 +323,8 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
 	{
 		boolean sharingAdded = true;
 		
-		//Connecting to data base
-  		connect();
+		//Borrowing a connection from the application database pool
+  		Connection dbConnection = getConnection();
   		
 		if (dbConnection == null)							//failed connection
   		{
@@ -401,7 +363,7 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
 		}
 		finally
 		{
-			disconnect();
+			release(dbConnection);
 		}
   		
 		return sharingAdded;
@@ -417,8 +379,8 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
 	{
 		int schemaCount = -1;
 		
-		//Connecting to data base
-  		connect();
+		//Borrowing a connection from the application database pool
+  		Connection dbConnection = getConnection();
   		
 		if (dbConnection == null)							//failed connection
   		{
@@ -444,6 +406,10 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
   			rsSchemaCount = null;
   			log.error("SQLException occurred while fetching schema ID count from user schema database... " + sqle.getMessage());
   		}
+  		finally
+  		{
+  			release(dbConnection);
+  		}
   		  		
   		if (schemaCount > 0)
   			return true;
@@ -462,8 +428,8 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
 	{
 		boolean sharingDeleted = true;
 		
-		//Connecting to data base
-  		connect();
+		//Borrowing a connection from the application database pool
+  		Connection dbConnection = getConnection();
   		
 		if (dbConnection == null)							//failed connection
   		{
@@ -503,7 +469,7 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
   		}
 		finally
 		{
-			disconnect();
+			release(dbConnection);
 		}
   		
 		return sharingDeleted;
@@ -518,8 +484,8 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
 	{
 		List<String[]> myOwnedSchemaList = new ArrayList<String[]>();
 		
-		//Connecting to data base
-  		connect();
+		//Borrowing a connection from the application database pool
+  		Connection dbConnection = getConnection();
   		
 		if (dbConnection == null)							//failed connection
   		{
@@ -558,7 +524,7 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
   		}
   		finally
   		{
-  			disconnect();
+  			release(dbConnection);
   		}
   		  		
   		//Setting schema list to null in case no owned schemas are found
@@ -577,8 +543,8 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
 	{
 		List<String[]> mySharedSchemaList = new ArrayList<String[]>();
 		
-		//Connecting to data base
-  		connect();
+		//Borrowing a connection from the application database pool
+  		Connection dbConnection = getConnection();
   		
 		if (dbConnection == null)							//failed connection
   		{
@@ -621,7 +587,7 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
   		}
   		finally
   		{
-  			disconnect();
+  			release(dbConnection);
   		}
   		  		
   		//Setting schema list to null in case no shared schemas are found
@@ -640,8 +606,8 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
 	{
 		List<String[]> sharedWithMeSchemaList = new ArrayList<String[]>();
 		
-		//Connecting to data base
-  		connect();
+		//Borrowing a connection from the application database pool
+  		Connection dbConnection = getConnection();
   		
 		if (dbConnection == null)							//failed connection
   		{
@@ -684,7 +650,7 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
   		}
   		finally
   		{
-  			disconnect();
+  			release(dbConnection);
   		}
   		  		
   		//Setting schema list to null in case no shared schemas are found
@@ -702,8 +668,8 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
 	@Override
 	public ShareableSchema getSchemaById(Long id) {
 
-		//Connecting to data base
-		connect();
+		//Borrowing a connection from the application database pool
+		Connection dbConnection = getConnection();
 
 		ShareableSchema schema = null;
 
@@ -751,7 +717,7 @@ public class SchemaDataAccessImpl implements SchemaDataAccess
 		}
 		finally
 		{
-			disconnect();
+			release(dbConnection);
 		}
 
 		return schema;
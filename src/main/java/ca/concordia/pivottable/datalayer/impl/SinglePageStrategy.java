@@ -1,15 +1,14 @@
 package ca.concordia.pivottable.datalayer.impl;
 
 import java.sql.Connection;
-import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import ca.concordia.pivottable.datalayer.AggregationMethod;
+import ca.concordia.pivottable.datalayer.PivotTableData;
 import ca.concordia.pivottable.datalayer.PivotTableStrategy;
+import ca.concordia.pivottable.datalayer.QueryLog;
+import ca.concordia.pivottable.entities.PivotTableCells;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,6 +28,17 @@ public class SinglePageStrategy implements PivotTableStrategy
 	private String sortField;
 	private String sortOrder;
 	private String tableName;
+	private String tableSummFuncName;
+	
+	/**
+	 * How the raw rows may be scanned over several connections, null to scan them on the connection of the request.
+	 */
+	private ParallelExecution parallelExecution = null;
+	
+	/**
+	 * How the cells are to be aggregated, null to let the summary function and the parallel execution decide.
+	 */
+	private AggregationMethod aggregationMethod = null;
 	
 	/**
 	 * Used for logging information, warning and error messages during application run.
@@ -46,9 +56,11 @@ public class SinglePageStrategy implements PivotTableStrategy
   	 * @param	sortField	Field name by which pivot table data needs to be sorted
   	 * @param	sortOrder	Order (ascending/descending) in which pivot table data needs to be sorted
   	 * @param	tableName	Raw report table name
+  	 * @param	tableSummFuncName	Summary function selected as part of pivot table schema
 	 */
 	public SinglePageStrategy(List<String> rowLabels, List<String> colLabels, String function, String valField, String filterField, 
-								String filterValue, String sortField, String sortOrder, String tableName)
+								String filterValue, String sortField, String sortOrder, String tableName,
+								String tableSummFuncName)
 	{
 		this.rowLabels = rowLabels;
 		this.colLabels = colLabels;
@@ -59,15 +71,35 @@ public class SinglePageStrategy implements PivotTableStrategy
 		this.sortField = sortField;
 		this.sortOrder = sortOrder;
 		this.tableName = tableName;
+		this.tableSummFuncName = tableSummFuncName;
+	}
+	
+	/**
+	 * Lets the raw rows be scanned by key ranges at the same time.
+	 * @param	parallelExecution	How the queries may be spread over several connections
+	 */
+	void setParallelExecution(ParallelExecution parallelExecution)
+	{
+		this.parallelExecution = parallelExecution;
 	}
 		
+	/**
+	 * Sets how the cells are to be aggregated, as chosen by the pivot table planner.
+	 * @param	aggregationMethod	How the cells are to be aggregated
+	 */
+	public void setAggregationMethod(AggregationMethod aggregationMethod)
+	{
+		this.aggregationMethod = aggregationMethod;
+	}
+	
 	/**
 	 * Executes a specific strategy for retrieving pivot table data.
 	 * @param	dbConnection	Database connection object
 	 * @param	rowLimit		Maximum number of rows to be fetched by any SQL query
-	 * @return	Pivot table data
+	 * @param	queryLog		Log of the statements executed for the current request
+	 * @return	Pivot table data, with no page label values, along with its summaries if the database calculated them
 	 */
-	public List<List<List<Object>>> getPvtTblData(Connection dbConnection, int rowLimit)
+	public PivotTableData getPvtTblData(Connection dbConnection, int rowLimit, QueryLog queryLog)
 	{
 		if (dbConnection == null)							//failed connection
   		{
@@ -75,246 +107,50 @@ public class SinglePageStrategy implements PivotTableStrategy
   		}
   		
   		//Proceeding, if database connection is successful
-  		String sortClause = " ";
-  		String filterClause = " ";
-  		String selectClause = " SELECT ";
-  		String grpClause = " GROUP BY ";
-  		List<List<List<Object>>> pvtTblData = new ArrayList<List<List<Object>>>();
-  		
-  		//Generating the SQL query select clause for selecting row labels
-  		for (String rowLabel : rowLabels)
-  		{
-  			selectClause = selectClause + rowLabel + ", ";
-  		}
-  		
-  		//Generating the SQL query select clause for selecting column labels
-  		for (String colLabel : colLabels)
-  		{
-  			selectClause = selectClause + colLabel + ", ";
-  		}
-  		
-  		//Generating the SQL query group by clause for grouping by row labels
-  		for (String rowLabel : rowLabels)
-  		{
-  			grpClause = grpClause + rowLabel + ", ";
-  		}
-  		
-  		//Generating the SQL query group by clause for grouping by column labels
-  		for (String colLabel : colLabels)
-  		{
-  			grpClause = grpClause + colLabel + ", ";
-  		}
-  		
-  		//Removing trailing comma
-  		grpClause = grpClause.substring(0, grpClause.lastIndexOf(","));
-  		
-  		//Generating the SQL query clause for filtering resulting data
-  		if ((filterField != null && !filterField.trim().isEmpty()) && (filterValue != null))
-  			filterClause = " WHERE " + filterField + " = \'" + filterValue + "\'";
-  		
-  		//Generating the SQL query clause for sorting resulting data
-  		if ((sortField != null && !sortField.trim().isEmpty()) && (sortOrder != null))
-  			sortClause = " ORDER BY " + sortField + " " + sortOrder;
-  		
-  		//Generating and executing the SQL query
-  		pvtTblData = executeQuery(dbConnection, rowLimit, selectClause, filterClause, sortClause);
-
-  		return pvtTblData;
-	}
-	
-	/**
-	 * Generates and executes an SQL query on database and fetches pivot table data.
-	 * @param 	dbConnection	An object of type Connection referring to the data source connection used for executing the query
-	 * @param 	rowLimit		Maximum number of rows to be fetched by any SQL query
-	 * @param 	selectClause	SQL query clause used for selecting row and column labels values as per the schema
-	 * @param 	filterClause	SQL query clause used for filtering pivot table data as per the schema
-  	 * @param 	sortClause		SQL query clause used for sorting pivot table data as per the schema
-	 * @return	Pivot table data fetched from the database
-	 */
-	private List<List<List<Object>>> executeQuery(Connection dbConnection, int rowLimit, String selectClause, String filterClause, String sortClause) 
-  	{
-  		String pvtTblDataQuery = null;  		
-  		Statement stmtPvtTblData = null;
-  		ResultSet rsPvtTblData = null;
-  		ResultSetMetaData rsmdPvtTblData = null;
-  		int fieldCount = 0;
-  		Set<List<Object>> rowColList = new HashSet<List<Object>>();
-  		List<List<Object>> pageData = new ArrayList<List<Object>>();
-  		List<List<List<Object>>> pvtTblData = new ArrayList<List<List<Object>>>();
+  		//Grouping by row labels followed by column labels
+  		List<String> labels = new ArrayList<String>(rowLabels);
+  		labels.addAll(colLabels);
   		
-  		//Generating the SQL query to get pivot table data without page label
-  		pvtTblDataQuery = selectClause
-  							+ valField + " "
-  							+ " FROM ( SELECT * FROM " + tableName
-  										+ filterClause
-										+ " LIMIT " + String.valueOf(rowLimit) + " ) as sublist"
-							+ sortClause + ";";
-  		
-  		//Executing the SQL query
-  		try
+  		//Letting the database calculate the summaries along with the cells, when it can
+  		if ((aggregationMethod == null || aggregationMethod == AggregationMethod.PUSHDOWN)
+  				&& RollupPivotQuery.isSupported(dbConnection, function, tableSummFuncName, labels.size()))
   		{
-  			stmtPvtTblData = dbConnection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
-  			log.info("Running query " + pvtTblDataQuery);
-  			rsPvtTblData = stmtPvtTblData.executeQuery(pvtTblDataQuery);
-  			
-  			//Fetching field count for the results returned by the SQL query executed
-  			rsmdPvtTblData = rsPvtTblData.getMetaData();
-  			fieldCount = rsmdPvtTblData.getColumnCount();
-  			
-  			//Fetching pivot table row and column label values
-  			while (rsPvtTblData.next())
+  			try
   			{
-  				List<Object> recordRowCol = new ArrayList<Object>();
-  				
-  				for (int i=1; i<fieldCount; i++)
-  				{
-  					recordRowCol.add(rsPvtTblData.getObject(i));
-  				}
-  				
-  				rowColList.add(recordRowCol);
+  				PivotTableData pvtTblData = new RollupPivotQuery(null, rowLabels, colLabels, function, valField, filterField, filterValue,
+  											sortField, sortOrder, tableName).execute(dbConnection, rowLimit, queryLog);
+  				queryLog.completeAllPages(pvtTblData.getCells().getPageCount());
+  				return pvtTblData;
   			}
-  			
-  			//Calculating function field values
-  			int i = 0;
-  			for (List<Object> recordRowCol : rowColList)
+  			catch (SQLException pvtTblDataSQLExcpn)
   			{
-  				double result = 0;
-  				List<Integer> valueList = new ArrayList<Integer>();
-  				List<String> countValueList = new ArrayList<String>();
-  			
-  				rsPvtTblData.beforeFirst();
-  				while (rsPvtTblData.next())
-  				{
-  					boolean getValue = true;
-  					for (i=1; i<fieldCount; i++)
-  	  				{
-  	  					if (!rsPvtTblData.getObject(i).equals(recordRowCol.get(i-1)))
-  	  					{
-  	  						getValue = false;
-  	  						break;
-  	  					}
-  	  				}
-  					
-  					if (getValue)
-  					{
-  						if (function.equalsIgnoreCase("count"))
-							countValueList.add(rsPvtTblData.getObject(i).toString());
-						else
-						{
-							int currValue = (Integer)rsPvtTblData.getObject(i);
-							valueList.add(currValue);
-						}
-  					}
-  				}
+  				log.error("SQLException occurred while fetching pivot table data with summaries... " + pvtTblDataSQLExcpn.getMessage());
+  				if (queryLog.isCancelled() || queryLog.isTimedOut())
+  					return null;
   				
-  				if (function.equalsIgnoreCase("count"))
-  					result = countValueList.size();
-  				else
-  					result = calcFunctionValue(function, valueList);
-  				recordRowCol.add(fieldCount-1, result);
-  				pageData.add(recordRowCol);
+  				//Leaving the summaries to the application, as if the database could not calculate them
+  				log.info("Fetching pivot table data without summaries.");
   			}
-  			
-  			//Storing entire pivot table data as the first page since there is only one page in this case
-  			pvtTblData.add(pageData);
-  			
-  			rsPvtTblData.close();
-  			stmtPvtTblData.close();
-  		}
-  		catch (SQLException pvtTblDataSQLExcpn)
-  		{
-  			stmtPvtTblData = null;
-  			rsPvtTblData = null;
-  			rsmdPvtTblData = null;
-  			pvtTblData = null;
-  			log.error("SQLException occurred while fetching pivot table data... " + pvtTblDataSQLExcpn.getMessage());
   		}
   		
-  		return pvtTblData;
-  	}
-	
-	/**
-  	 * Calculates different summary function values.
-  	 * @param 	functionName		Name of the function to be calculated
-  	 * @param 	valueList			List of values to be used in calculation
-  	 * @return	The result calculated
-  	 */  	  	
-  	private double calcFunctionValue(String functionName, List<Integer> valueList)
-  	{
-  		double result = 0;
+  		PivotQuery pvtTblQuery = new PivotQuery(labels, function, valField, filterField, filterValue, sortField, sortOrder, tableName);
+  		pvtTblQuery.setParallelExecution(parallelExecution);
+  		pvtTblQuery.setAggregationMethod(aggregationMethod);
+  		PivotTableCells.Builder pvtTblCells = new PivotTableCells.Builder(labels.size());
   		
-  		if (functionName.equalsIgnoreCase("Sum"))
-  		{
-  			result = 0;
-  			for (double value : valueList)
-  				result += value;
-  		}
-  		else if (functionName.equalsIgnoreCase("Min"))
-  		{
-  			result = valueList.get(0);
-  			for (double value : valueList)
-  			{
-  				if (value < result)
-  					result = value;
-  			}
-  		}
-  		else if (functionName.equalsIgnoreCase("Max"))
-  		{
-  			result = valueList.get(0);
-  			for (double value : valueList)
-  			{
-  				if (value > result)
-  					result = value;
-  			}
-  		}
-  		else if (functionName.equalsIgnoreCase("Avg"))
-  		{
-  			result = 0;
-  			for (double value : valueList)
-  				result += value;
-  			result = (result / (valueList.size()));
-  		}
-  		else if (functionName.equalsIgnoreCase("Product"))
-  		{
-  			result = 1;
-  			for (double value : valueList)
-  				result *= value;
-  		}
-  		else if (functionName.equalsIgnoreCase("Variance"))
+  		//Generating and executing the SQL query
+  		try
   		{
-  			double sum = 0;
-  			for (double value : valueList)
-  				sum += value; 
-  			
-  			double avg = (sum/valueList.size());
-  			
-  			double sumSqrDiff = 0;  			
-  			for (double value : valueList)
-  			{
-  				double sqrDiff = (Math.pow((value - avg), 2));
-  				sumSqrDiff += sqrDiff; 
-  			}
-  			
-  			result = (sumSqrDiff/valueList.size());
+  			//Storing entire pivot table data as the first page since there is only one page in this case
+  			pvtTblQuery.execute(dbConnection, rowLimit, queryLog, (cellLabels, value) -> pvtTblCells.addCell(0, cellLabels, value));
   		}
-  		else if (functionName.equalsIgnoreCase("Standard Deviation"))
+  		catch (SQLException pvtTblDataSQLExcpn)
   		{
-  			double sum = 0;
-  			for (double value : valueList)
-  				sum += value; 
-  			
-  			double avg = (sum/valueList.size());
-  			
-  			double sumSqrDiff = 0;  			
-  			for (double value : valueList)
-  			{
-  				double sqrDiff = (Math.pow((value - avg), 2));
-  				sumSqrDiff += sqrDiff; 
-  			}
-  			
-  			result = (Math.sqrt((sumSqrDiff/valueList.size())));
+  			log.error("SQLException occurred while fetching pivot table data... " + pvtTblDataSQLExcpn.getMessage());
+  			return null;
   		}
-  		
-  		return result;
-  	}
+
+  		queryLog.completeAllPages(1);
+  		return new PivotTableData(new ArrayList<String>(), pvtTblCells.build(1));
+	}
 }
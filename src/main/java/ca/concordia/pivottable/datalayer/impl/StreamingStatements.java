@@ -0,0 +1,77 @@
+package ca.concordia.pivottable.datalayer.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Creates the statements used to read large results, whose rows are fetched from the database in batches
+ * instead of being loaded entirely into memory when the query is executed.
+ */
+final class StreamingStatements
+{
+	/**
+	 * Number of rows fetched from the database at a time.
+	 */
+	private static final int FETCH_SIZE = 1000;
+
+	private StreamingStatements()
+	{
+		//no instances
+	}
+
+	/**
+	 * Creates a read-only, forward-only statement that fetches its results in batches.
+	 * On PostgreSQL this turns auto-commit off, which the caller must restore once the results are read.
+	 * @param	dbConnection	Connection to create the statement on
+	 * @return	Statement to execute the query with
+	 * @throws	SQLException	if the statement cannot be created
+	 */
+	static Statement create(Connection dbConnection) throws SQLException
+	{
+		Statement stmt = dbConnection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		setStreaming(dbConnection, stmt);
+		return stmt;
+	}
+
+	/**
+	 * Prepares a read-only, forward-only statement with parameters that fetches its results in batches.
+	 * On PostgreSQL this turns auto-commit off, which the caller must restore once the results are read.
+	 * @param	dbConnection	Connection to prepare the statement on
+	 * @param	query			Query to be executed, with a placeholder for every parameter
+	 * @return	Statement to bind the parameters of and execute
+	 * @throws	SQLException	if the statement cannot be prepared
+	 */
+	static PreparedStatement prepare(Connection dbConnection, String query) throws SQLException
+	{
+		PreparedStatement stmt = dbConnection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		setStreaming(dbConnection, stmt);
+		return stmt;
+	}
+
+	/**
+	 * Makes a statement fetch its results in batches, as the driver of the connection requires.
+	 * @param	dbConnection	Connection the statement was created on
+	 * @param	stmt			Statement to configure
+	 * @throws	SQLException	if the statement or the connection cannot be configured
+	 */
+	private static void setStreaming(Connection dbConnection, Statement stmt) throws SQLException
+	{
+		String dbUrl = dbConnection.getMetaData().getURL();
+
+		//MySQL Connector/J only streams rows one by one when asked for this particular fetch size
+		if (dbUrl != null && dbUrl.indexOf("mysql") >= 0)
+		{
+			stmt.setFetchSize(Integer.MIN_VALUE);
+		}
+		//PostgreSQL only uses a cursor inside a transaction
+		else
+		{
+			if (dbUrl != null && dbUrl.indexOf("postgresql") >= 0)
+				dbConnection.setAutoCommit(false);
+			stmt.setFetchSize(FETCH_SIZE);
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package ca.concordia.pivottable.datalayer.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import ca.concordia.pivottable.datalayer.QueryLog;
+import ca.concordia.pivottable.datalayer.TableEstimates;
+
+/**
+ * Reads the estimates the database keeps of the size of a table: the row count and the number of distinct values
+ * of its columns, from information_schema on MySQL and from pg_class and pg_stats on PostgreSQL.
+ * MySQL only knows the number of distinct values of the first column of an index, and PostgreSQL only those
+ * of the columns of analyzed tables. Other databases keep no estimates the application can read.
+ */
+final class TableEstimator
+{
+	private static final String MYSQL_ROW_COUNT_QUERY = "SELECT TABLE_ROWS FROM information_schema.TABLES"
+														+ " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+
+	private static final String MYSQL_DISTINCT_COUNT_QUERY = "SELECT COLUMN_NAME, MAX(CARDINALITY) FROM information_schema.STATISTICS"
+															+ " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND SEQ_IN_INDEX = 1"
+															+ " GROUP BY COLUMN_NAME";
+
+	private static final String POSTGRESQL_ROW_COUNT_QUERY = "SELECT reltuples FROM pg_class WHERE oid = to_regclass(?) AND relkind = 'r'";
+
+	private static final String POSTGRESQL_DISTINCT_COUNT_QUERY = "SELECT s.attname, s.n_distinct FROM pg_stats s"
+																+ " JOIN pg_class c ON c.relname = s.tablename"
+																+ " JOIN pg_namespace n ON n.oid = c.relnamespace AND n.nspname = s.schemaname"
+																+ " WHERE c.oid = to_regclass(?)";
+
+	private TableEstimator()
+	{
+		//no instances
+	}
+
+	/**
+	 * Reads the estimates of a table.
+	 * @param	dbConnection	Connection to the data source
+	 * @param	queryLog		Log of the statements executed for the current request
+	 * @param	tableName		Raw report table name
+	 * @return	Estimates of the table, with an unknown row count if the database keeps none
+	 * @throws	SQLException	if the catalog cannot be read
+	 */
+	static TableEstimates estimate(Connection dbConnection, QueryLog queryLog, String tableName) throws SQLException
+	{
+		String productName = dbConnection.getMetaData().getDatabaseProductName();
+
+		if ("MySQL".equalsIgnoreCase(productName))
+		{
+			//Views and tables of other engines have no row count
+			Long rowCount = readLong(dbConnection, queryLog, MYSQL_ROW_COUNT_QUERY, tableName);
+			TableEstimates estimates = new TableEstimates(rowCount);
+			readDistinctCounts(dbConnection, queryLog, MYSQL_DISTINCT_COUNT_QUERY, tableName, estimates);
+			return estimates;
+		}
+
+		if ("PostgreSQL".equalsIgnoreCase(productName))
+		{
+			//Tables never analyzed have a negative or zero row count
+			Long rowCount = readLong(dbConnection, queryLog, POSTGRESQL_ROW_COUNT_QUERY, tableName);
+			TableEstimates estimates = new TableEstimates(rowCount == null || rowCount <= 0 ? null : rowCount);
+			readDistinctCounts(dbConnection, queryLog, POSTGRESQL_DISTINCT_COUNT_QUERY, tableName, estimates);
+			return estimates;
+		}
+
+		return new TableEstimates(null);
+	}
+
+	/**
+	 * Reads a single number from the catalog.
+	 * @param	dbConnection	Connection to the data source
+	 * @param	queryLog		Log of the statements executed for the current request
+	 * @param	query			Query with the table name as its only parameter
+	 * @param	tableName		Raw report table name
+	 * @return	The number, null if no row or a null value was read
+	 * @throws	SQLException	if the query fails
+	 */
+	private static Long readLong(Connection dbConnection, QueryLog queryLog, String query, String tableName) throws SQLException
+	{
+		try (PreparedStatement stmtEstimate = dbConnection.prepareStatement(query))
+		{
+			stmtEstimate.setString(1, tableName);
+			queryLog.record(query, stmtEstimate);
+			try (ResultSet rsEstimate = stmtEstimate.executeQuery())
+			{
+				if (!rsEstimate.next())
+					return null;
+
+				long value = rsEstimate.getLong(1);
+				return rsEstimate.wasNull() ? null : value;
+			}
+			finally
+			{
+				queryLog.release(stmtEstimate);
+			}
+		}
+	}
+
+	/**
+	 * Reads the number of distinct values of the columns of a table from the catalog.
+	 * PostgreSQL gives the number of distinct values of columns expected to grow with the table as a negated fraction of its rows.
+	 * @param	dbConnection	Connection to the data source
+	 * @param	queryLog		Log of the statements executed for the current request
+	 * @param	query			Query with the table name as its only parameter, returning column names and distinct counts
+	 * @param	tableName		Raw report table name
+	 * @param	estimates		Estimates of the table, to be completed
+	 * @throws	SQLException	if the query fails
+	 */
+	private static void readDistinctCounts(Connection dbConnection, QueryLog queryLog, String query, String tableName,
+											TableEstimates estimates) throws SQLException
+	{
+		try (PreparedStatement stmtEstimate = dbConnection.prepareStatement(query))
+		{
+			stmtEstimate.setString(1, tableName);
+			queryLog.record(query, stmtEstimate);
+			try (ResultSet rsEstimate = stmtEstimate.executeQuery())
+			{
+				while (rsEstimate.next())
+				{
+					double distinctCount = rsEstimate.getDouble(2);
+					if (rsEstimate.wasNull() || distinctCount == 0)
+						continue;
+
+					if (distinctCount < 0)
+					{
+						if (estimates.getRowCount() == null)
+							continue;
+						distinctCount = -distinctCount * estimates.getRowCount();
+					}
+					estimates.setDistinctCount(rsEstimate.getString(1), Math.max(Math.round(distinctCount), 1));
+				}
+			}
+			finally
+			{
+				queryLog.release(stmtEstimate);
+			}
+		}
+	}
+}
@@ -0,0 +1,388 @@
+package ca.concordia.pivottable.datalayer.impl;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import ca.concordia.pivottable.datalayer.DataSourceCatalog;
+import ca.concordia.pivottable.datalayer.QueryLog;
+import ca.concordia.pivottable.entities.ColumnStatistics;
+import ca.concordia.pivottable.entities.DataType;
+import ca.concordia.pivottable.entities.TableStatistics;
+import ca.concordia.pivottable.servicelayer.ConfigurationHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Application-wide registry of the column statistics of the raw report tables: row count, null counts,
+ * distinct counts and minimum and maximum values, computed by a single aggregate query over a sample of the rows.
+ * Statistics are never computed while a request waits: the first request asking for them only starts
+ * their computation in the background, and expired statistics are still served while they are computed again.
+ * As with the catalogs, the statistics are kept per database URL, username and password.
+ * It implements the Singleton design pattern.
+ */
+public class TableStatisticsRegistry
+{
+	/**
+	 * Interval between two runs of the statistics maintenance task.
+	 */
+	private static final long MAINTENANCE_INTERVAL_SECONDS = 60;
+
+	/**
+	 * Time after a failed computation before the statistics of a table are computed again.
+	 */
+	private static final long RETRY_INTERVAL_MILLIS = 60000;
+
+	/**
+	 * Single instance of the registry.
+	 */
+	private static TableStatisticsRegistry singleRegistry;
+
+	/**
+	 * Statistics keyed by database URL, username, password and table name.
+	 */
+	private final Map<StatisticsKey, StatisticsHolder> statistics = new ConcurrentHashMap<StatisticsKey, StatisticsHolder>();
+
+	/**
+	 * Pools the connections used to compute the statistics are borrowed from.
+	 */
+	private final ConnectionPoolRegistry connectionPools;
+
+	/**
+	 * Catalogs the fields of the tables are read from.
+	 */
+	private final DataSourceCatalogRegistry catalogs;
+
+	/**
+	 * Time to live of the statistics of a table, in milliseconds.
+	 */
+	private final long statisticsTtl;
+
+	/**
+	 * Number of rows the statistics of a table are computed over.
+	 */
+	private final int sampleRows;
+
+	/**
+	 * Computes the statistics in the background, one table at a time.
+	 */
+	private final ExecutorService refreshExecutor;
+
+	/**
+	 * Used for logging information, warning and error messages during application run.
+	 */
+	private Logger log = LoggerFactory.getLogger(TableStatisticsRegistry.class);
+
+	/**
+	 * Class constructor.
+	 * @param	connectionPools	Pools the connections used to compute the statistics are borrowed from
+	 * @param	catalogs		Catalogs the fields of the tables are read from
+	 * @param	statisticsTtl	Time to live of the statistics of a table, in milliseconds
+	 * @param	sampleRows		Number of rows the statistics of a table are computed over
+	 */
+	private TableStatisticsRegistry(ConnectionPoolRegistry connectionPools, DataSourceCatalogRegistry catalogs,
+									long statisticsTtl, int sampleRows)
+	{
+		this.connectionPools = connectionPools;
+		this.catalogs = catalogs;
+		this.statisticsTtl = statisticsTtl;
+		this.sampleRows = Math.max(sampleRows, 1);
+
+		refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "table-statistics-refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+		ScheduledExecutorService maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "table-statistics-maintenance");
+			thread.setDaemon(true);
+			return thread;
+		});
+		maintenanceExecutor.scheduleWithFixedDelay(this::discardUnusedStatistics, MAINTENANCE_INTERVAL_SECONDS,
+													MAINTENANCE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Ensures that only one instance of this class exists at all times.
+	 * @param	connectionPools	Pools the connections used to compute the statistics are borrowed from
+	 * @param	catalogs		Catalogs the fields of the tables are read from
+	 * @param	appConfigHolder	Holder of the application configuration, holding the statistics settings
+	 * @return	The class instance
+	 */
+	public static synchronized TableStatisticsRegistry getRegistry(ConnectionPoolRegistry connectionPools, DataSourceCatalogRegistry catalogs,
+																	ConfigurationHolder appConfigHolder)
+	{
+		if (singleRegistry == null)
+			singleRegistry = new TableStatisticsRegistry(connectionPools, catalogs, appConfigHolder.getConfiguration().getTableStatisticsTtl(),
+															appConfigHolder.getConfiguration().getTableStatisticsSampleRows());
+		return singleRegistry;
+	}
+
+	/**
+	 * Fetches the statistics of a table without waiting for them to be computed.
+	 * Missing or expired statistics are computed in the background.
+	 * @param	dbUrl		URL of the database
+	 * @param	dbUsername	Username for login
+	 * @param	dbPassword	Password for login
+	 * @param	tableName	Raw report table name
+	 * @return	The statistics, possibly expired
+	 * 			null, if they have not been computed yet
+	 */
+	public TableStatistics getStatistics(String dbUrl, String dbUsername, String dbPassword, String tableName)
+	{
+		StatisticsHolder holder = statistics.computeIfAbsent(new StatisticsKey(dbUrl, dbUsername, dbPassword, tableName), StatisticsHolder::new);
+		long now = System.currentTimeMillis();
+		holder.lastUsedAt = now;
+
+		TableStatistics tableStatistics = holder.statistics;
+		boolean stale = tableStatistics == null || now - tableStatistics.getComputedAt() >= statisticsTtl;
+		if (stale && now - holder.failedAt >= RETRY_INTERVAL_MILLIS && holder.refreshing.compareAndSet(false, true))
+		{
+			refreshExecutor.execute(() -> {
+				try
+				{
+					computeStatistics(holder);
+				}
+				finally
+				{
+					holder.refreshing.set(false);
+				}
+			});
+		}
+
+		return tableStatistics;
+	}
+
+	/**
+	 * Computes the statistics of a table, keeping the previous ones if the computation fails.
+	 * @param	holder	Holder of the statistics
+	 */
+	private void computeStatistics(StatisticsHolder holder)
+	{
+		StatisticsKey key = holder.key;
+		DataSourceCatalog catalog = catalogs.getCatalog(key.dbUrl, key.dbUsername, key.dbPassword);
+		List<String[]> fields = catalog == null ? null : catalog.getTableFields(key.tableName);
+		if (fields == null || fields.isEmpty())
+		{
+			holder.failedAt = System.currentTimeMillis();
+			log.warn("Statistics of table " + key.tableName + " not computed, its fields could not be read.");
+			return;
+		}
+
+		//The statistics queries are bound by the timeouts of the data source, like those of the requests
+		QueryLog queryLog = new QueryLog();
+		queryLog.setTimeouts(connectionPools.getTimeouts(key.dbUrl));
+
+		try (Connection dbConnection = connectionPools.getConnection(key.dbUrl, key.dbUsername, key.dbPassword))
+		{
+			holder.statistics = readStatistics(dbConnection, queryLog, key.tableName, fields);
+			log.info("Statistics of table " + key.tableName + " computed over " + holder.statistics.getSampledRowCount() + " rows.");
+		}
+		catch (SQLException statisticsSQLExcpn)
+		{
+			holder.failedAt = System.currentTimeMillis();
+			log.error("SQLException occurred while computing the statistics of table " + key.tableName + "... " + statisticsSQLExcpn.getMessage());
+		}
+	}
+
+	/**
+	 * Computes the statistics of every column of a table with a single aggregate query over a sample of its rows.
+	 * If the sample does not hold all the rows, the rows are counted by another query and the counts scaled up:
+	 * null counts in proportion, distinct counts only for columns whose sampled values are mostly distinct,
+	 * as the values of the others are assumed to have all been seen.
+	 * @param	dbConnection	Connection to the data source
+	 * @param	queryLog		Log of the statistics queries
+	 * @param	tableName		Raw report table name
+	 * @param	fields			Names and data types of the fields of the table
+	 * @return	Statistics of the table
+	 * @throws	SQLException	if a query fails
+	 */
+	private TableStatistics readStatistics(Connection dbConnection, QueryLog queryLog, String tableName, List<String[]> fields) throws SQLException
+	{
+		long computedAt = System.currentTimeMillis();
+
+		StringBuilder statisticsQuery = new StringBuilder("SELECT COUNT(*)");
+		for (String[] field : fields)
+		{
+			statisticsQuery.append(", COUNT(").append(field[0]).append("), COUNT(DISTINCT ").append(field[0]).append(")");
+			if (hasRange(field))
+				statisticsQuery.append(", MIN(").append(field[0]).append("), MAX(").append(field[0]).append(")");
+		}
+		statisticsQuery.append(" FROM ( SELECT * FROM ").append(tableName).append(" LIMIT ").append(sampleRows).append(" ) as sample;");
+
+		List<ColumnStatistics> columns = new ArrayList<ColumnStatistics>();
+		long sampledRowCount;
+		long rowCount;
+
+		try (Statement stmtStatistics = dbConnection.createStatement())
+		{
+			queryLog.record(statisticsQuery.toString(), stmtStatistics);
+			try (ResultSet rsStatistics = stmtStatistics.executeQuery(statisticsQuery.toString()))
+			{
+				rsStatistics.next();
+				sampledRowCount = rsStatistics.getLong(1);
+				rowCount = sampledRowCount < sampleRows ? sampledRowCount : countRows(dbConnection, queryLog, tableName);
+				double scale = sampledRowCount == 0 ? 1 : (double)rowCount / sampledRowCount;
+
+				int index = 2;
+				for (String[] field : fields)
+				{
+					long valueCount = rsStatistics.getLong(index++);
+					long distinctCount = rsStatistics.getLong(index++);
+					Object minValue = null;
+					Object maxValue = null;
+					if (hasRange(field))
+					{
+						minValue = toStatisticValue(rsStatistics.getObject(index++));
+						maxValue = toStatisticValue(rsStatistics.getObject(index++));
+					}
+
+					long nullCount = Math.round((sampledRowCount - valueCount) * scale);
+					if (distinctCount * 2 > valueCount)
+						distinctCount = Math.round(distinctCount * scale);
+					distinctCount = Math.min(distinctCount, rowCount - nullCount);
+
+					columns.add(new ColumnStatistics(field[0], field[1], nullCount, distinctCount, minValue, maxValue));
+				}
+			}
+			finally
+			{
+				queryLog.release(stmtStatistics);
+			}
+		}
+
+		return new TableStatistics(tableName, rowCount, sampledRowCount, columns, computedAt);
+	}
+
+	/**
+	 * Counts all the rows of a table.
+	 * @param	dbConnection	Connection to the data source
+	 * @param	queryLog		Log of the statistics queries
+	 * @param	tableName		Raw report table name
+	 * @return	Number of rows
+	 * @throws	SQLException	if the query fails
+	 */
+	private long countRows(Connection dbConnection, QueryLog queryLog, String tableName) throws SQLException
+	{
+		String countQuery = "SELECT COUNT(*) FROM " + tableName + ";";
+
+		try (Statement stmtCount = dbConnection.createStatement())
+		{
+			queryLog.record(countQuery, stmtCount);
+			try (ResultSet rsCount = stmtCount.executeQuery(countQuery))
+			{
+				rsCount.next();
+				return rsCount.getLong(1);
+			}
+			finally
+			{
+				queryLog.release(stmtCount);
+			}
+		}
+	}
+
+	/**
+	 * @param	field	Name and data type of a field
+	 * @return	true, if the minimum and maximum values of the field are computed, as for numeric and temporal fields
+	 */
+	private static boolean hasRange(String[] field)
+	{
+		DataType fieldType = DataType.getDataType(field[1]);
+		return fieldType.isNumeric() || fieldType == DataType.TYPE_TEMPORAL;
+	}
+
+	/**
+	 * @param	value	Minimum or maximum value read from the database
+	 * @return	The value, as a number or as a string
+	 */
+	private static Object toStatisticValue(Object value)
+	{
+		return value == null || value instanceof Number ? value : value.toString();
+	}
+
+	/**
+	 * Discards the statistics that have not been used for longer than their time to live.
+	 */
+	private void discardUnusedStatistics()
+	{
+		try
+		{
+			long now = System.currentTimeMillis();
+			Iterator<StatisticsHolder> holderIter = statistics.values().iterator();
+			while (holderIter.hasNext())
+			{
+				StatisticsHolder holder = holderIter.next();
+				if (now - holder.lastUsedAt >= statisticsTtl && !holder.refreshing.get())
+					holderIter.remove();
+			}
+		}
+		catch (RuntimeException excp)
+		{
+			log.error("Unexpected exception occurred while maintaining table statistics... " + excp.getMessage());
+		}
+	}
+
+	/**
+	 * Statistics of a table, along with their state.
+	 */
+	private static class StatisticsHolder
+	{
+		private final StatisticsKey key;
+		private volatile TableStatistics statistics;
+		private volatile long lastUsedAt;
+		private volatile long failedAt;
+		private final AtomicBoolean refreshing = new AtomicBoolean();
+
+		private StatisticsHolder(StatisticsKey key)
+		{
+			this.key = key;
+		}
+	}
+
+	/**
+	 * Key identifying the statistics of a table for a set of credentials.
+	 */
+	private static class StatisticsKey
+	{
+		private final String dbUrl;
+		private final String dbUsername;
+		private final String dbPassword;
+		private final String tableName;
+
+		private StatisticsKey(String dbUrl, String dbUsername, String dbPassword, String tableName)
+		{
+			this.dbUrl = dbUrl;
+			this.dbUsername = dbUsername;
+			this.dbPassword = dbPassword;
+			this.tableName = tableName;
+		}
+
+		@Override
+		public boolean equals(Object other)
+		{
+			if (other == null || other.getClass() != this.getClass())
+				return false;
+
+			StatisticsKey o = (StatisticsKey)other;
+			return Objects.equals(dbUrl, o.dbUrl) && Objects.equals(dbUsername, o.dbUsername)
+					&& Objects.equals(dbPassword, o.dbPassword) && Objects.equals(tableName, o.tableName);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(dbUrl, dbUsername, dbPassword, tableName);
+		}
+	}
+}
@@ -1,13 +1,11 @@
 package ca.concordia.pivottable.datalayer.impl;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.PreparedStatement;
+import ca.concordia.pivottable.datalayer.ConnectionPool;
 import ca.concordia.pivottable.datalayer.UserDataAccess;
-import ca.concordia.pivottable.entities.ApplicationConfiguration;
-import ca.concordia.pivottable.servicelayer.ConfigurationHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,24 +17,9 @@ import org.slf4j.LoggerFactory;
 public class UserDataAccessImpl implements UserDataAccess
 {
 	/**
-	 * URL of the database to be connected to.
+	 * Pool of connections to the user database, shared by the whole application.
 	 */
-	private String dbUrl;
-	
-	/**
-	 * Username to login to the database.
-	 */
-	private String dbUsername;
-	
-	/**
-	 * Password to login to the database.
-	 */
-	private String dbPassword;
-	
-	/**
-	 * Database connection object
-	 */
-	Connection dbConnection = null;
+	private final ConnectionPool appDbPool;
 	
 	/**
 	 * Used for logging information, warning and error messages during application run.
@@ -45,70 +28,46 @@ public class UserDataAccessImpl implements UserDataAccess
 	
 	/**
 	 * Class constructor.
-	 * @param	appConfigHolder	Application configuration holder
+	 * @param	appDbPool	Pool of connections to the application database
 	 */
-	public UserDataAccessImpl(ConfigurationHolder appConfigHolder)
+	public UserDataAccessImpl(ConnectionPool appDbPool)
 	{
-		ApplicationConfiguration appConfig = appConfigHolder.getConfiguration();
-		
-		this.dbUrl = appConfig.getAppDatabaseUrl();
-		this.dbUsername = appConfig.getAppDatabaseUser();
-		this.dbPassword = appConfig.getAppDatabasePassword();
+		this.appDbPool = appDbPool;
 	}
 	
 	/**
-	 * Initiates a connection with the user database.
+	 * Borrows a connection to the user database from the application database pool.
+	 * @return	A database connection
+	 * 			null, if no connection could be obtained
 	 */
-	public void connect()
+	private Connection getConnection()
 	{
-		//Database driver required for connection
-		String jdbcDriver = "com.mysql.jdbc.Driver";
-		
 		try
 		{
-			//Loading JDBC Driver class at run-time
-			Class.forName(jdbcDriver);
-		}
-		catch (Exception excp)
-		{
-			log.error("Unexpected exception occurred while attempting user DB connection... " + excp.getMessage());
-		}		
-		
-		log.info("Initiating connection to user database " + dbUrl + "...");
-		
-		try
-		{
-			dbConnection = DriverManager.getConnection(dbUrl, dbUsername, dbPassword);
+			return appDbPool.getConnection();
 		}
 		catch (SQLException sqle)
 		{
-			dbConnection = null;
 			log.error("SQLException occurred while connecting to user database... " + sqle.getMessage());
+			return null;
 		}
 	}
 	
 	/**
-	 * Closes the connection with the user database.
-	 * @return	true, if connection is closed successfully, or if the connection was already closed
-	 * <br>		false, if the attempt to disconnect fails
+	 * Gives a borrowed connection back to the application database pool.
+	 * @param	dbConnection	Connection to be given back
 	 */
-    public boolean disconnect()
-    {
-    	if (dbConnection != null)
-    	{
-    		try
-    		{
-    			dbConnection.close();
-    		}
-    		catch (SQLException sqle)
-    		{
-    			log.error("SQLException occurred while disconnecting from user database... " + sqle.getMessage());
-    			return false;
-    		}
-    	}
-    	
-    	return true;
-    }
+	private void release(Connection dbConnection)
+	{
+		try
+		{
+			dbConnection.close();
+		}
+		catch (SQLException sqle)
+		{
+			log.error("SQLException occurred while disconnecting from user database... " + sqle.getMessage());
+		}
+	}
 	
     /**
      * Checks if a username already exists in the user database.
@@ -120,6 +79,9 @@ public class UserDataAccessImpl implements UserDataAccess
 	{
 		int usernameCount = -1;
   		
+		//Borrowing a connection from the application database pool
+		Connection dbConnection = getConnection();
+		
 		if (dbConnection == null)							//failed connection
   		{
   			return false;
@@ -144,6 +106,10 @@ public class UserDataAccessImpl implements UserDataAccess
   			rsUsernameCount = null;
   			log.error("SQLException occurred while fetching username count from user database... " + sqle.getMessage());
   		}
+  		finally
+  		{
+  			release(dbConnection);
+  		}
   		  		
   		if (usernameCount > 0)
   			return true;
@@ -162,6 +128,9 @@ public class UserDataAccessImpl implements UserDataAccess
 	{
 		boolean userAdded = true;
   		
+		//Borrowing a connection from the application database pool
+		Connection dbConnection = getConnection();
+		
 		if (dbConnection == null)							//failed connection
   		{
   			return false;
@@ -196,6 +165,10 @@ public class UserDataAccessImpl implements UserDataAccess
 			
 			log.error("SQLException occurred while adding new user to database... " + errMsg);
   		}
+  		finally
+  		{
+  			release(dbConnection);
+  		}
   		
 		return userAdded;
 	}
@@ -210,6 +183,9 @@ public class UserDataAccessImpl implements UserDataAccess
 	{
 		String passwordHash = null;
   		
+		//Borrowing a connection from the application database pool
+		Connection dbConnection = getConnection();
+		
 		if (dbConnection == null)							//failed connection
   		{
   			return null;
@@ -235,6 +211,10 @@ public class UserDataAccessImpl implements UserDataAccess
   			rsUserPassword = null;
   			log.error("SQLException occurred while fetching password hash from user database... " + sqle.getMessage());
   		}
+  		finally
+  		{
+  			release(dbConnection);
+  		}
   		
   		return passwordHash;
 	}
@@ -249,6 +229,9 @@ public class UserDataAccessImpl implements UserDataAccess
 	{
 		boolean userDeleted = true;
   		
+		//Borrowing a connection from the application database pool
+		Connection dbConnection = getConnection();
+		
 		if (dbConnection == null)							//failed connection
   		{
   			return false;
@@ -283,6 +266,10 @@ public class UserDataAccessImpl implements UserDataAccess
 			
 			log.error("SQLException occurred while deleting user from database... " + errMsg);
   		}
+  		finally
+  		{
+  			release(dbConnection);
+  		}
   		
 		return userDeleted;
 	}
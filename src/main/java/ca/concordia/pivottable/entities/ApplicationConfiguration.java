@@ -1,5 +1,7 @@
 package ca.concordia.pivottable.entities;
 
+import java.util.Map;
+import ca.concordia.pivottable.utils.GsonRegistry;
 import com.google.gson.Gson;
 
 /**
@@ -11,6 +13,34 @@ public class ApplicationConfiguration
 	private String appDatabaseUrl;
 	private String appDatabaseUser;
 	private String appDatabasePassword;
+	private Integer appDatabasePoolMinSize;
+	private Integer appDatabasePoolMaxSize;
+	private Long appDatabasePoolBorrowTimeout;
+	private Long appDatabasePoolIdleTimeout;
+	private Long appDatabasePoolMaxLifetime;
+	private Integer rawReportRowLimit;
+	private Integer pivotTableRowLimit;
+	private Integer maxPivotTableRowLimit;
+	private Long pivotTableCacheMaxBytes;
+	private Long pivotTableCacheTtl;
+	private Long dataSourceCatalogTtl;
+	private Integer pivotTableJobThreads;
+	private Integer pivotTableJobQueueSize;
+	private Long pivotTableJobTtl;
+	private Long dataSourceConnectTimeout;
+	private Long dataSourceQueryTimeout;
+	private Long dataSourceFetchTimeout;
+	private Integer parallelQueryThreads;
+	private Integer pageQueryParallelism;
+	private Integer scanPartitions;
+	private Long scanPartitionMinRows;
+	private Long tableStatisticsTtl;
+	private Integer tableStatisticsSampleRows;
+	private Long pivotTableCellBudget;
+	private String pivotTableCellBudgetAction;
+	private Map<String, Integer> dataSourcePageQueryParallelism;
+	private Map<String, Integer> dataSourceScanPartitions;
+	private Map<String, DataSourceTimeoutSettings> dataSourceTimeouts;
 	
 	public ApplicationConfiguration() 
 	{
@@ -68,6 +98,258 @@ public class ApplicationConfiguration
 		return appDatabasePassword;
 	}
 
+	/**
+	 * Accessor method for the minimum number of connections kept open to the application database.
+	 * @return	appDatabasePoolMinSize of this application
+	 */
+	public Integer getAppDatabasePoolMinSize()
+	{
+		return appDatabasePoolMinSize;
+	}
+
+	/**
+	 * Accessor method for the maximum number of connections open to the application database at the same time.
+	 * @return	appDatabasePoolMaxSize of this application
+	 */
+	public Integer getAppDatabasePoolMaxSize()
+	{
+		return appDatabasePoolMaxSize;
+	}
+
+	/**
+	 * Accessor method for the time in milliseconds to wait for an application database connection when all are in use.
+	 * @return	appDatabasePoolBorrowTimeout of this application
+	 */
+	public Long getAppDatabasePoolBorrowTimeout()
+	{
+		return appDatabasePoolBorrowTimeout;
+	}
+
+	/**
+	 * Accessor method for the time in milliseconds after which an unused application database connection is closed.
+	 * @return	appDatabasePoolIdleTimeout of this application
+	 */
+	public Long getAppDatabasePoolIdleTimeout()
+	{
+		return appDatabasePoolIdleTimeout;
+	}
+
+	/**
+	 * Accessor method for the time in milliseconds after which an application database connection is closed, used or not.
+	 * @return	appDatabasePoolMaxLifetime of this application
+	 */
+	public Long getAppDatabasePoolMaxLifetime()
+	{
+		return appDatabasePoolMaxLifetime;
+	}
+
+	/**
+	 * Accessor method for the maximum number of rows sent in a raw report.
+	 * @return	rawReportRowLimit of this application
+	 */
+	public Integer getRawReportRowLimit()
+	{
+		return rawReportRowLimit;
+	}
+
+	/**
+	 * Accessor method for the maximum number of rows aggregated into a pivot table when the request sets no limit.
+	 * @return	pivotTableRowLimit of this application
+	 */
+	public Integer getPivotTableRowLimit()
+	{
+		return pivotTableRowLimit;
+	}
+
+	/**
+	 * Accessor method for the highest row limit a pivot table request may ask for.
+	 * @return	maxPivotTableRowLimit of this application
+	 */
+	public Integer getMaxPivotTableRowLimit()
+	{
+		return maxPivotTableRowLimit;
+	}
+
+	/**
+	 * Accessor method for the estimated memory, in bytes, that cached pivot tables may take up.
+	 * @return	pivotTableCacheMaxBytes of this application
+	 */
+	public Long getPivotTableCacheMaxBytes()
+	{
+		return pivotTableCacheMaxBytes;
+	}
+
+	/**
+	 * Accessor method for the number of milliseconds a pivot table is served from the cache.
+	 * @return	pivotTableCacheTtl of this application
+	 */
+	public Long getPivotTableCacheTtl()
+	{
+		return pivotTableCacheTtl;
+	}
+
+	/**
+	 * Accessor method for the number of milliseconds after which the table list and field types of a data source are read again.
+	 * @return	dataSourceCatalogTtl of this application
+	 */
+	public Long getDataSourceCatalogTtl()
+	{
+		return dataSourceCatalogTtl;
+	}
+
+	/**
+	 * Accessor method for the number of pivot table jobs computed at the same time.
+	 * @return	pivotTableJobThreads of this application
+	 */
+	public Integer getPivotTableJobThreads()
+	{
+		return pivotTableJobThreads;
+	}
+
+	/**
+	 * Accessor method for the number of pivot table jobs that may wait for a thread.
+	 * @return	pivotTableJobQueueSize of this application
+	 */
+	public Integer getPivotTableJobQueueSize()
+	{
+		return pivotTableJobQueueSize;
+	}
+
+	/**
+	 * Accessor method for the number of milliseconds a finished pivot table job is kept, along with its result.
+	 * @return	pivotTableJobTtl of this application
+	 */
+	public Long getPivotTableJobTtl()
+	{
+		return pivotTableJobTtl;
+	}
+
+	/**
+	 * Accessor method for the time allowed to log into a data source.
+	 * @return	dataSourceConnectTimeout of this application
+	 */
+	public Long getDataSourceConnectTimeout()
+	{
+		return dataSourceConnectTimeout;
+	}
+
+	/**
+	 * Accessor method for the time allowed to a data source to execute a query.
+	 * @return	dataSourceQueryTimeout of this application
+	 */
+	public Long getDataSourceQueryTimeout()
+	{
+		return dataSourceQueryTimeout;
+	}
+
+	/**
+	 * Accessor method for the time allowed to execute a query and read its results.
+	 * @return	dataSourceFetchTimeout of this application
+	 */
+	public Long getDataSourceFetchTimeout()
+	{
+		return dataSourceFetchTimeout;
+	}
+
+	/**
+	 * Accessor method for the number of threads running page queries in parallel.
+	 * @return	parallelQueryThreads of this application
+	 */
+	public Integer getParallelQueryThreads()
+	{
+		return parallelQueryThreads;
+	}
+
+	/**
+	 * Accessor method for the number of page queries a multiple-page pivot table is split into.
+	 * @return	pageQueryParallelism of this application
+	 */
+	public Integer getPageQueryParallelism()
+	{
+		return pageQueryParallelism;
+	}
+
+	/**
+	 * Accessor method for the number of key ranges a scan of raw rows is split into.
+	 * @return	scanPartitions of this application
+	 */
+	public Integer getScanPartitions()
+	{
+		return scanPartitions;
+	}
+
+	/**
+	 * Accessor method for the number of rows under which a scan is not split.
+	 * @return	scanPartitionMinRows of this application
+	 */
+	public Long getScanPartitionMinRows()
+	{
+		return scanPartitionMinRows;
+	}
+
+	/**
+	 * Accessor method for the time the statistics of a raw report table are served before they are computed again.
+	 * @return	tableStatisticsTtl of this application
+	 */
+	public Long getTableStatisticsTtl()
+	{
+		return tableStatisticsTtl;
+	}
+
+	/**
+	 * Accessor method for the number of rows the statistics of a raw report table are computed over.
+	 * @return	tableStatisticsSampleRows of this application
+	 */
+	public Integer getTableStatisticsSampleRows()
+	{
+		return tableStatisticsSampleRows;
+	}
+
+	/**
+	 * Accessor method for the number of cells a pivot table may be estimated to have before it is rejected or paged.
+	 * @return	pivotTableCellBudget of this application
+	 */
+	public Long getPivotTableCellBudget()
+	{
+		return pivotTableCellBudget;
+	}
+
+	/**
+	 * Accessor method for what is done with a pivot table estimated to exceed the cell budget.
+	 * @return	pivotTableCellBudgetAction of this application
+	 */
+	public String getPivotTableCellBudgetAction()
+	{
+		return pivotTableCellBudgetAction;
+	}
+
+	/**
+	 * Accessor method for the number of page queries of specific data sources, keyed by the start of their JDBC URL.
+	 * @return	dataSourcePageQueryParallelism of this application
+	 */
+	public Map<String, Integer> getDataSourcePageQueryParallelism()
+	{
+		return dataSourcePageQueryParallelism;
+	}
+
+	/**
+	 * Accessor method for the number of key ranges of specific data sources, keyed by the start of their JDBC URL.
+	 * @return	dataSourceScanPartitions of this application
+	 */
+	public Map<String, Integer> getDataSourceScanPartitions()
+	{
+		return dataSourceScanPartitions;
+	}
+
+	/**
+	 * Accessor method for the timeouts of specific data sources, keyed by the start of their JDBC URL.
+	 * @return	dataSourceTimeouts of this application
+	 */
+	public Map<String, DataSourceTimeoutSettings> getDataSourceTimeouts()
+	{
+		return dataSourceTimeouts;
+	}
+
 	/**
 	 * Mutator method for the application server port.
 	 * @param	appServerPort	Server port to be used
@@ -103,6 +385,258 @@ public class ApplicationConfiguration
 	{
 		this.appDatabasePassword = appDatabasePassword;
 	}
+
+	/**
+	 * Mutator method for the minimum number of connections kept open to the application database.
+	 * @param	appDatabasePoolMinSize	Minimum pool size to be used
+	 */
+	public void setAppDatabasePoolMinSize(int appDatabasePoolMinSize)
+	{
+		this.appDatabasePoolMinSize = appDatabasePoolMinSize;
+	}
+
+	/**
+	 * Mutator method for the maximum number of connections open to the application database at the same time.
+	 * @param	appDatabasePoolMaxSize	Maximum pool size to be used
+	 */
+	public void setAppDatabasePoolMaxSize(int appDatabasePoolMaxSize)
+	{
+		this.appDatabasePoolMaxSize = appDatabasePoolMaxSize;
+	}
+
+	/**
+	 * Mutator method for the time in milliseconds to wait for an application database connection when all are in use.
+	 * @param	appDatabasePoolBorrowTimeout	Borrow timeout to be used
+	 */
+	public void setAppDatabasePoolBorrowTimeout(long appDatabasePoolBorrowTimeout)
+	{
+		this.appDatabasePoolBorrowTimeout = appDatabasePoolBorrowTimeout;
+	}
+
+	/**
+	 * Mutator method for the time in milliseconds after which an unused application database connection is closed.
+	 * @param	appDatabasePoolIdleTimeout	Idle timeout to be used
+	 */
+	public void setAppDatabasePoolIdleTimeout(long appDatabasePoolIdleTimeout)
+	{
+		this.appDatabasePoolIdleTimeout = appDatabasePoolIdleTimeout;
+	}
+
+	/**
+	 * Mutator method for the time in milliseconds after which an application database connection is closed, used or not.
+	 * @param	appDatabasePoolMaxLifetime	Maximum connection lifetime to be used
+	 */
+	public void setAppDatabasePoolMaxLifetime(long appDatabasePoolMaxLifetime)
+	{
+		this.appDatabasePoolMaxLifetime = appDatabasePoolMaxLifetime;
+	}
+
+	/**
+	 * Mutator method for the maximum number of rows sent in a raw report.
+	 * @param	rawReportRowLimit	Raw report row limit to be used
+	 */
+	public void setRawReportRowLimit(int rawReportRowLimit)
+	{
+		this.rawReportRowLimit = rawReportRowLimit;
+	}
+
+	/**
+	 * Mutator method for the maximum number of rows aggregated into a pivot table when the request sets no limit.
+	 * @param	pivotTableRowLimit	Pivot table row limit to be used
+	 */
+	public void setPivotTableRowLimit(int pivotTableRowLimit)
+	{
+		this.pivotTableRowLimit = pivotTableRowLimit;
+	}
+
+	/**
+	 * Mutator method for the highest row limit a pivot table request may ask for.
+	 * @param	maxPivotTableRowLimit	Highest pivot table row limit to be accepted
+	 */
+	public void setMaxPivotTableRowLimit(int maxPivotTableRowLimit)
+	{
+		this.maxPivotTableRowLimit = maxPivotTableRowLimit;
+	}
+
+	/**
+	 * Mutator method for the estimated memory, in bytes, that cached pivot tables may take up.
+	 * @param	pivotTableCacheMaxBytes	Pivot table cache size to be used, 0 to disable the cache
+	 */
+	public void setPivotTableCacheMaxBytes(long pivotTableCacheMaxBytes)
+	{
+		this.pivotTableCacheMaxBytes = pivotTableCacheMaxBytes;
+	}
+
+	/**
+	 * Mutator method for the number of milliseconds a pivot table is served from the cache.
+	 * @param	pivotTableCacheTtl	Time to live of a cached pivot table
+	 */
+	public void setPivotTableCacheTtl(long pivotTableCacheTtl)
+	{
+		this.pivotTableCacheTtl = pivotTableCacheTtl;
+	}
+
+	/**
+	 * Mutator method for the number of milliseconds after which the table list and field types of a data source are read again.
+	 * @param	dataSourceCatalogTtl	Time to live of a data source catalog
+	 */
+	public void setDataSourceCatalogTtl(long dataSourceCatalogTtl)
+	{
+		this.dataSourceCatalogTtl = dataSourceCatalogTtl;
+	}
+
+	/**
+	 * Mutator method for the number of pivot table jobs computed at the same time.
+	 * @param	pivotTableJobThreads	Number of pivot table job threads to be used
+	 */
+	public void setPivotTableJobThreads(int pivotTableJobThreads)
+	{
+		this.pivotTableJobThreads = pivotTableJobThreads;
+	}
+
+	/**
+	 * Mutator method for the number of pivot table jobs that may wait for a thread.
+	 * @param	pivotTableJobQueueSize	Pivot table job queue size to be used
+	 */
+	public void setPivotTableJobQueueSize(int pivotTableJobQueueSize)
+	{
+		this.pivotTableJobQueueSize = pivotTableJobQueueSize;
+	}
+
+	/**
+	 * Mutator method for the number of milliseconds a finished pivot table job is kept, along with its result.
+	 * @param	pivotTableJobTtl	Time to live of a finished pivot table job
+	 */
+	public void setPivotTableJobTtl(long pivotTableJobTtl)
+	{
+		this.pivotTableJobTtl = pivotTableJobTtl;
+	}
+
+	/**
+	 * Mutator method for the time allowed to log into a data source.
+	 * @param	dataSourceConnectTimeout	Maximum time to open a connection to a data source, in milliseconds
+	 */
+	public void setDataSourceConnectTimeout(long dataSourceConnectTimeout)
+	{
+		this.dataSourceConnectTimeout = dataSourceConnectTimeout;
+	}
+
+	/**
+	 * Mutator method for the time allowed to a data source to execute a query.
+	 * @param	dataSourceQueryTimeout	Maximum time a data source may take to execute a query, in milliseconds
+	 */
+	public void setDataSourceQueryTimeout(long dataSourceQueryTimeout)
+	{
+		this.dataSourceQueryTimeout = dataSourceQueryTimeout;
+	}
+
+	/**
+	 * Mutator method for the time allowed to execute a query and read its results.
+	 * @param	dataSourceFetchTimeout	Maximum time to execute a query and read all its results, in milliseconds
+	 */
+	public void setDataSourceFetchTimeout(long dataSourceFetchTimeout)
+	{
+		this.dataSourceFetchTimeout = dataSourceFetchTimeout;
+	}
+
+	/**
+	 * Mutator method for the number of threads running page queries in parallel.
+	 * @param	parallelQueryThreads	Number of threads shared by all the requests to run page queries in parallel
+	 */
+	public void setParallelQueryThreads(int parallelQueryThreads)
+	{
+		this.parallelQueryThreads = parallelQueryThreads;
+	}
+
+	/**
+	 * Mutator method for the number of page queries a multiple-page pivot table is split into.
+	 * @param	pageQueryParallelism	Number of queries, on as many connections, the pages of a pivot table are fetched with
+	 */
+	public void setPageQueryParallelism(int pageQueryParallelism)
+	{
+		this.pageQueryParallelism = pageQueryParallelism;
+	}
+
+	/**
+	 * Mutator method for the number of key ranges a scan of raw rows is split into.
+	 * @param	scanPartitions	Number of key ranges, scanned at the same time, the raw rows aggregated by the application are read in
+	 */
+	public void setScanPartitions(int scanPartitions)
+	{
+		this.scanPartitions = scanPartitions;
+	}
+
+	/**
+	 * Mutator method for the number of rows under which a scan is not split.
+	 * @param	scanPartitionMinRows	Number of rows under which the raw rows are read with a single scan
+	 */
+	public void setScanPartitionMinRows(long scanPartitionMinRows)
+	{
+		this.scanPartitionMinRows = scanPartitionMinRows;
+	}
+
+	/**
+	 * Mutator method for the time the statistics of a raw report table are served before they are computed again.
+	 * @param	tableStatisticsTtl	Time the statistics of a table are served before they are computed again, in milliseconds
+	 */
+	public void setTableStatisticsTtl(long tableStatisticsTtl)
+	{
+		this.tableStatisticsTtl = tableStatisticsTtl;
+	}
+
+	/**
+	 * Mutator method for the number of rows the statistics of a raw report table are computed over.
+	 * @param	tableStatisticsSampleRows	Number of rows the statistics of a table are computed over
+	 */
+	public void setTableStatisticsSampleRows(int tableStatisticsSampleRows)
+	{
+		this.tableStatisticsSampleRows = tableStatisticsSampleRows;
+	}
+
+	/**
+	 * Mutator method for the number of cells a pivot table may be estimated to have before it is rejected or paged.
+	 * @param	pivotTableCellBudget	Number of cells a pivot table may be estimated to have, 0 for no limit
+	 */
+	public void setPivotTableCellBudget(long pivotTableCellBudget)
+	{
+		this.pivotTableCellBudget = pivotTableCellBudget;
+	}
+
+	/**
+	 * Mutator method for what is done with a pivot table estimated to exceed the cell budget.
+	 * @param	pivotTableCellBudgetAction	What is done with a pivot table estimated to exceed the cell budget, reject or page
+	 */
+	public void setPivotTableCellBudgetAction(String pivotTableCellBudgetAction)
+	{
+		this.pivotTableCellBudgetAction = pivotTableCellBudgetAction;
+	}
+
+	/**
+	 * Mutator method for the number of page queries of specific data sources, keyed by the start of their JDBC URL.
+	 * @param	dataSourcePageQueryParallelism	Numbers of page queries overriding the default one for the data sources whose URL starts with the key
+	 */
+	public void setDataSourcePageQueryParallelism(Map<String, Integer> dataSourcePageQueryParallelism)
+	{
+		this.dataSourcePageQueryParallelism = dataSourcePageQueryParallelism;
+	}
+
+	/**
+	 * Mutator method for the number of key ranges of specific data sources, keyed by the start of their JDBC URL.
+	 * @param	dataSourceScanPartitions	Numbers of key ranges overriding the default one for the data sources whose URL starts with the key
+	 */
+	public void setDataSourceScanPartitions(Map<String, Integer> dataSourceScanPartitions)
+	{
+		this.dataSourceScanPartitions = dataSourceScanPartitions;
+	}
+
+	/**
+	 * Mutator method for the timeouts of specific data sources, keyed by the start of their JDBC URL.
+	 * @param	dataSourceTimeouts	Timeouts overriding the default ones for the data sources whose URL starts with the key
+	 */
+	public void setDataSourceTimeouts(Map<String, DataSourceTimeoutSettings> dataSourceTimeouts)
+	{
+		this.dataSourceTimeouts = dataSourceTimeouts;
+	}
 	
 	/**
      * Creates an instance of ApplicationConfiguration from a JSON string.
@@ -111,7 +645,7 @@ public class ApplicationConfiguration
      */
     public static ApplicationConfiguration fromJSON(String json)
     {
-        Gson gson = new Gson();
+        Gson gson = GsonRegistry.getGson();
         return gson.fromJson(json, ApplicationConfiguration.class);
     }
 }
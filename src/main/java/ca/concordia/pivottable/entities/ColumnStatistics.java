@@ -0,0 +1,63 @@
+package ca.concordia.pivottable.entities;
+
+/**
+ * POJO representing the statistics of a column of a raw report table.
+ */
+public class ColumnStatistics
+{
+	private final String name;
+	private final String type;
+	private final long nullCount;
+	private final long distinctCount;
+	private final Object minValue;
+	private final Object maxValue;
+
+	/**
+	 * Constructor with all parameters provided.
+	 * @param	name			Column name
+	 * @param	type			Data type of the column
+	 * @param	nullCount		Number of rows without a value, scaled up to the row count if the rows were sampled
+	 * @param	distinctCount	Estimated number of distinct values, null excluded
+	 * @param	minValue		Lowest value, null for columns that are not numeric or temporal
+	 * @param	maxValue		Highest value, null for columns that are not numeric or temporal
+	 */
+	public ColumnStatistics(String name, String type, long nullCount, long distinctCount, Object minValue, Object maxValue)
+	{
+		this.name = name;
+		this.type = type;
+		this.nullCount = nullCount;
+		this.distinctCount = distinctCount;
+		this.minValue = minValue;
+		this.maxValue = maxValue;
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public String getType()
+	{
+		return type;
+	}
+
+	public long getNullCount()
+	{
+		return nullCount;
+	}
+
+	public long getDistinctCount()
+	{
+		return distinctCount;
+	}
+
+	public Object getMinValue()
+	{
+		return minValue;
+	}
+
+	public Object getMaxValue()
+	{
+		return maxValue;
+	}
+}
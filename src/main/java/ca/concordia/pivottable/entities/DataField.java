@@ -1,5 +1,6 @@
 package ca.concordia.pivottable.entities;
 
+import ca.concordia.pivottable.utils.GsonRegistry;
 import com.google.gson.Gson;
 
 /**
@@ -51,7 +52,7 @@ public class DataField {
     }
 
     String toJson() {
-        Gson gson = new Gson();
+        Gson gson = GsonRegistry.getGson();
         return gson.toJson(this);
     }
 }
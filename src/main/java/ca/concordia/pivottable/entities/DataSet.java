@@ -1,12 +1,22 @@
 package ca.concordia.pivottable.entities;
 
+import ca.concordia.pivottable.utils.GsonRegistry;
 import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.util.*;
 
 /**
  * A DataSet entity object
  */
+@JsonAdapter(DataSet.GsonAdapterFactory.class)
 public class DataSet {
     private List<DataField> columns;
     private List<List<Object>> rows;
@@ -54,8 +64,122 @@ public class DataSet {
     * @return json representing this entity
     */
    public String toJSON() {
-       Gson gson = new Gson();
+       Gson gson = GsonRegistry.getGson();
        return gson.toJson(this);
    }
 
+    /**
+     * Writes and reads the data set as its columns followed by its rows, each row being an array of field values.
+     */
+    public static class GsonAdapterFactory implements TypeAdapterFactory {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (type.getRawType() != DataSet.class) {
+                return null;
+            }
+            return (TypeAdapter<T>) new DataSetTypeAdapter(gson);
+        }
+    }
+
+    private static class DataSetTypeAdapter extends TypeAdapter<DataSet> {
+
+        private final Gson gson;
+
+        private DataSetTypeAdapter(Gson gson) {
+            this.gson = gson;
+        }
+
+        @Override
+        public void write(JsonWriter out, DataSet dataSet) throws IOException {
+            if (dataSet == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("columns");
+            if (dataSet.columns == null) {
+                out.nullValue();
+            } else {
+                TypeAdapter<DataField> fieldAdapter = gson.getAdapter(DataField.class);
+                out.beginArray();
+                for (DataField column : dataSet.columns) {
+                    fieldAdapter.write(out, column);
+                }
+                out.endArray();
+            }
+            out.name("rows");
+            if (dataSet.rows == null) {
+                out.nullValue();
+            } else {
+                out.beginArray();
+                for (List<Object> row : dataSet.rows) {
+                    if (row == null) {
+                        out.nullValue();
+                        continue;
+                    }
+                    out.beginArray();
+                    for (Object value : row) {
+                        JsonValues.writeValue(gson, out, value);
+                    }
+                    out.endArray();
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+
+        @Override
+        public DataSet read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            List<DataField> columns = null;
+            List<List<Object>> rows = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                } else if (name.equals("columns")) {
+                    TypeAdapter<DataField> fieldAdapter = gson.getAdapter(DataField.class);
+                    columns = new ArrayList<>();
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        columns.add(fieldAdapter.read(in));
+                    }
+                    in.endArray();
+                } else if (name.equals("rows")) {
+                    rows = new ArrayList<>();
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        rows.add(readRow(in));
+                    }
+                    in.endArray();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return new DataSet(columns, rows);
+        }
+
+        private List<Object> readRow(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            TypeAdapter<Object> valueAdapter = gson.getAdapter(Object.class);
+            List<Object> row = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                row.add(valueAdapter.read(in));
+            }
+            in.endArray();
+            return row;
+        }
+    }
+
 }
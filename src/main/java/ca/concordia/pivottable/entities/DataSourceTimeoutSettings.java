@@ -0,0 +1,45 @@
+package ca.concordia.pivottable.entities;
+
+/**
+ * POJO representing the timeouts configured for the data sources whose JDBC URL starts with a given prefix.
+ * A timeout left out falls back to the default one of the application configuration.
+ */
+public class DataSourceTimeoutSettings
+{
+	private Long connectTimeout;
+	private Long queryTimeout;
+	private Long fetchTimeout;
+	
+	public DataSourceTimeoutSettings()
+	{
+		//empty default constructor
+	}
+	
+	/**
+	 * Constructor with all parameters provided.
+	 * @param	connectTimeout	Maximum time to open a connection, in milliseconds
+	 * @param	queryTimeout	Maximum time the data source may take to execute a query, in milliseconds
+	 * @param	fetchTimeout	Maximum time to execute a query and read all its results, in milliseconds
+	 */
+	public DataSourceTimeoutSettings(Long connectTimeout, Long queryTimeout, Long fetchTimeout)
+	{
+		this.connectTimeout = connectTimeout;
+		this.queryTimeout = queryTimeout;
+		this.fetchTimeout = fetchTimeout;
+	}
+	
+	public Long getConnectTimeout()
+	{
+		return connectTimeout;
+	}
+	
+	public Long getQueryTimeout()
+	{
+		return queryTimeout;
+	}
+	
+	public Long getFetchTimeout()
+	{
+		return fetchTimeout;
+	}
+}
@@ -1,11 +1,17 @@
 package ca.concordia.pivottable.entities;
 
+import java.sql.Types;
+
 /**
- * Some data types: numeric and string for now.
+ * Some data types: numeric (floating-point, integral and decimal), string, temporal and boolean.
  * Internally represented as string.
  */
 public enum DataType {
     TYPE_NUMERIC("numeric"),
+    TYPE_INTEGRAL("integral"),
+    TYPE_DECIMAL("decimal"),
+    TYPE_TEMPORAL("temporal"),
+    TYPE_BOOLEAN("boolean"),
     TYPE_STRING("string");
 
     private final String val;
@@ -18,6 +24,13 @@ public enum DataType {
     public String toString() {
        return this.val;
     }
+
+    /**
+     * @return true if the values of this type are numbers, which any summary function can be applied to
+     */
+    public boolean isNumeric() {
+        return this == TYPE_NUMERIC || this == TYPE_INTEGRAL || this == TYPE_DECIMAL;
+    }
     
     public static DataType getDataType(String val) {
         for (DataType dataType : DataType.values()) {
@@ -27,4 +40,37 @@ public enum DataType {
         }
         return TYPE_STRING;
     }
+
+    /**
+     * Categorizes a JDBC column type.
+     * @param sqlType Column type, one of the java.sql.Types constants
+     * @return The data type of the column values, TYPE_NUMERIC standing for floating-point numbers
+     */
+    public static DataType fromSqlType(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return TYPE_INTEGRAL;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return TYPE_DECIMAL;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return TYPE_NUMERIC;
+            case Types.DATE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+            case Types.TIME_WITH_TIMEZONE:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return TYPE_TEMPORAL;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return TYPE_BOOLEAN;
+            default:
+                return TYPE_STRING;
+        }
+    }
 }
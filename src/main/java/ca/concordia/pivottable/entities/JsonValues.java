@@ -0,0 +1,162 @@
+package ca.concordia.pivottable.entities;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reading and writing helpers shared by the streaming type adapters of the entities.
+ * They produce and accept the same JSON as the reflective Gson serialization they replace.
+ */
+final class JsonValues {
+
+    private JsonValues() {
+        // static helpers only
+    }
+
+    /**
+     * Writes a label or function value. Strings, numbers and booleans are written directly,
+     * any other type goes through its Gson adapter.
+     * @param gson Gson instance resolving the adapters of the other types
+     * @param out Writer the value is written to
+     * @param value Value to be written, may be null
+     * @throws IOException if writing fails
+     */
+    static void writeValue(Gson gson, JsonWriter out, Object value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else if (value instanceof String) {
+            out.value((String) value);
+        } else if (value instanceof Number) {
+            out.value((Number) value);
+        } else if (value instanceof Boolean) {
+            out.value(((Boolean) value).booleanValue());
+        } else {
+            gson.toJson(value, value.getClass(), out);
+        }
+    }
+
+    /**
+     * @param out Writer the list is written to
+     * @param values Strings to be written as an array, may be null
+     * @throws IOException if writing fails
+     */
+    static void writeStrings(JsonWriter out, List<String> values) throws IOException {
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (String value : values) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+
+    /**
+     * @param out Writer the map is written to
+     * @param values String map to be written as an object, may be null
+     * @throws IOException if writing fails
+     */
+    static void writeStringMap(JsonWriter out, Map<String, String> values) throws IOException {
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            out.name(String.valueOf(entry.getKey()));
+            out.value(entry.getValue());
+        }
+        out.endObject();
+    }
+
+    /**
+     * Reads a string, accepting numbers and booleans as Gson does.
+     * @param in Reader positioned on the value
+     * @return The string, null for a JSON null
+     * @throws IOException if reading fails
+     */
+    static String readString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(in.nextBoolean());
+        }
+        return in.nextString();
+    }
+
+    /**
+     * @param in Reader positioned on the value
+     * @return The number, null for a JSON null
+     * @throws IOException if reading fails
+     */
+    static Long readLong(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextLong();
+    }
+
+    /**
+     * @param in Reader positioned on the value
+     * @return The number, null for a JSON null
+     * @throws IOException if reading fails
+     */
+    static Integer readInteger(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextInt();
+    }
+
+    /**
+     * @param in Reader positioned on the value
+     * @return The strings of the array, null for a JSON null
+     * @throws IOException if reading fails
+     */
+    static List<String> readStrings(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(readString(in));
+        }
+        in.endArray();
+        return values;
+    }
+
+    /**
+     * @param in Reader positioned on the value
+     * @return The string map of the object, null for a JSON null
+     * @throws IOException if reading fails
+     */
+    static Map<String, String> readStringMap(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            values.put(in.nextName(), readString(in));
+        }
+        in.endObject();
+        return values;
+    }
+}
@@ -1,19 +1,31 @@
 package ca.concordia.pivottable.entities;
 
+import ca.concordia.pivottable.utils.GsonRegistry;
 import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Pivot table entity
  * (used by the UI to render the table)
  */
+@JsonAdapter(PivotTable.GsonAdapterFactory.class)
 public class PivotTable {
 
     private PivotTableSchema schema;
     
     private List<String> pageLabelValues;
 
-    private List<List<List<Object>>> data;
+    private PivotTableCells data;
     
     private List<List<List<Object>>> rowSummDetails;
 	
@@ -23,6 +35,22 @@ public class PivotTable {
     
     private double tableSummDetails;
 
+    /**
+     * Way the pivot table was computed, null if unknown
+     */
+    private PivotTablePlan plan;
+
+    /**
+     * Index of the first page held, null if the pivot table holds all its pages
+     */
+    private Integer pageOffset;
+
+    /**
+     * Number of pages of the whole pivot table, of which only a window fitting in the cell budget is held,
+     * null if the pivot table holds all its pages
+     */
+    private Integer totalPageCount;
+
     /**
      * Default constructor
      */
@@ -35,7 +63,7 @@ public class PivotTable {
      * @param schema
      * @param data
      */
-    public PivotTable(PivotTableSchema schema, List<String> pageLabelValues, List<List<List<Object>>> data,
+    public PivotTable(PivotTableSchema schema, List<String> pageLabelValues, PivotTableCells data,
     					List<List<List<Object>>> rowSummDetails, List<List<List<Object>>> colSummDetails,
     					List<Double> pageSummDetails, double tableSummDetails) {
         this.schema = schema;
@@ -48,10 +76,11 @@ public class PivotTable {
     }
 
     /**
+     * Builds the whole JSON in memory: large pivot tables should rather be written to a stream through GsonRegistry.
      * @return json representing this entity
      */
     public String toJSON() {
-        Gson gson = new Gson();
+        Gson gson = GsonRegistry.getGson();
         return gson.toJson(this);
     }
 
@@ -63,7 +92,7 @@ public class PivotTable {
 		return pageLabelValues;
 	}
     
-    public List<List<List<Object>>> getData() {
+    public PivotTableCells getData() {
         return data;
     }
 
@@ -91,7 +120,7 @@ public class PivotTable {
 		this.pageLabelValues = pageLabelValues;
 	}
 
-	public void setData(List<List<List<Object>>> data) {
+	public void setData(PivotTableCells data) {
 		this.data = data;
 	}
 
@@ -110,4 +139,194 @@ public class PivotTable {
 	public void setTableSummDetails(double tableSummDetails) {
 		this.tableSummDetails = tableSummDetails;
 	}
+
+    public PivotTablePlan getPlan() {
+        return plan;
+    }
+
+    public void setPlan(PivotTablePlan plan) {
+        this.plan = plan;
+    }
+
+    public Integer getPageOffset() {
+        return pageOffset;
+    }
+
+    public void setPageOffset(Integer pageOffset) {
+        this.pageOffset = pageOffset;
+    }
+
+    public Integer getTotalPageCount() {
+        return totalPageCount;
+    }
+
+    public void setTotalPageCount(Integer totalPageCount) {
+        this.totalPageCount = totalPageCount;
+    }
+
+    /**
+     * Writes and reads the pivot table field by field, without reflection.
+     * The summary details are written straight from their lists, in the same shape as the reflective serialization.
+     */
+    public static class GsonAdapterFactory implements TypeAdapterFactory {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (type.getRawType() != PivotTable.class) {
+                return null;
+            }
+            return (TypeAdapter<T>) new PivotTableTypeAdapter(gson);
+        }
+    }
+
+    private static class PivotTableTypeAdapter extends TypeAdapter<PivotTable> {
+
+        private final Gson gson;
+
+        private PivotTableTypeAdapter(Gson gson) {
+            this.gson = gson;
+        }
+
+        @Override
+        public void write(JsonWriter out, PivotTable pivotTable) throws IOException {
+            if (pivotTable == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("schema");
+            gson.getAdapter(PivotTableSchema.class).write(out, pivotTable.schema);
+            out.name("pageLabelValues");
+            JsonValues.writeStrings(out, pivotTable.pageLabelValues);
+            out.name("data");
+            gson.getAdapter(PivotTableCells.class).write(out, pivotTable.data);
+            out.name("rowSummDetails");
+            writeSummDetails(out, pivotTable.rowSummDetails);
+            out.name("colSummDetails");
+            writeSummDetails(out, pivotTable.colSummDetails);
+            out.name("pageSummDetails");
+            if (pivotTable.pageSummDetails == null) {
+                out.nullValue();
+            } else {
+                out.beginArray();
+                for (Double pageSumm : pivotTable.pageSummDetails) {
+                    out.value(pageSumm);
+                }
+                out.endArray();
+            }
+            out.name("tableSummDetails").value(pivotTable.tableSummDetails);
+            if (pivotTable.plan != null) {
+                out.name("plan");
+                gson.getAdapter(PivotTablePlan.class).write(out, pivotTable.plan);
+            }
+            if (pivotTable.totalPageCount != null) {
+                out.name("pageOffset").value(pivotTable.pageOffset);
+                out.name("totalPageCount").value(pivotTable.totalPageCount);
+            }
+            out.endObject();
+        }
+
+        private void writeSummDetails(JsonWriter out, List<List<List<Object>>> summDetails) throws IOException {
+            if (summDetails == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (List<List<Object>> levelDetails : summDetails) {
+                if (levelDetails == null) {
+                    out.nullValue();
+                    continue;
+                }
+                out.beginArray();
+                for (List<Object> summDetail : levelDetails) {
+                    if (summDetail == null) {
+                        out.nullValue();
+                        continue;
+                    }
+                    out.beginArray();
+                    for (Object value : summDetail) {
+                        JsonValues.writeValue(gson, out, value);
+                    }
+                    out.endArray();
+                }
+                out.endArray();
+            }
+            out.endArray();
+        }
+
+        @Override
+        public PivotTable read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            PivotTable pivotTable = new PivotTable();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "schema":
+                        pivotTable.schema = gson.getAdapter(PivotTableSchema.class).read(in);
+                        break;
+                    case "pageLabelValues":
+                        pivotTable.pageLabelValues = JsonValues.readStrings(in);
+                        break;
+                    case "data":
+                        pivotTable.data = gson.getAdapter(PivotTableCells.class).read(in);
+                        break;
+                    case "rowSummDetails":
+                        pivotTable.rowSummDetails = readSummDetails(in);
+                        break;
+                    case "colSummDetails":
+                        pivotTable.colSummDetails = readSummDetails(in);
+                        break;
+                    case "pageSummDetails":
+                        pivotTable.pageSummDetails = readPageSummDetails(in);
+                        break;
+                    case "tableSummDetails":
+                        pivotTable.tableSummDetails = in.nextDouble();
+                        break;
+                    case "plan":
+                        pivotTable.plan = gson.getAdapter(PivotTablePlan.class).read(in);
+                        break;
+                    case "pageOffset":
+                        pivotTable.pageOffset = JsonValues.readInteger(in);
+                        break;
+                    case "totalPageCount":
+                        pivotTable.totalPageCount = JsonValues.readInteger(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return pivotTable;
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<List<List<Object>>> readSummDetails(JsonReader in) throws IOException {
+            // nested arrays of label and function values, read as the reflective serialization reads them
+            Object summDetails = gson.getAdapter(Object.class).read(in);
+            return (List<List<List<Object>>>) summDetails;
+        }
+
+        private List<Double> readPageSummDetails(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            List<Double> pageSummDetails = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    pageSummDetails.add(null);
+                } else {
+                    pageSummDetails.add(in.nextDouble());
+                }
+            }
+            in.endArray();
+            return pageSummDetails;
+        }
+    }
 }
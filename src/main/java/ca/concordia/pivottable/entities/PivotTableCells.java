@@ -0,0 +1,330 @@
+package ca.concordia.pivottable.entities;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cells of a pivot table, stored column by column.
+ * Each label dimension (row labels followed by column labels) holds one int code per cell,
+ * which indexes the distinct label values of that dimension. The function values are held in a double array.
+ * The cells of a page are contiguous; the page offsets give the first cell of every page.
+ *
+ * It is serialized in the same shape as the record lists it replaces:
+ * one array per page, holding one array per cell with the label values followed by the function value.
+ */
+@JsonAdapter(PivotTableCells.GsonAdapterFactory.class)
+public class PivotTableCells {
+
+    /**
+     * Distinct label values of every dimension, indexed by their code.
+     */
+    private final List<List<Object>> dictionaries;
+
+    /**
+     * Label code of every cell, one array per dimension.
+     */
+    private final int[][] labelCodes;
+
+    /**
+     * Function value of every cell.
+     */
+    private final double[] values;
+
+    /**
+     * Index of the first cell of every page, followed by the total number of cells.
+     */
+    private final int[] pageOffsets;
+
+    private PivotTableCells(List<List<Object>> dictionaries, int[][] labelCodes, double[] values, int[] pageOffsets) {
+        this.dictionaries = dictionaries;
+        this.labelCodes = labelCodes;
+        this.values = values;
+        this.pageOffsets = pageOffsets;
+    }
+
+    /**
+     * @return Number of label dimensions of every cell
+     */
+    public int getLabelCount() {
+        return labelCodes.length;
+    }
+
+    public int getPageCount() {
+        return pageOffsets.length - 1;
+    }
+
+    public int getCellCount() {
+        return values.length;
+    }
+
+    /**
+     * @param page Page index
+     * @return Index of the first cell of the page
+     */
+    public int getPageStart(int page) {
+        return pageOffsets[page];
+    }
+
+    /**
+     * @param page Page index
+     * @return Index following the last cell of the page
+     */
+    public int getPageEnd(int page) {
+        return pageOffsets[page + 1];
+    }
+
+    /**
+     * @param dimension Label dimension
+     * @param cell Cell index
+     * @return Code of the label value of the cell, comparable across the cells of the same dimension
+     */
+    public int getLabelCode(int dimension, int cell) {
+        return labelCodes[dimension][cell];
+    }
+
+    /**
+     * @param dimension Label dimension
+     * @param cell Cell index
+     * @return Label value of the cell
+     */
+    public Object getLabel(int dimension, int cell) {
+        return dictionaries.get(dimension).get(labelCodes[dimension][cell]);
+    }
+
+    /**
+     * @param dimension Label dimension
+     * @return Distinct label values of the dimension, indexed by their code
+     */
+    public List<Object> getDictionary(int dimension) {
+        return Collections.unmodifiableList(dictionaries.get(dimension));
+    }
+
+    /**
+     * @param cell Cell index
+     * @return Function value of the cell
+     */
+    public double getValue(int cell) {
+        return values[cell];
+    }
+
+    /**
+     * Collects the cells of a pivot table in any page order and lays them out page by page.
+     * Cells of the same page keep the order in which they were added.
+     */
+    public static class Builder {
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final List<Map<Object, Integer>> codesByLabel;
+        private final List<List<Object>> dictionaries;
+        private int[][] labelCodes;
+        private double[] values;
+        private int[] pages;
+        private int cellCount = 0;
+
+        /**
+         * @param labelCount Number of label dimensions of every cell
+         */
+        public Builder(int labelCount) {
+            codesByLabel = new ArrayList<>(labelCount);
+            dictionaries = new ArrayList<>(labelCount);
+            for (int i = 0; i < labelCount; i++) {
+                codesByLabel.add(new HashMap<>());
+                dictionaries.add(new ArrayList<>());
+            }
+            labelCodes = new int[labelCount][INITIAL_CAPACITY];
+            values = new double[INITIAL_CAPACITY];
+            pages = new int[INITIAL_CAPACITY];
+        }
+
+        /**
+         * Adds a cell. The label values are encoded right away, so the list may be reused by the caller.
+         * @param page Index of the page of the cell
+         * @param labels Label values of the cell, one per dimension
+         * @param value Function value of the cell
+         */
+        public void addCell(int page, List<Object> labels, double value) {
+            if (cellCount == values.length) {
+                grow();
+            }
+            for (int i = 0; i < labelCodes.length; i++) {
+                labelCodes[i][cellCount] = encode(i, labels.get(i));
+            }
+            values[cellCount] = value;
+            pages[cellCount] = page;
+            cellCount++;
+        }
+
+        private int encode(int dimension, Object label) {
+            Map<Object, Integer> codes = codesByLabel.get(dimension);
+            Integer code = codes.get(label);
+            if (code == null) {
+                List<Object> dictionary = dictionaries.get(dimension);
+                code = dictionary.size();
+                dictionary.add(label);
+                codes.put(label, code);
+            }
+            return code;
+        }
+
+        private void grow() {
+            int capacity = values.length * 2;
+            for (int i = 0; i < labelCodes.length; i++) {
+                labelCodes[i] = Arrays.copyOf(labelCodes[i], capacity);
+            }
+            values = Arrays.copyOf(values, capacity);
+            pages = Arrays.copyOf(pages, capacity);
+        }
+
+        /**
+         * Moves every cell added so far to the new index of its page, once the pages are put in another order.
+         * @param newPages New index of every page, by the index the cells were added with
+         */
+        public void renumberPages(int[] newPages) {
+            for (int cell = 0; cell < cellCount; cell++) {
+                pages[cell] = newPages[pages[cell]];
+            }
+        }
+
+        /**
+         * Lays the cells out page by page.
+         * @param pageCount Number of pages of the pivot table, including the pages without cells
+         * @return The pivot table cells
+         * @throws IllegalArgumentException if a cell was added to a page beyond pageCount
+         */
+        public PivotTableCells build(int pageCount) {
+            //Counting the cells of every page to find where each page starts
+            int[] pageOffsets = new int[pageCount + 1];
+            for (int cell = 0; cell < cellCount; cell++) {
+                if (pages[cell] < 0 || pages[cell] >= pageCount) {
+                    throw new IllegalArgumentException("Cell added to page " + pages[cell] + " of " + pageCount);
+                }
+                pageOffsets[pages[cell] + 1]++;
+            }
+            for (int page = 0; page < pageCount; page++) {
+                pageOffsets[page + 1] += pageOffsets[page];
+            }
+
+            //Moving every cell to the next free position of its page
+            int[] nextPosition = Arrays.copyOf(pageOffsets, pageCount);
+            int[] positions = new int[cellCount];
+            for (int cell = 0; cell < cellCount; cell++) {
+                positions[cell] = nextPosition[pages[cell]]++;
+            }
+
+            int[][] sortedCodes = new int[labelCodes.length][cellCount];
+            double[] sortedValues = new double[cellCount];
+            for (int cell = 0; cell < cellCount; cell++) {
+                for (int i = 0; i < labelCodes.length; i++) {
+                    sortedCodes[i][positions[cell]] = labelCodes[i][cell];
+                }
+                sortedValues[positions[cell]] = values[cell];
+            }
+
+            return new PivotTableCells(dictionaries, sortedCodes, sortedValues, pageOffsets);
+        }
+    }
+
+    /**
+     * Writes and reads the cells as nested arrays: pages, then cells, then label values followed by the function value.
+     */
+    public static class GsonAdapterFactory implements TypeAdapterFactory {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (type.getRawType() != PivotTableCells.class) {
+                return null;
+            }
+            return (TypeAdapter<T>) new CellsTypeAdapter(gson);
+        }
+    }
+
+    private static class CellsTypeAdapter extends TypeAdapter<PivotTableCells> {
+
+        private final Gson gson;
+
+        private CellsTypeAdapter(Gson gson) {
+            this.gson = gson;
+        }
+
+        @Override
+        public void write(JsonWriter out, PivotTableCells cells) throws IOException {
+            if (cells == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (int page = 0; page < cells.getPageCount(); page++) {
+                out.beginArray();
+                for (int cell = cells.getPageStart(page); cell < cells.getPageEnd(page); cell++) {
+                    out.beginArray();
+                    for (int i = 0; i < cells.getLabelCount(); i++) {
+                        JsonValues.writeValue(gson, out, cells.getLabel(i, cell));
+                    }
+                    out.value(cells.getValue(cell));
+                    out.endArray();
+                }
+                out.endArray();
+            }
+            out.endArray();
+        }
+
+        @Override
+        public PivotTableCells read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            TypeAdapter<Object> elementAdapter = gson.getAdapter(Object.class);
+            List<List<List<Object>>> pages = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                List<List<Object>> page = new ArrayList<>();
+                in.beginArray();
+                while (in.hasNext()) {
+                    List<Object> record = new ArrayList<>();
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        record.add(elementAdapter.read(in));
+                    }
+                    in.endArray();
+                    page.add(record);
+                }
+                in.endArray();
+                pages.add(page);
+            }
+            in.endArray();
+
+            int labelCount = 0;
+            for (List<List<Object>> page : pages) {
+                if (!page.isEmpty()) {
+                    labelCount = page.get(0).size() - 1;
+                    break;
+                }
+            }
+            Builder builder = new Builder(labelCount);
+            for (int page = 0; page < pages.size(); page++) {
+                for (List<Object> record : pages.get(page)) {
+                    Number value = (Number) record.get(labelCount);
+                    builder.addCell(page, record.subList(0, labelCount), value == null ? 0 : value.doubleValue());
+                }
+            }
+            return builder.build(pages.size());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package ca.concordia.pivottable.entities;
+
+/**
+ * POJO representing the status of a pivot table job, as reported to the user polling it.
+ */
+public class PivotTableJobStatus
+{
+	private final String jobId;
+	private final String state;
+	private final String tableName;
+	private final int pageCount;
+	private final int completedPageCount;
+	private final int queryCount;
+	private final long submittedAt;
+	private final Long startedAt;
+	private final Long finishedAt;
+	private final String error;
+
+	/**
+	 * Constructor with all parameters provided.
+	 * @param	jobId				ID of the job
+	 * @param	state				State of the job: queued, running, completed, failed or cancelled
+	 * @param	tableName			Raw report table name the pivot table is computed from
+	 * @param	pageCount			Number of pages of the pivot table, 0 until it is known
+	 * @param	completedPageCount	Number of pages computed so far
+	 * @param	queryCount			Number of queries executed so far
+	 * @param	submittedAt			Time the job was submitted at, in milliseconds since the epoch
+	 * @param	startedAt			Time the job started at, null if it has not started
+	 * @param	finishedAt			Time the job finished at, null if it has not finished
+	 * @param	error				Reason the job failed, null if it did not fail
+	 */
+	public PivotTableJobStatus(String jobId, String state, String tableName, int pageCount, int completedPageCount,
+								int queryCount, long submittedAt, Long startedAt, Long finishedAt, String error)
+	{
+		this.jobId = jobId;
+		this.state = state;
+		this.tableName = tableName;
+		this.pageCount = pageCount;
+		this.completedPageCount = completedPageCount;
+		this.queryCount = queryCount;
+		this.submittedAt = submittedAt;
+		this.startedAt = startedAt;
+		this.finishedAt = finishedAt;
+		this.error = error;
+	}
+
+	public String getJobId()
+	{
+		return jobId;
+	}
+
+	public String getState()
+	{
+		return state;
+	}
+
+	public String getTableName()
+	{
+		return tableName;
+	}
+
+	public int getPageCount()
+	{
+		return pageCount;
+	}
+
+	public int getCompletedPageCount()
+	{
+		return completedPageCount;
+	}
+
+	public int getQueryCount()
+	{
+		return queryCount;
+	}
+
+	public long getSubmittedAt()
+	{
+		return submittedAt;
+	}
+
+	public Long getStartedAt()
+	{
+		return startedAt;
+	}
+
+	public Long getFinishedAt()
+	{
+		return finishedAt;
+	}
+
+	public String getError()
+	{
+		return error;
+	}
+}
@@ -0,0 +1,80 @@
+package ca.concordia.pivottable.entities;
+
+import java.util.Map;
+
+/**
+ * POJO representing the way a pivot table was computed, as chosen by the pivot table planner,
+ * returned along with the pivot table for diagnostics.
+ * Costs are in abstract units, roughly the cost of the database reading one row.
+ */
+public class PivotTablePlan
+{
+	/**
+	 * The database groups the raw rows and only the cells are read.
+	 */
+	public static final String PUSHDOWN = "pushdown";
+
+	/**
+	 * The raw rows are read by a single query and aggregated by the application.
+	 */
+	public static final String LOCAL_STREAMING = "local-streaming";
+
+	/**
+	 * The raw rows are read in key ranges at the same time and aggregated by the application.
+	 */
+	public static final String PARTITIONED_SCAN = "partitioned-scan";
+
+	/**
+	 * The pivot table is served from the pivot table cache.
+	 */
+	public static final String CACHE = "cache";
+
+	private final String strategy;
+	private final double estimatedCost;
+	private final Long estimatedRows;
+	private final Long estimatedCells;
+	private final Map<String, Double> candidateCosts;
+
+	/**
+	 * Constructor with all parameters provided.
+	 * @param	strategy		Strategy chosen: pushdown, local-streaming, partitioned-scan or cache
+	 * @param	estimatedCost	Estimated cost of the strategy chosen
+	 * @param	estimatedRows	Estimated number of raw rows aggregated, null if not estimated
+	 * @param	estimatedCells	Estimated number of cells of the pivot table, null if not estimated
+	 * @param	candidateCosts	Estimated cost of every strategy considered, keyed by strategy
+	 */
+	public PivotTablePlan(String strategy, double estimatedCost, Long estimatedRows, Long estimatedCells,
+							Map<String, Double> candidateCosts)
+	{
+		this.strategy = strategy;
+		this.estimatedCost = estimatedCost;
+		this.estimatedRows = estimatedRows;
+		this.estimatedCells = estimatedCells;
+		this.candidateCosts = candidateCosts;
+	}
+
+	public String getStrategy()
+	{
+		return strategy;
+	}
+
+	public double getEstimatedCost()
+	{
+		return estimatedCost;
+	}
+
+	public Long getEstimatedRows()
+	{
+		return estimatedRows;
+	}
+
+	public Long getEstimatedCells()
+	{
+		return estimatedCells;
+	}
+
+	public Map<String, Double> getCandidateCosts()
+	{
+		return candidateCosts;
+	}
+}
@@ -1,13 +1,23 @@
 package ca.concordia.pivottable.entities;
 
+import ca.concordia.pivottable.utils.GsonRegistry;
 import com.google.gson.Gson;
-
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
 /**
  * POJO representing a pivot table schema
  */
+@JsonAdapter(PivotTableSchema.GsonAdapterFactory.class)
 public class PivotTableSchema {
 
     private String tableName;
@@ -22,6 +32,18 @@ public class PivotTableSchema {
     private String sortOrder;
     private String tableSummFuncName;
 
+    /**
+     * Maximum number of rows aggregated into the pivot table.
+     * Optional: the application default is used when not set.
+     */
+    private Integer rowLimit;
+
+    /**
+     * Index of the first page of a multiple-page pivot table paged to fit in the cell budget.
+     * Optional: the window starts at the first page when not set.
+     */
+    private Integer pageOffset;
+
     /**
      * Map to store the values the user wants.
      * keys: values from the row, column or page labels.
@@ -63,7 +85,7 @@ public class PivotTableSchema {
      * @return a PivotTableSchema object
      */
     public static PivotTableSchema fromJSON(String json) {
-        Gson gson = new Gson();
+        Gson gson = GsonRegistry.getGson();
         return gson.fromJson(json, PivotTableSchema.class);
     }
     
@@ -73,7 +95,7 @@ public class PivotTableSchema {
 	 */
 	public String toJSON() 
 	{
-		Gson gson = new Gson();
+		Gson gson = GsonRegistry.getGson();
 		return gson.toJson(this);
 	}
   
@@ -169,6 +191,22 @@ public class PivotTableSchema {
 		this.tableSummFuncName = tableSummFuncName;
 	}
 
+    public Integer getRowLimit() {
+        return rowLimit;
+    }
+
+    public void setRowLimit(Integer rowLimit) {
+        this.rowLimit = rowLimit;
+    }
+
+    public Integer getPageOffset() {
+        return pageOffset;
+    }
+
+    public void setPageOffset(Integer pageOffset) {
+        this.pageOffset = pageOffset;
+    }
+
     public Map<String, String> getAliasMap() {
         return aliasMap;
     }
@@ -176,4 +214,110 @@ public class PivotTableSchema {
     public void setAliasMap(Map<String, String> aliasMap) {
         this.aliasMap = aliasMap;
     }
+
+    /**
+     * Writes and reads the schema field by field, without reflection.
+     */
+    public static class GsonAdapterFactory implements TypeAdapterFactory {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (type.getRawType() != PivotTableSchema.class) {
+                return null;
+            }
+            return (TypeAdapter<T>) new SchemaTypeAdapter();
+        }
+    }
+
+    private static class SchemaTypeAdapter extends TypeAdapter<PivotTableSchema> {
+
+        @Override
+        public void write(JsonWriter out, PivotTableSchema schema) throws IOException {
+            if (schema == null) {
+                out.nullValue();
+                return;
+            }
+            // null fields are left out by the writer unless nulls are serialized
+            out.beginObject();
+            out.name("tableName").value(schema.tableName);
+            out.name("columnLabels");
+            JsonValues.writeStrings(out, schema.columnLabels);
+            out.name("rowLabels");
+            JsonValues.writeStrings(out, schema.rowLabels);
+            out.name("pageLabel").value(schema.pageLabel);
+            out.name("functionName").value(schema.functionName);
+            out.name("valueField").value(schema.valueField);
+            out.name("filterField").value(schema.filterField);
+            out.name("filterValue").value(schema.filterValue);
+            out.name("sortField").value(schema.sortField);
+            out.name("sortOrder").value(schema.sortOrder);
+            out.name("tableSummFuncName").value(schema.tableSummFuncName);
+            out.name("rowLimit").value(schema.rowLimit);
+            out.name("pageOffset").value(schema.pageOffset);
+            out.name("aliasMap");
+            JsonValues.writeStringMap(out, schema.aliasMap);
+            out.endObject();
+        }
+
+        @Override
+        public PivotTableSchema read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            PivotTableSchema schema = new PivotTableSchema();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "tableName":
+                        schema.tableName = JsonValues.readString(in);
+                        break;
+                    case "columnLabels":
+                        schema.columnLabels = JsonValues.readStrings(in);
+                        break;
+                    case "rowLabels":
+                        schema.rowLabels = JsonValues.readStrings(in);
+                        break;
+                    case "pageLabel":
+                        schema.pageLabel = JsonValues.readString(in);
+                        break;
+                    case "functionName":
+                        schema.functionName = JsonValues.readString(in);
+                        break;
+                    case "valueField":
+                        schema.valueField = JsonValues.readString(in);
+                        break;
+                    case "filterField":
+                        schema.filterField = JsonValues.readString(in);
+                        break;
+                    case "filterValue":
+                        schema.filterValue = JsonValues.readString(in);
+                        break;
+                    case "sortField":
+                        schema.sortField = JsonValues.readString(in);
+                        break;
+                    case "sortOrder":
+                        schema.sortOrder = JsonValues.readString(in);
+                        break;
+                    case "tableSummFuncName":
+                        schema.tableSummFuncName = JsonValues.readString(in);
+                        break;
+                    case "rowLimit":
+                        schema.rowLimit = JsonValues.readInteger(in);
+                        break;
+                    case "pageOffset":
+                        schema.pageOffset = JsonValues.readInteger(in);
+                        break;
+                    case "aliasMap":
+                        schema.aliasMap = JsonValues.readStringMap(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return schema;
+        }
+    }
 }
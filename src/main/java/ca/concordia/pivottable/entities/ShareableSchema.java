@@ -1,10 +1,21 @@
 package ca.concordia.pivottable.entities;
 
+import ca.concordia.pivottable.utils.GsonRegistry;
 import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 /**
  * POJO representing a shareable pivot table schema.
  */
+@JsonAdapter(ShareableSchema.GsonAdapterFactory.class)
 public class ShareableSchema 
 {
 	private Long schemaID;
@@ -132,7 +143,7 @@ public class ShareableSchema
 	 */
 	public String toJSON() 
 	{
-		Gson gson = new Gson();
+		Gson gson = GsonRegistry.getGson();
 		return gson.toJson(this);
 	}
 	
@@ -143,7 +154,102 @@ public class ShareableSchema
      */
 	static public ShareableSchema fromJSon(String json)
 	{
-		Gson gson = new Gson();
+		Gson gson = GsonRegistry.getGson();
         return gson.fromJson(json, ShareableSchema.class);
 	}	
+
+	/**
+	 * Writes and reads the shareable schema field by field, without reflection.
+	 */
+	public static class GsonAdapterFactory implements TypeAdapterFactory
+	{
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type)
+		{
+			if (type.getRawType() != ShareableSchema.class)
+				return null;
+			return (TypeAdapter<T>) new ShareableSchemaTypeAdapter(gson.getAdapter(PivotTableSchema.class));
+		}
+	}
+
+	private static class ShareableSchemaTypeAdapter extends TypeAdapter<ShareableSchema>
+	{
+		private final TypeAdapter<PivotTableSchema> schemaAdapter;
+
+		private ShareableSchemaTypeAdapter(TypeAdapter<PivotTableSchema> schemaAdapter)
+		{
+			this.schemaAdapter = schemaAdapter;
+		}
+
+		@Override
+		public void write(JsonWriter out, ShareableSchema schema) throws IOException
+		{
+			if (schema == null)
+			{
+				out.nullValue();
+				return;
+			}
+			out.beginObject();
+			out.name("schemaID").value(schema.schemaID);
+			out.name("schemaName").value(schema.schemaName);
+			out.name("ownerUsername").value(schema.ownerUsername);
+			out.name("pvtTblSchema");
+			schemaAdapter.write(out, schema.pvtTblSchema);
+			out.name("dbURL").value(schema.dbURL);
+			out.name("dbUsername").value(schema.dbUsername);
+			out.name("dbPassword").value(schema.dbPassword);
+			out.endObject();
+		}
+
+		@Override
+		public ShareableSchema read(JsonReader in) throws IOException
+		{
+			if (in.peek() == JsonToken.NULL)
+			{
+				in.nextNull();
+				return null;
+			}
+			Long schemaID = null;
+			String schemaName = null;
+			String ownerUsername = null;
+			PivotTableSchema pvtTblSchema = null;
+			String dbURL = null;
+			String dbUsername = null;
+			String dbPassword = null;
+
+			in.beginObject();
+			while (in.hasNext())
+			{
+				switch (in.nextName())
+				{
+					case "schemaID":
+						schemaID = JsonValues.readLong(in);
+						break;
+					case "schemaName":
+						schemaName = JsonValues.readString(in);
+						break;
+					case "ownerUsername":
+						ownerUsername = JsonValues.readString(in);
+						break;
+					case "pvtTblSchema":
+						pvtTblSchema = schemaAdapter.read(in);
+						break;
+					case "dbURL":
+						dbURL = JsonValues.readString(in);
+						break;
+					case "dbUsername":
+						dbUsername = JsonValues.readString(in);
+						break;
+					case "dbPassword":
+						dbPassword = JsonValues.readString(in);
+						break;
+					default:
+						in.skipValue();
+				}
+			}
+			in.endObject();
+			return new ShareableSchema(schemaID, schemaName, ownerUsername, pvtTblSchema, dbURL, dbUsername, dbPassword);
+		}
+	}
 }
@@ -0,0 +1,76 @@
+package ca.concordia.pivottable.entities;
+
+import java.util.List;
+
+/**
+ * POJO representing the statistics of a raw report table and of each of its columns, as computed at a given time.
+ * Statistics computed over a sample of the rows are scaled up to the row count of the table.
+ */
+public class TableStatistics
+{
+	private final String tableName;
+	private final long rowCount;
+	private final long sampledRowCount;
+	private final List<ColumnStatistics> columns;
+	private final long computedAt;
+
+	/**
+	 * Constructor with all parameters provided.
+	 * @param	tableName		Raw report table name
+	 * @param	rowCount		Number of rows of the table
+	 * @param	sampledRowCount	Number of rows the statistics were computed over
+	 * @param	columns			Statistics of every column, in field order
+	 * @param	computedAt		Time the statistics were computed at, in milliseconds since the epoch
+	 */
+	public TableStatistics(String tableName, long rowCount, long sampledRowCount, List<ColumnStatistics> columns, long computedAt)
+	{
+		this.tableName = tableName;
+		this.rowCount = rowCount;
+		this.sampledRowCount = sampledRowCount;
+		this.columns = columns;
+		this.computedAt = computedAt;
+	}
+
+	public String getTableName()
+	{
+		return tableName;
+	}
+
+	public long getRowCount()
+	{
+		return rowCount;
+	}
+
+	public long getSampledRowCount()
+	{
+		return sampledRowCount;
+	}
+
+	public List<ColumnStatistics> getColumns()
+	{
+		return columns;
+	}
+
+	public long getComputedAt()
+	{
+		return computedAt;
+	}
+
+	/**
+	 * Fetches the statistics of a column.
+	 * @param	columnName	Column name, in any case
+	 * @return	Statistics of the column, null if the table has no such column
+	 */
+	public ColumnStatistics getColumn(String columnName)
+	{
+		if (columnName == null)
+			return null;
+
+		for (ColumnStatistics column : columns)
+		{
+			if (column.getName().equalsIgnoreCase(columnName))
+				return column;
+		}
+		return null;
+	}
+}
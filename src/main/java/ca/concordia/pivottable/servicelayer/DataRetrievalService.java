@@ -1,9 +1,10 @@
 package ca.concordia.pivottable.servicelayer;
 
+import java.io.IOException;
 import java.util.List;
-import ca.concordia.pivottable.entities.DataSet;
 import ca.concordia.pivottable.entities.PivotTableSchema;
 import ca.concordia.pivottable.entities.PivotTable;
+import ca.concordia.pivottable.entities.TableStatistics;
 
 /**
  * Defines the interface for data retrieval service operations.
@@ -35,12 +36,15 @@ public interface DataRetrievalService
 	boolean rawReportExists(String reportName);
 	
 	/**
-  	 * Fetches all the data and field details from a raw report stored in the data source.
-  	 * @param	reportName	Name of the raw report whose information needs to be fetched
-  	 * @return	All the information stored in the raw report.
-  	 * 			null, if data source connection fails
+  	 * Writes all the data and field details of a raw report stored in the data source,
+  	 * record by record as they are read, without holding the report in memory.
+  	 * @param	reportName		Name of the raw report whose information needs to be fetched
+  	 * @param	reportWriter	Writer the raw report is written to
+  	 * @return	true, if the whole raw report was written
+  	 * 			false, if data source connection fails or the read is interrupted by a database error
+  	 * @throws	IOException	if the report writer fails, in which case the read is abandoned
   	 */
-	DataSet getRawReport(String reportName);
+	boolean streamRawReport(String reportName, RawReportWriter reportWriter) throws IOException;
 	
 	/**
   	 * Fetches pivot table data from the data source according to the input schema.
@@ -49,4 +53,12 @@ public interface DataRetrievalService
   	 * 			null, if database connection fails
   	 */
 	PivotTable getPivotTable(PivotTableSchema pvtTblSchema);
+	
+	/**
+  	 * Fetches the column statistics of a raw report, without waiting for them to be computed.
+  	 * @param	reportName	Name of the raw report
+  	 * @return	Statistics of the raw report, possibly out of date
+  	 * 			null, if they are still being computed
+  	 */
+	TableStatistics getTableStatistics(String reportName);
 }
@@ -0,0 +1,48 @@
+package ca.concordia.pivottable.servicelayer;
+
+import ca.concordia.pivottable.datalayer.QueryLog;
+import ca.concordia.pivottable.entities.PivotTable;
+import ca.concordia.pivottable.entities.PivotTableJobStatus;
+import ca.concordia.pivottable.entities.PivotTableSchema;
+
+/**
+ * Defines the interface for the pivot table job operations.
+ * A job computes a pivot table in the background, so that the request submitting it does not wait for it.
+ * Jobs are only visible to the user who submitted them.
+ */
+public interface PivotTableJobService
+{
+	/**
+	 * Submits a pivot table to be computed in the background.
+	 * @param	owner					Username of the user submitting the job
+	 * @param	pvtTblSchema			Schema defined for pivot table
+	 * @param	dataRetrievalService	Data retrieval service computing the pivot table, holding the data source credentials
+	 * @param	queryLog				Log of the statements executed by the data retrieval service, through which they are cancelled
+	 * @return	Status of the job just submitted
+	 */
+	PivotTableJobStatus submitJob(String owner, PivotTableSchema pvtTblSchema, DataRetrievalService dataRetrievalService, QueryLog queryLog);
+
+	/**
+	 * Fetches the status of a job.
+	 * @param	jobId	ID of the job
+	 * @param	owner	Username of the user asking for the job
+	 * @return	Status of the job
+	 */
+	PivotTableJobStatus getJobStatus(String jobId, String owner);
+
+	/**
+	 * Fetches the pivot table computed by a job.
+	 * @param	jobId	ID of the job
+	 * @param	owner	Username of the user asking for the job
+	 * @return	The pivot table
+	 */
+	PivotTable getJobResult(String jobId, String owner);
+
+	/**
+	 * Cancels a job, along with the statement it is running.
+	 * @param	jobId	ID of the job
+	 * @param	owner	Username of the user asking for the job
+	 * @return	Status of the job once cancelled
+	 */
+	PivotTableJobStatus cancelJob(String jobId, String owner);
+}
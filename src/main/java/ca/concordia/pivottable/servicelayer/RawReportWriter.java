@@ -0,0 +1,26 @@
+package ca.concordia.pivottable.servicelayer;
+
+import java.io.IOException;
+import java.util.List;
+import ca.concordia.pivottable.datalayer.TableRowHandler;
+import ca.concordia.pivottable.entities.DataField;
+
+/**
+ * Defines the interface for writing out a raw report while it is read from the data source.
+ * The columns are written first, followed by the records one at a time.
+ */
+public interface RawReportWriter extends TableRowHandler
+{
+	/**
+	 * Writes the field details of the raw report, before any of its records.
+	 * @param	columns	Fields of the raw report
+	 * @throws	IOException	if the fields could not be written
+	 */
+	void writeColumns(List<DataField> columns) throws IOException;
+
+	/**
+	 * Completes the raw report once all its records have been written.
+	 * @throws	IOException	if the report could not be completed
+	 */
+	void finish() throws IOException;
+}
@@ -0,0 +1,149 @@
+package ca.concordia.pivottable.servicelayer.impl;
+
+import java.io.IOException;
+import java.util.List;
+import ca.concordia.pivottable.entities.PivotTable;
+import ca.concordia.pivottable.entities.PivotTableSchema;
+import ca.concordia.pivottable.entities.TableStatistics;
+import ca.concordia.pivottable.servicelayer.CredentialsService;
+import ca.concordia.pivottable.servicelayer.DataRetrievalService;
+import ca.concordia.pivottable.servicelayer.RawReportWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Data retrieval service serving pivot tables from the application-wide pivot table cache when it can,
+ * and computing them with another data retrieval service otherwise.
+ * All the other operations are passed on unchanged.
+ */
+public class CachingDataRetrievalService implements DataRetrievalService
+{
+	/**
+	 * Used for logging information, warning and error messages during application run.
+	 */
+	private Logger log = LoggerFactory.getLogger(CachingDataRetrievalService.class);
+	
+	/**
+	 * Data retrieval service computing the pivot tables missing from the cache.
+	 */
+	private DataRetrievalService dataRetrievalService;
+	
+	/**
+	 * Application-wide pivot table cache.
+	 */
+	private PivotTableCache pivotTableCache;
+	
+	/**
+	 * Credentials service holding the data source credentials the pivot tables are cached for.
+	 */
+	private CredentialsService credentials;
+	
+	/**
+	 * Class constructor.
+	 * @param	dataRetrievalService	Data retrieval service computing the pivot tables missing from the cache
+	 * @param	pivotTableCache			Application-wide pivot table cache
+	 * @param	credentialsService		Credentials service holding the data source credentials of the request
+	 */
+	public CachingDataRetrievalService(DataRetrievalService dataRetrievalService, PivotTableCache pivotTableCache,
+										CredentialsService credentialsService)
+	{
+		this.dataRetrievalService = dataRetrievalService;
+		this.pivotTableCache = pivotTableCache;
+		this.credentials = credentialsService;
+	}
+	
+	public boolean checkDataSourceConnection()
+	{
+		return dataRetrievalService.checkDataSourceConnection();
+	}
+	
+	public List<String> getAllRawReportNames()
+	{
+		return dataRetrievalService.getAllRawReportNames();
+	}
+	
+	public boolean rawReportExists(String reportName)
+	{
+		return dataRetrievalService.rawReportExists(reportName);
+	}
+	
+	public boolean streamRawReport(String reportName, RawReportWriter reportWriter) throws IOException
+	{
+		return dataRetrievalService.streamRawReport(reportName, reportWriter);
+	}
+	
+	public TableStatistics getTableStatistics(String reportName)
+	{
+		return dataRetrievalService.getTableStatistics(reportName);
+	}
+	
+	/**
+	 * Fetches a pivot table from the cache, or computes and caches it if it is missing.
+	 * Concurrent requests for a missing pivot table wait for a single computation.
+	 * A shared pivot table is returned along with the schema of the current request, whose aliases may differ.
+	 * A pivot table served from the cache is returned with the cache plan, which costs nothing, rather than the plan it was computed with.
+	 * @param	pvtTblSchema	Schema defined for pivot table
+	 * @return	Pivot table, containing the data, the schema and the plan it was computed or served with
+	 * 			null, if database connection fails
+	 */
+	public PivotTable getPivotTable(PivotTableSchema pvtTblSchema)
+	{
+		String cacheKey = PivotTableCache.getKey(pvtTblSchema, credentials.getDataSource(), credentials.getUsername(), credentials.getPassword());
+		
+		PivotTable cachedPivotTable = pivotTableCache.get(cacheKey);
+		if (cachedPivotTable != null)
+		{
+			log.info("Pivot table served from the cache (" + pivotTableCache.getHitCount() + " hits, "
+						+ pivotTableCache.getMissCount() + " misses).");
+			PivotTable pivotTable = copyOf(cachedPivotTable, pvtTblSchema);
+			pivotTable.setPlan(PivotTablePlanner.cachePlan());
+			return pivotTable;
+		}
+		
+		//Computing the pivot table once for all the concurrent requests asking for it
+		PivotTable pivotTable = pivotTableCache.compute(cacheKey, credentials.getDataSource(), pvtTblSchema.getTableName(),
+														() -> dataRetrievalService.getPivotTable(pvtTblSchema));
+		return pivotTable == null ? null : withSchema(pivotTable, pvtTblSchema);
+	}
+	
+	/**
+	 * Gives a pivot table shared between requests the schema of the current request, whose aliases may differ.
+	 * @param	pivotTable		Shared pivot table
+	 * @param	pvtTblSchema	Schema of the current request
+	 * @return	Pivot table with the same data, summaries and plan, along with the schema of the current request
+	 */
+	private PivotTable withSchema(PivotTable pivotTable, PivotTableSchema pvtTblSchema)
+	{
+		if (pivotTable.getSchema() == pvtTblSchema)
+			return pivotTable;
+		
+		return copyOf(pivotTable, pvtTblSchema);
+	}
+	
+	/**
+	 * Copies a pivot table shared between requests, so that the copy can be given details of the current request.
+	 * @param	pivotTable		Shared pivot table
+	 * @param	pvtTblSchema	Schema of the current request
+	 * @return	Pivot table with the same data, summaries, plan and page window, along with the schema of the current request
+	 */
+	private PivotTable copyOf(PivotTable pivotTable, PivotTableSchema pvtTblSchema)
+	{
+		PivotTable copy = new PivotTable(pvtTblSchema, pivotTable.getPageLabelValues(), pivotTable.getData(),
+											pivotTable.getRowSummDetails(), pivotTable.getColSummDetails(),
+											pivotTable.getPageSummDetails(), pivotTable.getTableSummDetails());
+		copy.setPlan(pivotTable.getPlan());
+		copy.setPageOffset(pivotTable.getPageOffset());
+		copy.setTotalPageCount(pivotTable.getTotalPageCount());
+		return copy;
+	}
+	
+	/**
+	 * Removes the cached pivot tables of a raw report table of the current data source.
+	 * @param	tableName	Raw report table name
+	 * @return	Number of pivot tables removed
+	 */
+	public int invalidateTable(String tableName)
+	{
+		return pivotTableCache.invalidateTable(credentials.getDataSource(), tableName);
+	}
+}
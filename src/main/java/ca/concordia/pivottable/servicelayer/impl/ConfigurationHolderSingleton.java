@@ -1,7 +1,9 @@
 package ca.concordia.pivottable.servicelayer.impl;
 
 import java.io.IOException;
+import java.util.HashMap;
 import ca.concordia.pivottable.entities.ApplicationConfiguration;
+import ca.concordia.pivottable.entities.DataSourceTimeoutSettings;
 import ca.concordia.pivottable.servicelayer.ConfigurationHolder;
 import ca.concordia.pivottable.utils.FileUtils;
 import org.slf4j.Logger;
@@ -19,6 +21,31 @@ public class ConfigurationHolderSingleton implements ConfigurationHolder
 	private static final int DEFAULT_PORT = 4567;
 	private static final String DEFAULT_DB_PWD = "root";
 	private static final String DEFAULT_DB_USER = "root";
+	private static final int DEFAULT_DB_POOL_MIN_SIZE = 2;
+	private static final int DEFAULT_DB_POOL_MAX_SIZE = 20;
+	private static final long DEFAULT_DB_POOL_BORROW_TIMEOUT = 10000;
+	private static final long DEFAULT_DB_POOL_IDLE_TIMEOUT = 600000;
+	private static final long DEFAULT_DB_POOL_MAX_LIFETIME = 1800000;
+	private static final int DEFAULT_RAW_REPORT_ROW_LIMIT = 1000000;
+	private static final int DEFAULT_PIVOT_TABLE_ROW_LIMIT = 1000000;
+	private static final int DEFAULT_MAX_PIVOT_TABLE_ROW_LIMIT = 10000000;
+	private static final long DEFAULT_PIVOT_TABLE_CACHE_MAX_BYTES = 67108864;
+	private static final long DEFAULT_PIVOT_TABLE_CACHE_TTL = 60000;
+	private static final long DEFAULT_DATA_SOURCE_CATALOG_TTL = 300000;
+	private static final int DEFAULT_PIVOT_TABLE_JOB_THREADS = 4;
+	private static final int DEFAULT_PIVOT_TABLE_JOB_QUEUE_SIZE = 50;
+	private static final long DEFAULT_PIVOT_TABLE_JOB_TTL = 600000;
+	private static final long DEFAULT_DATA_SOURCE_CONNECT_TIMEOUT = 10000;
+	private static final long DEFAULT_DATA_SOURCE_QUERY_TIMEOUT = 300000;
+	private static final long DEFAULT_DATA_SOURCE_FETCH_TIMEOUT = 600000;
+	private static final int DEFAULT_PARALLEL_QUERY_THREADS = 8;
+	private static final int DEFAULT_PAGE_QUERY_PARALLELISM = 1;
+	private static final int DEFAULT_SCAN_PARTITIONS = 1;
+	private static final long DEFAULT_SCAN_PARTITION_MIN_ROWS = 100000;
+	private static final long DEFAULT_TABLE_STATISTICS_TTL = 3600000;
+	private static final int DEFAULT_TABLE_STATISTICS_SAMPLE_ROWS = 1000000;
+	private static final long DEFAULT_PIVOT_TABLE_CELL_BUDGET = 500000;
+	private static final String DEFAULT_PIVOT_TABLE_CELL_BUDGET_ACTION = "reject";
 
 	// Property
 	private static final String CONFIG_PROPERTY_KEY = "app.server.config.location";
@@ -94,6 +121,14 @@ public class ConfigurationHolderSingleton implements ConfigurationHolder
 				log.info("Missing app server port. Using default.");
 				appConf.setAppServerPort(DEFAULT_PORT);
 			}
+			setDefaultPoolSettings(appConf);
+			setDefaultRowLimits(appConf);
+			setDefaultCacheSettings(appConf);
+			setDefaultJobSettings(appConf);
+			setDefaultTimeoutSettings(appConf);
+			setDefaultParallelQuerySettings(appConf);
+			setDefaultTableStatisticsSettings(appConf);
+			setDefaultCellBudgetSettings(appConf);
 			return appConf;
 		} 
 		catch (IOException ioe) 
@@ -102,7 +137,136 @@ public class ConfigurationHolderSingleton implements ConfigurationHolder
 			log.info("Using default configuration details.");
 			
 			//Using default configuration details in case file read fails
-			return new ApplicationConfiguration(DEFAULT_PORT, DEFAULT_DB_URL, DEFAULT_DB_USER, DEFAULT_DB_PWD);
+			ApplicationConfiguration appConf = new ApplicationConfiguration(DEFAULT_PORT, DEFAULT_DB_URL, DEFAULT_DB_USER, DEFAULT_DB_PWD);
+			setDefaultPoolSettings(appConf);
+			setDefaultRowLimits(appConf);
+			setDefaultCacheSettings(appConf);
+			setDefaultJobSettings(appConf);
+			setDefaultTimeoutSettings(appConf);
+			setDefaultParallelQuerySettings(appConf);
+			setDefaultTableStatisticsSettings(appConf);
+			setDefaultCellBudgetSettings(appConf);
+			return appConf;
 		}
 	}
+	
+	/**
+	 * Fills the missing application database pool settings with their default values.
+	 * @param	appConf	Application configuration to be completed
+	 */
+	private void setDefaultPoolSettings(ApplicationConfiguration appConf)
+	{
+		if (appConf.getAppDatabasePoolMinSize() == null)
+			appConf.setAppDatabasePoolMinSize(DEFAULT_DB_POOL_MIN_SIZE);
+		if (appConf.getAppDatabasePoolMaxSize() == null)
+			appConf.setAppDatabasePoolMaxSize(DEFAULT_DB_POOL_MAX_SIZE);
+		if (appConf.getAppDatabasePoolBorrowTimeout() == null)
+			appConf.setAppDatabasePoolBorrowTimeout(DEFAULT_DB_POOL_BORROW_TIMEOUT);
+		if (appConf.getAppDatabasePoolIdleTimeout() == null)
+			appConf.setAppDatabasePoolIdleTimeout(DEFAULT_DB_POOL_IDLE_TIMEOUT);
+		if (appConf.getAppDatabasePoolMaxLifetime() == null)
+			appConf.setAppDatabasePoolMaxLifetime(DEFAULT_DB_POOL_MAX_LIFETIME);
+	}
+	
+	/**
+	 * Fills the missing raw report and pivot table row limits with their default values.
+	 * @param	appConf	Application configuration to be completed
+	 */
+	private void setDefaultRowLimits(ApplicationConfiguration appConf)
+	{
+		if (appConf.getRawReportRowLimit() == null)
+			appConf.setRawReportRowLimit(DEFAULT_RAW_REPORT_ROW_LIMIT);
+		if (appConf.getPivotTableRowLimit() == null)
+			appConf.setPivotTableRowLimit(DEFAULT_PIVOT_TABLE_ROW_LIMIT);
+		if (appConf.getMaxPivotTableRowLimit() == null)
+			appConf.setMaxPivotTableRowLimit(DEFAULT_MAX_PIVOT_TABLE_ROW_LIMIT);
+	}
+	
+	/**
+	 * Fills the missing pivot table and data source catalog cache settings with their default values.
+	 * @param	appConf	Application configuration to be completed
+	 */
+	private void setDefaultCacheSettings(ApplicationConfiguration appConf)
+	{
+		if (appConf.getPivotTableCacheMaxBytes() == null)
+			appConf.setPivotTableCacheMaxBytes(DEFAULT_PIVOT_TABLE_CACHE_MAX_BYTES);
+		if (appConf.getPivotTableCacheTtl() == null)
+			appConf.setPivotTableCacheTtl(DEFAULT_PIVOT_TABLE_CACHE_TTL);
+		if (appConf.getDataSourceCatalogTtl() == null)
+			appConf.setDataSourceCatalogTtl(DEFAULT_DATA_SOURCE_CATALOG_TTL);
+	}
+	
+	/**
+	 * Fills the missing pivot table job settings with their default values.
+	 * @param	appConf	Application configuration to be completed
+	 */
+	private void setDefaultJobSettings(ApplicationConfiguration appConf)
+	{
+		if (appConf.getPivotTableJobThreads() == null)
+			appConf.setPivotTableJobThreads(DEFAULT_PIVOT_TABLE_JOB_THREADS);
+		if (appConf.getPivotTableJobQueueSize() == null)
+			appConf.setPivotTableJobQueueSize(DEFAULT_PIVOT_TABLE_JOB_QUEUE_SIZE);
+		if (appConf.getPivotTableJobTtl() == null)
+			appConf.setPivotTableJobTtl(DEFAULT_PIVOT_TABLE_JOB_TTL);
+	}
+	
+	/**
+	 * Sets the default data source timeouts where none is configured.
+	 * @param	appConf	Application configuration to be completed
+	 */
+	private void setDefaultTimeoutSettings(ApplicationConfiguration appConf)
+	{
+		if (appConf.getDataSourceConnectTimeout() == null)
+			appConf.setDataSourceConnectTimeout(DEFAULT_DATA_SOURCE_CONNECT_TIMEOUT);
+		if (appConf.getDataSourceQueryTimeout() == null)
+			appConf.setDataSourceQueryTimeout(DEFAULT_DATA_SOURCE_QUERY_TIMEOUT);
+		if (appConf.getDataSourceFetchTimeout() == null)
+			appConf.setDataSourceFetchTimeout(DEFAULT_DATA_SOURCE_FETCH_TIMEOUT);
+		if (appConf.getDataSourceTimeouts() == null)
+			appConf.setDataSourceTimeouts(new HashMap<String, DataSourceTimeoutSettings>());
+	}
+	
+	/**
+	 * Sets the default parallel query settings where none is configured.
+	 * @param	appConf	Application configuration to be completed
+	 */
+	private void setDefaultParallelQuerySettings(ApplicationConfiguration appConf)
+	{
+		if (appConf.getParallelQueryThreads() == null)
+			appConf.setParallelQueryThreads(DEFAULT_PARALLEL_QUERY_THREADS);
+		if (appConf.getPageQueryParallelism() == null)
+			appConf.setPageQueryParallelism(DEFAULT_PAGE_QUERY_PARALLELISM);
+		if (appConf.getDataSourcePageQueryParallelism() == null)
+			appConf.setDataSourcePageQueryParallelism(new HashMap<String, Integer>());
+		if (appConf.getScanPartitions() == null)
+			appConf.setScanPartitions(DEFAULT_SCAN_PARTITIONS);
+		if (appConf.getDataSourceScanPartitions() == null)
+			appConf.setDataSourceScanPartitions(new HashMap<String, Integer>());
+		if (appConf.getScanPartitionMinRows() == null)
+			appConf.setScanPartitionMinRows(DEFAULT_SCAN_PARTITION_MIN_ROWS);
+	}
+	
+	/**
+	 * Sets the default table statistics settings where none is configured.
+	 * @param	appConf	Application configuration to be completed
+	 */
+	private void setDefaultTableStatisticsSettings(ApplicationConfiguration appConf)
+	{
+		if (appConf.getTableStatisticsTtl() == null)
+			appConf.setTableStatisticsTtl(DEFAULT_TABLE_STATISTICS_TTL);
+		if (appConf.getTableStatisticsSampleRows() == null)
+			appConf.setTableStatisticsSampleRows(DEFAULT_TABLE_STATISTICS_SAMPLE_ROWS);
+	}
+	
+	/**
+	 * Sets the default pivot table cell budget settings where none is configured.
+	 * @param	appConf	Application configuration to be completed
+	 */
+	private void setDefaultCellBudgetSettings(ApplicationConfiguration appConf)
+	{
+		if (appConf.getPivotTableCellBudget() == null)
+			appConf.setPivotTableCellBudget(DEFAULT_PIVOT_TABLE_CELL_BUDGET);
+		if (appConf.getPivotTableCellBudgetAction() == null)
+			appConf.setPivotTableCellBudgetAction(DEFAULT_PIVOT_TABLE_CELL_BUDGET_ACTION);
+	}
 }
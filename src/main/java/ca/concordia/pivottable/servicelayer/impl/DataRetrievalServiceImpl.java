@@ -1,19 +1,31 @@
 package ca.concordia.pivottable.servicelayer.impl;
 
+import ca.concordia.pivottable.datalayer.AggregationMethod;
 import ca.concordia.pivottable.datalayer.DataSourceAccess;
+import ca.concordia.pivottable.datalayer.PivotTableData;
+import ca.concordia.pivottable.datalayer.PivotTableSummaries;
+import ca.concordia.pivottable.datalayer.TableEstimates;
+import ca.concordia.pivottable.datalayer.aggregation.Accumulator;
+import ca.concordia.pivottable.datalayer.aggregation.Accumulators;
+import ca.concordia.pivottable.datalayer.aggregation.RollupAggregator;
 import ca.concordia.pivottable.datalayer.impl.MultiplePageStrategy;
 import ca.concordia.pivottable.datalayer.impl.SinglePageStrategy;
+import ca.concordia.pivottable.servicelayer.ConfigurationHolder;
 import ca.concordia.pivottable.servicelayer.CredentialsService;
 import ca.concordia.pivottable.servicelayer.DataRetrievalService;
+import ca.concordia.pivottable.servicelayer.RawReportWriter;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-import ca.concordia.pivottable.entities.DataSet;
+import ca.concordia.pivottable.entities.ApplicationConfiguration;
 import ca.concordia.pivottable.entities.DataType;
 import ca.concordia.pivottable.entities.DataField;
 import ca.concordia.pivottable.entities.PivotTable;
+import ca.concordia.pivottable.entities.PivotTableCells;
+import ca.concordia.pivottable.entities.PivotTablePlan;
 import ca.concordia.pivottable.entities.PivotTableSchema;
+import ca.concordia.pivottable.entities.TableStatistics;
+import ca.concordia.pivottable.utils.PivotTableException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,6 +43,11 @@ public class DataRetrievalServiceImpl implements DataRetrievalService
 	 */
 	private Logger log = LoggerFactory.getLogger(DataRetrievalServiceImpl.class);
 	
+	/**
+	 * Cell budget action computing a window of the pages of a pivot table exceeding the budget, rather than rejecting it.
+	 */
+	private static final String CELL_BUDGET_PAGE = "page";
+	
 	/**
 	 * Data source object used for performing data retrieval operations.
 	 */
@@ -41,13 +58,25 @@ public class DataRetrievalServiceImpl implements DataRetrievalService
 	 */
 	private CredentialsService credentials;
 
+	/**
+	 * Application configuration, holding the row limits applied to the data source queries.
+	 */
+	private ApplicationConfiguration appConfig;
+
+	/**
+	 * Planner choosing how every pivot table is computed.
+	 */
+	private PivotTablePlanner planner;
+
 	/**
 	 * Class constructor.
 	 */
-	public DataRetrievalServiceImpl(DataSourceAccess dataSource, CredentialsService credentialsService)
+	public DataRetrievalServiceImpl(DataSourceAccess dataSource, CredentialsService credentialsService, ConfigurationHolder appConfigHolder)
 	{
 		this.credentials = credentialsService;
 		this.dataSource = dataSource;
+		this.appConfig = appConfigHolder.getConfiguration();
+		this.planner = new PivotTablePlanner(appConfig.getScanPartitionMinRows());
 		dataSource.setCredentials(credentials.getDataSource(), credentials.getUsername(), credentials.getPassword());		
 	}
 
@@ -62,73 +91,84 @@ public class DataRetrievalServiceImpl implements DataRetrievalService
 	}
 
 	/**
-	 * Fetches the names of all available raw reports from the data source.
+	 * Fetches the names of all available raw reports from the data source catalog.
 	 * @return List of all available raw report names
-	 * null, if data source connection fails
+	 * null, if the data source catalog could not be read
 	 */
 	public List<String> getAllRawReportNames() 
 	{
-		try {
-			dataSource.connect();
-			return dataSource.getAllRawTableNames();
-		} finally {
-			dataSource.disconnect();
-		}
+		return dataSource.getAllRawTableNames();
 	}
 
 	/**
-	 * Checks if a raw report exists in the data source.
+	 * Checks if a raw report exists in the data source catalog.
 	 * @param    reportName    Name of the raw report whose existence needs to be verified
 	 * @return true, if the report exists in the data source
-	 * false, if the report does not exist in the data source or data source connection fails
+	 * false, if the report does not exist in the data source or the data source catalog could not be read
 	 */
 	public boolean rawReportExists(String reportName) 
 	{
-		List<String> allRawReportList = getAllRawReportNames();
-  		
-  		if (allRawReportList != null)
-  			if (allRawReportList.contains(reportName))
-  	  			return true;
-  		
-  		return false;
+		return dataSource.tableExists(reportName);
 	}
 
 	/**
-	 * Fetches all the data and field details from a raw report stored in the data source.
-	 * @param    reportName    Name of the raw report whose information needs to be fetched
-	 * @return All the information stored in the raw report.
-	 * null, if data source connection fails
+	 * Writes all the data and field details of a raw report stored in the data source,
+	 * record by record as they are read, without holding the report in memory.
+	 * @param	reportName		Name of the raw report whose information needs to be fetched
+	 * @param	reportWriter	Writer the raw report is written to
+	 * @return	true, if the whole raw report was written
+	 * 			false, if data source connection fails or the read is interrupted by a database error
+	 * @throws	IOException	if the report writer fails, in which case the read is abandoned
 	 */
-	public DataSet getRawReport(String reportName) 
+	public boolean streamRawReport(String reportName, RawReportWriter reportWriter) throws IOException
 	{
+		//Fetching the field details from the data source catalog, so that only the records are queried
+		List<String[]> dataFields = dataSource.getTableFields(reportName);
+		if (dataFields == null)
+			return false;
+		
+		List<DataField> rawDataFields = new ArrayList<DataField>();
+		for (String[] dataField : dataFields) {
+			DataType rawFieldType = DataType.getDataType(dataField[1]);
+			DataField rawDataField = new DataField(dataField[0], rawFieldType);
+			rawDataFields.add(rawDataField);
+		}
+		
 		try {
 			dataSource.connect();
-			List<String[]> dataFields = dataSource.getTableFields(reportName);
-			List<DataField> rawDataFields = new ArrayList<DataField>();
-			List<List<Object>> rawReportData = new ArrayList<List<Object>>();
-
-			for (String[] dataField : dataFields) {
-				DataType rawFieldType = DataType.getDataType(dataField[1]);
-				DataField rawDataField = new DataField(dataField[0], rawFieldType);
-				rawDataFields.add(rawDataField);
-			}
-
-			rawReportData = dataSource.getTableData(reportName);
-
-			DataSet rawReport = new DataSet(rawDataFields, rawReportData);
-
-
-			return rawReport;
+			
+			//Writing the records out while they are read, the report is only complete if the read succeeds
+			reportWriter.writeColumns(rawDataFields);
+			if (!dataSource.streamTableData(reportName, appConfig.getRawReportRowLimit(), reportWriter))
+				return false;
+			reportWriter.finish();
+			
+			return true;
 		} finally {
 			dataSource.disconnect();
 		}
 	}
 
+	/**
+	 * Fetches the column statistics of a raw report, computed in the background on first use.
+	 * @param	reportName	Name of the raw report
+	 * @return	Statistics of the raw report, possibly out of date
+	 * 			null, if they are still being computed
+	 */
+	public TableStatistics getTableStatistics(String reportName)
+	{
+		return dataSource.getTableStatistics(reportName);
+	}
+	
 	/**
 	 * Fetches pivot table data from the data source according to the input schema.
+	 * The planner chooses how the cells are aggregated from the statistics of the table, if they have been computed,
+	 * and from the estimates the database keeps of its size.
+	 * Pivot tables estimated to exceed the cell budget are rejected, or reduced to a window of their pages, before any query runs.
 	 * @param	pvtTblSchema	Schema defined for pivot table
-	 * @return	Pivot table, containing the data and the schema
+	 * @return	Pivot table, containing the data, the schema and the plan it was computed with
 	 * 			null, if database connection fails
+	 * @throws	PivotTableException	with status 413, if the pivot table exceeds the cell budget and cannot be paged
 	 */
 	public PivotTable getPivotTable(PivotTableSchema pvtTblSchema)
 	{
@@ -144,36 +184,83 @@ public class DataRetrievalServiceImpl implements DataRetrievalService
   		String tableSummFuncName = pvtTblSchema.getTableSummFuncName();
   		String tableName = pvtTblSchema.getTableName();
   		List<String> pageLabelValues = new ArrayList<String>();
-  		List<List<List<Object>>> pvtTblData = new ArrayList<List<List<Object>>>();
+  		PivotTableCells pvtTblData;
+
+  		if (!Accumulators.isSupported(function) || !Accumulators.isSupported(tableSummFuncName))
+  			throw new PivotTableException("Unsupported summary function " + function + " / " + tableSummFuncName, 400);
+  		int rowLimit = getPivotTableRowLimit(pvtTblSchema.getRowLimit());
+  		if (pvtTblSchema.getPageOffset() != null && pvtTblSchema.getPageOffset() < 0)
+  			throw new PivotTableException("Page offset must not be negative.", 400);
+  		int pageOffset = pvtTblSchema.getPageOffset() == null ? 0 : pvtTblSchema.getPageOffset();
 
   		try {
 			dataSource.connect();
+			TableEstimates estimates = dataSource.estimateTable(tableName);
+			TableStatistics statistics = dataSource.getTableStatistics(tableName);
+			int pageWindowSize = admitPivotTable(pvtTblSchema, rowLimit, estimates, statistics);
+			PivotTablePlan plan = planner.plan(pvtTblSchema, rowLimit, estimates, statistics, dataSource.getScanPartitions());
+			AggregationMethod aggregationMethod = PivotTablePlanner.getAggregationMethod(plan);
+			log.info("Pivot table planned as " + plan.getStrategy() + " of estimated cost " + Math.round(plan.getEstimatedCost())
+						+ " for " + plan.getEstimatedRows() + " rows and " + plan.getEstimatedCells() + " cells.");
+			
 			if (pageLabel == null || pageLabel.trim().equals("")) {
-				pageLabel = null;
-				pageLabelValues = new ArrayList<>(); // empty page labels
-				
 				//Fetching single-page pivot table data
-				dataSource.setPvtTblStrategy(new SinglePageStrategy(rowLabels, colLabels, function, valField, filterField, filterValue, sortField, sortOrder, tableName));
-				pvtTblData = dataSource.executePvtTblStrategy();
+				SinglePageStrategy singlePageStrategy = new SinglePageStrategy(rowLabels, colLabels, function, valField, filterField, filterValue, sortField, sortOrder, tableName, tableSummFuncName);
+				singlePageStrategy.setAggregationMethod(aggregationMethod);
+				dataSource.setPvtTblStrategy(singlePageStrategy);
 			} else {
-				//Fetching all the values of the selected page label column
-				pageLabelValues = dataSource.getPageLabelValues(pageLabel, tableName, filterField, filterValue, sortField, sortOrder);
-
-				//Fetching multiple-page pivot table data
-				dataSource.setPvtTblStrategy(new MultiplePageStrategy(rowLabels, colLabels, pageLabel, function, valField, filterField, filterValue, sortField, sortOrder, tableName));
-				pvtTblData = dataSource.executePvtTblStrategy();
+				//Fetching multiple-page pivot table data, along with the values of the selected page label column
+				MultiplePageStrategy multiplePageStrategy = new MultiplePageStrategy(rowLabels, colLabels, pageLabel, function, valField, filterField, filterValue, sortField, sortOrder, tableName, tableSummFuncName);
+				multiplePageStrategy.setAggregationMethod(aggregationMethod);
+				if (pageWindowSize > 0)
+					multiplePageStrategy.setPageWindow(pageOffset, pageWindowSize);
+				dataSource.setPvtTblStrategy(multiplePageStrategy);
+			}
+			PivotTableData pivotTableData = dataSource.executePvtTblStrategy(rowLimit);
+			if (pivotTableData == null) {
+				if (dataSource.getQueryLog().isCancelled()) {
+					throw new PivotTableException("The pivot table computation was cancelled.", 409);
+				}
+				if (dataSource.getQueryLog().isTimedOut()) {
+					throw new PivotTableException("The data source did not return the pivot table data in time.", 504);
+				}
+				throw new PivotTableException("Could not fetch the pivot table data from the data source.");
 			}
+			pageLabelValues = pivotTableData.getPageLabelValues();
+			pvtTblData = pivotTableData.getCells();
+			log.info("Pivot table data fetched with " + dataSource.getQueryLog().getQueryCount() + " queries.");
 
-			//Fetching pivot table row, column, page and table level summary details
-			log.info("Fetching pivot table row, column, page and table level summary details.");
-			List<List<List<List<Object>>>> oneDimSummaryDetails = getDimSummaryDetails(pvtTblData, tableSummFuncName, rowLabels.size(), colLabels.size());
-			List<List<List<Object>>> rowSummDetails = oneDimSummaryDetails.get(0);
-			List<List<List<Object>>> colSummDetails = oneDimSummaryDetails.get(1);
-			List<Double> pageSummDetails = getPageSummary(pvtTblData, tableSummFuncName);
-			double tableSummDetails = getTableSummary(pvtTblData, tableSummFuncName);
+			//Fetching pivot table row, column, page and table level summary details, unless the data source calculated them
+			List<List<List<Object>>> rowSummDetails;
+			List<List<List<Object>>> colSummDetails;
+			List<Double> pageSummDetails;
+			double tableSummDetails;
+			PivotTableSummaries summaries = pivotTableData.getSummaries();
+			if (summaries != null) {
+				log.info("Pivot table row, column, page and table level summary details calculated by the data source.");
+				rowSummDetails = summaries.getRowSummDetails();
+				colSummDetails = summaries.getColSummDetails();
+				pageSummDetails = summaries.getPageSummDetails();
+				tableSummDetails = summaries.getTableSummDetails();
+			} else {
+				log.info("Fetching pivot table row, column, page and table level summary details.");
+				List<List<List<List<Object>>>> oneDimSummaryDetails = getDimSummaryDetails(pvtTblData, tableSummFuncName, rowLabels.size(), colLabels.size());
+				rowSummDetails = oneDimSummaryDetails.get(0);
+				colSummDetails = oneDimSummaryDetails.get(1);
+				List<Accumulator> pageAccumulators = getPageAccumulators(pvtTblData, tableSummFuncName);
+				pageSummDetails = getPageSummary(pageAccumulators);
+				//A window of pages comes with the table summary of all the pages
+				tableSummDetails = pivotTableData.getTableSummary() != null ? pivotTableData.getTableSummary()
+									: getTableSummary(pageAccumulators, tableSummFuncName);
+			}
 
 			//Creating Pivot Table with the fetched information
 			PivotTable pivotTable = new PivotTable(pvtTblSchema, pageLabelValues, pvtTblData, rowSummDetails, colSummDetails, pageSummDetails, tableSummDetails);
+			pivotTable.setPlan(plan);
+			if (pivotTableData.getTotalPageCount() != null) {
+				pivotTable.setPageOffset(pageOffset);
+				pivotTable.setTotalPageCount(pivotTableData.getTotalPageCount());
+			}
 
 			return pivotTable;
 		} finally {
@@ -181,290 +268,192 @@ public class DataRetrievalServiceImpl implements DataRetrievalService
 		}
 	}
 	
+	/**
+	 * Checks the estimated number of cells of a pivot table against the cell budget, before any query runs.
+	 * A multiple-page pivot table exceeding the budget is reduced to a window of as many pages as fit in it, if configured so,
+	 * and rejected otherwise. Pivot tables with a label of unknown number of distinct values are always admitted.
+	 * @param	pvtTblSchema	Schema defined for pivot table
+	 * @param	rowLimit		Maximum number of raw rows to be aggregated
+	 * @param	estimates		Estimates of the size of the table, null if unknown
+	 * @param	statistics		Statistics of the table, null if not computed yet
+	 * @return	Number of pages of the window to be fetched, 0 to fetch the whole pivot table
+	 * @throws	PivotTableException	with status 413, if the pivot table exceeds the cell budget and cannot be paged
+	 */
+	private int admitPivotTable(PivotTableSchema pvtTblSchema, int rowLimit, TableEstimates estimates, TableStatistics statistics)
+	{
+		long cellBudget = appConfig.getPivotTableCellBudget();
+		if (cellBudget <= 0)
+			return 0;
+		
+		PivotTablePlanner.CellEstimate estimate = planner.estimateCellBudget(pvtTblSchema, rowLimit, estimates, statistics);
+		if (estimate == null || estimate.getCells() <= cellBudget)
+			return 0;
+		
+		String pageLabel = pvtTblSchema.getPageLabel();
+		boolean multiplePage = pageLabel != null && !pageLabel.trim().equals("");
+		long pageCells = Math.max(estimate.getPageCells(), 1);
+		if (CELL_BUDGET_PAGE.equalsIgnoreCase(appConfig.getPivotTableCellBudgetAction()) && multiplePage && pageCells <= cellBudget) {
+			int pageWindowSize = (int) Math.min(cellBudget / pageCells, Integer.MAX_VALUE);
+			log.info("Pivot table of about " + estimate.getCells() + " cells over " + estimate.getPageCount()
+						+ " pages exceeds the cell budget, fetching " + pageWindowSize + " pages at a time.");
+			return pageWindowSize;
+		}
+		
+		log.warn("Pivot table of about " + estimate.getCells() + " cells rejected, exceeding the cell budget of " + cellBudget + " cells.");
+		throw new PivotTableException("The pivot table would have about " + estimate.getCells() + " cells, more than the "
+										+ cellBudget + " allowed: choose labels with fewer values or filter the rows.", 413);
+	}
+	
+	/**
+	 * Determines the maximum number of rows to be aggregated into a pivot table.
+	 * @param	requestedRowLimit	Row limit set in the pivot table schema, or null to use the configured default
+	 * @return	Row limit to be applied
+	 */
+	private int getPivotTableRowLimit(Integer requestedRowLimit)
+	{
+		if (requestedRowLimit == null)
+			return appConfig.getPivotTableRowLimit();
+		
+		if (requestedRowLimit <= 0 || requestedRowLimit > appConfig.getMaxPivotTableRowLimit())
+			throw new PivotTableException("Row limit must be between 1 and " + appConfig.getMaxPivotTableRowLimit() + ".", 400);
+		
+		return requestedRowLimit;
+	}
+
 	/**
 	 * Fetches row-level and column-level summary details for the pivot table.
+	 * Every page is walked once, each cell updating the summary of all its row label prefixes
+	 * and all its column label prefixes at the same time.
 	 * @param 	pvtTblData			Complete pivot table data
 	 * @param 	tableSummFuncName	Name of the summary function to be applied on pivot table
 	 * @param 	rowLabelCount		Level of grouping for pivot table rows
 	 * @param 	colLabelCount		Level of grouping for pivot table columns
 	 * @return	Row and column level summary details
 	 */
-	private List<List<List<List<Object>>>> getDimSummaryDetails(List<List<List<Object>>> pvtTblData, String tableSummFuncName, int rowLabelCount, int colLabelCount)
+	private List<List<List<List<Object>>>> getDimSummaryDetails(PivotTableCells pvtTblData, String tableSummFuncName, int rowLabelCount, int colLabelCount)
 	{
 		List<List<List<List<Object>>>> tblRowColList = new ArrayList<List<List<List<Object>>>>();
+		List<List<List<Object>>> tblRowSummList = new ArrayList<List<List<Object>>>();
+		List<List<List<Object>>> tblColSummList = new ArrayList<List<List<Object>>>();
+		int[] rowLabelCodes = new int[rowLabelCount];
+		int[] colLabelCodes = new int[colLabelCount];
 		
-		List<List<List<Object>>> tableRowList = getOneDimensionValues(pvtTblData, rowLabelCount, 0);
- 		
- 		List<List<List<Object>>> tableColList = getOneDimensionValues(pvtTblData, colLabelCount, rowLabelCount);
- 		
- 		List<List<List<Object>>> tblRowSummList = getOneDimensionSummary(tableRowList, tableSummFuncName);
- 		
- 		List<List<List<Object>>> tblColSummList = getOneDimensionSummary(tableColList, tableSummFuncName);
- 		
- 		tblRowColList.add(tblRowSummList);
- 		tblRowColList.add(tblColSummList);
+		for (int page=0; page<pvtTblData.getPageCount(); page++)
+		{
+			RollupAggregator rowRollup = new RollupAggregator(rowLabelCount, tableSummFuncName);
+			RollupAggregator colRollup = new RollupAggregator(colLabelCount, tableSummFuncName);
+			
+			for (int cell=pvtTblData.getPageStart(page); cell<pvtTblData.getPageEnd(page); cell++)
+			{
+				for (int i=0; i<rowLabelCount; i++)
+				{
+					rowLabelCodes[i] = pvtTblData.getLabelCode(i, cell);
+				}
+				for (int i=0; i<colLabelCount; i++)
+				{
+					colLabelCodes[i] = pvtTblData.getLabelCode(rowLabelCount + i, cell);
+				}
+				
+				double value = pvtTblData.getValue(cell);
+				rowRollup.add(rowLabelCodes, value);
+				colRollup.add(colLabelCodes, value);
+			}
+			
+			addOneDimensionSummary(tblRowSummList, rowRollup, pvtTblData, 0, rowLabelCount);
+			addOneDimensionSummary(tblColSummList, colRollup, pvtTblData, rowLabelCount, colLabelCount);
+		}
+		
+		tblRowColList.add(tblRowSummList);
+		tblRowColList.add(tblColSummList);
 		
- 		return tblRowColList;
+		return tblRowColList;
 	}
 	
 	/**
-	 * Fetches all label values and function field values for one dimension (row or column) of the pivot table.
-	 * @param 	pvtTblData			Complete pivot table data
-	 * @param 	labelCount			Level of grouping for the dimension (row or column)
-	 * @param	counter				Counter reference for fetching row/column labels
-	 * @return	All the details of all the levels of one dimension (row or column) of pivot table 
+	 * Adds the summary details of all the levels of one dimension (row or column) of a page,
+	 * from the deepest level up to the first label.
+	 * @param	tblDimSummList	Summary details of the dimension, to be completed
+	 * @param	dimRollup		Summary of the dimension of the page, for every level
+	 * @param	pvtTblData		Complete pivot table data, holding the label values
+	 * @param	firstLabel		Index of the first label of the dimension among the cell labels
+	 * @param	labelCount		Level of grouping for the dimension (row or column)
 	 */
-	private List<List<List<Object>>> getOneDimensionValues(List<List<List<Object>>> pvtTblData, int labelCount, int counter)
+	private void addOneDimensionSummary(List<List<List<Object>>> tblDimSummList, RollupAggregator dimRollup,
+										PivotTableCells pvtTblData, int firstLabel, int labelCount)
 	{
-		int currDimLblCount = labelCount;
-		List<List<List<Object>>> tableDimList = new ArrayList<List<List<Object>>>();
-		
- 		for (List<List<Object>> pageData : pvtTblData)
+		for (int level=labelCount-1; level>=0; level--)
 		{
- 			currDimLblCount = labelCount;
- 			while (currDimLblCount > 0)
- 			{
- 				List<List<Object>> pageDimList = new ArrayList<List<Object>>();
- 				for (List<Object> tblRecord : pageData)
- 				{
- 					List<Object> dimList = new ArrayList<Object>();
- 					for (int i=counter; i<counter+currDimLblCount; i++)
- 					{
- 						dimList.add(tblRecord.get(i));
- 					}
- 					dimList.add(tblRecord.get(tblRecord.size() - 1));
- 					pageDimList.add(dimList);
- 				}
- 				tableDimList.add(pageDimList);
- 				
- 				--currDimLblCount;
- 			}
+			List<List<Object>> pageDimSummList = new ArrayList<List<Object>>(dimRollup.getGroupCount(level));
+			for (int group=0; group<dimRollup.getGroupCount(level); group++)
+			{
+				int[] labelCodes = dimRollup.getLabelCodes(level, group);
+				List<Object> dimLabels = new ArrayList<Object>(labelCodes.length + 1);
+				for (int i=0; i<labelCodes.length; i++)
+				{
+					dimLabels.add(pvtTblData.getDictionary(firstLabel + i).get(labelCodes[i]));
+				}
+				dimLabels.add(dimRollup.getResult(level, group));
+				pageDimSummList.add(dimLabels);
+			}
+			tblDimSummList.add(pageDimSummList);
 		}
- 		
- 		return tableDimList;
 	}
 	
 	/**
-	 * Fetches summary details for one dimension (row or column) of the pivot table.
-	 * @param 	tableDimList		Complete details of the dimension
-	 * @param 	tableSummFuncName	Name of the summary function to be applied on the dimension
-	 * @return	Summary details of all the levels of one dimension (row or column) of pivot table
+	 * Summarizes the function field values of each page of a pivot table.
+	 * @param	pvtTblData			Complete pivot table data
+	 * @param 	tableSummFuncName	Name of the summary function to be applied on the pages
+	 * @return	One accumulator per page, in page order
 	 */
-	private List<List<List<Object>>> getOneDimensionSummary(List<List<List<Object>>> tableDimList, String tableSummFuncName)
+	private List<Accumulator> getPageAccumulators(PivotTableCells pvtTblData, String tableSummFuncName)
 	{
-		List<List<List<Object>>> tblDimSummList = new ArrayList<List<List<Object>>>();
+		List<Accumulator> pageAccumulators = new ArrayList<Accumulator>();
+		
+		for (int page=0; page<pvtTblData.getPageCount(); page++)
+		{
+			Accumulator accumulator = Accumulators.forFunction(tableSummFuncName);
+			for (int cell=pvtTblData.getPageStart(page); cell<pvtTblData.getPageEnd(page); cell++)
+			{
+				accumulator.add(pvtTblData.getValue(cell));
+			}
+			pageAccumulators.add(accumulator);
+		}
 		
- 		for (List<List<Object>> pageDimList : tableDimList)
- 		{
- 			Set<List<Object>> pageDimSet = new HashSet<List<Object>>();
- 			for (List<Object> dimRecord : pageDimList)
- 			{
- 				List<Object> dimLblList = new ArrayList<Object>();
- 				for (int i=0; i<dimRecord.size()-1; i++)
- 				{
- 					dimLblList.add(dimRecord.get(i));
- 				}
- 				pageDimSet.add(dimLblList);
- 			}
- 			
- 			List<List<Object>> pageDimSummList = new ArrayList<List<Object>>();
- 			for (List<Object> dimLabels : pageDimSet)
- 			{
- 				List<Double> valueList = new ArrayList<Double>();
- 				for (List<Object> dimRecord : pageDimList)
- 				{
- 					boolean getValue = true;
- 					for (int i=0; i<dimRecord.size()-1; i++)
- 					{
- 						if (!dimRecord.get(i).equals(dimLabels.get(i)))
- 						{
- 							getValue = false;
- 							break;
- 						}
- 					}
- 					
- 					if (getValue)
- 					{
- 						double value = 0;
- 						try
- 						{
- 							value = (Double)dimRecord.get(dimRecord.size()-1);
- 						}
- 						catch (ClassCastException cce)
- 						{
- 							long lValue = (Long)dimRecord.get(dimRecord.size()-1);
-							value = (double) lValue;
- 						}
- 						valueList.add(value);
- 					}
- 				}
- 				
- 				double result = calcFunctionValue(tableSummFuncName, valueList);
- 				
- 				dimLabels.add(result);
- 				pageDimSummList.add(dimLabels);
- 			}
- 			tblDimSummList.add(pageDimSummList);
- 		}
- 		
- 		return tblDimSummList;
+		return pageAccumulators;
 	}
 	
 	/**
 	 * Fetches page-level summary details for a pivot table.
-	 * @param	pvtTblData			Complete pivot table data
-	 * @param 	tableSummFuncName	Name of the summary function to be applied on the page
+	 * @param	pageAccumulators	Summary of the function field values of each page
 	 * @return	Page-level summary details
 	 */
-	private List<Double> getPageSummary(List<List<List<Object>>> pvtTblData, String tableSummFuncName)
+	private List<Double> getPageSummary(List<Accumulator> pageAccumulators)
 	{
 		List<Double> pageSummary = new ArrayList<Double>();
 		
-		for (List<List<Object>> pageData : pvtTblData)
+		for (Accumulator accumulator : pageAccumulators)
 		{
-			List<Double> valueList = new ArrayList<Double>();
-			for (List<Object> recordData : pageData)
-			{
-				double value = 0;
-				try
-				{
-					value = (Double)recordData.get(recordData.size()-1);
-				}
-				catch (ClassCastException cce)
-				{
-					long lValue = (Long)recordData.get(recordData.size()-1);
-					value = (double) lValue;
-				}
-				valueList.add(value);
-			}
-			
-			double result = calcFunctionValue(tableSummFuncName, valueList);
-			pageSummary.add(result);
+			pageSummary.add(accumulator.getResult());
 		}
 		
 		return pageSummary;
 	}
 	
 	/**
-	 * Fetches table-level summary details of pivot table.
-	 * @param 	pvtTblData			Complete pivot table data
+	 * Fetches table-level summary details of pivot table by merging the summaries of all of its pages.
+	 * @param	pageAccumulators	Summary of the function field values of each page
 	 * @param 	tableSummFuncName	Name of the summary function to be applied on the table
 	 * @return	Table-level summary details
 	 */
-	private double getTableSummary(List<List<List<Object>>> pvtTblData, String tableSummFuncName)
+	private double getTableSummary(List<Accumulator> pageAccumulators, String tableSummFuncName)
 	{
-		double tableSummary = 0;
-		List<Double> valueList = new ArrayList<Double>();
+		Accumulator tableAccumulator = Accumulators.forFunction(tableSummFuncName);
 		
-		for (List<List<Object>> pageData : pvtTblData)
+		for (Accumulator accumulator : pageAccumulators)
 		{
-			for (List<Object> recordData : pageData)
-			{
-				double value = 0;
-				try
-				{
-					value = (Double)recordData.get(recordData.size()-1);
-				}
-				catch (ClassCastException cce)
-				{
-					long lValue = (Long)recordData.get(recordData.size()-1);
-					value = (double) lValue;
-				}
-				valueList.add(value);
-			}
+			tableAccumulator.merge(accumulator);
 		}
 		
-		tableSummary = calcFunctionValue(tableSummFuncName, valueList);
-		
-		return tableSummary;
+		return tableAccumulator.getResult();
 	}
-	
-	/**
-  	 * Calculates different summary function values.
-  	 * @param 	functionName		Name of the function to be calculated
-  	 * @param 	valueList			List of values to be used in calculation
-  	 * @return	The result calculated
-  	 */
-  	private double calcFunctionValue(String functionName, List<Double> valueList)
-  	{
-  		double result = 0;
-  		
-  		if (functionName.equalsIgnoreCase("Sum"))
-  		{
-  			result = 0;
-  			for (double value : valueList)
-  				result += value;
-  		}
-  		else if (functionName.equalsIgnoreCase("Count"))
-  		{
-  			result = valueList.size();
-  		}
-  		else if (functionName.equalsIgnoreCase("Min"))
-  		{
-  			result = valueList.get(0);
-  			for (double value : valueList)
-  			{
-  				if (value < result)
-  					result = value;
-  			}
-  		}
-  		else if (functionName.equalsIgnoreCase("Max"))
-  		{
-  			result = valueList.get(0);
-  			for (double value : valueList)
-  			{
-  				if (value > result)
-  					result = value;
-  			}
-  		}
-  		else if (functionName.equalsIgnoreCase("Avg"))
-  		{
-  			result = 0;
-  			for (double value : valueList)
-  				result += value;
-  			result = (result / (valueList.size()));
-  		}
-  		else if (functionName.equalsIgnoreCase("Product"))
-  		{
-  			result = 1;
-  			for (double value : valueList)
-  				result *= value;
-  		}
-  		else if (functionName.equalsIgnoreCase("Variance"))
-  		{
-  			double sum = 0;
-  			for (double value : valueList)
-  				sum += value; 
-  			
-  			double avg = (sum/valueList.size());
-  			
-  			double sumSqrDiff = 0;  			
-  			for (double value : valueList)
-  			{
-  				double sqrDiff = (Math.pow((value - avg), 2));
-  				sumSqrDiff += sqrDiff; 
-  			}
-  			
-  			result = (sumSqrDiff/valueList.size());
-  		}
-  		else if (functionName.equalsIgnoreCase("Standard Deviation"))
-  		{
-  			double sum = 0;
-  			for (double value : valueList)
-  				sum += value; 
-  			
-  			double avg = (sum/valueList.size());
-  			
-  			double sumSqrDiff = 0;  			
-  			for (double value : valueList)
-  			{
-  				double sqrDiff = (Math.pow((value - avg), 2));
-  				sumSqrDiff += sqrDiff; 
-  			}
-  			
-  			result = (Math.sqrt((sumSqrDiff/valueList.size())));
-  		}
-  		
-  		return result;
-  	}
 }
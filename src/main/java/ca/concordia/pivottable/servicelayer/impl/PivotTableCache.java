@@ -0,0 +1,545 @@
+package ca.concordia.pivottable.servicelayer.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import ca.concordia.pivottable.entities.ApplicationConfiguration;
+import ca.concordia.pivottable.entities.PivotTable;
+import ca.concordia.pivottable.entities.PivotTableCells;
+import ca.concordia.pivottable.entities.PivotTableSchema;
+import ca.concordia.pivottable.servicelayer.ConfigurationHolder;
+import ca.concordia.pivottable.utils.PivotTableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Application-wide cache of the pivot tables computed from the data sources.
+ * Pivot tables are keyed by a hash of the schema fields they are computed from and of the data source credentials,
+ * so a cached pivot table is only served to callers that could have computed it themselves.
+ * Concurrent requests for the same pivot table share a single computation.
+ * Reads take no lock. The cache is bounded by the estimated size of its pivot tables,
+ * the least recently read ones being evicted first, and every pivot table expires after a time to live.
+ * It implements the Singleton design pattern.
+ */
+public class PivotTableCache
+{
+	/**
+	 * Status code of the exception thrown by a pivot table computation cancelled by its request.
+	 */
+	private static final int CANCELLED_STATUS_CODE = 409;
+
+	/**
+	 * Single instance of the cache.
+	 */
+	private static PivotTableCache singleCache;
+
+	/**
+	 * Estimated memory, in bytes, that the cached pivot tables may take up. The cache is disabled if it is not positive.
+	 */
+	private final long maxBytes;
+
+	/**
+	 * Time to live of a cached pivot table, in nanoseconds.
+	 */
+	private final long ttlNanos;
+
+	/**
+	 * Cached pivot tables keyed by their cache key.
+	 */
+	private final Map<String, CacheEntry> entries = new ConcurrentHashMap<String, CacheEntry>();
+
+	/**
+	 * Estimated memory taken up by the cached pivot tables.
+	 */
+	private final AtomicLong totalBytes = new AtomicLong();
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+	private final AtomicLong coalescedCount = new AtomicLong();
+
+	/**
+	 * Computations of the pivot tables being computed at the moment, keyed by cache key.
+	 */
+	private final Map<String, CompletableFuture<PivotTable>> inFlight = new ConcurrentHashMap<String, CompletableFuture<PivotTable>>();
+
+	/**
+	 * Serializes the evictions, which are the only operations scanning the whole cache.
+	 */
+	private final Object evictionLock = new Object();
+
+	/**
+	 * Used for logging information, warning and error messages during application run.
+	 */
+	private Logger log = LoggerFactory.getLogger(PivotTableCache.class);
+
+	/**
+	 * Class constructor.
+	 * @param	maxBytes	Estimated memory, in bytes, that the cached pivot tables may take up
+	 * @param	ttlMillis	Time to live of a cached pivot table, in milliseconds
+	 */
+	PivotTableCache(long maxBytes, long ttlMillis)
+	{
+		this.maxBytes = maxBytes;
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+	}
+
+	/**
+	 * Ensures that only one instance of this class exists at all times.
+	 * @param	appConfigHolder	Holder of the application configuration, holding the cache settings
+	 * @return	The class instance
+	 */
+	public static synchronized PivotTableCache getCache(ConfigurationHolder appConfigHolder)
+	{
+		if (singleCache == null)
+		{
+			ApplicationConfiguration appConfig = appConfigHolder.getConfiguration();
+			singleCache = new PivotTableCache(appConfig.getPivotTableCacheMaxBytes(), appConfig.getPivotTableCacheTtl());
+		}
+		return singleCache;
+	}
+
+	/**
+	 * Generates the cache key of a pivot table.
+	 * Only the schema fields the pivot table data depends on are part of the key, the aliases are not.
+	 * The password is hashed along with the other fields and never kept in clear.
+	 * @param	pvtTblSchema	Schema defined for pivot table
+	 * @param	dataSource		Data source URL
+	 * @param	username		Data source login username
+	 * @param	password		Data source login password
+	 * @return	Hexadecimal SHA-256 hash of the key fields
+	 */
+	public static String getKey(PivotTableSchema pvtTblSchema, String dataSource, String username, String password)
+	{
+		StringBuilder canonicalKey = new StringBuilder();
+		appendKeyField(canonicalKey, dataSource);
+		appendKeyField(canonicalKey, username);
+		appendKeyField(canonicalKey, password);
+		appendKeyField(canonicalKey, pvtTblSchema.getTableName());
+		appendKeyList(canonicalKey, pvtTblSchema.getRowLabels());
+		appendKeyList(canonicalKey, pvtTblSchema.getColumnLabels());
+		appendKeyField(canonicalKey, pvtTblSchema.getPageLabel());
+		appendKeyField(canonicalKey, pvtTblSchema.getFunctionName());
+		appendKeyField(canonicalKey, pvtTblSchema.getValueField());
+		appendKeyField(canonicalKey, pvtTblSchema.getFilterField());
+		appendKeyField(canonicalKey, pvtTblSchema.getFilterValue());
+		appendKeyField(canonicalKey, pvtTblSchema.getSortField());
+		appendKeyField(canonicalKey, pvtTblSchema.getSortOrder());
+		appendKeyField(canonicalKey, pvtTblSchema.getTableSummFuncName());
+		appendKeyField(canonicalKey, Objects.toString(pvtTblSchema.getRowLimit(), null));
+		appendKeyField(canonicalKey, Objects.toString(pvtTblSchema.getPageOffset(), null));
+
+		try
+		{
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(canonicalKey.toString().getBytes(StandardCharsets.UTF_8));
+			StringBuilder hexKey = new StringBuilder(hash.length * 2);
+			for (byte b : hash)
+			{
+				hexKey.append(String.format("%02x", b));
+			}
+			return hexKey.toString();
+		}
+		catch (NoSuchAlgorithmException nsae)
+		{
+			//Every Java platform implements SHA-256
+			throw new IllegalStateException(nsae);
+		}
+	}
+
+	/**
+	 * Appends a field to a canonical key, prefixed by its length so that no two field lists give the same key.
+	 * @param	canonicalKey	Key being built
+	 * @param	field			Field value, may be null
+	 */
+	private static void appendKeyField(StringBuilder canonicalKey, String field)
+	{
+		if (field == null)
+			canonicalKey.append("-1:");
+		else
+			canonicalKey.append(field.length()).append(':').append(field);
+	}
+
+	/**
+	 * Appends a list of fields to a canonical key, prefixed by its size.
+	 * @param	canonicalKey	Key being built
+	 * @param	fields			Field values, may be null
+	 */
+	private static void appendKeyList(StringBuilder canonicalKey, List<String> fields)
+	{
+		if (fields == null)
+		{
+			canonicalKey.append("-1#");
+			return;
+		}
+
+		canonicalKey.append(fields.size()).append('#');
+		for (String field : fields)
+		{
+			appendKeyField(canonicalKey, field);
+		}
+	}
+
+	/**
+	 * Fetches a cached pivot table.
+	 * @param	key	Cache key of the pivot table
+	 * @return	The pivot table
+	 * 			null, if it is not cached or has expired
+	 */
+	public PivotTable get(String key)
+	{
+		CacheEntry entry = entries.get(key);
+		long now = System.nanoTime();
+
+		if (entry != null && now - entry.expiresAt >= 0)
+		{
+			remove(key, entry);
+			entry = null;
+		}
+
+		if (entry == null)
+		{
+			missCount.incrementAndGet();
+			return null;
+		}
+
+		entry.lastReadAt = now;
+		hitCount.incrementAndGet();
+		return entry.pivotTable;
+	}
+
+	/**
+	 * Computes a pivot table, unless the same pivot table is being computed by another request already,
+	 * in which case its result is awaited and shared. The computed pivot table is cached before any new request can miss it.
+	 * A computation cancelled by the request running it is not shared: the requests waiting for it compute the pivot table again.
+	 * @param	key			Cache key of the pivot table
+	 * @param	dataSource	Data source URL the pivot table is computed from
+	 * @param	tableName	Raw report table name the pivot table is computed from
+	 * @param	computation	Computation of the pivot table
+	 * @return	The pivot table, shared by all the requests that asked for it during the computation
+	 * 			null, if the computation returned null
+	 */
+	public PivotTable compute(String key, String dataSource, String tableName, Supplier<PivotTable> computation)
+	{
+		CompletableFuture<PivotTable> flight = new CompletableFuture<PivotTable>();
+		CompletableFuture<PivotTable> existingFlight;
+		while ((existingFlight = inFlight.putIfAbsent(key, flight)) != null)
+		{
+			coalescedCount.incrementAndGet();
+			try
+			{
+				return await(existingFlight);
+			}
+			catch (CancellationException cancelExcpn)
+			{
+				//The request computing the pivot table went away, the computation is taken over
+				inFlight.remove(key, existingFlight);
+			}
+		}
+
+		try
+		{
+			PivotTable pivotTable = computation.get();
+			if (pivotTable != null)
+				put(key, dataSource, tableName, pivotTable);
+			flight.complete(pivotTable);
+			return pivotTable;
+		}
+		catch (PivotTableException pvtTblExcpn)
+		{
+			if (pvtTblExcpn.getStatusCode() == CANCELLED_STATUS_CODE)
+				flight.cancel(false);
+			else
+				flight.completeExceptionally(pvtTblExcpn);
+			throw pvtTblExcpn;
+		}
+		catch (RuntimeException | Error excp)
+		{
+			flight.completeExceptionally(excp);
+			throw excp;
+		}
+		finally
+		{
+			inFlight.remove(key, flight);
+		}
+	}
+
+	/**
+	 * Waits for the computation of a pivot table by another request.
+	 * @param	flight	Computation of the pivot table
+	 * @return	The pivot table
+	 * @throws	RuntimeException	the same exception as the computation, if it failed
+	 */
+	private PivotTable await(CompletableFuture<PivotTable> flight)
+	{
+		try
+		{
+			return flight.join();
+		}
+		catch (CompletionException excp)
+		{
+			Throwable cause = excp.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException)cause;
+			if (cause instanceof Error)
+				throw (Error)cause;
+			throw excp;
+		}
+	}
+
+	/**
+	 * Caches a pivot table, evicting the least recently read pivot tables if the cache grows beyond its size.
+	 * A pivot table estimated larger than the whole cache is not cached.
+	 * @param	key			Cache key of the pivot table
+	 * @param	dataSource	Data source URL the pivot table was computed from
+	 * @param	tableName	Raw report table name the pivot table was computed from
+	 * @param	pivotTable	The pivot table
+	 */
+	public void put(String key, String dataSource, String tableName, PivotTable pivotTable)
+	{
+		long size = estimateSize(pivotTable);
+		if (size > maxBytes)
+			return;
+
+		long now = System.nanoTime();
+		CacheEntry entry = new CacheEntry(pivotTable, dataSource, tableName, size, now, now + ttlNanos);
+		CacheEntry previous = entries.put(key, entry);
+		totalBytes.addAndGet(previous == null ? size : size - previous.size);
+
+		if (totalBytes.get() > maxBytes)
+			evict();
+	}
+
+	/**
+	 * Removes all the cached pivot tables computed from a raw report table, so that they are computed again.
+	 * @param	dataSource	Data source URL holding the table
+	 * @param	tableName	Raw report table name
+	 * @return	Number of pivot tables removed
+	 */
+	public int invalidateTable(String dataSource, String tableName)
+	{
+		int removedCount = 0;
+
+		for (Map.Entry<String, CacheEntry> cacheEntry : entries.entrySet())
+		{
+			CacheEntry entry = cacheEntry.getValue();
+			if (Objects.equals(entry.dataSource, dataSource) && Objects.equals(entry.tableName, tableName)
+					&& remove(cacheEntry.getKey(), entry))
+				removedCount++;
+		}
+
+		log.info("Removed " + removedCount + " cached pivot tables of table " + tableName + ".");
+		return removedCount;
+	}
+
+	/**
+	 * Removes a cached pivot table, unless it has been replaced in the meantime.
+	 * @param	key		Cache key of the pivot table
+	 * @param	entry	Cache entry expected under the key
+	 * @return	true, if the entry was removed
+	 */
+	private boolean remove(String key, CacheEntry entry)
+	{
+		if (!entries.remove(key, entry))
+			return false;
+
+		totalBytes.addAndGet(-entry.size);
+		return true;
+	}
+
+	/**
+	 * Removes the expired pivot tables, then the least recently read ones until the cache fits in its size.
+	 */
+	private void evict()
+	{
+		synchronized (evictionLock)
+		{
+			long now = System.nanoTime();
+			List<EvictionCandidate> candidates = new ArrayList<EvictionCandidate>();
+
+			//Taking the read times once, as concurrent readers keep updating them
+			for (Map.Entry<String, CacheEntry> cacheEntry : entries.entrySet())
+			{
+				CacheEntry entry = cacheEntry.getValue();
+				if (now - entry.expiresAt >= 0)
+					remove(cacheEntry.getKey(), entry);
+				else
+					candidates.add(new EvictionCandidate(cacheEntry.getKey(), entry, entry.lastReadAt));
+			}
+
+			candidates.sort(Comparator.comparingLong(candidate -> candidate.lastReadAt));
+			for (EvictionCandidate candidate : candidates)
+			{
+				if (totalBytes.get() <= maxBytes)
+					break;
+				if (remove(candidate.key, candidate.entry))
+					evictionCount.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Estimates the memory taken up by a pivot table.
+	 * @param	pivotTable	The pivot table
+	 * @return	Estimated size in bytes
+	 */
+	static long estimateSize(PivotTable pivotTable)
+	{
+		long size = 0;
+
+		PivotTableCells cells = pivotTable.getData();
+		if (cells != null)
+		{
+			//Label codes, values and page offsets, followed by the distinct label values
+			size += (long)cells.getCellCount() * (4L * cells.getLabelCount() + 8) + 4L * (cells.getPageCount() + 1);
+			for (int i=0; i<cells.getLabelCount(); i++)
+			{
+				for (Object label : cells.getDictionary(i))
+				{
+					size += estimateSize(label);
+				}
+			}
+		}
+
+		size += estimateSummariesSize(pivotTable.getRowSummDetails());
+		size += estimateSummariesSize(pivotTable.getColSummDetails());
+		if (pivotTable.getPageSummDetails() != null)
+			size += 24L * pivotTable.getPageSummDetails().size();
+		if (pivotTable.getPageLabelValues() != null)
+		{
+			for (String pageLabelValue : pivotTable.getPageLabelValues())
+			{
+				size += estimateSize(pageLabelValue);
+			}
+		}
+
+		return size;
+	}
+
+	/**
+	 * Estimates the memory taken up by the row or column level summaries of a pivot table.
+	 * @param	summDetails	Summaries of every level of every page
+	 * @return	Estimated size in bytes
+	 */
+	private static long estimateSummariesSize(List<List<List<Object>>> summDetails)
+	{
+		long size = 0;
+
+		if (summDetails != null)
+		{
+			for (List<List<Object>> levelSummary : summDetails)
+			{
+				for (List<Object> summary : levelSummary)
+				{
+					size += 40;
+					for (Object value : summary)
+					{
+						size += estimateSize(value);
+					}
+				}
+			}
+		}
+
+		return size;
+	}
+
+	/**
+	 * Estimates the memory taken up by a label or summary value, including the reference to it.
+	 * @param	value	The value
+	 * @return	Estimated size in bytes
+	 */
+	private static long estimateSize(Object value)
+	{
+		if (value == null)
+			return 8;
+		if (value instanceof String)
+			return 48 + 2L * ((String)value).length();
+		return 32;
+	}
+
+	public long getHitCount()
+	{
+		return hitCount.get();
+	}
+
+	public long getMissCount()
+	{
+		return missCount.get();
+	}
+
+	public long getEvictionCount()
+	{
+		return evictionCount.get();
+	}
+
+	/**
+	 * @return	Number of requests that shared the computation of another request instead of computing the pivot table
+	 */
+	public long getCoalescedCount()
+	{
+		return coalescedCount.get();
+	}
+
+	/**
+	 * @return	Estimated memory, in bytes, taken up by the cached pivot tables
+	 */
+	public long getSize()
+	{
+		return totalBytes.get();
+	}
+
+	/**
+	 * A cached pivot table, along with what it was computed from and when it was last read.
+	 */
+	private static class CacheEntry
+	{
+		private final PivotTable pivotTable;
+		private final String dataSource;
+		private final String tableName;
+		private final long size;
+		private final long expiresAt;
+
+		/**
+		 * Time the pivot table was last read, written without locking by concurrent readers.
+		 */
+		private volatile long lastReadAt;
+
+		private CacheEntry(PivotTable pivotTable, String dataSource, String tableName, long size, long lastReadAt, long expiresAt)
+		{
+			this.pivotTable = pivotTable;
+			this.dataSource = dataSource;
+			this.tableName = tableName;
+			this.size = size;
+			this.lastReadAt = lastReadAt;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	/**
+	 * A cached pivot table considered for eviction, with the time it was last read when the eviction started.
+	 */
+	private static class EvictionCandidate
+	{
+		private final String key;
+		private final CacheEntry entry;
+		private final long lastReadAt;
+
+		private EvictionCandidate(String key, CacheEntry entry, long lastReadAt)
+		{
+			this.key = key;
+			this.entry = entry;
+			this.lastReadAt = lastReadAt;
+		}
+	}
+}
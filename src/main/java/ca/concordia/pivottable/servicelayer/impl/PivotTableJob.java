@@ -0,0 +1,184 @@
+package ca.concordia.pivottable.servicelayer.impl;
+
+import java.util.concurrent.Future;
+import ca.concordia.pivottable.datalayer.QueryLog;
+import ca.concordia.pivottable.entities.PivotTable;
+import ca.concordia.pivottable.entities.PivotTableJobStatus;
+
+/**
+ * Pivot table computed in the background, along with its state.
+ * A job goes from queued to running, then to completed or failed. It can be cancelled until it has finished.
+ */
+class PivotTableJob
+{
+	/**
+	 * States of a job.
+	 */
+	enum State
+	{
+		QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+	}
+
+	private final String id;
+	private final String owner;
+	private final String tableName;
+
+	/**
+	 * Log of the statements executed for the job, through which they are cancelled and its progress is read.
+	 */
+	private final QueryLog queryLog;
+
+	private final long submittedAt;
+	private Long startedAt;
+	private Long finishedAt;
+	private State state = State.QUEUED;
+	private PivotTable result;
+	private String error;
+	private int errorStatusCode;
+
+	/**
+	 * Task of the executor running the job, used to withdraw a queued job.
+	 */
+	private Future<?> task;
+
+	/**
+	 * Class constructor.
+	 * @param	id			ID of the job
+	 * @param	owner		Username of the user who submitted the job
+	 * @param	tableName	Raw report table name the pivot table is computed from
+	 * @param	queryLog	Log of the statements executed for the job
+	 */
+	PivotTableJob(String id, String owner, String tableName, QueryLog queryLog)
+	{
+		this.id = id;
+		this.owner = owner;
+		this.tableName = tableName;
+		this.queryLog = queryLog;
+		this.submittedAt = System.currentTimeMillis();
+	}
+
+	String getId()
+	{
+		return id;
+	}
+
+	String getOwner()
+	{
+		return owner;
+	}
+
+	synchronized void setTask(Future<?> task)
+	{
+		this.task = task;
+		if (state == State.CANCELLED)
+			task.cancel(false);
+	}
+
+	/**
+	 * Moves the job from queued to running.
+	 * @return	true, if the job is to be run
+	 * 			false, if it was cancelled while queued
+	 */
+	synchronized boolean start()
+	{
+		if (state != State.QUEUED)
+			return false;
+
+		state = State.RUNNING;
+		startedAt = System.currentTimeMillis();
+		return true;
+	}
+
+	/**
+	 * Keeps the pivot table computed by a running job. It is discarded if the job was cancelled in the meantime.
+	 * @param	pivotTable	The pivot table
+	 */
+	synchronized void complete(PivotTable pivotTable)
+	{
+		if (state != State.RUNNING)
+			return;
+
+		state = State.COMPLETED;
+		result = pivotTable;
+		finishedAt = System.currentTimeMillis();
+	}
+
+	/**
+	 * Records the failure of a running job, unless it failed because it was cancelled.
+	 * @param	message		Reason of the failure
+	 * @param	statusCode	HTTP status code of the failure
+	 */
+	synchronized void fail(String message, int statusCode)
+	{
+		if (state != State.RUNNING)
+			return;
+
+		state = State.FAILED;
+		error = message;
+		errorStatusCode = statusCode;
+		finishedAt = System.currentTimeMillis();
+	}
+
+	/**
+	 * Cancels the job. A queued job is withdrawn from the executor, the statements of a running job are cancelled.
+	 * @return	true, if the job was cancelled
+	 * 			false, if it had already finished
+	 */
+	boolean cancel()
+	{
+		synchronized (this)
+		{
+			if (state != State.QUEUED && state != State.RUNNING)
+				return false;
+
+			state = State.CANCELLED;
+			finishedAt = System.currentTimeMillis();
+			if (task != null)
+				task.cancel(false);
+		}
+
+		//Cancelling the statements outside of the lock, as it waits for the database
+		queryLog.cancel();
+		return true;
+	}
+
+	synchronized State getState()
+	{
+		return state;
+	}
+
+	synchronized PivotTable getResult()
+	{
+		return result;
+	}
+
+	synchronized String getError()
+	{
+		return error;
+	}
+
+	synchronized int getErrorStatusCode()
+	{
+		return errorStatusCode;
+	}
+
+	/**
+	 * @param	now	Current time, in milliseconds since the epoch
+	 * @param	ttl	Time a finished job is kept, in milliseconds
+	 * @return	true, if the job has finished for longer than its time to live
+	 */
+	synchronized boolean isExpired(long now, long ttl)
+	{
+		return finishedAt != null && now - finishedAt >= ttl;
+	}
+
+	/**
+	 * @return	Status of the job, as reported to its owner
+	 */
+	synchronized PivotTableJobStatus getStatus()
+	{
+		return new PivotTableJobStatus(id, state.name().toLowerCase(), tableName, queryLog.getPageCount(),
+										queryLog.getCompletedPageCount(), queryLog.getQueryCount(),
+										submittedAt, startedAt, finishedAt, error);
+	}
+}
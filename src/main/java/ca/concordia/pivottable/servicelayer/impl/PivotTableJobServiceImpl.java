@@ -0,0 +1,253 @@
+package ca.concordia.pivottable.servicelayer.impl;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import ca.concordia.pivottable.datalayer.QueryLog;
+import ca.concordia.pivottable.entities.ApplicationConfiguration;
+import ca.concordia.pivottable.entities.PivotTable;
+import ca.concordia.pivottable.entities.PivotTableJobStatus;
+import ca.concordia.pivottable.entities.PivotTableSchema;
+import ca.concordia.pivottable.servicelayer.ConfigurationHolder;
+import ca.concordia.pivottable.servicelayer.DataRetrievalService;
+import ca.concordia.pivottable.servicelayer.PivotTableJobService;
+import ca.concordia.pivottable.utils.PivotTableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Computes pivot tables in the background, on a bounded number of threads of its own,
+ * so that large pivot tables do not hold the request threads of the application server.
+ * Jobs wait in a bounded queue for a thread; new jobs are refused once it is full.
+ * Finished jobs are kept, along with their result, for a configurable time.
+ * It implements the Singleton design pattern.
+ */
+public class PivotTableJobServiceImpl implements PivotTableJobService
+{
+	/**
+	 * Interval between two runs of the job maintenance task.
+	 */
+	private static final long MAINTENANCE_INTERVAL_SECONDS = 30;
+
+	/**
+	 * Single instance of the service.
+	 */
+	private static PivotTableJobServiceImpl singleService;
+
+	/**
+	 * Jobs keyed by ID.
+	 */
+	private final Map<String, PivotTableJob> jobs = new ConcurrentHashMap<String, PivotTableJob>();
+
+	/**
+	 * Runs the jobs.
+	 */
+	private final ThreadPoolExecutor jobExecutor;
+
+	/**
+	 * Time a finished job is kept, in milliseconds.
+	 */
+	private final long jobTtl;
+
+	/**
+	 * Used for logging information, warning and error messages during application run.
+	 */
+	private Logger log = LoggerFactory.getLogger(PivotTableJobServiceImpl.class);
+
+	/**
+	 * Class constructor.
+	 * @param	threadCount	Number of jobs run at the same time
+	 * @param	queueSize	Number of jobs that may wait for a thread
+	 * @param	jobTtl		Time a finished job is kept, in milliseconds
+	 */
+	private PivotTableJobServiceImpl(int threadCount, int queueSize, long jobTtl)
+	{
+		this.jobTtl = jobTtl;
+
+		AtomicInteger threadNumber = new AtomicInteger();
+		jobExecutor = new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS,
+												new ArrayBlockingQueue<Runnable>(Math.max(queueSize, 1)), runnable -> {
+			Thread thread = new Thread(runnable, "pivot-table-job-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		ScheduledExecutorService maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "pivot-table-job-maintenance");
+			thread.setDaemon(true);
+			return thread;
+		});
+		maintenanceExecutor.scheduleWithFixedDelay(this::discardExpiredJobs, MAINTENANCE_INTERVAL_SECONDS,
+													MAINTENANCE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Ensures that only one instance of this class exists at all times.
+	 * @param	appConfigHolder	Holder of the application configuration, holding the job settings
+	 * @return	The class instance
+	 */
+	public static synchronized PivotTableJobServiceImpl getService(ConfigurationHolder appConfigHolder)
+	{
+		if (singleService == null)
+		{
+			ApplicationConfiguration appConfig = appConfigHolder.getConfiguration();
+			singleService = new PivotTableJobServiceImpl(appConfig.getPivotTableJobThreads(), appConfig.getPivotTableJobQueueSize(),
+															appConfig.getPivotTableJobTtl());
+		}
+		return singleService;
+	}
+
+	/**
+	 * Submits a pivot table to be computed in the background.
+	 * @param	owner					Username of the user submitting the job
+	 * @param	pvtTblSchema			Schema defined for pivot table
+	 * @param	dataRetrievalService	Data retrieval service computing the pivot table, holding the data source credentials
+	 * @param	queryLog				Log of the statements executed by the data retrieval service, through which they are cancelled
+	 * @return	Status of the job just submitted
+	 * @throws	PivotTableException	with status 503, if too many jobs are waiting already
+	 */
+	public PivotTableJobStatus submitJob(String owner, PivotTableSchema pvtTblSchema, DataRetrievalService dataRetrievalService, QueryLog queryLog)
+	{
+		PivotTableJob job = new PivotTableJob(UUID.randomUUID().toString(), owner, pvtTblSchema.getTableName(), queryLog);
+		jobs.put(job.getId(), job);
+
+		try
+		{
+			job.setTask(jobExecutor.submit(() -> runJob(job, pvtTblSchema, dataRetrievalService)));
+		}
+		catch (RejectedExecutionException rejectedExcpn)
+		{
+			jobs.remove(job.getId());
+			throw new PivotTableException("Too many pivot table jobs are waiting. Please try again later.", 503);
+		}
+
+		log.info("Pivot table job " + job.getId() + " submitted by " + owner + " (" + jobExecutor.getQueue().size() + " jobs waiting).");
+		return job.getStatus();
+	}
+
+	/**
+	 * Computes the pivot table of a job, unless it was cancelled while queued.
+	 * @param	job						The job
+	 * @param	pvtTblSchema			Schema defined for pivot table
+	 * @param	dataRetrievalService	Data retrieval service computing the pivot table
+	 */
+	private void runJob(PivotTableJob job, PivotTableSchema pvtTblSchema, DataRetrievalService dataRetrievalService)
+	{
+		if (!job.start())
+			return;
+
+		try
+		{
+			PivotTable pivotTable = dataRetrievalService.getPivotTable(pvtTblSchema);
+			if (pivotTable == null)
+				job.fail("Could not fetch the pivot table data from the data source.", 500);
+			else
+				job.complete(pivotTable);
+		}
+		catch (PivotTableException pvtTblExcpn)
+		{
+			job.fail(pvtTblExcpn.getMessage(), pvtTblExcpn.getStatusCode());
+		}
+		catch (RuntimeException jobExcpn)
+		{
+			log.error("Unexpected exception occurred while running pivot table job " + job.getId() + "... " + jobExcpn.getMessage());
+			job.fail(jobExcpn.getMessage(), 500);
+		}
+		log.info("Pivot table job " + job.getId() + " finished as " + job.getState().name().toLowerCase() + ".");
+	}
+
+	/**
+	 * Fetches the status of a job.
+	 * @param	jobId	ID of the job
+	 * @param	owner	Username of the user asking for the job
+	 * @return	Status of the job
+	 * @throws	PivotTableException	with status 404, if the user has no such job
+	 */
+	public PivotTableJobStatus getJobStatus(String jobId, String owner)
+	{
+		return getJob(jobId, owner).getStatus();
+	}
+
+	/**
+	 * Fetches the pivot table computed by a job.
+	 * @param	jobId	ID of the job
+	 * @param	owner	Username of the user asking for the job
+	 * @return	The pivot table
+	 * @throws	PivotTableException	with status 404, if the user has no such job,
+	 * 								with status 409, if the job has not completed,
+	 * 								or with the status of its failure, if it failed
+	 */
+	public PivotTable getJobResult(String jobId, String owner)
+	{
+		PivotTableJob job = getJob(jobId, owner);
+
+		switch (job.getState())
+		{
+			case COMPLETED:
+				return job.getResult();
+			case FAILED:
+				throw new PivotTableException(job.getError(), job.getErrorStatusCode());
+			case CANCELLED:
+				throw new PivotTableException("Pivot table job " + jobId + " was cancelled.", 409);
+			default:
+				throw new PivotTableException("Pivot table job " + jobId + " has not completed yet.", 409);
+		}
+	}
+
+	/**
+	 * Cancels a job, along with the statement it is running. Cancelling a finished job has no effect.
+	 * @param	jobId	ID of the job
+	 * @param	owner	Username of the user asking for the job
+	 * @return	Status of the job once cancelled
+	 * @throws	PivotTableException	with status 404, if the user has no such job
+	 */
+	public PivotTableJobStatus cancelJob(String jobId, String owner)
+	{
+		PivotTableJob job = getJob(jobId, owner);
+
+		if (job.cancel())
+			log.info("Pivot table job " + jobId + " cancelled by " + owner + ".");
+
+		return job.getStatus();
+	}
+
+	/**
+	 * Fetches a job of a user.
+	 * @param	jobId	ID of the job
+	 * @param	owner	Username of the user asking for the job
+	 * @return	The job
+	 * @throws	PivotTableException	with status 404, if the user has no such job
+	 */
+	private PivotTableJob getJob(String jobId, String owner)
+	{
+		PivotTableJob job = jobId == null ? null : jobs.get(jobId);
+
+		//The jobs of other users are not revealed
+		if (job == null || !job.getOwner().equals(owner))
+			throw new PivotTableException("Pivot table job " + jobId + " not found.", 404);
+
+		return job;
+	}
+
+	/**
+	 * Discards the jobs that have finished for longer than their time to live, along with their result.
+	 */
+	private void discardExpiredJobs()
+	{
+		try
+		{
+			long now = System.currentTimeMillis();
+			jobs.values().removeIf(job -> job.isExpired(now, jobTtl));
+		}
+		catch (RuntimeException excp)
+		{
+			log.error("Unexpected exception occurred while maintaining pivot table jobs... " + excp.getMessage());
+		}
+	}
+}
@@ -0,0 +1,305 @@
+package ca.concordia.pivottable.servicelayer.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import ca.concordia.pivottable.datalayer.AggregationMethod;
+import ca.concordia.pivottable.datalayer.TableEstimates;
+import ca.concordia.pivottable.entities.ColumnStatistics;
+import ca.concordia.pivottable.entities.PivotTablePlan;
+import ca.concordia.pivottable.entities.PivotTableSchema;
+import ca.concordia.pivottable.entities.TableStatistics;
+
+/**
+ * Chooses how a pivot table is computed from the statistics of its table, or from the estimates the database keeps
+ * of the size of the table while the statistics have not been computed.
+ * The cost of every applicable aggregation method is estimated from the number of raw rows aggregated
+ * and the number of cells, the product of the number of distinct values of the labels, and the cheapest one is chosen.
+ * Serving a cached pivot table costs nothing, so the cache is looked up before the planner is asked.
+ */
+class PivotTablePlanner
+{
+	/**
+	 * Cost of the database reading a raw row.
+	 */
+	private static final double SCAN_ROW_COST = 1.0;
+
+	/**
+	 * Cost of the database folding a raw row into its group.
+	 */
+	private static final double GROUP_ROW_COST = 0.5;
+
+	/**
+	 * Cost of sending a row over the connection and decoding it.
+	 */
+	private static final double TRANSFER_ROW_COST = 4.0;
+
+	/**
+	 * Cost of the application folding a row into its group.
+	 */
+	private static final double AGGREGATE_ROW_COST = 1.0;
+
+	/**
+	 * Cost of a row counted by the probe of the key range bounds, which only reads the key index.
+	 */
+	private static final double PROBE_ROW_COST = 0.1;
+
+	/**
+	 * Cost of running a key range query on a connection of its own.
+	 */
+	private static final double RANGE_QUERY_COST = 10000;
+
+	/**
+	 * Share of the rows assumed to pass a filter whose field has no known number of distinct values.
+	 */
+	private static final double DEFAULT_FILTER_SELECTIVITY = 0.1;
+
+	/**
+	 * Number of rows under which a scan is not split.
+	 */
+	private final long scanPartitionMinRows;
+
+	/**
+	 * Class constructor.
+	 * @param	scanPartitionMinRows	Number of rows under which a scan is not split
+	 */
+	PivotTablePlanner(long scanPartitionMinRows)
+	{
+		this.scanPartitionMinRows = scanPartitionMinRows;
+	}
+
+	/**
+	 * Chooses how a pivot table is to be computed.
+	 * @param	pvtTblSchema	Schema defined for pivot table
+	 * @param	rowLimit		Maximum number of raw rows to be aggregated
+	 * @param	estimates		Estimates of the size of the table, null if unknown
+	 * @param	statistics		Statistics of the table, null if not computed yet
+	 * @param	scanPartitions	Number of key ranges a scan of the data source may be split into
+	 * @return	Plan chosen, along with the cost of every method considered
+	 */
+	PivotTablePlan plan(PivotTableSchema pvtTblSchema, int rowLimit, TableEstimates estimates, TableStatistics statistics,
+						int scanPartitions)
+	{
+		Long tableRows = getTableRows(estimates, statistics);
+		double rows = estimateRows(pvtTblSchema, rowLimit, estimates, statistics, tableRows);
+		double cells = estimateCells(pvtTblSchema, estimates, statistics, rows);
+		String function = pvtTblSchema.getFunctionName();
+
+		Map<String, Double> candidateCosts = new LinkedHashMap<String, Double>();
+		if (AggregationMethod.PUSHDOWN.supports(function))
+			candidateCosts.put(PivotTablePlan.PUSHDOWN, rows * (SCAN_ROW_COST + GROUP_ROW_COST) + cells * TRANSFER_ROW_COST);
+
+		double streamingRowCost = SCAN_ROW_COST + TRANSFER_ROW_COST + AGGREGATE_ROW_COST;
+		candidateCosts.put(PivotTablePlan.LOCAL_STREAMING, rows * streamingRowCost);
+
+		//Ranges are each limited on their own, so only tables known to fit in the row limit are split
+		boolean sorted = pvtTblSchema.getSortField() != null && !pvtTblSchema.getSortField().trim().isEmpty();
+		if (scanPartitions > 1 && !sorted && tableRows != null && tableRows <= rowLimit && rows >= scanPartitionMinRows)
+		{
+			candidateCosts.put(PivotTablePlan.PARTITIONED_SCAN, rows * PROBE_ROW_COST + scanPartitions * RANGE_QUERY_COST
+																+ rows * streamingRowCost / scanPartitions
+																+ cells * scanPartitions * AGGREGATE_ROW_COST);
+		}
+
+		//Keeping the first of equally cheap methods, the database doing the most work
+		String strategy = null;
+		for (Map.Entry<String, Double> candidate : candidateCosts.entrySet())
+		{
+			if (strategy == null || candidate.getValue() < candidateCosts.get(strategy))
+				strategy = candidate.getKey();
+		}
+
+		return new PivotTablePlan(strategy, candidateCosts.get(strategy), Math.round(rows), Math.round(cells), candidateCosts);
+	}
+
+	/**
+	 * Estimates the number of cells of a pivot table and of each of its pages, to check them against the cell budget.
+	 * Unlike the estimate of the plan, no number of distinct values is guessed, so that only pivot tables known to be too large are turned away.
+	 * @param	pvtTblSchema	Schema defined for pivot table
+	 * @param	rowLimit		Maximum number of raw rows to be aggregated
+	 * @param	estimates		Estimates of the size of the table, null if unknown
+	 * @param	statistics		Statistics of the table, null if not computed yet
+	 * @return	Estimated numbers of cells and pages, each at most the number of rows
+	 * 			null, if a label has no known number of distinct values
+	 */
+	CellEstimate estimateCellBudget(PivotTableSchema pvtTblSchema, int rowLimit, TableEstimates estimates, TableStatistics statistics)
+	{
+		double rows = estimateRows(pvtTblSchema, rowLimit, estimates, statistics, getTableRows(estimates, statistics));
+		
+		List<String> labels = new ArrayList<String>(pvtTblSchema.getRowLabels());
+		labels.addAll(pvtTblSchema.getColumnLabels());
+		double pageCells = 1;
+		for (String label : labels)
+		{
+			Long distinctCount = getDistinctCount(label, estimates, statistics);
+			if (distinctCount == null)
+				return null;
+			pageCells = Math.min(pageCells * distinctCount, rows);
+		}
+		
+		double pageCount = 1;
+		String pageLabel = pvtTblSchema.getPageLabel();
+		if (pageLabel != null && !pageLabel.trim().isEmpty())
+		{
+			Long distinctCount = getDistinctCount(pageLabel, estimates, statistics);
+			if (distinctCount == null)
+				return null;
+			pageCount = Math.min(distinctCount, rows);
+		}
+		
+		//Every cell aggregates at least one row, whichever page it is on
+		return new CellEstimate(Math.round(pageCells), Math.round(pageCount), Math.round(Math.min(pageCells * pageCount, rows)));
+	}
+	
+	/**
+	 * Creates the plan of a pivot table served from the cache.
+	 * @return	Plan of no cost
+	 */
+	static PivotTablePlan cachePlan()
+	{
+		Map<String, Double> candidateCosts = new LinkedHashMap<String, Double>();
+		candidateCosts.put(PivotTablePlan.CACHE, 0.0);
+		return new PivotTablePlan(PivotTablePlan.CACHE, 0.0, null, null, candidateCosts);
+	}
+
+	/**
+	 * Finds the aggregation method carrying out a plan.
+	 * @param	plan	Plan chosen by the planner
+	 * @return	Aggregation method of the plan
+	 */
+	static AggregationMethod getAggregationMethod(PivotTablePlan plan)
+	{
+		switch (plan.getStrategy())
+		{
+			case PivotTablePlan.PUSHDOWN:
+				return AggregationMethod.PUSHDOWN;
+			case PivotTablePlan.PARTITIONED_SCAN:
+				return AggregationMethod.PARTITIONED_SCAN;
+			default:
+				return AggregationMethod.LOCAL_STREAMING;
+		}
+	}
+
+	/**
+	 * Fetches the number of rows of the table, from its statistics or else from the estimates of the database.
+	 * @param	estimates	Estimates of the size of the table, null if unknown
+	 * @param	statistics	Statistics of the table, null if not computed yet
+	 * @return	Number of rows of the table, null if unknown
+	 */
+	private Long getTableRows(TableEstimates estimates, TableStatistics statistics)
+	{
+		if (statistics != null)
+			return statistics.getRowCount();
+		
+		return estimates == null ? null : estimates.getRowCount();
+	}
+	
+	/**
+	 * Estimates the number of raw rows aggregated: the rows of the table passing the filter, up to the row limit.
+	 * @param	pvtTblSchema	Schema defined for pivot table
+	 * @param	rowLimit		Maximum number of raw rows to be aggregated
+	 * @param	estimates		Estimates of the size of the table, null if unknown
+	 * @param	statistics		Statistics of the table, null if not computed yet
+	 * @param	tableRows		Estimated number of rows of the table, null if unknown
+	 * @return	Estimated number of rows, at least 1
+	 */
+	private double estimateRows(PivotTableSchema pvtTblSchema, int rowLimit, TableEstimates estimates, TableStatistics statistics,
+								Long tableRows)
+	{
+		double rows = tableRows == null ? rowLimit : tableRows;
+
+		String filterField = pvtTblSchema.getFilterField();
+		if (filterField != null && !filterField.trim().isEmpty() && pvtTblSchema.getFilterValue() != null)
+		{
+			Long filterDistinctCount = getDistinctCount(filterField, estimates, statistics);
+			rows = filterDistinctCount == null ? rows * DEFAULT_FILTER_SELECTIVITY : rows / filterDistinctCount;
+		}
+
+		return Math.max(Math.min(rows, rowLimit), 1);
+	}
+
+	/**
+	 * Estimates the number of cells of a pivot table, as the product of the number of distinct values of its labels.
+	 * A label with no known number of distinct values is assumed to have as many as the square root of the number of rows.
+	 * @param	pvtTblSchema	Schema defined for pivot table
+	 * @param	estimates		Estimates of the size of the table, null if unknown
+	 * @param	statistics		Statistics of the table, null if not computed yet
+	 * @param	rows			Estimated number of raw rows aggregated
+	 * @return	Estimated number of cells, at most the number of rows
+	 */
+	private double estimateCells(PivotTableSchema pvtTblSchema, TableEstimates estimates, TableStatistics statistics, double rows)
+	{
+		List<String> labels = new ArrayList<String>(pvtTblSchema.getRowLabels());
+		labels.addAll(pvtTblSchema.getColumnLabels());
+		String pageLabel = pvtTblSchema.getPageLabel();
+		if (pageLabel != null && !pageLabel.trim().isEmpty())
+			labels.add(pageLabel);
+
+		double cells = 1;
+		for (String label : labels)
+		{
+			Long distinctCount = getDistinctCount(label, estimates, statistics);
+			cells *= distinctCount == null ? Math.ceil(Math.sqrt(rows)) : Math.min(distinctCount, rows);
+			if (cells >= rows)
+				return rows;
+		}
+
+		return cells;
+	}
+
+	/**
+	 * Fetches the number of distinct values of a column, from the statistics of the table or else from the estimates of the database.
+	 * Rows without a value form a group of their own, so they count as one more value.
+	 * @param	column		Column name
+	 * @param	estimates	Estimates of the size of the table, null if unknown
+	 * @param	statistics	Statistics of the table, null if not computed yet
+	 * @return	Number of distinct values of the column, null if unknown
+	 */
+	private Long getDistinctCount(String column, TableEstimates estimates, TableStatistics statistics)
+	{
+		ColumnStatistics columnStatistics = statistics == null ? null : statistics.getColumn(column);
+		if (columnStatistics != null)
+			return Math.max(columnStatistics.getDistinctCount() + (columnStatistics.getNullCount() > 0 ? 1 : 0), 1);
+
+		return estimates == null ? null : estimates.getDistinctCount(column);
+	}
+	
+	/**
+	 * Estimated size of a pivot table, checked against the cell budget before it is computed.
+	 */
+	static class CellEstimate
+	{
+		private final long pageCells;
+		private final long pageCount;
+		private final long cells;
+		
+		/**
+		 * Class constructor.
+		 * @param	pageCells	Estimated number of cells of a page
+		 * @param	pageCount	Estimated number of pages, 1 for a single-page pivot table
+		 * @param	cells		Estimated number of cells of all the pages
+		 */
+		private CellEstimate(long pageCells, long pageCount, long cells)
+		{
+			this.pageCells = pageCells;
+			this.pageCount = pageCount;
+			this.cells = cells;
+		}
+		
+		long getPageCells()
+		{
+			return pageCells;
+		}
+		
+		long getPageCount()
+		{
+			return pageCount;
+		}
+		
+		long getCells()
+		{
+			return cells;
+		}
+	}
+}
@@ -150,7 +150,6 @@ public class SchemaManagementServiceImpl implements SchemaManagementService
 		String schemaShareStatus = null;
 		
 		//Checking if the shared username exists in the user database
-		userDatabase.connect();
 		boolean usernameExists = userDatabase.usernameExists(sharedUsername.toLowerCase());
 		if (!usernameExists)
 			schemaShareStatus = "User " + sharedUsername + " does not exist. Sharing request denied!";
@@ -58,19 +58,11 @@ public class UserManagementServiceImpl implements UserManagementService
 			String passwordHash = hashPassword(password);
 			
 			//Adding the new user to the user database
-			try 
-			{
-				userDatabase.connect();
-				boolean userAdded = userDatabase.addUser(username, passwordHash);
-	
-				//Throwing an exception to the UI in case user creation fails
-				if (!userAdded)
-					throw new PivotTableException("Unable to create new user " + username + ".");
-			} 
-			finally 
-			{
-				userDatabase.disconnect();
-			}
+			boolean userAdded = userDatabase.addUser(username, passwordHash);
+			
+			//Throwing an exception to the UI in case user creation fails
+			if (!userAdded)
+				throw new PivotTableException("Unable to create new user " + username + ".");
 		}
 	}
 	
@@ -95,17 +87,9 @@ public class UserManagementServiceImpl implements UserManagementService
 		else
 		{
 			username = username.toLowerCase();
-			try 
-			{
-				userDatabase.connect();
-				boolean userExists = userDatabase.usernameExists(username);
-				if (userExists)
-					userValidation = "Username " + username + " already exists.";
-			} 
-			finally 
-			{
-				userDatabase.disconnect();
-			}
+			boolean userExists = userDatabase.usernameExists(username);
+			if (userExists)
+				userValidation = "Username " + username + " already exists.";
 		}
 			
 		return userValidation;
@@ -159,20 +143,15 @@ public class UserManagementServiceImpl implements UserManagementService
 			//Hashing the user password
 			String passwordHash = hashPassword(password);
 			
-			try {
-				userDatabase.connect();
-				boolean userExists = userDatabase.usernameExists(username);
-				if (!userExists)
-					userValidation = "Username " + username + " does not exist.";
-				else {
-					String userPasswordHash = userDatabase.getUserPasswordHash(username);
-					if (userPasswordHash == null)
-						userValidation = "Unable to validate password due to database connectivity issue.";
-					else if (!passwordHash.equals(userPasswordHash))
-						userValidation = "Password is incorrect.";
-				}
-			} finally {
-				userDatabase.disconnect();
+			boolean userExists = userDatabase.usernameExists(username);
+			if (!userExists)
+				userValidation = "Username " + username + " does not exist.";
+			else {
+				String userPasswordHash = userDatabase.getUserPasswordHash(username);
+				if (userPasswordHash == null)
+					userValidation = "Unable to validate password due to database connectivity issue.";
+				else if (!passwordHash.equals(userPasswordHash))
+					userValidation = "Password is incorrect.";
 			}
 		}
 		
@@ -190,19 +169,14 @@ public class UserManagementServiceImpl implements UserManagementService
 		boolean userDeleted = false;
 		
 		//Deleting the user record from the user database
-		try {
-			userDatabase.connect();
-			boolean userExists = userDatabase.usernameExists(username);
-			if (!userExists)
-				userDeleted = false;
-			else
-				userDeleted = userDatabase.deleteUser(username);
-
-			//Throwing an exception to the UI in case user deletion fails
-			if (!userDeleted)
-				throw new PivotTableException("Unable to delete user " + username + ".");
-		} finally {
-			userDatabase.disconnect();
-		}
+		boolean userExists = userDatabase.usernameExists(username);
+		if (!userExists)
+			userDeleted = false;
+		else
+			userDeleted = userDatabase.deleteUser(username);
+		
+		//Throwing an exception to the UI in case user deletion fails
+		if (!userDeleted)
+			throw new PivotTableException("Unable to delete user " + username + ".");
 	}
 }
@@ -1,32 +1,76 @@
 package ca.concordia.pivottable.utils;
 
+import ca.concordia.pivottable.datalayer.impl.ApplicationDatabasePool;
+import ca.concordia.pivottable.datalayer.impl.ConnectionPoolRegistry;
 import ca.concordia.pivottable.datalayer.impl.DataSourceAccessImpl;
+import ca.concordia.pivottable.datalayer.impl.DataSourceCatalogRegistry;
+import ca.concordia.pivottable.datalayer.impl.ParallelQueryExecutor;
 import ca.concordia.pivottable.datalayer.impl.SchemaDataAccessImpl;
+import ca.concordia.pivottable.datalayer.impl.TableStatisticsRegistry;
 import ca.concordia.pivottable.datalayer.impl.UserDataAccessImpl;
+import ca.concordia.pivottable.servicelayer.impl.CachingDataRetrievalService;
 import ca.concordia.pivottable.servicelayer.impl.ConfigurationHolderSingleton;
 import ca.concordia.pivottable.servicelayer.impl.CredentialsServiceDefault;
 import ca.concordia.pivottable.servicelayer.impl.DataRetrievalServiceImpl;
+import ca.concordia.pivottable.servicelayer.impl.PivotTableCache;
+import ca.concordia.pivottable.servicelayer.impl.PivotTableJobServiceImpl;
 import ca.concordia.pivottable.servicelayer.impl.SchemaManagementServiceImpl;
 import ca.concordia.pivottable.servicelayer.impl.UserManagementServiceImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Simple implementation of a Dependency Injection container.
  * Controllers use this to get the services they might need.
+ * The application container holds the stateless services and data access objects for the life of the application.
+ * Each request gets a thin overlay on top of it, holding only the dependencies that keep per-request state:
+ * the data source credentials and the objects built on them.
  */
 public class DependenciesContainer {
 
-    private HashMap<String, Object> container;
+    /**
+     * Dependencies holding the state of a single request. They are only wired by request overlays.
+     */
+    private static final Set<String> REQUEST_SCOPED = new HashSet<>(Arrays.asList(
+            "credentialsservice",
+            "datasourceaccess",
+            "dataretrievalservice",
+            "cachingdataretrievalservice"));
+
+    private Map<String, Object> container;
+    private DependenciesContainer parent;
     private Logger log;
 
+    /**
+     * Creates the application container.
+     */
     public DependenciesContainer() {
-        container = new HashMap<>();
+        this(null);
+    }
+
+    /**
+     * @param parent Application container the overlay falls back to, null for the application container itself
+     */
+    private DependenciesContainer(DependenciesContainer parent) {
+        this.parent = parent;
+        container = new ConcurrentHashMap<>();
         wireDependencies();
     }
 
+    /**
+     * Creates the container of a request, sharing the application-scoped dependencies of this container.
+     * @return A request overlay of this container
+     */
+    public DependenciesContainer newRequestScope() {
+        return new DependenciesContainer(this);
+    }
+
     private void wireDependencies() {
         log = LoggerFactory.getLogger(DependenciesContainer.class);
         container.put("logger", log);
@@ -36,6 +80,7 @@ public class DependenciesContainer {
      * Creates a new object with dependencies wired.
      * Developer should specify how the dependency should be used.
      * This container creates a single instance for the life of the container.
+     * Request-scoped dependencies are wired by request overlays only, all the others by the application container.
      * @param name name of the class to use
      * @return An instance of the given class name
      * @throws InstantiationException when the class has not been wired yet.
@@ -44,22 +89,39 @@ public class DependenciesContainer {
         switch (name.toLowerCase()) {
             case "logger":
                 return this.log;
-            case "controllerfactory":
-                return new ControllerFactory(this);
             case "datasourceaccess":
-                return new DataSourceAccessImpl();
+                return new DataSourceAccessImpl(get("connectionPoolRegistry"), get("dataSourceCatalogRegistry"),
+                        get("tableStatisticsRegistry"), get("parallelQueryExecutor"));
+            case "parallelqueryexecutor":
+                return ParallelQueryExecutor.getExecutor(get("configurationHolder"));
+            case "datasourcecatalogregistry":
+                return DataSourceCatalogRegistry.getRegistry(get("connectionPoolRegistry"), get("configurationHolder"));
+            case "tablestatisticsregistry":
+                return TableStatisticsRegistry.getRegistry(get("connectionPoolRegistry"), get("dataSourceCatalogRegistry"), get("configurationHolder"));
+            case "connectionpoolregistry":
+                return ConnectionPoolRegistry.getRegistry(get("configurationHolder"));
             case "dataretrievalservice":
-                return new DataRetrievalServiceImpl(get("dataSourceAccess"), get("CredentialsService"));
+                return get("cachingDataRetrievalService");
+            case "cachingdataretrievalservice":
+                return new CachingDataRetrievalService(
+                        new DataRetrievalServiceImpl(get("dataSourceAccess"), get("CredentialsService"), get("configurationHolder")),
+                        get("pivotTableCache"), get("CredentialsService"));
+            case "pivottablecache":
+                return PivotTableCache.getCache(get("configurationHolder"));
+            case "pivottablejobservice":
+                return PivotTableJobServiceImpl.getService(get("configurationHolder"));
             case "credentialsservice":
                 return new CredentialsServiceDefault();
             case "usermanagementservice":
                 return new UserManagementServiceImpl(get("userDataAccess"));
             case "userdataaccess":
-                return new UserDataAccessImpl(get("configurationHolder"));
+                return new UserDataAccessImpl(get("applicationDatabasePool"));
             case "schemamanagementservice":
                 return new SchemaManagementServiceImpl(get("schemaDataAccess"), get("userDataAccess"));
             case "schemadataaccess":
-                return new SchemaDataAccessImpl(get("configurationHolder"));
+                return new SchemaDataAccessImpl(get("applicationDatabasePool"));
+            case "applicationdatabasepool":
+                return ApplicationDatabasePool.getPool(get("configurationHolder"));
             case "configurationholder":
             	return ConfigurationHolderSingleton.getConfigHolder();
             default:
@@ -75,18 +137,43 @@ public class DependenciesContainer {
      * @return An instance of the class you want.
      */
     public <T> T get(String className) {
-        String lowercasename = className.toLowerCase();
+        Object dependency = lookup(className.toLowerCase());
+        return dependency == null ? null : (T)dependency;
+    }
+
+    /**
+     * Finds a dependency in this container, or in the application container unless it is request scoped,
+     * wiring it on first use.
+     * @param lowercasename The name of the class wanted, in lower case.
+     * @return The dependency, or null if it cannot be wired.
+     */
+    private Object lookup(String lowercasename) {
         Object dependency = container.get(lowercasename);
-        if (dependency == null) {
-            try {
-                dependency = wireDependency(lowercasename);
-                container.put(lowercasename, dependency);
-            } catch (InstantiationException ex) {
-                log.warn(ex.getMessage());
-                //throw new PivotTableException(ex.getMessage());
+        if (dependency != null) {
+            return dependency;
+        }
+        boolean requestScoped = REQUEST_SCOPED.contains(lowercasename);
+        if (parent != null && !requestScoped) {
+            return parent.lookup(lowercasename);
+        }
+        if (parent == null && requestScoped) {
+            log.warn("Dependency " + lowercasename + " is request scoped. It must be fetched from a request container.");
+            return null;
+        }
+        // wiring may be requested by several requests at once in the application container
+        synchronized (this) {
+            dependency = container.get(lowercasename);
+            if (dependency == null) {
+                try {
+                    dependency = wireDependency(lowercasename);
+                    container.put(lowercasename, dependency);
+                } catch (InstantiationException ex) {
+                    log.warn(ex.getMessage());
+                    //throw new PivotTableException(ex.getMessage());
+                }
             }
         }
-        return dependency == null ? null : (T)dependency;
+        return dependency;
     }
 
     /**
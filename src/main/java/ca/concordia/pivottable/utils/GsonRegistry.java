@@ -0,0 +1,64 @@
+package ca.concordia.pivottable.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Type;
+
+/**
+ * Holds the Gson instances shared by the whole application.
+ * Gson instances are thread-safe and cache the type adapters they resolve, so they are created once
+ * instead of on every call. The entities serialized on hot paths (PivotTable, PivotTableCells, DataSet,
+ * PivotTableSchema and ShareableSchema) carry hand-written streaming adapters, which these instances pick up.
+ */
+public class GsonRegistry {
+
+    private static final Gson GSON = new Gson();
+
+    private static final Gson PRETTY_GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private GsonRegistry() {
+        // static accessors only
+    }
+
+    /**
+     * @return the shared compact Gson instance
+     */
+    public static Gson getGson() {
+        return GSON;
+    }
+
+    /**
+     * @return the shared Gson instance printing indented JSON
+     */
+    public static Gson getPrettyGson() {
+        return PRETTY_GSON;
+    }
+
+    /**
+     * Writes an object as JSON to a character stream, without building the whole JSON string in memory.
+     * The writer is flushed but not closed.
+     * @param obj the object to write
+     * @param type the type the object is written as
+     * @param writer the stream the JSON is written to
+     * @param pretty true to indent the JSON
+     * @throws IOException in case of error writing to the stream
+     */
+    public static void writeJson(Object obj, Type type, Writer writer, boolean pretty) throws IOException {
+        Gson gson = pretty ? PRETTY_GSON : GSON;
+        JsonWriter jsonWriter = gson.newJsonWriter(writer);
+        try {
+            gson.toJson(obj, type, jsonWriter);
+        } catch (JsonIOException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw ex;
+        }
+        jsonWriter.flush();
+    }
+}
@@ -0,0 +1,61 @@
+package ca.concordia.pivottable.utils;
+
+import ca.concordia.pivottable.entities.DataField;
+import ca.concordia.pivottable.servicelayer.RawReportWriter;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes a raw report as JSON while it is read, in the same shape as a serialized DataSet:
+ * {"columns": [...], "rows": [[...], ...]}.
+ */
+public class JsonRawReportWriter implements RawReportWriter {
+
+    private final Gson gson;
+    private final JsonWriter jsonWriter;
+
+    /**
+     * @param gson Gson instance used to serialize the columns and the field values
+     * @param jsonWriter Writer the JSON is written to. It is flushed by finish() but not closed.
+     */
+    public JsonRawReportWriter(Gson gson, JsonWriter jsonWriter) {
+        this.gson = gson;
+        this.jsonWriter = jsonWriter;
+    }
+
+    @Override
+    public void writeColumns(List<DataField> columns) throws IOException {
+        jsonWriter.beginObject();
+        jsonWriter.name("columns");
+        jsonWriter.beginArray();
+        for (DataField column : columns) {
+            gson.toJson(column, DataField.class, jsonWriter);
+        }
+        jsonWriter.endArray();
+        jsonWriter.name("rows");
+        jsonWriter.beginArray();
+    }
+
+    @Override
+    public void handleRow(Object[] row) throws IOException {
+        jsonWriter.beginArray();
+        for (Object value : row) {
+            if (value == null) {
+                jsonWriter.nullValue();
+            } else {
+                gson.toJson(value, value.getClass(), jsonWriter);
+            }
+        }
+        jsonWriter.endArray();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        jsonWriter.endArray();
+        jsonWriter.endObject();
+        jsonWriter.flush();
+    }
+}
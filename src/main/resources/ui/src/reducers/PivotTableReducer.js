@@ -14,6 +14,13 @@ const numericalFunctions = [
 
 const allFunctions = ['count'].concat(numericalFunctions)
 
+// field types the numerical functions can be applied to
+const numericalTypes = [
+  'TYPE_NUMERIC',
+  'TYPE_INTEGRAL',
+  'TYPE_DECIMAL',
+]
+
 // immutable initial state (everything is immutable)
 const initialState = {
   id: null,
@@ -380,7 +387,7 @@ const pivotTableReducer = (state = initialState, action) => {
               return false;
             }
             if (numericalFunctions.indexOf(action.value) !== -1) {
-              return val.type === 'TYPE_NUMERIC'
+              return numericalTypes.indexOf(val.type) !== -1
             }
             // else (count) -> all fields are good (Done filtering out selected page!)
 